@@ -37,19 +37,32 @@ public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMeta
     private final Producer<String, byte[]> producer;
     private final String topicNameForTraffic;
     private final int bufferSize;
+    private final boolean compressPayloads;
 
     public KafkaCaptureFactory(
         IRootKafkaOffloaderContext rootScope,
         String nodeId,
         Producer<String, byte[]> producer,
         String topicNameForTraffic,
-        int messageSize
+        int messageSize,
+        boolean compressPayloads
     ) {
         this.rootScope = rootScope;
         this.nodeId = nodeId;
         this.producer = producer;
         this.topicNameForTraffic = topicNameForTraffic;
         this.bufferSize = messageSize - KAFKA_MESSAGE_OVERHEAD_BYTES;
+        this.compressPayloads = compressPayloads;
+    }
+
+    public KafkaCaptureFactory(
+        IRootKafkaOffloaderContext rootScope,
+        String nodeId,
+        Producer<String, byte[]> producer,
+        String topicNameForTraffic,
+        int messageSize
+    ) {
+        this(rootScope, nodeId, producer, topicNameForTraffic, messageSize, false);
     }
 
     public KafkaCaptureFactory(
@@ -58,7 +71,27 @@ public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMeta
         Producer<String, byte[]> producer,
         int messageSize
     ) {
-        this(rootScope, nodeId, producer, DEFAULT_TOPIC_NAME_FOR_TRAFFIC, messageSize);
+        this(rootScope, nodeId, producer, DEFAULT_TOPIC_NAME_FOR_TRAFFIC, messageSize, false);
+    }
+
+    public KafkaCaptureFactory(
+        IRootKafkaOffloaderContext rootScope,
+        String nodeId,
+        Producer<String, byte[]> producer,
+        int messageSize,
+        boolean compressPayloads
+    ) {
+        this(rootScope, nodeId, producer, DEFAULT_TOPIC_NAME_FOR_TRAFFIC, messageSize, compressPayloads);
+    }
+
+    /**
+     * Every record for a connection is keyed identically so that Kafka's default partitioner sends all of a
+     * connection's TrafficStreams to the same partition, in order.  That lets each partition be replayed as an
+     * independent shard of whole connections, so that a consumer group can scale out without any one replayer
+     * seeing only fragments of a connection.
+     */
+    public static String getPartitioningKey(String nodeId, String connectionId) {
+        return nodeId + "." + connectionId;
     }
 
     @Override
@@ -66,7 +99,8 @@ public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMeta
         return new StreamChannelConnectionCaptureSerializer<>(
             nodeId,
             ctx.getConnectionId(),
-            new StreamManager(rootScope, ctx)
+            new StreamManager(rootScope, ctx),
+            compressPayloads
         );
     }
 
@@ -124,7 +158,7 @@ public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMeta
             var byteBuffer = osh.byteBuffer;
             ProducerRecord<String, byte[]> kafkaRecord = new ProducerRecord<>(
                 topicNameForTraffic,
-                recordId,
+                getPartitioningKey(nodeId, connectionId),
                 Arrays.copyOfRange(byteBuffer.array(), 0, byteBuffer.position())
             );
             log.debug("Sending Kafka producer record: {} for topic: {}", recordId, topicNameForTraffic);
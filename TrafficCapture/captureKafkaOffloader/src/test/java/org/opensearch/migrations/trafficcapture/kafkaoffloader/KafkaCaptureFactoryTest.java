@@ -78,10 +78,16 @@ public class KafkaCaptureFactoryTest {
         serializer.addReadEvent(referenceTimestamp, bb);
         var future = serializer.flushCommitAndResetStream(true);
         future.get();
+        Assertions.assertTrue(producer.history().size() > 1);
         for (ProducerRecord<String, byte[]> record : producer.history()) {
+            // every record for the connection must land on the same partition
+            Assertions.assertEquals(KafkaCaptureFactory.getPartitioningKey(TEST_NODE_ID_STRING, "test"), record.key());
             int recordSize = calculateRecordSize(record, null);
             Assertions.assertTrue(recordSize <= maxAllowableMessageSize);
-            int largeIdRecordSize = calculateRecordSize(record, connectionId + ".9999999999");
+            int largeIdRecordSize = calculateRecordSize(
+                record,
+                KafkaCaptureFactory.getPartitioningKey(TEST_NODE_ID_STRING, connectionId)
+            );
             Assertions.assertTrue(largeIdRecordSize <= maxAllowableMessageSize);
         }
         bb.release();
@@ -26,18 +26,33 @@ public class FileConnectionCaptureFactory implements IConnectionCaptureFactory<V
     private final BiFunction<String, Integer, FileOutputStream> outputStreamCreator;
     private final String nodeId;
     private final int bufferSize;
+    private final boolean compressPayloads;
 
     public FileConnectionCaptureFactory(
         String nodeId,
         int bufferSize,
-        BiFunction<String, Integer, FileOutputStream> outputStreamCreator
+        BiFunction<String, Integer, FileOutputStream> outputStreamCreator,
+        boolean compressPayloads
     ) {
         this.nodeId = nodeId;
         this.outputStreamCreator = outputStreamCreator;
         this.bufferSize = bufferSize;
+        this.compressPayloads = compressPayloads;
+    }
+
+    public FileConnectionCaptureFactory(
+        String nodeId,
+        int bufferSize,
+        BiFunction<String, Integer, FileOutputStream> outputStreamCreator
+    ) {
+        this(nodeId, bufferSize, outputStreamCreator, false);
     }
 
     public FileConnectionCaptureFactory(String nodeId, int bufferSize, Path rootPath) {
+        this(nodeId, bufferSize, rootPath, false);
+    }
+
+    public FileConnectionCaptureFactory(String nodeId, int bufferSize, Path rootPath, boolean compressPayloads) {
         this(nodeId, bufferSize, (id, n) -> {
             try {
                 var filePath = rootPath.resolve(id + "_" + n.toString() + ".protocap");
@@ -45,11 +60,15 @@ public class FileConnectionCaptureFactory implements IConnectionCaptureFactory<V
             } catch (FileNotFoundException e) {
                 throw Lombok.sneakyThrow(e);
             }
-        });
+        }, compressPayloads);
     }
 
     public FileConnectionCaptureFactory(String nodeId, String path, int bufferSize) {
-        this(nodeId, bufferSize, Paths.get(path));
+        this(nodeId, path, bufferSize, false);
+    }
+
+    public FileConnectionCaptureFactory(String nodeId, String path, int bufferSize, boolean compressPayloads) {
+        this(nodeId, bufferSize, Paths.get(path), compressPayloads);
     }
 
     @AllArgsConstructor
@@ -86,6 +105,11 @@ public class FileConnectionCaptureFactory implements IConnectionCaptureFactory<V
     @Override
     public IChannelConnectionCaptureSerializer<Void> createOffloader(IConnectionContext ctx) {
         final var connectionId = ctx.getConnectionId();
-        return new StreamChannelConnectionCaptureSerializer<>(nodeId, connectionId, new StreamManager(connectionId));
+        return new StreamChannelConnectionCaptureSerializer<>(
+            nodeId,
+            connectionId,
+            new StreamManager(connectionId),
+            compressPayloads
+        );
     }
 }
@@ -0,0 +1,100 @@
+package org.opensearch.migrations.trafficcapture;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.opensearch.migrations.tracing.commoncontexts.IConnectionContext;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Offloads TrafficStreams to a {@link RollingSegmentFileWriter}.  Unlike {@link FileConnectionCaptureFactory},
+ * which creates a file for every TrafficStream, all connections for this node append into the same rolling
+ * series of segment files, named by the nodeId, and durability is amortized across every TrafficStream that
+ * is ready at the same time.
+ */
+@Slf4j
+public class RollingSegmentFileCaptureFactory implements IConnectionCaptureFactory<Void>, AutoCloseable {
+    private final String nodeId;
+    private final int bufferSize;
+    private final boolean compressPayloads;
+    private final RollingSegmentFileWriter segmentWriter;
+
+    public RollingSegmentFileCaptureFactory(
+        String nodeId,
+        int bufferSize,
+        RollingSegmentFileWriter segmentWriter,
+        boolean compressPayloads
+    ) {
+        this.nodeId = nodeId;
+        this.bufferSize = bufferSize;
+        this.segmentWriter = segmentWriter;
+        this.compressPayloads = compressPayloads;
+    }
+
+    public RollingSegmentFileCaptureFactory(
+        String nodeId,
+        int bufferSize,
+        Path segmentDirectory,
+        long maxSegmentBytes,
+        Duration maxSegmentAge,
+        boolean compressPayloads
+    ) throws IOException {
+        this(
+            nodeId,
+            bufferSize,
+            new RollingSegmentFileWriter(segmentDirectory, nodeId, maxSegmentBytes, maxSegmentAge),
+            compressPayloads
+        );
+    }
+
+    @AllArgsConstructor
+    class StreamManager extends OrderedStreamLifecyleManager<Void> {
+        String connectionId;
+
+        @Override
+        public CodedOutputStreamAndByteBufferWrapper createStream() {
+            return new CodedOutputStreamAndByteBufferWrapper(bufferSize);
+        }
+
+        @Override
+        public CompletableFuture<Void> kickoffCloseStream(CodedOutputStreamHolder outputStreamHolder, int index) {
+            if (!(outputStreamHolder instanceof CodedOutputStreamAndByteBufferWrapper)) {
+                throw new IllegalArgumentException(
+                    "Unknown outputStreamHolder sent back to StreamManager: " + outputStreamHolder
+                );
+            }
+            var osh = (CodedOutputStreamAndByteBufferWrapper) outputStreamHolder;
+            // The serializer has already flushed into the buffer, so its position is the length of the TrafficStream.
+            // Hand the writer a view of those bytes rather than a copy.
+            var bb = osh.getByteBuffer().duplicate().flip();
+            return segmentWriter.append(bb).whenComplete((v, t) -> {
+                if (t != null) {
+                    log.atError().setCause(t).setMessage("Failed to write TrafficStream {}.{} to a capture segment")
+                        .addArgument(connectionId)
+                        .addArgument(index)
+                        .log();
+                }
+            });
+        }
+    }
+
+    @Override
+    public IChannelConnectionCaptureSerializer<Void> createOffloader(IConnectionContext ctx) {
+        final var connectionId = ctx.getConnectionId();
+        return new StreamChannelConnectionCaptureSerializer<>(
+            nodeId,
+            connectionId,
+            new StreamManager(connectionId),
+            compressPayloads
+        );
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        segmentWriter.close();
+    }
+}
@@ -0,0 +1,250 @@
+package org.opensearch.migrations.trafficcapture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.protobuf.CodedOutputStream;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Appends length-delimited records (a varint length followed by that many bytes, the same framing as
+ * protobuf's writeDelimitedTo) to a sequence of segment files.  A single writer thread drains all pending
+ * appends, writes them with one gathering write, and then forces them to disk with one fsync before
+ * completing every future in that batch (group commit).
+ * <p>
+ * Segments are named {@code <prefix>.<segmentNumber>.tsseg} and roll over once they would exceed the maximum
+ * size or have been open for longer than the maximum age.  Readers (see the replayer's
+ * SegmentDirectoryTrafficCaptureSource) read each segment from its start and order records by the timestamps
+ * within them, so no separate index is written.
+ */
+@Slf4j
+public class RollingSegmentFileWriter implements AutoCloseable {
+    public static final String SEGMENT_FILE_SUFFIX = ".tsseg";
+    private static final int MAX_RECORDS_PER_BATCH = 4096;
+
+    @AllArgsConstructor
+    private static class PendingAppend {
+        final ByteBuffer record;
+        final CompletableFuture<Void> future;
+    }
+
+    private static final PendingAppend CLOSE_SENTINEL = new PendingAppend(null, null);
+
+    private final Path directory;
+    private final String segmentPrefix;
+    private final long maxSegmentBytes;
+    private final Duration maxSegmentAge;
+    private final Clock clock;
+    private final BlockingQueue<PendingAppend> pendingAppends = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+
+    private long nextSegmentNumber;
+    private FileChannel segmentChannel;
+    private long segmentBytesWritten;
+    private Instant segmentOpenedTime;
+    private volatile boolean closed;
+
+    public RollingSegmentFileWriter(
+        @NonNull Path directory,
+        @NonNull String segmentPrefix,
+        long maxSegmentBytes,
+        @NonNull Duration maxSegmentAge,
+        @NonNull Clock clock
+    ) throws IOException {
+        if (maxSegmentBytes <= 0) {
+            throw new IllegalArgumentException("maxSegmentBytes must be positive");
+        }
+        this.directory = directory;
+        this.segmentPrefix = segmentPrefix;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentAge = maxSegmentAge;
+        this.clock = clock;
+        Files.createDirectories(directory);
+        this.nextSegmentNumber = findNextSegmentNumber(directory, segmentPrefix);
+        this.writerThread = new Thread(this::runWriterLoop, "segmentWriter-" + segmentPrefix);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public RollingSegmentFileWriter(
+        Path directory,
+        String segmentPrefix,
+        long maxSegmentBytes,
+        Duration maxSegmentAge
+    ) throws IOException {
+        this(directory, segmentPrefix, maxSegmentBytes, maxSegmentAge, Clock.systemUTC());
+    }
+
+    public static Path getSegmentPath(Path directory, String segmentPrefix, long segmentNumber) {
+        return directory.resolve(String.format("%s.%010d%s", segmentPrefix, segmentNumber, SEGMENT_FILE_SUFFIX));
+    }
+
+    private static long findNextSegmentNumber(Path directory, String segmentPrefix) throws IOException {
+        var pattern = Pattern.compile(Pattern.quote(segmentPrefix) + "\\.(\\d+)" + Pattern.quote(SEGMENT_FILE_SUFFIX));
+        try (var files = Files.list(directory)) {
+            return files.map(p -> pattern.matcher(p.getFileName().toString()))
+                .filter(Matcher::matches)
+                .mapToLong(m -> Long.parseLong(m.group(1)) + 1)
+                .max()
+                .orElse(0);
+        }
+    }
+
+    /**
+     * Queues the remaining bytes of record to be appended.  The returned future completes once the record has
+     * been written and fsync'ed.  The caller must not modify the buffer until then.
+     */
+    public CompletableFuture<Void> append(@NonNull ByteBuffer record) {
+        var future = new CompletableFuture<Void>();
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException("Writer has already been closed"));
+        } else {
+            pendingAppends.add(new PendingAppend(record, future));
+        }
+        return future;
+    }
+
+    private void runWriterLoop() {
+        var batch = new ArrayList<PendingAppend>();
+        try {
+            while (true) {
+                var first = pendingAppends.poll(getMillisUntilSegmentExpires(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    rollIfExpired();
+                    continue;
+                }
+                batch.add(first);
+                pendingAppends.drainTo(batch, MAX_RECORDS_PER_BATCH - 1);
+                boolean shouldExit = batch.remove(CLOSE_SENTINEL);
+                commitBatch(batch);
+                batch.clear();
+                if (shouldExit) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pendingAppends.drainTo(batch);
+            failPending(batch, new IllegalStateException("Writer was shut down before the record was committed"));
+            closeCurrentSegment();
+        }
+    }
+
+    private long getMillisUntilSegmentExpires() {
+        if (segmentChannel == null) {
+            return Long.MAX_VALUE;
+        }
+        var expiration = segmentOpenedTime.plus(maxSegmentAge);
+        return Math.max(1, Duration.between(clock.instant(), expiration).toMillis());
+    }
+
+    private void rollIfExpired() {
+        if (segmentChannel != null && !clock.instant().isBefore(segmentOpenedTime.plus(maxSegmentAge))) {
+            closeCurrentSegment();
+        }
+    }
+
+    private void commitBatch(List<PendingAppend> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            rollIfExpired();
+            var buffersToWrite = new ArrayList<ByteBuffer>(batch.size() * 2);
+            for (var pendingAppend : batch) {
+                var recordSize = pendingAppend.record.remaining();
+                var framedSize = CodedOutputStream.computeUInt32SizeNoTag(recordSize) + recordSize;
+                if (segmentChannel != null && segmentBytesWritten + framedSize > maxSegmentBytes) {
+                    writeAndForce(buffersToWrite);
+                    closeCurrentSegment();
+                }
+                if (segmentChannel == null) {
+                    openNextSegment();
+                }
+                var lengthPrefix = ByteBuffer.allocate(CodedOutputStream.computeUInt32SizeNoTag(recordSize));
+                CodedOutputStream.newInstance(lengthPrefix).writeUInt32NoTag(recordSize);
+                lengthPrefix.flip();
+                buffersToWrite.add(lengthPrefix);
+                buffersToWrite.add(pendingAppend.record.duplicate());
+                segmentBytesWritten += framedSize;
+            }
+            writeAndForce(buffersToWrite);
+            batch.forEach(p -> p.future.complete(null));
+        } catch (Exception e) {
+            log.atError().setCause(e).setMessage("Failed to commit {} records to segment files for {}")
+                .addArgument(batch.size())
+                .addArgument(segmentPrefix)
+                .log();
+            failPending(batch, e);
+            // Start a fresh segment so that a partial write doesn't corrupt the framing of subsequent records
+            closeCurrentSegment();
+        }
+    }
+
+    private void writeAndForce(List<ByteBuffer> buffersToWrite) throws IOException {
+        if (buffersToWrite.isEmpty()) {
+            return;
+        }
+        var buffers = buffersToWrite.toArray(ByteBuffer[]::new);
+        while (buffers[buffers.length - 1].hasRemaining()) {
+            segmentChannel.write(buffers);
+        }
+        segmentChannel.force(false);
+        buffersToWrite.clear();
+    }
+
+    private void openNextSegment() throws IOException {
+        var segmentPath = getSegmentPath(directory, segmentPrefix, nextSegmentNumber++);
+        log.atInfo().setMessage("Opening new capture segment {}").addArgument(segmentPath).log();
+        segmentChannel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentBytesWritten = 0;
+        segmentOpenedTime = clock.instant();
+    }
+
+    private void closeCurrentSegment() {
+        if (segmentChannel == null) {
+            return;
+        }
+        try (var s = segmentChannel) {
+            s.force(true);
+        } catch (IOException e) {
+            log.atWarn().setCause(e).setMessage("Error while closing capture segment for {}")
+                .addArgument(segmentPrefix)
+                .log();
+        } finally {
+            segmentChannel = null;
+        }
+    }
+
+    private static void failPending(List<PendingAppend> batch, Throwable t) {
+        batch.stream().filter(p -> p != CLOSE_SENTINEL).forEach(p -> p.future.completeExceptionally(t));
+    }
+
+    /**
+     * Commits everything that was appended before this call and then closes the current segment.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        pendingAppends.add(CLOSE_SENTINEL);
+        writerThread.join();
+    }
+}
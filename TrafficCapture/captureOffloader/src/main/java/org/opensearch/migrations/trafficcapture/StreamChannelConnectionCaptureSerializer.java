@@ -8,11 +8,13 @@ import java.nio.channels.GatheringByteChannel;
 import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
+import java.util.zip.Deflater;
 
 import org.opensearch.migrations.trafficcapture.protos.CloseObservation;
 import org.opensearch.migrations.trafficcapture.protos.ConnectionExceptionObservation;
 import org.opensearch.migrations.trafficcapture.protos.EndOfMessageIndication;
 import org.opensearch.migrations.trafficcapture.protos.EndOfSegmentsIndication;
+import org.opensearch.migrations.trafficcapture.protos.PayloadCompression;
 import org.opensearch.migrations.trafficcapture.protos.ReadObservation;
 import org.opensearch.migrations.trafficcapture.protos.ReadSegmentObservation;
 import org.opensearch.migrations.trafficcapture.protos.RequestIntentionallyDropped;
@@ -27,6 +29,7 @@ import com.google.protobuf.Descriptors;
 import com.google.protobuf.Timestamp;
 import com.google.protobuf.WireFormat;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
@@ -64,12 +67,19 @@ import lombok.extern.slf4j.Slf4j;
  * 3: 1
  * }
  * </pre>
+ * <p>
+ * When payload compression is enabled, each TrafficStream is marked with its
+ * {@link PayloadCompression} codec (field 8) and the data field of every read/write observation and
+ * segment is deflated independently.  Because each data field is self-contained, a consumer can inflate
+ * any observation without needing to see the other observations or TrafficStreams of the connection.
  */
 @Slf4j
 public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConnectionCaptureSerializer<T> {
 
     // 100 is the default size of netty connectionId and kafka nodeId along with serializationTags
     private static final int MAX_ID_SIZE = 100;
+    // larger outputs get a buffer of their own so that idle connections don't each hold onto a big one
+    private static final int MAX_RETAINED_DEFLATE_OUTPUT_BYTES = 64 * 1024;
 
     private boolean readObservationsAreWaitingForEom;
     private int eomsSoFar;
@@ -81,18 +91,39 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
     private final StreamLifecycleManager<T> streamManager;
     private final String nodeIdString;
     private final String connectionIdString;
+    private final boolean compressPayloads;
     private CodedOutputStreamHolder currentCodedOutputStreamHolderOrNull;
+    /**
+     * Reset and reused for every observation that's compressed, rather than setting up a new zlib stream for
+     * each one.  This is created upon first use and ended once the final TrafficStream has been flushed.
+     */
+    private Deflater deflater;
+    private byte[] deflateOutputBuffer;
 
     public StreamChannelConnectionCaptureSerializer(
         String nodeId,
         String connectionId,
         @NonNull StreamLifecycleManager<T> streamLifecycleManager
+    ) {
+        this(nodeId, connectionId, streamLifecycleManager, false);
+    }
+
+    /**
+     * @param compressPayloads when true, the data of every read/write observation is deflated and each
+     *                         TrafficStream is marked with {@link PayloadCompression#DEFLATE}
+     */
+    public StreamChannelConnectionCaptureSerializer(
+        String nodeId,
+        String connectionId,
+        @NonNull StreamLifecycleManager<T> streamLifecycleManager,
+        boolean compressPayloads
     ) {
         this.streamManager = streamLifecycleManager;
         assert (nodeId == null ? 0 : CodedOutputStream.computeStringSize(TrafficStream.NODEID_FIELD_NUMBER, nodeId))
             + CodedOutputStream.computeStringSize(TrafficStream.CONNECTIONID_FIELD_NUMBER, connectionId) <= MAX_ID_SIZE;
         this.connectionIdString = connectionId;
         this.nodeIdString = nodeId;
+        this.compressPayloads = compressPayloads;
     }
 
     private static int getWireTypeForFieldIndex(Descriptors.Descriptor d, int fieldNumber) {
@@ -138,6 +169,13 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
                     readObservationsAreWaitingForEom
                 );
             }
+            if (compressPayloads) {
+                // e.g. <pre> 8: 1 </pre>
+                currentCodedOutputStream.writeEnum(
+                    TrafficStream.PAYLOADCOMPRESSION_FIELD_NUMBER,
+                    PayloadCompression.DEFLATE_VALUE
+                );
+            }
             return currentCodedOutputStreamHolderOrNull;
         }
     }
@@ -316,6 +354,7 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
             currentCodedOutputStreamHolderOrNull = null;
             if (isFinal) {
                 streamHasBeenClosed = true;
+                endDeflater();
             }
         }
     }
@@ -380,6 +419,31 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
 
     private void addDataMessage(int captureFieldNumber, int dataFieldNumber, Instant timestamp, ByteBuf buf)
         throws IOException {
+        if (compressPayloads && buf.readableBytes() > 0) {
+            var compressedBuf = deflate(buf.duplicate());
+            try {
+                addDataMessage(captureFieldNumber, dataFieldNumber, timestamp, compressedBuf, buf);
+            } finally {
+                compressedBuf.release();
+            }
+        } else {
+            addDataMessage(captureFieldNumber, dataFieldNumber, timestamp, buf, buf);
+        }
+    }
+
+    /**
+     * @param buf the bytes that will be written if the observation fits into the current stream without segmenting
+     * @param originalBuf the (uncompressed) bytes that were observed.  When payloads are not being compressed,
+     *                    this is the same as buf.  When they are, segments are carved from these bytes and each
+     *                    segment is compressed independently so that no segment depends upon another one.
+     */
+    private void addDataMessage(
+        int captureFieldNumber,
+        int dataFieldNumber,
+        Instant timestamp,
+        ByteBuf buf,
+        ByteBuf originalBuf
+    ) throws IOException {
         int segmentFieldNumber;
         int segmentDataFieldNumber;
         if (captureFieldNumber == TrafficObservation.READ_FIELD_NUMBER) {
@@ -405,8 +469,10 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
         final int dataSize = CodedOutputStreamSizeUtil.computeByteBufRemainingSizeNoTag(buf);
         final int trafficStreamOverhead = messageAndOverheadBytesLeft - dataSize;
 
-        // Writing one data byte requires two bytes to account for length byte
-        final int maxBytesNeededForOneSegmentWithOneDataByteWithLengthByte = trafficStreamOverhead + 2;
+        // Writing one data byte requires two bytes to account for length byte.  When compressing, that one byte
+        // also needs space for the worst-case deflate framing.
+        final int maxBytesNeededForOneSegmentWithOneDataByteWithLengthByte = trafficStreamOverhead
+            + (compressPayloads ? computeDeflateBound(1) + 2 : 2);
 
         flushIfNeeded(maxBytesNeededForOneSegmentWithOneDataByteWithLengthByte);
         var spaceLeft = currentOutputStreamWriteableSpaceLeft();
@@ -419,23 +485,115 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
             addSubstreamMessage(captureFieldNumber, dataFieldNumber, timestamp, bufToRead);
             observationSizeSanityCheck(minExpectedSpaceAfterObservation, captureFieldNumber);
         } else {
-            while (bufToRead.readableBytes() > 0) {
-                spaceLeft = currentOutputStreamWriteableSpaceLeft();
-                var bytesToRead = computeMaxLengthDelimitedFieldSizeForSpace(
+            addSegmentMessages(
+                segmentFieldNumber,
+                segmentDataFieldNumber,
+                trafficStreamOverhead,
+                maxBytesNeededForOneSegmentWithOneDataByteWithLengthByte,
+                timestamp,
+                originalBuf.duplicate()
+            );
+            writeEndOfSegmentMessage(timestamp);
+        }
+    }
+
+    private void addSegmentMessages(
+        int segmentFieldNumber,
+        int segmentDataFieldNumber,
+        int trafficStreamOverhead,
+        int maxBytesNeededForOneSegmentWithOneDataByteWithLengthByte,
+        Instant timestamp,
+        ByteBuf bufToRead
+    ) throws IOException {
+        while (bufToRead.readableBytes() > 0) {
+            var spaceLeft = currentOutputStreamWriteableSpaceLeft();
+            int bytesToWrite;
+            if (compressPayloads) {
+                var maxCompressedBytes = computeMaxLengthDelimitedFieldSizeForSpace(
+                    spaceLeft - trafficStreamOverhead,
+                    Integer.MAX_VALUE
+                );
+                bytesToWrite = Math.min(
+                    computeMaxDeflateInputSizeForSpace(maxCompressedBytes),
+                    bufToRead.readableBytes()
+                );
+            } else {
+                bytesToWrite = computeMaxLengthDelimitedFieldSizeForSpace(
                     spaceLeft - trafficStreamOverhead,
                     bufToRead.readableBytes()
                 );
-                if (bytesToRead <= 0) {
-                    throw new IllegalStateException("Stream space is not allowing forward progress on byteBuf reading");
+            }
+            if (bytesToWrite <= 0) {
+                throw new IllegalStateException("Stream space is not allowing forward progress on byteBuf reading");
+            }
+            var bufSliceToRead = bufToRead.readSlice(bytesToWrite);
+            if (compressPayloads) {
+                var compressedSlice = deflate(bufSliceToRead);
+                try {
+                    addSubstreamMessage(segmentFieldNumber, segmentDataFieldNumber, timestamp, compressedSlice);
+                } finally {
+                    compressedSlice.release();
                 }
-                var bufSliceToRead = bufToRead.readSlice(bytesToRead);
+            } else {
                 addSubstreamMessage(segmentFieldNumber, segmentDataFieldNumber, timestamp, bufSliceToRead);
-                if (bufToRead.readableBytes() > 0) {
-                    flushIfNeeded(maxBytesNeededForOneSegmentWithOneDataByteWithLengthByte);
-                }
             }
-            writeEndOfSegmentMessage(timestamp);
+            if (bufToRead.readableBytes() > 0) {
+                flushIfNeeded(maxBytesNeededForOneSegmentWithOneDataByteWithLengthByte);
+            }
+        }
+    }
+
+    /**
+     * Upper bound for the number of bytes that deflate can produce for an input of the given size.  This is the
+     * same bound that zlib's compressBound() uses and accounts for the worst case where every block must be
+     * stored verbatim, plus the zlib header and checksum.
+     */
+    public static int computeDeflateBound(int inputSize) {
+        return inputSize + (inputSize >> 12) + (inputSize >> 14) + (inputSize >> 25) + 13;
+    }
+
+    /**
+     * Computes the largest input size whose deflated output is guaranteed to fit within availableSpace bytes.
+     */
+    public static int computeMaxDeflateInputSizeForSpace(int availableSpace) {
+        return availableSpace - (availableSpace >> 12) - (availableSpace >> 14) - (availableSpace >> 25) - 14;
+    }
+
+    /**
+     * @return the deflated bytes, which may share a buffer with the result of the next call, so they must be
+     * written out before deflating anything else
+     */
+    private ByteBuf deflate(ByteBuf buf) {
+        if (deflater == null) {
+            deflater = new Deflater();
+        } else {
+            deflater.reset();
+        }
+        var maxOutputSize = computeDeflateBound(buf.readableBytes());
+        byte[] output;
+        if (maxOutputSize > MAX_RETAINED_DEFLATE_OUTPUT_BYTES) {
+            output = new byte[maxOutputSize];
+        } else {
+            if (deflateOutputBuffer == null || deflateOutputBuffer.length < maxOutputSize) {
+                deflateOutputBuffer = new byte[maxOutputSize];
+            }
+            output = deflateOutputBuffer;
+        }
+        deflater.setInput(buf.nioBuffer());
+        deflater.finish();
+        int outputSize = 0;
+        while (!deflater.finished()) {
+            outputSize += deflater.deflate(output, outputSize, maxOutputSize - outputSize);
+        }
+        return Unpooled.wrappedBuffer(output, 0, outputSize);
+    }
+
+    private void endDeflater() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
         }
+        deflateOutputBuffer = null;
     }
 
     private void addSubstreamMessage(
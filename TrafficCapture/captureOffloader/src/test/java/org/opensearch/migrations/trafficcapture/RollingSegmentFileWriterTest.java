@@ -0,0 +1,130 @@
+package org.opensearch.migrations.trafficcapture;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import com.google.protobuf.CodedInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RollingSegmentFileWriterTest {
+
+    static class SettableClock extends Clock {
+        Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("segmentWriterTest");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (var p : files.collect(Collectors.toList())) {
+                Files.delete(p);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static ByteBuffer record(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> readRecords(Path segment) throws IOException {
+        var cis = CodedInputStream.newInstance(new ByteArrayInputStream(Files.readAllBytes(segment)));
+        var records = new ArrayList<String>();
+        while (!cis.isAtEnd()) {
+            records.add(cis.readBytes().toStringUtf8());
+        }
+        return records;
+    }
+
+    @Test
+    void testSegmentsRollOverBySize() throws Exception {
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        // each record is 10 bytes + a 1 byte length prefix, so 2 of them fit into a 25 byte segment
+        try (var writer = new RollingSegmentFileWriter(directory, "node1", 25, Duration.ofHours(1))) {
+            for (int i = 0; i < 5; ++i) {
+                futures.add(writer.append(record("record-00" + i)));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+        }
+
+        var records = new ArrayList<String>();
+        for (int n = 0; n < 3; ++n) {
+            var segment = RollingSegmentFileWriter.getSegmentPath(directory, "node1", n);
+            var segmentRecords = readRecords(segment);
+            Assertions.assertTrue(segmentRecords.size() <= 2);
+            records.addAll(segmentRecords);
+        }
+        Assertions.assertFalse(Files.exists(RollingSegmentFileWriter.getSegmentPath(directory, "node1", 3)));
+        try (var files = Files.list(directory)) {
+            Assertions.assertEquals(3, files.count(), "only segment files are written");
+        }
+        Assertions.assertEquals(
+            List.of("record-000", "record-001", "record-002", "record-003", "record-004"),
+            records
+        );
+    }
+
+    @Test
+    void testSegmentsRollOverByAgeAndNumberingContinuesAcrossRestarts() throws Exception {
+        var clock = new SettableClock();
+        try (var writer = new RollingSegmentFileWriter(directory, "node1", 1024, Duration.ofMinutes(1), clock)) {
+            writer.append(record("first")).get();
+            clock.now = clock.now.plus(Duration.ofMinutes(2));
+            writer.append(record("second")).get();
+        }
+        try (var writer = new RollingSegmentFileWriter(directory, "node1", 1024, Duration.ofMinutes(1), clock)) {
+            writer.append(record("third")).get();
+        }
+
+        Assertions.assertEquals(List.of("first"), readRecords(RollingSegmentFileWriter.getSegmentPath(directory,
+            "node1", 0)));
+        Assertions.assertEquals(List.of("second"), readRecords(RollingSegmentFileWriter.getSegmentPath(directory,
+            "node1", 1)));
+        Assertions.assertEquals(List.of("third"), readRecords(RollingSegmentFileWriter.getSegmentPath(directory,
+            "node1", 2)));
+    }
+
+    @Test
+    void testAppendsAfterCloseFail() throws Exception {
+        var writer = new RollingSegmentFileWriter(directory, "node1", 1024, Duration.ofHours(1));
+        writer.close();
+        var future = writer.append(record("late"));
+        Assertions.assertTrue(future.isCompletedExceptionally());
+    }
+}
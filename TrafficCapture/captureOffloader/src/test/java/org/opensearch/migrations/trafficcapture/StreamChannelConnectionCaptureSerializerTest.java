@@ -1,5 +1,6 @@
 package org.opensearch.migrations.trafficcapture;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -9,9 +10,12 @@ import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 import org.opensearch.migrations.testutils.WrapWithNettyLeakDetection;
 import org.opensearch.migrations.trafficcapture.StreamChannelConnectionCaptureSerializerTest.StreamManager.NullStreamManager;
@@ -19,6 +23,7 @@ import org.opensearch.migrations.trafficcapture.protos.CloseObservation;
 import org.opensearch.migrations.trafficcapture.protos.ConnectionExceptionObservation;
 import org.opensearch.migrations.trafficcapture.protos.EndOfMessageIndication;
 import org.opensearch.migrations.trafficcapture.protos.EndOfSegmentsIndication;
+import org.opensearch.migrations.trafficcapture.protos.PayloadCompression;
 import org.opensearch.migrations.trafficcapture.protos.ReadObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
@@ -684,6 +689,115 @@ class StreamChannelConnectionCaptureSerializerTest {
         return Math.min(maxWriteBytesSpace, requestedWriteableSpace);
     }
 
+    @Test
+    public void testCompressedPayloadsAreMarkedAndInflateToOriginal() throws Exception {
+        var packetBytes = FAKE_READ_PACKET_DATA.repeat(500).getBytes(StandardCharsets.UTF_8);
+        var outputBuffersCreated = new ConcurrentLinkedQueue<ByteBuffer>();
+        var serializer = new StreamChannelConnectionCaptureSerializer<>(
+            TEST_NODE_ID_STRING,
+            TEST_TRAFFIC_STREAM_ID_STRING,
+            new StreamManager(1024 * 1024, outputBuffersCreated),
+            true
+        );
+
+        var bb = Unpooled.wrappedBuffer(packetBytes);
+        serializer.addReadEvent(REFERENCE_TIMESTAMP, bb);
+        serializer.flushCommitAndResetStream(true).get();
+        bb.release();
+
+        Assertions.assertEquals(1, outputBuffersCreated.size());
+        var trafficStream = TrafficStream.parseFrom(outputBuffersCreated.peek());
+        Assertions.assertEquals(PayloadCompression.DEFLATE, trafficStream.getPayloadCompression());
+        var compressedData = trafficStream.getSubStream(0).getRead().getData();
+        Assertions.assertTrue(compressedData.size() < packetBytes.length / 10);
+        Assertions.assertArrayEquals(packetBytes, inflate(compressedData.toByteArray()));
+    }
+
+    @Test
+    public void testIncompressiblePayloadsAreSegmentedIntoIndependentlyInflatableChunks() throws Exception {
+        var packetBytes = new byte[64 * 1024];
+        new Random(1).nextBytes(packetBytes);
+        var bufferSize = 16 * 1024;
+        var outputBuffersCreated = new ConcurrentLinkedQueue<ByteBuffer>();
+        var serializer = new StreamChannelConnectionCaptureSerializer<>(
+            TEST_NODE_ID_STRING,
+            TEST_TRAFFIC_STREAM_ID_STRING,
+            new StreamManager(bufferSize, outputBuffersCreated),
+            true
+        );
+
+        var bb = Unpooled.wrappedBuffer(packetBytes);
+        serializer.addWriteEvent(REFERENCE_TIMESTAMP, bb);
+        serializer.flushCommitAndResetStream(true).get();
+        bb.release();
+
+        var trafficStreams = new ArrayList<TrafficStream>();
+        for (var buffer : outputBuffersCreated) {
+            Assertions.assertTrue(buffer.remaining() <= bufferSize);
+            trafficStreams.add(TrafficStream.parseFrom(buffer));
+        }
+        trafficStreams.sort(
+            Comparator.comparingInt(StreamChannelConnectionCaptureSerializerTest::getIndexForTrafficStream)
+        );
+        Assertions.assertTrue(trafficStreams.size() > 4);
+        var reconstructedData = new ByteArrayOutputStream();
+        for (var trafficStream : trafficStreams) {
+            Assertions.assertEquals(PayloadCompression.DEFLATE, trafficStream.getPayloadCompression());
+            for (var observation : trafficStream.getSubStreamList()) {
+                if (observation.hasWriteSegment()) {
+                    reconstructedData.write(inflate(observation.getWriteSegment().getData().toByteArray()));
+                }
+            }
+        }
+        Assertions.assertArrayEquals(packetBytes, reconstructedData.toByteArray());
+    }
+
+    @Test
+    public void testEachCompressedObservationInflatesIndependentlyOfThePreviousOnes() throws Exception {
+        var payloads = List.of(
+            FAKE_READ_PACKET_DATA.repeat(200),
+            "a",
+            FAKE_READ_PACKET_DATA,
+            FAKE_READ_PACKET_DATA.repeat(20)
+        );
+        var outputBuffersCreated = new ConcurrentLinkedQueue<ByteBuffer>();
+        var serializer = new StreamChannelConnectionCaptureSerializer<>(
+            TEST_NODE_ID_STRING,
+            TEST_TRAFFIC_STREAM_ID_STRING,
+            new StreamManager(1024 * 1024, outputBuffersCreated),
+            true
+        );
+        for (var payload : payloads) {
+            var bb = Unpooled.wrappedBuffer(payload.getBytes(StandardCharsets.UTF_8));
+            serializer.addReadEvent(REFERENCE_TIMESTAMP, bb);
+            bb.release();
+        }
+        serializer.flushCommitAndResetStream(true).get();
+
+        Assertions.assertEquals(1, outputBuffersCreated.size());
+        var observations = TrafficStream.parseFrom(outputBuffersCreated.peek()).getSubStreamList();
+        Assertions.assertEquals(payloads.size(), observations.size());
+        for (int i = 0; i < payloads.size(); ++i) {
+            var inflated = inflate(observations.get(i).getRead().getData().toByteArray());
+            Assertions.assertEquals(payloads.get(i), new String(inflated, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static byte[] inflate(byte[] compressedBytes) throws DataFormatException {
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(compressedBytes);
+            var output = new ByteArrayOutputStream();
+            var buffer = new byte[1024];
+            while (!inflater.finished()) {
+                output.write(buffer, 0, inflater.inflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
     @Test
     public void testInitializationWithRealIds() {
         final String realNodeId = "b671d2f2-577b-414e-9eb4-8bc3e89ee182";
@@ -0,0 +1,541 @@
+package org.opensearch.migrations.trafficcapture.netty;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpConstants;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An incremental scanner that finds the boundaries of HTTP/1.x requests directly over the bytes that are read
+ * from a client.  This replaces running a full HttpRequestDecoder just to learn where each request begins and
+ * ends.  The scanner only extracts what the capture handlers need: the first line, the lengths of the first line
+ * and of the headers (with the same accounting that Netty's HttpMessageDecoderResult uses), the content-length or
+ * chunked framing of the body, and the values of the few headers that a RequestCapturePredicate asked for.
+ * <p>
+ * Body bytes are skipped without being copied or sliced.  The only per-connection state is a line buffer that
+ * grows to the longest line (up to MAX_STORED_LINE_LENGTH) and a single HttpRequest object that is reused for
+ * every request.  That request object, and the values returned from its accessors, are only valid until the
+ * next call to {@link #scan(ByteBuf)}.
+ */
+@Slf4j
+class HttpRequestBoundaryScanner {
+
+    public interface Listener {
+        /**
+         * Called once the first line and all headers of a request have been scanned.
+         */
+        void onHeadersScanned(ScannedHttpRequest request);
+
+        /**
+         * Called once every byte of the request, including its body and any trailers, have been scanned.
+         */
+        void onRequestScanned(ScannedHttpRequest request);
+    }
+
+    private enum State {
+        SKIP_CONTROL_CHARS,
+        FIRST_LINE,
+        HEADER_LINE,
+        FIXED_LENGTH_BODY,
+        CHUNK_SIZE_LINE,
+        CHUNK_DATA,
+        CHUNK_DATA_DELIMITER_LINE,
+        TRAILER_LINE,
+        BAD_MESSAGE
+    }
+
+    private static final int INITIAL_LINE_BUFFER_SIZE = 256;
+    static final int MAX_STORED_LINE_LENGTH = 16 * 1024;
+
+    private static final byte[] CONTENT_LENGTH_BYTES = HttpHeaderNames.CONTENT_LENGTH.toString()
+        .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRANSFER_ENCODING_BYTES = HttpHeaderNames.TRANSFER_ENCODING.toString()
+        .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CHUNKED_BYTES = "chunked".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONNECTION_BYTES = HttpHeaderNames.CONNECTION.toString()
+        .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UPGRADE_BYTES = HttpHeaderNames.UPGRADE.toString()
+        .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLOSE_BYTES = "close".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEEP_ALIVE_BYTES = "keep-alive".getBytes(StandardCharsets.US_ASCII);
+    private static final HttpMethod[] KNOWN_METHODS = new HttpMethod[] {
+        HttpMethod.GET,
+        HttpMethod.POST,
+        HttpMethod.PUT,
+        HttpMethod.DELETE,
+        HttpMethod.HEAD,
+        HttpMethod.OPTIONS,
+        HttpMethod.PATCH,
+        HttpMethod.TRACE,
+        HttpMethod.CONNECT };
+
+    private final Listener listener;
+    private final String[] preservedHeaderNames;
+    private final byte[][] preservedHeaderNameBytes;
+    private final ScannedHttpRequest request;
+
+    private State state = State.SKIP_CONTROL_CHARS;
+    private byte[] lineBuffer = new byte[INITIAL_LINE_BUFFER_SIZE];
+    private int lineBytesStored;
+    private int lineLength;
+    private boolean lastLineByteWasCr;
+    private long bodyBytesRemaining;
+    private long chunkSize;
+    private boolean chunkSizeIsComplete;
+    private boolean chunkSizeIsInvalid;
+
+    private long contentLength;
+    private boolean isChunked;
+    private boolean hasConnectionClose;
+    private boolean hasConnectionKeepAlive;
+    private boolean hasUpgrade;
+    private int headersLength;
+    /**
+     * The lengths of the most recently completed request.  These are kept separately from the in-progress values
+     * since a single read may complete one request and begin the next one.
+     */
+    @Getter
+    private int lastCompletedInitialLineLength;
+    @Getter
+    private int lastCompletedHeadersLength;
+    @Getter
+    private long completedRequestCount;
+    /**
+     * False once any request on this connection has asked for the connection to be closed or upgraded, was a
+     * HEAD or CONNECT (whose responses can't be framed without pairing them to the request), or couldn't be
+     * parsed.  After that, the upstream connection must not be handed to another client.
+     */
+    @Getter
+    private boolean connectionReusable = true;
+
+    public HttpRequestBoundaryScanner(
+        @NonNull PassThruHttpHeaders.HttpHeadersToPreserve headersToPreserve,
+        @NonNull Listener listener
+    ) {
+        this.listener = listener;
+        var names = headersToPreserve.getHeaderNames();
+        this.preservedHeaderNames = names.toArray(String[]::new);
+        this.preservedHeaderNameBytes = new byte[preservedHeaderNames.length][];
+        for (int i = 0; i < preservedHeaderNames.length; ++i) {
+            preservedHeaderNameBytes[i] = preservedHeaderNames[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        this.request = new ScannedHttpRequest(new PassThruHttpHeaders(headersToPreserve));
+    }
+
+    /**
+     * Scans all the readable bytes of buf without modifying its reader or writer indices, firing the listener's
+     * callbacks as request boundaries are found.
+     */
+    public void scan(ByteBuf buf) {
+        int index = buf.readerIndex();
+        final int end = buf.writerIndex();
+        while (index < end) {
+            switch (state) {
+                case SKIP_CONTROL_CHARS:
+                    index = skipControlChars(buf, index, end);
+                    break;
+                case FIXED_LENGTH_BODY:
+                case CHUNK_DATA:
+                    index = skipBodyBytes(index, end);
+                    break;
+                case BAD_MESSAGE:
+                    // Like Netty's decoder, once the stream can't be parsed, the rest of the connection is ignored
+                    return;
+                default:
+                    index = scanLine(buf, index, end);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * True when every byte scanned so far belongs to a request that has been completely scanned.
+     */
+    public boolean isBetweenRequests() {
+        return state == State.SKIP_CONTROL_CHARS;
+    }
+
+    private int skipControlChars(ByteBuf buf, int index, int end) {
+        for (; index < end; ++index) {
+            var c = (char) (buf.getByte(index) & 0xff);
+            if (!Character.isISOControl(c) && !Character.isWhitespace(c)) {
+                startNewLine();
+                state = State.FIRST_LINE;
+                break;
+            }
+        }
+        return index;
+    }
+
+    private int skipBodyBytes(int index, int end) {
+        var bytesToSkip = (int) Math.min(bodyBytesRemaining, end - (long) index);
+        bodyBytesRemaining -= bytesToSkip;
+        if (bodyBytesRemaining == 0) {
+            if (state == State.FIXED_LENGTH_BODY) {
+                finishRequest();
+            } else {
+                startNewLine();
+                state = State.CHUNK_DATA_DELIMITER_LINE;
+            }
+        }
+        return index + bytesToSkip;
+    }
+
+    private int scanLine(ByteBuf buf, int index, int end) {
+        for (; index < end; ++index) {
+            var b = buf.getByte(index);
+            if (b == HttpConstants.LF) {
+                // Drop CR if we had a CRLF pair, matching Netty's accounting for header sizes
+                if (lastLineByteWasCr) {
+                    if (lineBytesStored == lineLength) {
+                        --lineBytesStored;
+                    }
+                    --lineLength;
+                }
+                onLineComplete();
+                return index + 1;
+            }
+            appendToLine(b);
+        }
+        return index;
+    }
+
+    private void appendToLine(byte b) {
+        if (state == State.CHUNK_SIZE_LINE) {
+            accumulateChunkSize(b);
+        }
+        ++lineLength;
+        lastLineByteWasCr = b == HttpConstants.CR;
+        if (lineBytesStored == lineBuffer.length && lineBuffer.length < MAX_STORED_LINE_LENGTH) {
+            var newBuffer = new byte[Math.min(lineBuffer.length * 2, MAX_STORED_LINE_LENGTH)];
+            System.arraycopy(lineBuffer, 0, newBuffer, 0, lineBytesStored);
+            lineBuffer = newBuffer;
+        }
+        if (lineBytesStored < lineBuffer.length) {
+            lineBuffer[lineBytesStored++] = b;
+        }
+    }
+
+    private void startNewLine() {
+        lineBytesStored = 0;
+        lineLength = 0;
+        lastLineByteWasCr = false;
+    }
+
+    private void onLineComplete() {
+        switch (state) {
+            case FIRST_LINE:
+                onFirstLine();
+                break;
+            case HEADER_LINE:
+                if (lineLength == 0) {
+                    onEndOfHeaders();
+                } else {
+                    headersLength += lineLength;
+                    onHeaderLine();
+                }
+                break;
+            case CHUNK_SIZE_LINE:
+                onChunkSizeLine();
+                break;
+            case CHUNK_DATA_DELIMITER_LINE:
+                state = State.CHUNK_SIZE_LINE;
+                resetChunkSize();
+                break;
+            case TRAILER_LINE:
+                if (lineLength == 0) {
+                    finishRequest();
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unexpected state for a completed line: " + state);
+        }
+        startNewLine();
+    }
+
+    private void onFirstLine() {
+        int firstSpace = indexOf(HttpConstants.SP, 0, lineBytesStored);
+        int lastSpace = lastIndexOf(HttpConstants.SP, lineBytesStored);
+        if (firstSpace <= 0 || lastSpace <= firstSpace) {
+            onBadMessage("Could not parse the first line of the request");
+            return;
+        }
+        request.headers().clear();
+        request.setMethod(parseMethod(firstSpace));
+        request.setProtocolVersion(parseVersion(lastSpace + 1));
+        request.setUriBytes(lineBuffer, firstSpace + 1, lastSpace);
+        request.initialLineLength = lineLength;
+        headersLength = 0;
+        contentLength = -1;
+        isChunked = false;
+        hasConnectionClose = false;
+        hasConnectionKeepAlive = false;
+        hasUpgrade = false;
+        state = State.HEADER_LINE;
+    }
+
+    private void onHeaderLine() {
+        int colon = indexOf((byte) ':', 0, lineBytesStored);
+        if (colon <= 0) {
+            // a folded continuation or malformed header; neither affects the framing that we care about
+            return;
+        }
+        int nameEnd = colon;
+        while (nameEnd > 0 && isLinearWhitespace(lineBuffer[nameEnd - 1])) {
+            --nameEnd;
+        }
+        int valueStart = colon + 1;
+        while (valueStart < lineBytesStored && isLinearWhitespace(lineBuffer[valueStart])) {
+            ++valueStart;
+        }
+        int valueEnd = lineBytesStored;
+        while (valueEnd > valueStart && isLinearWhitespace(lineBuffer[valueEnd - 1])) {
+            --valueEnd;
+        }
+
+        if (equalsIgnoreCase(CONTENT_LENGTH_BYTES, 0, nameEnd)) {
+            contentLength = parseContentLength(valueStart, valueEnd);
+            if (contentLength < 0) {
+                onBadMessage("Invalid content-length header value");
+                return;
+            }
+        } else if (equalsIgnoreCase(TRANSFER_ENCODING_BYTES, 0, nameEnd)) {
+            isChunked |= containsIgnoreCase(CHUNKED_BYTES, valueStart, valueEnd);
+        } else if (equalsIgnoreCase(CONNECTION_BYTES, 0, nameEnd)) {
+            hasConnectionClose |= containsIgnoreCase(CLOSE_BYTES, valueStart, valueEnd);
+            hasConnectionKeepAlive |= containsIgnoreCase(KEEP_ALIVE_BYTES, valueStart, valueEnd);
+        } else if (equalsIgnoreCase(UPGRADE_BYTES, 0, nameEnd)) {
+            hasUpgrade = true;
+        }
+        for (int i = 0; i < preservedHeaderNameBytes.length; ++i) {
+            if (equalsIgnoreCase(preservedHeaderNameBytes[i], 0, nameEnd)) {
+                request.headers()
+                    .add(
+                        preservedHeaderNames[i],
+                        new String(lineBuffer, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1)
+                    );
+            }
+        }
+    }
+
+    private void onEndOfHeaders() {
+        request.headersLength = headersLength;
+        listener.onHeadersScanned(request);
+        if (isChunked) {
+            state = State.CHUNK_SIZE_LINE;
+            resetChunkSize();
+        } else if (contentLength > 0) {
+            bodyBytesRemaining = contentLength;
+            state = State.FIXED_LENGTH_BODY;
+        } else {
+            finishRequest();
+        }
+    }
+
+    private void resetChunkSize() {
+        chunkSize = 0;
+        chunkSizeIsComplete = false;
+        chunkSizeIsInvalid = false;
+    }
+
+    private void accumulateChunkSize(byte b) {
+        if (chunkSizeIsComplete) {
+            return;
+        }
+        int digit = Character.digit((char) (b & 0xff), 16);
+        if (digit >= 0) {
+            chunkSize = (chunkSize << 4) + digit;
+            if (chunkSize < 0 || chunkSize > Integer.MAX_VALUE) {
+                chunkSizeIsInvalid = true;
+            }
+        } else if (b == ';' || isLinearWhitespace(b) || b == HttpConstants.CR) {
+            chunkSizeIsComplete = true;
+        } else {
+            chunkSizeIsInvalid = true;
+        }
+    }
+
+    private void onChunkSizeLine() {
+        if (chunkSizeIsInvalid || lineLength == 0) {
+            onBadMessage("Invalid chunk size line");
+        } else if (chunkSize == 0) {
+            state = State.TRAILER_LINE;
+        } else {
+            bodyBytesRemaining = chunkSize;
+            state = State.CHUNK_DATA;
+        }
+    }
+
+    private void finishRequest() {
+        lastCompletedInitialLineLength = request.initialLineLength;
+        lastCompletedHeadersLength = request.headersLength;
+        ++completedRequestCount;
+        connectionReusable &= requestAllowsConnectionReuse();
+        state = State.SKIP_CONTROL_CHARS;
+        listener.onRequestScanned(request);
+    }
+
+    private boolean requestAllowsConnectionReuse() {
+        var method = request.method();
+        if (HttpMethod.HEAD.equals(method) || HttpMethod.CONNECT.equals(method) || hasUpgrade || hasConnectionClose) {
+            return false;
+        }
+        return request.protocolVersion().isKeepAliveDefault() || hasConnectionKeepAlive;
+    }
+
+    private void onBadMessage(String reason) {
+        log.atWarn()
+            .setMessage("{}.  The rest of the bytes for this connection will not be scanned for request boundaries.")
+            .addArgument(reason)
+            .log();
+        state = State.BAD_MESSAGE;
+        connectionReusable = false;
+    }
+
+    private HttpMethod parseMethod(int methodEnd) {
+        for (var method : KNOWN_METHODS) {
+            if (lineMatches(method.name(), 0, methodEnd)) {
+                return method;
+            }
+        }
+        return HttpMethod.valueOf(new String(lineBuffer, 0, methodEnd, StandardCharsets.US_ASCII));
+    }
+
+    private HttpVersion parseVersion(int versionStart) {
+        if (lineMatches(HttpVersion.HTTP_1_1.text(), versionStart, lineBytesStored)) {
+            return HttpVersion.HTTP_1_1;
+        } else if (lineMatches(HttpVersion.HTTP_1_0.text(), versionStart, lineBytesStored)) {
+            return HttpVersion.HTTP_1_0;
+        }
+        return HttpVersion.valueOf(
+            new String(lineBuffer, versionStart, lineBytesStored - versionStart, StandardCharsets.US_ASCII)
+        );
+    }
+
+    private boolean lineMatches(String expected, int start, int end) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); ++i) {
+            if (expected.charAt(i) != (char) (lineBuffer[start + i] & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseContentLength(int valueStart, int valueEnd) {
+        if (valueStart == valueEnd) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = valueStart; i < valueEnd; ++i) {
+            int digit = lineBuffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+            if (value < 0) {
+                return -1;
+            }
+        }
+        return value;
+    }
+
+    private boolean equalsIgnoreCase(byte[] expected, int start, int end) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; ++i) {
+            if (toLowerCase(lineBuffer[start + i]) != toLowerCase(expected[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean containsIgnoreCase(byte[] expected, int start, int end) {
+        for (int i = start; i <= end - expected.length; ++i) {
+            if (equalsIgnoreCase(expected, i, i + expected.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int indexOf(byte b, int start, int end) {
+        for (int i = start; i < end; ++i) {
+            if (lineBuffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lastIndexOf(byte b, int end) {
+        for (int i = end - 1; i >= 0; --i) {
+            if (lineBuffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLinearWhitespace(byte b) {
+        return b == HttpConstants.SP || b == HttpConstants.HT;
+    }
+
+    private static byte toLowerCase(byte b) {
+        return (b >= 'A' && b <= 'Z') ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * A single HttpRequest that is reused for every request on a connection.  The uri is only turned into a
+     * String if it is asked for.
+     */
+    public static class ScannedHttpRequest extends DefaultHttpRequest {
+        private byte[] uriBytes = new byte[0];
+        private int uriLength;
+        private String uriString;
+        @Getter
+        private int initialLineLength;
+        @Getter
+        private int headersLength;
+
+        ScannedHttpRequest(PassThruHttpHeaders headers) {
+            super(HttpVersion.HTTP_1_1, HttpMethod.GET, "", headers);
+        }
+
+        private void setUriBytes(byte[] source, int start, int end) {
+            uriLength = end - start;
+            if (uriBytes.length < uriLength) {
+                uriBytes = new byte[Math.max(uriLength, uriBytes.length * 2)];
+            }
+            System.arraycopy(source, start, uriBytes, 0, uriLength);
+            uriString = null;
+        }
+
+        @Override
+        public String uri() {
+            if (uriString == null) {
+                uriString = new String(uriBytes, 0, uriLength, StandardCharsets.UTF_8);
+            }
+            return uriString;
+        }
+
+        @Override
+        public ScannedHttpRequest setUri(String uri) {
+            var bytes = uri.getBytes(StandardCharsets.UTF_8);
+            setUriBytes(bytes, 0, bytes.length);
+            uriString = uri;
+            return this;
+        }
+    }
+}
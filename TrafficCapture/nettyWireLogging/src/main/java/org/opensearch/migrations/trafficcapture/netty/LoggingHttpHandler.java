@@ -11,18 +11,8 @@ import org.opensearch.migrations.trafficcapture.netty.tracing.IWireCaptureContex
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
-import io.netty.channel.embedded.EmbeddedChannel;
-import io.netty.handler.codec.http.DefaultHttpRequest;
-import io.netty.handler.codec.http.HttpContent;
-import io.netty.handler.codec.http.HttpMessage;
-import io.netty.handler.codec.http.HttpMessageDecoderResult;
-import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
-import io.netty.handler.codec.http.HttpRequestDecoder;
-import io.netty.handler.codec.http.HttpVersion;
-import io.netty.handler.codec.http.LastHttpContent;
 import lombok.Getter;
 import lombok.Lombok;
 import lombok.NonNull;
@@ -58,50 +48,14 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
         }
     }
 
-    static class SimpleHttpRequestDecoder extends HttpRequestDecoder {
-        private final PassThruHttpHeaders.HttpHeadersToPreserve headersToPreserve;
-        private final CaptureState captureState;
-
-        public SimpleHttpRequestDecoder(
-            @NonNull PassThruHttpHeaders.HttpHeadersToPreserve headersToPreserve,
-            CaptureState captureState
-        ) {
-            this.headersToPreserve = headersToPreserve;
-            this.captureState = captureState;
-        }
-
-        /**
-         * Override this so that the HttpHeaders object can be a cheaper one.  PassThruHeaders
-         * only stores a handful of headers that are required for parsing the payload portion
-         * of an HTTP Message.
-         */
-        @Override
-        public HttpMessage createMessage(String[] initialLine) throws Exception {
-            return new DefaultHttpRequest(
-                HttpVersion.valueOf(initialLine[2]),
-                HttpMethod.valueOf(initialLine[0]),
-                initialLine[1],
-                new PassThruHttpHeaders(headersToPreserve)
-            );
-        }
-
-        @Override
-        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-            if (captureState.captureIgnoreState == CaptureIgnoreState.IGNORE_RESPONSE) {
-                captureState.captureIgnoreState = CaptureIgnoreState.CAPTURE;
-            }
-            super.channelRead(ctx, msg);
-        }
-    }
-
-    static class SimpleDecodedHttpRequestHandler extends ChannelInboundHandlerAdapter {
+    static class CapturingRequestBoundaryListener implements HttpRequestBoundaryScanner.Listener {
         @Getter
         private HttpRequest currentRequest;
         final RequestCapturePredicate requestCapturePredicate;
         boolean haveParsedFullRequest;
         final CaptureState captureState;
 
-        SimpleDecodedHttpRequestHandler(RequestCapturePredicate requestCapturePredicate, CaptureState captureState) {
+        CapturingRequestBoundaryListener(RequestCapturePredicate requestCapturePredicate, CaptureState captureState) {
             this.requestCapturePredicate = requestCapturePredicate;
             this.currentRequest = null;
             this.haveParsedFullRequest = false;
@@ -109,20 +63,16 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
         }
 
         @Override
-        public void channelRead(@NonNull ChannelHandlerContext ctx, @NonNull Object msg) throws Exception {
-            if (msg instanceof HttpRequest) {
-                currentRequest = (HttpRequest) msg;
-                captureState.setShouldCaptureForRequest(
-                    RequestCapturePredicate.CaptureDirective.CAPTURE == requestCapturePredicate.apply((HttpRequest) msg)
-                );
-            } else if (msg instanceof HttpContent) {
-                ((HttpContent) msg).release();
-                if (msg instanceof LastHttpContent) {
-                    haveParsedFullRequest = true;
-                }
-            } else {
-                super.channelRead(ctx, msg);
-            }
+        public void onHeadersScanned(HttpRequestBoundaryScanner.ScannedHttpRequest request) {
+            currentRequest = request;
+            captureState.setShouldCaptureForRequest(
+                RequestCapturePredicate.CaptureDirective.CAPTURE == requestCapturePredicate.apply(request)
+            );
+        }
+
+        @Override
+        public void onRequestScanned(HttpRequestBoundaryScanner.ScannedHttpRequest request) {
+            haveParsedFullRequest = true;
         }
 
         public HttpRequest resetCurrentRequest() {
@@ -135,7 +85,9 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
 
     protected final IChannelConnectionCaptureSerializer<T> trafficOffloader;
 
-    protected final EmbeddedChannel httpDecoderChannel;
+    private final CapturingRequestBoundaryListener requestBoundaryListener;
+
+    private final HttpRequestBoundaryScanner requestBoundaryScanner;
 
     protected IWireCaptureContexts.IHttpMessageContext messageContext;
 
@@ -150,19 +102,40 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
         this.messageContext = parentContext.createInitialRequestContext();
 
         this.trafficOffloader = trafficOffloaderFactory.createOffloader(parentContext);
-        var captureState = new CaptureState();
-        httpDecoderChannel = new EmbeddedChannel(
-            new SimpleHttpRequestDecoder(httpHeadersCapturePredicate.getHeadersRequiredForMatcher(), captureState),
-            new SimpleDecodedHttpRequestHandler(httpHeadersCapturePredicate, captureState)
+        this.requestBoundaryListener = new CapturingRequestBoundaryListener(
+            httpHeadersCapturePredicate,
+            new CaptureState()
+        );
+        this.requestBoundaryScanner = new HttpRequestBoundaryScanner(
+            httpHeadersCapturePredicate.getHeadersRequiredForMatcher(),
+            requestBoundaryListener
         );
     }
 
-    private IWireCaptureContexts.ICapturingConnectionContext getConnectionContext() {
-        return messageContext.getLogicalEnclosingScope();
+    /**
+     * The number of requests that have been completely read from the client so far.
+     */
+    public long getCompletedRequestCount() {
+        return requestBoundaryScanner.getCompletedRequestCount();
     }
 
-    private SimpleDecodedHttpRequestHandler getHandlerThatHoldsParsedHttpRequest() {
-        return (SimpleDecodedHttpRequestHandler) httpDecoderChannel.pipeline().last();
+    /**
+     * True when no request has been partially read from the client.
+     */
+    public boolean isBetweenRequests() {
+        return requestBoundaryScanner.isBetweenRequests();
+    }
+
+    /**
+     * False once any request from the client has made it unsafe for the upstream connection to be used for
+     * another client (e.g. it asked for the connection to be closed or upgraded).
+     */
+    public boolean isConnectionReusable() {
+        return requestBoundaryScanner.isConnectionReusable();
+    }
+
+    private IWireCaptureContexts.ICapturingConnectionContext getConnectionContext() {
+        return messageContext.getLogicalEnclosingScope();
     }
 
     @Override
@@ -209,7 +182,8 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
      * @param ctx the instrumentation context for this request
      * @param msg the original message, which is likely a ByteBuf, that helped to form the httpRequest
      * @param shouldCapture false if the current request has been determined to be ignorable
-     * @param httpRequest the request that has just been fully received (excluding its body)
+     * @param httpRequest the request that has just been fully received (excluding its body).  This object is
+     *                    reused for every request on the connection, so it must not be used after the next read.
      */
     protected void channelFinishedReadingAnHttpMessage(
         ChannelHandlerContext ctx,
@@ -231,11 +205,13 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
         }
 
         var timestamp = Instant.now();
-        var requestParsingHandler = getHandlerThatHoldsParsedHttpRequest();
         var bb = ((ByteBuf) msg);
-        httpDecoderChannel.writeInbound(bb.retainedDuplicate()); // the ByteBuf is consumed/release by this method
+        var captureState = requestBoundaryListener.captureState;
+        if (captureState.captureIgnoreState == CaptureIgnoreState.IGNORE_RESPONSE) {
+            captureState.captureIgnoreState = CaptureIgnoreState.CAPTURE;
+        }
+        requestBoundaryScanner.scan(bb);
 
-        var captureState = requestParsingHandler.captureState;
         var shouldCapture = captureState.shouldCapture();
         if (shouldCapture) {
             captureState.liveReadObservationsInOffloader = true;
@@ -248,19 +224,15 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
 
         requestContext.onBytesRead(bb.readableBytes());
 
-        if (requestParsingHandler.haveParsedFullRequest) {
+        if (requestBoundaryListener.haveParsedFullRequest) {
             requestContext.onFullyParsedRequest();
-            var httpRequest = requestParsingHandler.resetCurrentRequest();
+            var httpRequest = requestBoundaryListener.resetCurrentRequest();
             captureState.liveReadObservationsInOffloader = false;
             captureState.advanceStateModelIntoResponseGather();
 
             if (shouldCapture) {
-                var decoderResultLoose = httpRequest.decoderResult();
-                if (decoderResultLoose instanceof HttpMessageDecoderResult) {
-                    var decoderResult = (HttpMessageDecoderResult) decoderResultLoose;
-                    trafficOffloader.addEndOfFirstLineIndicator(decoderResult.initialLineLength());
-                    trafficOffloader.addEndOfHeadersIndicator(decoderResult.headerSize());
-                }
+                trafficOffloader.addEndOfFirstLineIndicator(requestBoundaryScanner.getLastCompletedInitialLineLength());
+                trafficOffloader.addEndOfHeadersIndicator(requestBoundaryScanner.getLastCompletedHeadersLength());
                 trafficOffloader.commitEndOfHttpMessageIndicator(timestamp);
             }
             channelFinishedReadingAnHttpMessage(ctx, msg, shouldCapture, httpRequest);
@@ -279,7 +251,7 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
         }
 
         var bb = (ByteBuf) msg;
-        if (getHandlerThatHoldsParsedHttpRequest().captureState.shouldCapture()) {
+        if (requestBoundaryListener.captureState.shouldCapture()) {
             trafficOffloader.addWriteEvent(Instant.now(), bb);
         }
         responseContext.onBytesWritten(bb.readableBytes());
@@ -291,7 +263,6 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         trafficOffloader.addExceptionCaughtEvent(Instant.now(), cause);
         messageContext.addCaughtException(cause);
-        httpDecoderChannel.close();
         super.exceptionCaught(ctx, cause);
     }
 
@@ -1,6 +1,7 @@
 package org.opensearch.migrations.trafficcapture.netty;
 
 import java.util.Arrays;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import io.netty.handler.codec.http.DefaultHttpHeaders;
@@ -29,6 +30,10 @@ public class PassThruHttpHeaders extends DefaultHttpHeaders {
                 Arrays.stream(extraHeaderNames)
             ).forEach(h -> caseInsensitiveHeadersMap.add(h, ""));
         }
+
+        public Set<String> getHeaderNames() {
+            return caseInsensitiveHeadersMap.names();
+        }
     }
 
     public PassThruHttpHeaders(@NonNull HttpHeadersToPreserve headersToPreserve) {
@@ -2,6 +2,7 @@ package org.opensearch.migrations.trafficcapture.netty.tracing;
 
 import org.opensearch.migrations.tracing.IContextTracker;
 import org.opensearch.migrations.tracing.RootOtelContext;
+import org.opensearch.migrations.tracing.TraceSampling;
 
 import io.opentelemetry.api.OpenTelemetry;
 import lombok.Getter;
@@ -21,7 +22,16 @@ public class RootWireLoggingContext extends RootOtelContext implements IRootWire
     }
 
     public RootWireLoggingContext(OpenTelemetry openTelemetry, IContextTracker contextTracker, String scopeName) {
-        super(scopeName, contextTracker, openTelemetry);
+        this(openTelemetry, contextTracker, scopeName, TraceSampling.SAMPLE_EVERYTHING);
+    }
+
+    public RootWireLoggingContext(
+        OpenTelemetry openTelemetry,
+        IContextTracker contextTracker,
+        String scopeName,
+        TraceSampling traceSampling
+    ) {
+        super(scopeName, contextTracker, openTelemetry, traceSampling);
         var meter = this.getMeterProvider().get(scopeName);
         connectionInstruments = WireCaptureContexts.ConnectionContext.makeMetrics(meter);
         requestInstruments = WireCaptureContexts.RequestContext.makeMetrics(meter);
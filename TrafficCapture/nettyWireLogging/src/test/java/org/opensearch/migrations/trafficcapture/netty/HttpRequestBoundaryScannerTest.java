@@ -0,0 +1,163 @@
+package org.opensearch.migrations.trafficcapture.netty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMessageDecoderResult;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class HttpRequestBoundaryScannerTest {
+
+    private static final String CHUNKED_POST = "POST /index/_bulk HTTP/1.1\r\n"
+        + "Host: localhost\r\n"
+        + "Transfer-Encoding: chunked\r\n"
+        + "\r\n"
+        + "5\r\n"
+        + "hello\r\n"
+        + "7;ext=1\r\n"
+        + " world!\r\n"
+        + "0\r\n"
+        + "Trailer-Header: x\r\n"
+        + "\r\n";
+
+    private static final String GET_WITHOUT_BODY = "GET /_cat/indices?v HTTP/1.0\r\n"
+        + "User-Agent: healthcheck\r\n"
+        + "\r\n";
+
+    static class RecordingListener implements HttpRequestBoundaryScanner.Listener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onHeadersScanned(HttpRequestBoundaryScanner.ScannedHttpRequest request) {
+            events.add(
+                "headers:" + request.method() + " " + request.uri() + " " + request.protocolVersion()
+                    + " ua=" + request.headers().get("user-agent")
+            );
+        }
+
+        @Override
+        public void onRequestScanned(HttpRequestBoundaryScanner.ScannedHttpRequest request) {
+            events.add("end:" + request.getInitialLineLength() + "," + request.getHeadersLength());
+        }
+    }
+
+    private static HttpMessageDecoderResult decodeWithNetty(String request) {
+        var channel = new EmbeddedChannel(new HttpRequestDecoder());
+        try {
+            channel.writeInbound(Unpooled.wrappedBuffer(request.getBytes(StandardCharsets.UTF_8)));
+            var httpRequest = (HttpRequest) channel.readInbound();
+            return (HttpMessageDecoderResult) httpRequest.decoderResult();
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 3, 17, 4096 })
+    public void testPipelinedRequestsAreFoundAcrossArbitraryReadBoundaries(int readSize) {
+        var allBytes = (SimpleRequests.SMALL_POST + CHUNKED_POST + SimpleRequests.HEALTH_CHECK + GET_WITHOUT_BODY)
+            .getBytes(StandardCharsets.UTF_8);
+        var listener = new RecordingListener();
+        var scanner = new HttpRequestBoundaryScanner(new PassThruHttpHeaders.HttpHeadersToPreserve("User-Agent"),
+            listener);
+        for (int i = 0; i < allBytes.length; i += readSize) {
+            var buf = Unpooled.wrappedBuffer(allBytes, i, Math.min(readSize, allBytes.length - i));
+            scanner.scan(buf);
+            Assertions.assertEquals(0, buf.readerIndex());
+        }
+
+        var expectedEvents = new ArrayList<String>();
+        for (var request : List.of(SimpleRequests.SMALL_POST, CHUNKED_POST, SimpleRequests.HEALTH_CHECK,
+            GET_WITHOUT_BODY)) {
+            var nettyResult = decodeWithNetty(request);
+            expectedEvents.add("end:" + nettyResult.initialLineLength() + "," + nettyResult.headerSize());
+        }
+        Assertions.assertEquals(
+            List.of(
+                "headers:POST / HTTP/1.1 ua=null",
+                expectedEvents.get(0),
+                "headers:POST /index/_bulk HTTP/1.1 ua=null",
+                expectedEvents.get(1),
+                "headers:POST / HTTP/1.1 ua=uploader",
+                expectedEvents.get(2),
+                "headers:GET /_cat/indices?v HTTP/1.0 ua=healthcheck",
+                expectedEvents.get(3)
+            ),
+            listener.events
+        );
+    }
+
+    @Test
+    public void testKnownMethodsAreReturnedAsSharedConstants() {
+        var requests = new ArrayList<HttpMethod>();
+        var scanner = new HttpRequestBoundaryScanner(new PassThruHttpHeaders.HttpHeadersToPreserve(),
+            new HttpRequestBoundaryScanner.Listener() {
+                @Override
+                public void onHeadersScanned(HttpRequestBoundaryScanner.ScannedHttpRequest request) {
+                    requests.add(request.method());
+                }
+
+                @Override
+                public void onRequestScanned(HttpRequestBoundaryScanner.ScannedHttpRequest request) {}
+            });
+        scanner.scan(Unpooled.wrappedBuffer((GET_WITHOUT_BODY + "PURGE / HTTP/1.1\r\n\r\n")
+            .getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(2, requests.size());
+        Assertions.assertSame(HttpMethod.GET, requests.get(0));
+        Assertions.assertEquals("PURGE", requests.get(1).name());
+    }
+
+    @Test
+    public void testConnectionReusabilityTracksEveryCompletedRequest() {
+        var scanner = new HttpRequestBoundaryScanner(new PassThruHttpHeaders.HttpHeadersToPreserve(),
+            new RecordingListener());
+        Assertions.assertTrue(scanner.isBetweenRequests());
+        scanner.scan(Unpooled.wrappedBuffer((SimpleRequests.SMALL_POST + CHUNKED_POST)
+            .getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(2, scanner.getCompletedRequestCount());
+        Assertions.assertTrue(scanner.isBetweenRequests());
+        Assertions.assertTrue(scanner.isConnectionReusable());
+
+        scanner.scan(Unpooled.wrappedBuffer("GET / HTTP/1.1\r\nHost: localhost\r\n".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertFalse(scanner.isBetweenRequests());
+        scanner.scan(Unpooled.wrappedBuffer("\r\n".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertTrue(scanner.isBetweenRequests());
+        Assertions.assertTrue(scanner.isConnectionReusable());
+
+        // HTTP/1.0 without keep-alive means that the server will close the connection
+        scanner.scan(Unpooled.wrappedBuffer(GET_WITHOUT_BODY.getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(4, scanner.getCompletedRequestCount());
+        Assertions.assertFalse(scanner.isConnectionReusable());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "HEAD / HTTP/1.1\r\n\r\n",
+        "GET / HTTP/1.1\r\nConnection: close\r\n\r\n",
+        "GET / HTTP/1.1\r\nConnection: Upgrade\r\nUpgrade: websocket\r\n\r\n" })
+    public void testRequestsThatPreventConnectionReuse(String request) {
+        var scanner = new HttpRequestBoundaryScanner(new PassThruHttpHeaders.HttpHeadersToPreserve(),
+            new RecordingListener());
+        scanner.scan(Unpooled.wrappedBuffer(request.getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(1, scanner.getCompletedRequestCount());
+        Assertions.assertFalse(scanner.isConnectionReusable());
+    }
+
+    @Test
+    public void testMalformedContentLengthStopsScanning() {
+        var listener = new RecordingListener();
+        var scanner = new HttpRequestBoundaryScanner(new PassThruHttpHeaders.HttpHeadersToPreserve(), listener);
+        scanner.scan(Unpooled.wrappedBuffer(("POST / HTTP/1.1\r\nContent-Length: abc\r\n\r\n" + GET_WITHOUT_BODY)
+            .getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(List.of(), listener.events);
+    }
+}
@@ -0,0 +1,351 @@
+package org.opensearch.migrations.trafficcapture.proxyserver.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.BindException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.opensearch.migrations.tracing.ActiveContextTracker;
+import org.opensearch.migrations.tracing.ActiveContextTrackerByActivityType;
+import org.opensearch.migrations.tracing.CompositeContextTracker;
+import org.opensearch.migrations.tracing.RootOtelContext;
+import org.opensearch.migrations.trafficcapture.CodedOutputStreamAndByteBufferWrapper;
+import org.opensearch.migrations.trafficcapture.CodedOutputStreamHolder;
+import org.opensearch.migrations.trafficcapture.FileConnectionCaptureFactory;
+import org.opensearch.migrations.trafficcapture.IConnectionCaptureFactory;
+import org.opensearch.migrations.trafficcapture.RollingSegmentFileCaptureFactory;
+import org.opensearch.migrations.trafficcapture.StreamChannelConnectionCaptureSerializer;
+import org.opensearch.migrations.trafficcapture.StreamLifecycleManager;
+import org.opensearch.migrations.trafficcapture.netty.HeaderValueFilteringCapturePredicate;
+import org.opensearch.migrations.trafficcapture.proxyserver.CaptureProxy;
+import org.opensearch.migrations.trafficcapture.proxyserver.RootCaptureContext;
+import org.opensearch.migrations.trafficcapture.proxyserver.netty.BacksideConnectionPool;
+import org.opensearch.migrations.trafficcapture.proxyserver.netty.NettyScanningHttpProxy;
+import org.opensearch.migrations.trafficcapture.proxyserver.netty.ProxyChannelInitializer;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures the overhead that the capture proxy adds to requests by running a closed-loop load client through an
+ * in-process {@link NettyScanningHttpProxy} to a stub backend, for each combination of capture mode, concurrency,
+ * and request size.  DIRECT runs (client straight to the backend) are the baseline that the latency and
+ * allocation overheads of the other modes are computed against.
+ * <p>
+ * Allocation is measured across every thread in the JVM, which includes the load client and the stub backend.
+ * Those costs are the same for every mode, so the difference from DIRECT is what the proxy is responsible for.
+ */
+@Slf4j
+public class CaptureProxyBenchmark {
+    private static final String LOCALHOST = "localhost";
+    private static final String NODE_ID = "benchmark";
+    private static final int MAX_PORT_ATTEMPTS = 5;
+
+    public enum CaptureMode {
+        /** No proxy - the client sends requests directly to the backend */
+        DIRECT,
+        /** Proxy with --noCapture, which still parses and serializes traffic but writes it nowhere */
+        NO_CAPTURE,
+        /** Proxy whose serialized TrafficStreams are kept in heap buffers and then dropped */
+        MOCK_OFFLOADER,
+        /** Proxy with --traceDirectory */
+        FILE,
+        /** Proxy with --traceSegmentDirectory */
+        SEGMENT_FILE
+    }
+
+    public static class Parameters {
+        @Parameter(required = false,
+            names = { "--modes" },
+            description = "Comma-separated capture modes to run.  DIRECT is always run as the baseline.")
+        public List<CaptureMode> modes = List.of(CaptureMode.values());
+        @Parameter(required = false,
+            names = { "--concurrency" },
+            description = "Comma-separated numbers of concurrent client connections to test.")
+        public List<Integer> concurrencyLevels = List.of(1, 16, 64);
+        @Parameter(required = false,
+            names = { "--requestSizes" },
+            description = "Comma-separated request body sizes, in bytes, to test.  0 sends GET requests.")
+        public List<Integer> requestSizes = List.of(0, 1024, 64 * 1024);
+        @Parameter(required = false,
+            names = { "--responseSize" },
+            arity = 1,
+            description = "Size, in bytes, of the body that the stub backend responds with.")
+        public int responseSize = 512;
+        @Parameter(required = false,
+            names = { "--warmupSeconds" },
+            arity = 1,
+            description = "Seconds to send traffic before measuring each run.")
+        public int warmupSeconds = 5;
+        @Parameter(required = false,
+            names = { "--measureSeconds" },
+            arity = 1,
+            description = "Seconds to measure each run for.")
+        public int measureSeconds = 15;
+        @Parameter(required = false,
+            names = { "--numThreads" },
+            arity = 1,
+            description = "How many threads the proxy's event loop group should have.")
+        public int proxyThreads = 1;
+        @Parameter(required = false,
+            names = { "--clientThreads" },
+            arity = 1,
+            description = "How many threads the load client's event loop group should have.")
+        public int clientThreads = 2;
+        @Parameter(required = false,
+            names = { "--maxTrafficBufferSize" },
+            arity = 1,
+            description = "The maximum number of bytes that will be written to a single TrafficStream object.")
+        public int maximumTrafficStreamSize = 1024 * 1024;
+        @Parameter(required = false,
+            names = { "--compressCapturedPayloads" },
+            arity = 0,
+            description = "Deflate the bytes of each captured read and write observation.")
+        public boolean compressCapturedPayloads;
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    static class RunKey {
+        final int concurrency;
+        final int requestSize;
+    }
+
+    static Parameters parseArgs(String[] args) {
+        Parameters p = new Parameters();
+        JCommander jCommander = new JCommander(p);
+        try {
+            jCommander.parse(args);
+            return p;
+        } catch (ParameterException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Got args: " + String.join("; ", args));
+            jCommander.usage();
+            System.exit(2);
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        var params = parseArgs(args);
+        new CaptureProxyBenchmark().runAll(params, System.out);
+    }
+
+    public void runAll(Parameters params, PrintStream out) throws Exception {
+        var rootContext = new RootCaptureContext(
+            RootOtelContext.initializeOpenTelemetryWithCollectorOrAsNoop(null, "capture", NODE_ID),
+            new CompositeContextTracker(new ActiveContextTracker(), new ActiveContextTrackerByActivityType())
+        );
+        var modes = Stream.concat(Stream.of(CaptureMode.DIRECT), params.modes.stream())
+            .distinct()
+            .sorted(Comparator.naturalOrder())
+            .collect(Collectors.toList());
+        var baselines = new HashMap<RunKey, LoadClient.LoadResult>();
+
+        out.println(String.join("\t", "mode", "concurrency", "requestBytes", "req/s",
+            "p50(us)", "p99(us)", "p999(us)", "p50Overhead(us)", "p99Overhead(us)", "p999Overhead(us)",
+            "allocBytes/req", "allocOverheadBytes/req", "errors"));
+        try (var backend = new StubBackendServer(params.responseSize, 1)) {
+            for (var mode : modes) {
+                for (var concurrency : params.concurrencyLevels) {
+                    for (var requestSize : params.requestSizes) {
+                        log.atInfo().setMessage("Running {} with concurrency={} and requestSize={}")
+                            .addArgument(mode)
+                            .addArgument(concurrency)
+                            .addArgument(requestSize)
+                            .log();
+                        var key = new RunKey(concurrency, requestSize);
+                        var result = runOne(rootContext, params, backend.getPort(), mode, concurrency, requestSize);
+                        if (mode == CaptureMode.DIRECT) {
+                            baselines.put(key, result);
+                        }
+                        out.println(formatRow(mode, key, result, baselines.get(key)));
+                        out.flush();
+                    }
+                }
+            }
+        }
+    }
+
+    LoadClient.LoadResult runOne(
+        RootCaptureContext rootContext,
+        Parameters params,
+        int backendPort,
+        CaptureMode mode,
+        int concurrency,
+        int requestSize
+    ) throws Exception {
+        var warmup = Duration.ofSeconds(params.warmupSeconds);
+        var measurement = Duration.ofSeconds(params.measureSeconds);
+        try (var client = new LoadClient(params.clientThreads, requestSize)) {
+            if (mode == CaptureMode.DIRECT) {
+                return client.run(LOCALHOST, backendPort, concurrency, warmup, measurement);
+            }
+            var tempDirectory = Files.createTempDirectory("captureProxyBenchmark");
+            IConnectionCaptureFactory<?> captureFactory = null;
+            try {
+                captureFactory = createCaptureFactory(params, mode, tempDirectory);
+                var backsideConnectionPool = new BacksideConnectionPool(
+                    new URI("http://" + LOCALHOST + ":" + backendPort),
+                    null,
+                    0,
+                    Duration.ZERO
+                );
+                var proxy = startProxy(
+                    new ProxyChannelInitializer<>(
+                        rootContext,
+                        backsideConnectionPool,
+                        null,
+                        captureFactory,
+                        new HeaderValueFilteringCapturePredicate(Map.of())
+                    ),
+                    params.proxyThreads
+                );
+                try {
+                    return client.run(LOCALHOST, proxy.getProxyPort(), concurrency, warmup, measurement);
+                } finally {
+                    proxy.stop();
+                }
+            } finally {
+                if (captureFactory instanceof AutoCloseable) {
+                    ((AutoCloseable) captureFactory).close();
+                }
+                deleteRecursively(tempDirectory);
+            }
+        }
+    }
+
+    private static IConnectionCaptureFactory<?> createCaptureFactory(
+        Parameters params,
+        CaptureMode mode,
+        Path tempDirectory
+    ) throws IOException {
+        switch (mode) {
+            case NO_CAPTURE:
+                return CaptureProxy.getNullConnectionCaptureFactory();
+            case MOCK_OFFLOADER:
+                return getInMemoryConnectionCaptureFactory(
+                    params.maximumTrafficStreamSize,
+                    params.compressCapturedPayloads
+                );
+            case FILE:
+                return new FileConnectionCaptureFactory(
+                    NODE_ID,
+                    params.maximumTrafficStreamSize,
+                    tempDirectory,
+                    params.compressCapturedPayloads
+                );
+            case SEGMENT_FILE:
+                return new RollingSegmentFileCaptureFactory(
+                    NODE_ID,
+                    params.maximumTrafficStreamSize,
+                    tempDirectory,
+                    256L * 1024 * 1024,
+                    Duration.ofMinutes(15),
+                    params.compressCapturedPayloads
+                );
+            default:
+                throw new IllegalArgumentException("No capture factory for mode " + mode);
+        }
+    }
+
+    /**
+     * Serializes TrafficStreams into heap buffers, exactly as the file and Kafka offloaders do, but then drops
+     * them.  This isolates the cost of capturing and serializing from the cost of any I/O.
+     */
+    static IConnectionCaptureFactory<Object> getInMemoryConnectionCaptureFactory(
+        int bufferSize,
+        boolean compressPayloads
+    ) {
+        return ctx -> new StreamChannelConnectionCaptureSerializer<>(
+            NODE_ID,
+            ctx.getConnectionId(),
+            new StreamLifecycleManager<>() {
+                @Override
+                public CodedOutputStreamHolder createStream() {
+                    return new CodedOutputStreamAndByteBufferWrapper(bufferSize);
+                }
+
+                @Override
+                public CompletableFuture<Object> closeStream(CodedOutputStreamHolder outputStreamHolder, int index) {
+                    return CompletableFuture.completedFuture(null);
+                }
+            },
+            compressPayloads
+        );
+    }
+
+    private static NettyScanningHttpProxy startProxy(ProxyChannelInitializer<?> initializer, int numThreads)
+        throws Exception {
+        for (int attempt = 1;; ++attempt) {
+            int port;
+            try (var socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            var proxy = new NettyScanningHttpProxy(port);
+            try {
+                proxy.start(initializer, numThreads);
+                return proxy;
+            } catch (Exception e) {
+                // Another process may have grabbed the port between finding and binding it
+                if (!(e instanceof BindException) || attempt >= MAX_PORT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    static String formatRow(
+        CaptureMode mode,
+        RunKey key,
+        LoadClient.LoadResult result,
+        LoadClient.LoadResult baseline
+    ) {
+        var columns = new ArrayList<String>();
+        columns.add(mode.toString());
+        columns.add(Integer.toString(key.concurrency));
+        columns.add(Integer.toString(key.requestSize));
+        columns.add(String.format("%.1f", result.getRequestsPerSecond()));
+        var percentiles = new double[] { 0.5, 0.99, 0.999 };
+        for (var p : percentiles) {
+            columns.add(Long.toString(getPercentileMicros(result, p)));
+        }
+        for (var p : percentiles) {
+            columns.add(baseline == null ? "-"
+                : Long.toString(getPercentileMicros(result, p) - getPercentileMicros(baseline, p)));
+        }
+        columns.add(Long.toString(result.getAllocatedBytesPerRequest()));
+        columns.add(baseline == null ? "-"
+            : Long.toString(result.getAllocatedBytesPerRequest() - baseline.getAllocatedBytesPerRequest()));
+        columns.add(Long.toString(result.errorCount));
+        return String.join("\t", columns);
+    }
+
+    private static long getPercentileMicros(LoadClient.LoadResult result, double percentile) {
+        return LatencyRecorder.getPercentile(result.sortedLatencyNanos, percentile) / 1000;
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (var paths = Files.walk(root)) {
+            for (var p : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.opensearch.migrations.trafficcapture.proxyserver.benchmark;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Growable array of latency samples (in nanoseconds).  Instances are NOT thread-safe - each client connection
+ * records into its own instance from its event loop and they're only merged once the run is over.
+ */
+public class LatencyRecorder {
+    private long[] samples = new long[1024];
+    private int count;
+
+    public void record(long latencyNanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = latencyNanos;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns every sample from all of the recorders, sorted in ascending order.
+     */
+    public static long[] mergeAndSort(Collection<LatencyRecorder> recorders) {
+        var merged = new long[recorders.stream().mapToInt(r -> r.count).sum()];
+        int offset = 0;
+        for (var r : recorders) {
+            System.arraycopy(r.samples, 0, merged, offset, r.count);
+            offset += r.count;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * Nearest-rank percentile of already sorted samples, where percentile is in [0, 1].  Returns 0 when there
+     * are no samples.
+     */
+    public static long getPercentile(long[] sortedSamples, double percentile) {
+        if (sortedSamples.length == 0) {
+            return 0;
+        }
+        var rank = (int) Math.ceil(percentile * sortedSamples.length);
+        return sortedSamples[Math.min(sortedSamples.length - 1, Math.max(0, rank - 1))];
+    }
+}
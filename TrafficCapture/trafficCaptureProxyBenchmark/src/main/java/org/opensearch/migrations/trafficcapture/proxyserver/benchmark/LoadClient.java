@@ -0,0 +1,202 @@
+package org.opensearch.migrations.trafficcapture.proxyserver.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Closed-loop HTTP load generator.  Each of the concurrent keep-alive connections sends its next request as soon
+ * as the response for the previous one has been received.  Latencies are only recorded for responses that arrive
+ * after the warmup period and before the end of the measurement period.
+ */
+@Slf4j
+public class LoadClient implements AutoCloseable {
+    private static final int MAX_RESPONSE_SIZE = 64 * 1024 * 1024;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+
+    private enum Phase {
+        WARMUP,
+        MEASURING,
+        STOPPED
+    }
+
+    @AllArgsConstructor
+    public static class LoadResult {
+        /** Sorted latencies, in nanoseconds, for every request completed while measuring */
+        public final long[] sortedLatencyNanos;
+        public final long errorCount;
+        public final Duration measuredDuration;
+        /** Bytes allocated by all threads in this JVM while measuring */
+        public final long allocatedBytes;
+
+        public double getRequestsPerSecond() {
+            return sortedLatencyNanos.length / (measuredDuration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        public long getAllocatedBytesPerRequest() {
+            return sortedLatencyNanos.length == 0 ? 0 : allocatedBytes / sortedLatencyNanos.length;
+        }
+    }
+
+    private final EventLoopGroup eventLoopGroup;
+    private final ByteBuf requestBody;
+    private final HttpMethod method;
+    private volatile Phase phase;
+
+    public LoadClient(int numThreads, int requestBodySize) {
+        this.eventLoopGroup = new NioEventLoopGroup(numThreads, new DefaultThreadFactory("loadClient"));
+        var bodyBytes = new byte[requestBodySize];
+        Arrays.fill(bodyBytes, (byte) 'x');
+        this.requestBody = Unpooled.unreleasableBuffer(Unpooled.directBuffer(requestBodySize).writeBytes(bodyBytes));
+        this.method = requestBodySize == 0 ? HttpMethod.GET : HttpMethod.POST;
+    }
+
+    public LoadResult run(String host, int port, int concurrency, Duration warmup, Duration measurement)
+        throws InterruptedException {
+        phase = Phase.WARMUP;
+        var hostHeader = host + ":" + port;
+        var handlers = new ArrayList<ConnectionHandler>(concurrency);
+        var channels = new ArrayList<Channel>(concurrency);
+        var bootstrap = new Bootstrap().group(eventLoopGroup)
+            .channel(NioSocketChannel.class)
+            .option(ChannelOption.TCP_NODELAY, true);
+        try {
+            for (int i = 0; i < concurrency; ++i) {
+                var handler = new ConnectionHandler(hostHeader);
+                handlers.add(handler);
+                channels.add(bootstrap.handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline()
+                            .addLast(new HttpClientCodec())
+                            .addLast(new HttpObjectAggregator(MAX_RESPONSE_SIZE))
+                            .addLast(handler);
+                    }
+                }).connect(host, port).sync().channel());
+            }
+
+            Thread.sleep(warmup.toMillis());
+            var allocatedAtStart = getTotalAllocatedBytes();
+            var startNanos = System.nanoTime();
+            phase = Phase.MEASURING;
+            Thread.sleep(measurement.toMillis());
+            phase = Phase.STOPPED;
+            var measuredDuration = Duration.ofNanos(System.nanoTime() - startNanos);
+            var allocatedBytes = getTotalAllocatedBytes() - allocatedAtStart;
+
+            for (var channel : channels) {
+                // each connection closes itself once its in-flight request has been answered
+                if (!channel.closeFuture().await(DRAIN_TIMEOUT.toMillis())) {
+                    log.atWarn().setMessage("Connection {} did not drain, closing it").addArgument(channel).log();
+                }
+            }
+            var errorCount = handlers.stream().mapToLong(h -> h.errorCount).sum();
+            var latencies = LatencyRecorder.mergeAndSort(
+                handlers.stream().map(h -> h.latencyRecorder).collect(Collectors.toList())
+            );
+            return new LoadResult(latencies, errorCount, measuredDuration, allocatedBytes);
+        } finally {
+            phase = Phase.STOPPED;
+            channels.forEach(Channel::close);
+        }
+    }
+
+    /**
+     * Sums the bytes allocated by every live thread.  Threads that exit while measuring are not counted, but all
+     * of the threads that matter here (event loops and offloader threads) live for the whole run.
+     */
+    static long getTotalAllocatedBytes() {
+        var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return Arrays.stream(threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds()))
+            .filter(b -> b > 0)
+            .sum();
+    }
+
+    private class ConnectionHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+        private final String hostHeader;
+        final LatencyRecorder latencyRecorder = new LatencyRecorder();
+        long errorCount;
+        private long requestStartNanos;
+
+        ConnectionHandler(String hostHeader) {
+            this.hostHeader = hostHeader;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            sendNextRequest(ctx);
+            super.channelActive(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            var currentPhase = phase;
+            if (currentPhase == Phase.MEASURING) {
+                latencyRecorder.record(System.nanoTime() - requestStartNanos);
+                if (!response.status().equals(HttpResponseStatus.OK)) {
+                    ++errorCount;
+                }
+            }
+            if (currentPhase == Phase.STOPPED) {
+                ctx.close();
+            } else {
+                sendNextRequest(ctx);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.atWarn().setCause(cause).setMessage("Closing benchmark connection after an error").log();
+            ++errorCount;
+            ctx.close();
+        }
+
+        private void sendNextRequest(ChannelHandlerContext ctx) {
+            var request = new DefaultFullHttpRequest(
+                HttpVersion.HTTP_1_1,
+                method,
+                "/benchmark/_doc",
+                requestBody.duplicate()
+            );
+            request.headers()
+                .set(HttpHeaderNames.HOST, hostHeader)
+                .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                .setInt(HttpHeaderNames.CONTENT_LENGTH, requestBody.readableBytes());
+            requestStartNanos = System.nanoTime();
+            ctx.writeAndFlush(request);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        eventLoopGroup.shutdownGracefully().sync();
+    }
+}
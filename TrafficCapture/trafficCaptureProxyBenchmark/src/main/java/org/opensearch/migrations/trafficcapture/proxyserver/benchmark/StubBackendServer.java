@@ -0,0 +1,101 @@
+package org.opensearch.migrations.trafficcapture.proxyserver.benchmark;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+
+/**
+ * A minimal HTTP server that answers every request with the same fixed-size body so that the cost of the
+ * backend is as small and as constant as possible across benchmark runs.
+ */
+public class StubBackendServer implements AutoCloseable {
+    private static final int MAX_REQUEST_SIZE = 64 * 1024 * 1024;
+
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+    private final Channel serverChannel;
+    private final ByteBuf responseBody;
+    @Getter
+    private final int port;
+
+    public StubBackendServer(int responseBodySize, int numThreads) throws InterruptedException {
+        var bodyBytes = new byte[responseBodySize];
+        Arrays.fill(bodyBytes, (byte) 'x');
+        this.responseBody = Unpooled.unreleasableBuffer(Unpooled.directBuffer(responseBodySize).writeBytes(bodyBytes));
+        this.bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("stubBackendBoss"));
+        this.workerGroup = new NioEventLoopGroup(numThreads, new DefaultThreadFactory("stubBackendWorker"));
+        try {
+            this.serverChannel = new ServerBootstrap().group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline()
+                            .addLast(new HttpServerCodec())
+                            .addLast(new HttpObjectAggregator(MAX_REQUEST_SIZE))
+                            .addLast(new FixedResponseHandler());
+                    }
+                })
+                .bind(0)
+                .sync()
+                .channel();
+        } catch (Exception e) {
+            workerGroup.shutdownGracefully();
+            bossGroup.shutdownGracefully();
+            throw e;
+        }
+        this.port = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    private class FixedResponseHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            var response = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1,
+                HttpResponseStatus.OK,
+                responseBody.duplicate()
+            );
+            response.headers()
+                .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                .setInt(HttpHeaderNames.CONTENT_LENGTH, responseBody.readableBytes());
+            var keepAlive = HttpUtil.isKeepAlive(request);
+            var writeFuture = ctx.writeAndFlush(response);
+            if (!keepAlive) {
+                writeFuture.addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        try {
+            serverChannel.close().sync();
+        } finally {
+            workerGroup.shutdownGracefully().sync();
+            bossGroup.shutdownGracefully().sync();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.opensearch.migrations.trafficcapture.proxyserver.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CaptureProxyBenchmarkTest {
+
+    @Test
+    void testPercentilesUseNearestRank() {
+        var recorder = new LatencyRecorder();
+        for (int i = 1000; i > 0; --i) {
+            recorder.record(i);
+        }
+        var sorted = LatencyRecorder.mergeAndSort(List.of(recorder, new LatencyRecorder()));
+        Assertions.assertEquals(500, LatencyRecorder.getPercentile(sorted, 0.5));
+        Assertions.assertEquals(990, LatencyRecorder.getPercentile(sorted, 0.99));
+        Assertions.assertEquals(999, LatencyRecorder.getPercentile(sorted, 0.999));
+        Assertions.assertEquals(1000, LatencyRecorder.getPercentile(sorted, 1.0));
+        Assertions.assertEquals(0, LatencyRecorder.getPercentile(new long[0], 0.5));
+    }
+
+    @Test
+    void testShortRunReportsEveryModeAgainstTheDirectBaseline() throws Exception {
+        var params = CaptureProxyBenchmark.parseArgs(new String[] {
+            "--modes", "MOCK_OFFLOADER,SEGMENT_FILE",
+            "--concurrency", "2",
+            "--requestSizes", "0,2048",
+            "--warmupSeconds", "0",
+            "--measureSeconds", "1" });
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            new CaptureProxyBenchmark().runAll(params, out);
+        }
+        var lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        // header + 3 modes * 2 request sizes
+        Assertions.assertEquals(7, lines.length);
+        for (int i = 1; i < lines.length; ++i) {
+            var columns = lines[i].split("\t");
+            Assertions.assertEquals("0", columns[columns.length - 1], lines[i]);
+            Assertions.assertTrue(Double.parseDouble(columns[3]) > 0, lines[i]);
+            if (i > 2) {
+                Assertions.assertNotEquals("-", columns[7], lines[i]);
+            }
+        }
+    }
+}
@@ -30,9 +30,11 @@ import org.opensearch.migrations.tracing.ActiveContextTracker;
 import org.opensearch.migrations.tracing.ActiveContextTrackerByActivityType;
 import org.opensearch.migrations.tracing.CompositeContextTracker;
 import org.opensearch.migrations.tracing.RootOtelContext;
+import org.opensearch.migrations.tracing.TraceSampling;
 import org.opensearch.migrations.trafficcapture.CodedOutputStreamHolder;
 import org.opensearch.migrations.trafficcapture.FileConnectionCaptureFactory;
 import org.opensearch.migrations.trafficcapture.IConnectionCaptureFactory;
+import org.opensearch.migrations.trafficcapture.RollingSegmentFileCaptureFactory;
 import org.opensearch.migrations.trafficcapture.StreamChannelConnectionCaptureSerializer;
 import org.opensearch.migrations.trafficcapture.StreamLifecycleManager;
 import org.opensearch.migrations.trafficcapture.kafkaoffloader.KafkaCaptureFactory;
@@ -82,6 +84,23 @@ public class CaptureProxy {
             arity = 1,
             description = "Directory to store trace files in.")
         public String traceDirectory;
+        @Parameter(required = false,
+            names = { "--traceSegmentDirectory" },
+            arity = 1,
+            description = "Directory to append TrafficStreams to as a rolling series of length-delimited segment "
+                + "files, named by this proxy's node id and numbered in the order that they're written.")
+        public String traceSegmentDirectory;
+        @Parameter(required = false,
+            names = { "--traceSegmentMaxBytes" },
+            arity = 1,
+            description = "Size in bytes at which a new segment file will be started for --traceSegmentDirectory.")
+        public long traceSegmentMaxBytes = 256L * 1024 * 1024;
+        @Parameter(required = false,
+            names = { "--traceSegmentMaxDuration" },
+            arity = 1,
+            description = "ISO-8601 duration after which a new segment file will be started for "
+                + "--traceSegmentDirectory, even if the current one is not yet full.")
+        public String traceSegmentMaxDuration = "PT15M";
         @Parameter(required = false,
             names = { "--noCapture" },
             arity = 0,
@@ -117,6 +136,12 @@ public class CaptureProxy {
             arity = 1,
             description = "The maximum number of bytes that will be written to a single TrafficStream object.")
         public int maximumTrafficStreamSize = 1024 * 1024;
+        @Parameter(required = false,
+            names = { "--compressCapturedPayloads" },
+            arity = 0,
+            description = "Deflate the bytes of each captured read and write observation before offloading them.  "
+                + "TrafficStreams are marked so that the replayer will transparently decompress them.")
+        public boolean compressCapturedPayloads;
         @Parameter(required = false,
             names = { "--insecureDestination" },
             arity = 0,
@@ -151,12 +176,55 @@ public class CaptureProxy {
                 + "how long after connection should the be recycled "
                 + "(closed with a new connection taking its place)")
         public String destinationConnectionPoolTimeout = "PT30S";
+        @Parameter(required = false,
+            names = { "--reuseDestinationConnections" },
+            arity = 0,
+            description = "When a client disconnects after receiving every response that it asked for, keep its "
+                + "keep-alive connection to the destination server in a per-thread pool for the next client "
+                + "instead of closing it.  This saves a TCP (and TLS) handshake for each short-lived client "
+                + "connection.")
+        public boolean reuseDestinationConnections;
+        @Parameter(required = false,
+            names = { "--maxIdleDestinationConnectionsPerThread" },
+            arity = 1,
+            description = "With --reuseDestinationConnections, the most idle connections that each thread will "
+                + "keep for reuse.")
+        public int maxIdleDestinationConnectionsPerThread = 32;
+        @Parameter(required = false,
+            names = { "--reusedDestinationConnectionIdleTimeout" },
+            arity = 1,
+            description = "With --reuseDestinationConnections, how long a connection can sit idle in the pool "
+                + "before it is closed.")
+        public String reusedDestinationConnectionIdleTimeout = "PT30S";
         @Parameter(required = false,
             names = { "--otelCollectorEndpoint" },
             arity = 1,
             description = "Endpoint (host:port) for the OpenTelemetry Collector to which metrics logs should be forwarded."
                 + "If this is not provided, metrics will not be sent to a collector.")
         public String otelCollectorEndpoint;
+        @Parameter(required = false,
+            names = { "--activeContextTrackingSampleOneIn" },
+            arity = 1,
+            description = "Keep only about 1 in this many open contexts (spans) in the trackers of outstanding "
+                + "work.  All contexts are still counted.")
+        public int activeContextTrackingSampleOneIn = 1;
+        @Parameter(required = false,
+            names = { "--otelTraceSampleRatio" },
+            arity = 1,
+            description = "The fraction (0-1) of traces to record spans for.  Metrics are still recorded for all "
+                + "connections and requests.")
+        public double otelTraceSampleRatio = 1.0;
+        @Parameter(required = false,
+            names = { "--otelSkipErrorTraces" },
+            arity = 0,
+            description = "Don't record spans for work that observed an exception when its trace wasn't sampled "
+                + "with --otelTraceSampleRatio.")
+        public boolean otelSkipErrorTraces;
+        @Parameter(required = false,
+            names = { "--otelMetricsOnly" },
+            arity = 0,
+            description = "Only send metrics to the OpenTelemetry Collector.  No spans are created or exported.")
+        public boolean otelMetricsOnly;
         @Parameter(required = false,
             names = "--setHeader",
             splitter = NoSplitter.class,
@@ -179,12 +247,13 @@ public class CaptureProxy {
         JCommander jCommander = new JCommander(p);
         try {
             jCommander.parse(args);
-            // Exactly one these 3 options are required. See that exactly one is set by summing up their presence
-            if (Stream.of(p.traceDirectory, p.kafkaConnection, (p.noCapture ? "" : null))
+            // Exactly one these 4 options are required. See that exactly one is set by summing up their presence
+            if (Stream.of(p.traceDirectory, p.traceSegmentDirectory, p.kafkaConnection, (p.noCapture ? "" : null))
                 .mapToInt(s -> s != null ? 1 : 0)
                 .sum() != 1) {
                 throw new ParameterException(
-                    "Expected exactly one of '--traceDirectory', '--kafkaConnection', or " + "'--noCapture' to be set"
+                    "Expected exactly one of '--traceDirectory', '--traceSegmentDirectory', '--kafkaConnection', or "
+                        + "'--noCapture' to be set"
                 );
             }
             return p;
@@ -219,7 +288,7 @@ public class CaptureProxy {
             .build();
     }
 
-    protected static IConnectionCaptureFactory<Object> getNullConnectionCaptureFactory() {
+    public static IConnectionCaptureFactory<Object> getNullConnectionCaptureFactory() {
         System.err.println("No trace log directory specified.  Logging to /dev/null");
         return ctx -> new StreamChannelConnectionCaptureSerializer<>(
             null,
@@ -307,13 +376,28 @@ public class CaptureProxy {
         var nodeId = getNodeId();
         // Resist the urge for now though until it comes in as a request/need.
         if (params.traceDirectory != null) {
-            return new FileConnectionCaptureFactory(nodeId, params.traceDirectory, params.maximumTrafficStreamSize);
+            return new FileConnectionCaptureFactory(
+                nodeId,
+                params.traceDirectory,
+                params.maximumTrafficStreamSize,
+                params.compressCapturedPayloads
+            );
+        } else if (params.traceSegmentDirectory != null) {
+            return new RollingSegmentFileCaptureFactory(
+                nodeId,
+                params.maximumTrafficStreamSize,
+                Paths.get(params.traceSegmentDirectory),
+                params.traceSegmentMaxBytes,
+                Duration.parse(params.traceSegmentMaxDuration),
+                params.compressCapturedPayloads
+            );
         } else if (params.kafkaConnection != null) {
             return new KafkaCaptureFactory(
                 rootContext,
                 nodeId,
                 new KafkaProducer<>(buildKafkaProperties(params)),
-                params.maximumTrafficStreamSize
+                params.maximumTrafficStreamSize,
+                params.compressCapturedPayloads
             );
         } else if (params.noCapture) {
             return getNullConnectionCaptureFactory();
@@ -377,10 +461,17 @@ public class CaptureProxy {
         var params = parseArgs(args);
         var backsideUri = convertStringToUri(params.backsideUriString);
 
+        var traceSampling = params.otelMetricsOnly
+            ? TraceSampling.METRICS_ONLY
+            : TraceSampling.of(params.otelTraceSampleRatio, !params.otelSkipErrorTraces);
         var ctx = new RootCaptureContext(
             RootOtelContext.initializeOpenTelemetryWithCollectorOrAsNoop(params.otelCollectorEndpoint, "capture",
-                ProcessHelpers.getNodeInstanceName()),
-            new CompositeContextTracker(new ActiveContextTracker(), new ActiveContextTrackerByActivityType())
+                ProcessHelpers.getNodeInstanceName(), traceSampling),
+            new CompositeContextTracker(
+                new ActiveContextTracker(params.activeContextTrackingSampleOneIn),
+                new ActiveContextTrackerByActivityType(params.activeContextTrackingSampleOneIn)
+            ),
+            traceSampling
         );
 
         var sksOp = Optional.ofNullable(params.sslConfigFilePath)
@@ -391,6 +482,7 @@ public class CaptureProxy {
 
         sksOp.ifPresent(DefaultSecurityKeyStore::initHttpSSLConfig);
         var proxy = new NettyScanningHttpProxy(params.frontsidePort);
+        IConnectionCaptureFactory<?> connectionCaptureFactory;
         try {
             var pooledConnectionTimeout = params.destinationConnectionPoolSize == 0
                 ? Duration.ZERO
@@ -399,7 +491,9 @@ public class CaptureProxy {
                 backsideUri,
                 loadBacksideSslContext(backsideUri, params.allowInsecureConnectionsToBackside),
                 params.destinationConnectionPoolSize,
-                pooledConnectionTimeout
+                pooledConnectionTimeout,
+                params.reuseDestinationConnections ? params.maxIdleDestinationConnectionsPerThread : 0,
+                Duration.parse(params.reusedDestinationConnectionIdleTimeout)
             );
             Supplier<SSLEngine> sslEngineSupplier = sksOp.map(sks -> (Supplier<SSLEngine>) () -> {
                 try {
@@ -411,9 +505,10 @@ public class CaptureProxy {
             var headerCapturePredicate = new HeaderValueFilteringCapturePredicate(
                 convertPairListToMap(params.suppressCaptureHeaderPairs)
             );
+            connectionCaptureFactory = getConnectionCaptureFactory(params, ctx);
             var proxyChannelInitializer =
                 buildProxyChannelInitializer(ctx, backsideConnectionPool, sslEngineSupplier, headerCapturePredicate,
-                    params.headerOverrides, getConnectionCaptureFactory(params, ctx));
+                    params.headerOverrides, connectionCaptureFactory);
             proxy.start(proxyChannelInitializer, params.numThreads);
         } catch (Exception e) {
             log.atError().setCause(e).setMessage("Caught exception while setting up the server and rethrowing").log();
@@ -424,9 +519,14 @@ public class CaptureProxy {
                 System.err.println("Received shutdown signal.  Trying to shutdown cleanly");
                 proxy.stop();
                 System.err.println("Done stopping the proxy.");
+                if (connectionCaptureFactory instanceof AutoCloseable) {
+                    ((AutoCloseable) connectionCaptureFactory).close();
+                }
             } catch (InterruptedException e) {
                 System.err.println("Caught InterruptedException while shutting down, resetting interrupt status: " + e);
                 Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.err.println("Caught exception while closing the capture sink: " + e);
             }
         }));
         // This loop just gives the main() function something to do while the netty event loops
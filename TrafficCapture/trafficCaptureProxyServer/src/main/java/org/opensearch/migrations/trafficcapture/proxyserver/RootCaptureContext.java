@@ -1,6 +1,7 @@
 package org.opensearch.migrations.trafficcapture.proxyserver;
 
 import org.opensearch.migrations.tracing.IContextTracker;
+import org.opensearch.migrations.tracing.TraceSampling;
 import org.opensearch.migrations.trafficcapture.kafkaoffloader.tracing.IRootKafkaOffloaderContext;
 import org.opensearch.migrations.trafficcapture.kafkaoffloader.tracing.KafkaRecordContext;
 import org.opensearch.migrations.trafficcapture.netty.tracing.RootWireLoggingContext;
@@ -19,7 +20,20 @@ public class RootCaptureContext extends RootWireLoggingContext implements IRootK
     }
 
     public RootCaptureContext(OpenTelemetry openTelemetry, IContextTracker contextTracker, String scopeName) {
-        super(openTelemetry, contextTracker, scopeName);
+        this(openTelemetry, contextTracker, scopeName, TraceSampling.SAMPLE_EVERYTHING);
+    }
+
+    public RootCaptureContext(OpenTelemetry openTelemetry, IContextTracker contextTracker, TraceSampling traceSampling) {
+        this(openTelemetry, contextTracker, SCOPE_NAME, traceSampling);
+    }
+
+    public RootCaptureContext(
+        OpenTelemetry openTelemetry,
+        IContextTracker contextTracker,
+        String scopeName,
+        TraceSampling traceSampling
+    ) {
+        super(openTelemetry, contextTracker, scopeName, traceSampling);
         var meter = this.getMeterProvider().get(scopeName);
         kafkaOffloadingInstruments = KafkaRecordContext.makeMetrics(meter);
     }
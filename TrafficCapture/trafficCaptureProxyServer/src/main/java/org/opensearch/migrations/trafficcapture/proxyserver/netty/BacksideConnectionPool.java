@@ -4,18 +4,24 @@ import javax.net.ssl.SSLEngine;
 
 import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelPromise;
 import io.netty.channel.EventLoop;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.FastThreadLocal;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.event.Level;
@@ -27,27 +33,139 @@ public class BacksideConnectionPool {
     private final FastThreadLocal<ExpiringSubstitutableItemPool<ChannelFuture, Void>> connectionCacheForEachThread;
     private final Duration inactivityTimeout;
     private final int poolSize;
+    private final FastThreadLocal<ArrayDeque<Channel>> idleReusableChannelsForEachThread;
+    private final int maxIdleReusableConnections;
+    private final Duration reusableConnectionIdleTimeout;
 
     public BacksideConnectionPool(
         URI backsideUri,
         SslContext backsideSslContext,
         int poolSize,
         Duration inactivityTimeout
+    ) {
+        this(backsideUri, backsideSslContext, poolSize, inactivityTimeout, 0, Duration.ZERO);
+    }
+
+    /**
+     * @param maxIdleReusableConnections when greater than 0, connections that a client is done with (see
+     *                                   {@link #returnReusableConnection(Channel)}) are kept, per event loop,
+     *                                   for up to this many connections so that the next client on that event
+     *                                   loop can use them instead of opening a new connection.
+     * @param reusableConnectionIdleTimeout how long a returned connection may sit idle before it is closed
+     */
+    public BacksideConnectionPool(
+        URI backsideUri,
+        SslContext backsideSslContext,
+        int poolSize,
+        Duration inactivityTimeout,
+        int maxIdleReusableConnections,
+        Duration reusableConnectionIdleTimeout
     ) {
         this.backsideUri = backsideUri;
         this.backsideSslContext = backsideSslContext;
         this.connectionCacheForEachThread = new FastThreadLocal<>();
         this.inactivityTimeout = inactivityTimeout;
         this.poolSize = poolSize;
+        this.idleReusableChannelsForEachThread = new FastThreadLocal<>() {
+            @Override
+            protected ArrayDeque<Channel> initialValue() {
+                return new ArrayDeque<>();
+            }
+        };
+        this.maxIdleReusableConnections = maxIdleReusableConnections;
+        this.reusableConnectionIdleTimeout = reusableConnectionIdleTimeout;
+    }
+
+    public boolean isConnectionReuseEnabled() {
+        return maxIdleReusableConnections > 0;
     }
 
     public ChannelFuture getOutboundConnectionFuture(EventLoop eventLoop) {
+        if (isConnectionReuseEnabled()) {
+            var idleChannels = idleReusableChannelsForEachThread.get();
+            // Prefer the most recently returned connection since it's the least likely to have been closed
+            for (var channel = idleChannels.pollLast(); channel != null; channel = idleChannels.pollLast()) {
+                if (channel.isActive()) {
+                    log.atDebug().setMessage("Reusing backside channel {}").addArgument(channel).log();
+                    channel.pipeline().remove(IdleReusableChannelHandler.class);
+                    channel.config().setAutoRead(false);
+                    return channel.newSucceededFuture();
+                }
+            }
+        }
         if (poolSize == 0) {
             return buildConnectionFuture(eventLoop);
         }
         return getExpiringWarmChannelPool(eventLoop).getAvailableOrNewItem();
     }
 
+    /**
+     * Takes back a connection whose client has received complete responses for all of its complete requests.
+     * This must be called from the channel's event loop, which is also the event loop of the client's channel.
+     * The caller must have already removed its own handlers from the channel's pipeline.
+     */
+    public void returnReusableConnection(Channel channel) {
+        var idleChannels = idleReusableChannelsForEachThread.get();
+        if (!channel.isActive() || idleChannels.size() >= maxIdleReusableConnections) {
+            channel.close();
+            return;
+        }
+        log.atDebug().setMessage("Returning backside channel {} for reuse").addArgument(channel).log();
+        channel.pipeline().addLast(new IdleReusableChannelHandler(idleChannels, reusableConnectionIdleTimeout));
+        idleChannels.addLast(channel);
+        // Read so that we'll notice if the server closes the connection while it's idle
+        channel.config().setAutoRead(true);
+    }
+
+    /**
+     * Sits at the end of an idle connection's pipeline.  It removes the connection from the idle list when the
+     * connection closes and closes connections that are idle for too long or that receive unsolicited data.
+     */
+    private static class IdleReusableChannelHandler extends ChannelInboundHandlerAdapter {
+        private final ArrayDeque<Channel> idleChannels;
+        private final Duration idleTimeout;
+        private ScheduledFuture<?> idleTimeoutFuture;
+
+        IdleReusableChannelHandler(ArrayDeque<Channel> idleChannels, Duration idleTimeout) {
+            this.idleChannels = idleChannels;
+            this.idleTimeout = idleTimeout;
+        }
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            idleTimeoutFuture = ctx.executor()
+                .schedule(() -> ctx.close(), idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) {
+            idleTimeoutFuture.cancel(false);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            log.atWarn().setMessage("Closing idle backside channel {} after it received unsolicited data")
+                .addArgument(ctx.channel())
+                .log();
+            ReferenceCountUtil.release(msg);
+            ctx.close();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.atDebug().setCause(cause).setMessage("Closing idle backside channel {}")
+                .addArgument(ctx.channel())
+                .log();
+            ctx.close();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            idleChannels.remove(ctx.channel());
+            ctx.fireChannelInactive();
+        }
+    }
+
     private ExpiringSubstitutableItemPool<ChannelFuture, Void> getExpiringWarmChannelPool(EventLoop eventLoop) {
         var thisContextsConnectionCache = connectionCacheForEachThread.get();
         if (thisContextsConnectionCache == null) {
@@ -1,5 +1,7 @@
 package org.opensearch.migrations.trafficcapture.proxyserver.netty;
 
+import org.opensearch.migrations.trafficcapture.netty.LoggingHttpHandler;
+
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
@@ -17,12 +19,30 @@ public class FrontsideHandler extends ChannelInboundHandlerAdapter {
 
     private Channel outboundChannel;
     private BacksideConnectionPool backsideConnectionPool;
+    /**
+     * When the pool reuses connections, this tracks the requests that the capture handler has read from the
+     * client so that they can be compared against the responses that have come back.  Null otherwise.
+     */
+    private final LoggingHttpHandler<?> requestTracker;
+    private BacksideHandler backsideHandler;
+    private HttpResponseBoundaryCounter responseCounter;
 
     /**
      * Create a handler that sets the autorelease flag
      */
     public FrontsideHandler(BacksideConnectionPool backsideConnectionPool) {
+        this(backsideConnectionPool, null);
+    }
+
+    /**
+     * @param requestTracker the capture handler for this channel.  When it's present and the pool reuses
+     *                       connections, the backside connection will be returned to the pool when this channel
+     *                       closes, as long as the client wasn't in the middle of a request and every request
+     *                       has received its complete response.
+     */
+    public FrontsideHandler(BacksideConnectionPool backsideConnectionPool, LoggingHttpHandler<?> requestTracker) {
         this.backsideConnectionPool = backsideConnectionPool;
+        this.requestTracker = backsideConnectionPool.isConnectionReuseEnabled() ? requestTracker : null;
     }
 
     @Override
@@ -33,7 +53,12 @@ public class FrontsideHandler extends ChannelInboundHandlerAdapter {
         outboundChannelFuture.addListener((ChannelFutureListener) (future -> {
             if (future.isSuccess()) {
                 var pipeline = future.channel().pipeline();
-                pipeline.addLast(new BacksideHandler(inboundChannel));
+                if (requestTracker != null) {
+                    responseCounter = new HttpResponseBoundaryCounter();
+                    pipeline.addLast(responseCounter);
+                }
+                backsideHandler = new BacksideHandler(inboundChannel);
+                pipeline.addLast(backsideHandler);
                 inboundChannel.read();
             } else {
                 // Close the connection if the connection attempt has failed.
@@ -74,10 +99,31 @@ public class FrontsideHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
         if (outboundChannel != null) {
-            closeAndFlush(outboundChannel);
+            if (canReturnOutboundChannel()) {
+                outboundChannel.pipeline().remove(backsideHandler);
+                outboundChannel.pipeline().remove(responseCounter);
+                backsideConnectionPool.returnReusableConnection(outboundChannel);
+            } else {
+                closeAndFlush(outboundChannel);
+            }
         }
     }
 
+    /**
+     * The capture handler may still be holding back a request that it has read (while it waits for the request
+     * to be offloaded), but in that case, fewer responses will have been received than the number of requests
+     * that it reports and the connection won't be reused.
+     */
+    private boolean canReturnOutboundChannel() {
+        return requestTracker != null
+            && responseCounter != null
+            && outboundChannel.isActive()
+            && requestTracker.isBetweenRequests()
+            && requestTracker.isConnectionReusable()
+            && responseCounter.isConnectionReusable()
+            && responseCounter.getCompletedResponseCount() == requestTracker.getCompletedRequestCount();
+    }
+
     /**
      * Closes the specified channel after all queued write requests are flushed.
      */
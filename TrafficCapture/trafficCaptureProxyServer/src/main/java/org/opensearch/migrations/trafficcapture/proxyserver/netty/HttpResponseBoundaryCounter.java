@@ -0,0 +1,81 @@
+package org.opensearch.migrations.trafficcapture.proxyserver.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseDecoder;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts the complete HTTP responses that are read from a backside channel, passing the bytes through unmodified.
+ * The responses are decoded from a duplicate of each buffer, on the side, so that the proxy can tell when a
+ * backside connection has delivered every response that its client asked for and could be handed to another
+ * client.
+ */
+@Slf4j
+public class HttpResponseBoundaryCounter extends ChannelInboundHandlerAdapter {
+    private final EmbeddedChannel responseDecoderChannel;
+    @Getter
+    private long completedResponseCount;
+    /**
+     * False once any response has asked for the connection to be closed or switched protocols, or couldn't be
+     * decoded.
+     */
+    @Getter
+    private boolean connectionReusable = true;
+    private boolean currentResponseIsInformational;
+
+    public HttpResponseBoundaryCounter() {
+        this.responseDecoderChannel = new EmbeddedChannel(new HttpResponseDecoder(), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                try {
+                    onHttpObject((HttpObject) msg);
+                } finally {
+                    ReferenceCountUtil.release(msg);
+                }
+            }
+        });
+    }
+
+    private void onHttpObject(HttpObject httpObject) {
+        if (httpObject.decoderResult().isFailure()) {
+            log.atDebug().setCause(httpObject.decoderResult().cause())
+                .setMessage("Could not decode a response, so the backside connection will not be reused").log();
+            connectionReusable = false;
+        }
+        if (httpObject instanceof HttpResponse) {
+            var response = (HttpResponse) httpObject;
+            // 1xx responses (other than 101, which switches protocols) precede the final response
+            currentResponseIsInformational = response.status().codeClass() == HttpStatusClass.INFORMATIONAL
+                && response.status().code() != 101;
+            if (response.status().code() == 101 || !HttpUtil.isKeepAlive(response)) {
+                connectionReusable = false;
+            }
+        }
+        if (httpObject instanceof LastHttpContent && !currentResponseIsInformational) {
+            ++completedResponseCount;
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (connectionReusable && msg instanceof ByteBuf) {
+            responseDecoderChannel.writeInbound(((ByteBuf) msg).retainedDuplicate());
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        responseDecoderChannel.finishAndReleaseAll();
+    }
+}
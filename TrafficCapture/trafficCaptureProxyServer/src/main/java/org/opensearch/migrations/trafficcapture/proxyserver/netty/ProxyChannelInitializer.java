@@ -56,17 +56,15 @@ public class ProxyChannelInitializer<T> extends ChannelInitializer<SocketChannel
         }
 
         var connectionId = ch.id().asLongText();
-        ch.pipeline()
-            .addLast(CAPTURE_HANDLER_NAME,
-                new ConditionallyReliableLoggingHttpHandler<>(
-                    rootContext,
-                    "",
-                    connectionId,
-                    connectionCaptureFactory,
-                    requestCapturePredicate,
-                    this::shouldGuaranteeMessageOffloading
-                )
-            );
-        ch.pipeline().addLast(new FrontsideHandler(backsideConnectionPool));
+        var captureHandler = new ConditionallyReliableLoggingHttpHandler<>(
+            rootContext,
+            "",
+            connectionId,
+            connectionCaptureFactory,
+            requestCapturePredicate,
+            this::shouldGuaranteeMessageOffloading
+        );
+        ch.pipeline().addLast(CAPTURE_HANDLER_NAME, captureHandler);
+        ch.pipeline().addLast(new FrontsideHandler(backsideConnectionPool, captureHandler));
     }
 }
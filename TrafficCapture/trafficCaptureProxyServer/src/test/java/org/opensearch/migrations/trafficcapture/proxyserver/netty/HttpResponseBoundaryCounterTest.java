@@ -0,0 +1,60 @@
+package org.opensearch.migrations.trafficcapture.proxyserver.netty;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HttpResponseBoundaryCounterTest {
+
+    private static final String CONTINUE_THEN_OK = "HTTP/1.1 100 Continue\r\n\r\n"
+        + "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello";
+    private static final String CHUNKED_OK = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+        + "3\r\nabc\r\n0\r\n\r\n";
+
+    private static void writeInSmallPieces(EmbeddedChannel channel, String responses) {
+        var bytes = responses.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i += 7) {
+            channel.writeInbound(Unpooled.wrappedBuffer(bytes, i, Math.min(7, bytes.length - i)));
+        }
+    }
+
+    @Test
+    public void testCompleteResponsesAreCountedAndBytesPassThrough() {
+        var counter = new HttpResponseBoundaryCounter();
+        var channel = new EmbeddedChannel(counter);
+        writeInSmallPieces(channel, CONTINUE_THEN_OK + CHUNKED_OK);
+
+        Assertions.assertEquals(2, counter.getCompletedResponseCount());
+        Assertions.assertTrue(counter.isConnectionReusable());
+        var passedThrough = new StringBuilder();
+        for (ByteBuf buf = channel.readInbound(); buf != null; buf = channel.readInbound()) {
+            passedThrough.append(buf.toString(StandardCharsets.UTF_8));
+            buf.release();
+        }
+        Assertions.assertEquals(CONTINUE_THEN_OK + CHUNKED_OK, passedThrough.toString());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testPartialResponseIsNotCounted() {
+        var counter = new HttpResponseBoundaryCounter();
+        var channel = new EmbeddedChannel(counter);
+        writeInSmallPieces(channel, "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhel");
+        Assertions.assertEquals(0, counter.getCompletedResponseCount());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testConnectionCloseResponsePreventsReuse() {
+        var counter = new HttpResponseBoundaryCounter();
+        var channel = new EmbeddedChannel(counter);
+        writeInSmallPieces(channel, "HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n");
+        Assertions.assertEquals(1, counter.getCompletedResponseCount());
+        Assertions.assertFalse(counter.isConnectionReusable());
+        channel.finishAndReleaseAll();
+    }
+}
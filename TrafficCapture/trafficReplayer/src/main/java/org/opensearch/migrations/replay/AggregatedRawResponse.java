@@ -14,6 +14,13 @@ import lombok.extern.slf4j.Slf4j;
 public class AggregatedRawResponse extends AggregatedRawResult {
 
     protected final HttpResponse rawResponse;
+    /**
+     * The time from when the last byte of the request was written until the last packet of the response was
+     * received, which is the same interval that the source latency is measured over.  The (total) duration
+     * also includes connecting and sending the request.  This is null when the request wasn't fully sent or
+     * when no response was received.
+     */
+    protected final Duration responseLatency;
 
     public AggregatedRawResponse(
         HttpResponse rawResponse,
@@ -21,14 +28,27 @@ public class AggregatedRawResponse extends AggregatedRawResult {
         Duration responseDuration,
         List<AbstractMap.SimpleEntry<Instant, byte[]>> responsePackets,
         Throwable error
+    ) {
+        this(rawResponse, responseSizeInBytes, responseDuration, responsePackets, error, null);
+    }
+
+    public AggregatedRawResponse(
+        HttpResponse rawResponse,
+        int responseSizeInBytes,
+        Duration responseDuration,
+        List<AbstractMap.SimpleEntry<Instant, byte[]>> responsePackets,
+        Throwable error,
+        Duration responseLatency
     ) {
         super(responseSizeInBytes, responseDuration, responsePackets, error);
         this.rawResponse = rawResponse;
+        this.responseLatency = responseLatency;
     }
 
 
     public static class Builder extends AggregatedRawResult.Builder<Builder> {
         protected HttpResponse rawResponse;
+        protected Instant requestSentTime;
 
         public Builder(Instant requestSendTime) {
             super(requestSendTime);
@@ -41,10 +61,28 @@ public class AggregatedRawResponse extends AggregatedRawResult {
                 getTotalBytes(),
                 Duration.between(startTime, Instant.now()),
                 receiptTimeAndResponsePackets,
-                error
+                error,
+                getResponseLatency()
             );
         }
 
+        private Duration getResponseLatency() {
+            if (requestSentTime == null || receiptTimeAndResponsePackets.isEmpty()) {
+                return null;
+            }
+            var lastPacketTime = receiptTimeAndResponsePackets.get(receiptTimeAndResponsePackets.size() - 1).getKey();
+            return lastPacketTime.isBefore(requestSentTime) ? Duration.ZERO
+                : Duration.between(requestSentTime, lastPacketTime);
+        }
+
+        /**
+         * Records when the last byte of the request was written, which is where the response latency starts.
+         */
+        public Builder markRequestSent(Instant requestSentTime) {
+            this.requestSentTime = requestSentTime;
+            return this;
+        }
+
         public Builder addHttpParsedResponseObject(HttpResponse r) {
             this.rawResponse = r;
             return this;
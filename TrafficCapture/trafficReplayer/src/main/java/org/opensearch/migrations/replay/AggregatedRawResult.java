@@ -77,6 +77,13 @@ public class AggregatedRawResult {
         return new Builder<>(i);
     }
 
+    /**
+     * @return when the last packet was received, or null if there weren't any
+     */
+    public Instant getLastPacketTimestamp() {
+        return packets == null || packets.isEmpty() ? null : packets.get(packets.size() - 1).getKey();
+    }
+
     public byte[][] getCopyOfPackets() {
         return packets.stream()
             .map(Map.Entry::getValue)
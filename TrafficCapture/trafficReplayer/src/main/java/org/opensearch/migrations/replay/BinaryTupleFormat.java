@@ -0,0 +1,247 @@
+package org.opensearch.migrations.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+
+import io.netty.buffer.ByteBuf;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Lombok;
+
+/**
+ * A compact binary encoding of SourceTargetCaptureTuples.  The raw bytes of every message are kept as they
+ * were sent or received, so encoding a tuple costs little more than copying those bytes.  Turning the records
+ * into the JSON shape that ResultsToLogsConsumer writes is left to BinaryTupleToJsonConverter, which can be
+ * run offline.
+ *
+ * A file starts with FILE_MAGIC and is followed by records.  Each record is an int length followed by that
+ * many bytes of fields, always in the same order, so that readers can skip records without parsing them.
+ * Missing values are written as a length (or, for durations, a value) of -1.
+ */
+public class BinaryTupleFormat {
+    public static final int FILE_MAGIC = 0x54504c31; // "TPL1"
+    public static final String FILE_SUFFIX = ".tuples";
+
+    private BinaryTupleFormat() {}
+
+    @AllArgsConstructor
+    @Getter
+    public static class TargetResponse {
+        private final byte[] responseBytes;
+        private final Duration duration;
+        private final String error;
+    }
+
+    @AllArgsConstructor
+    @Getter
+    public static class Record {
+        private final String nodeId;
+        private final String connectionId;
+        private final int sourceRequestIndex;
+        private final Instant sourceRequestTimestamp;
+        private final byte[] sourceRequestBytes;
+        private final Instant sourceResponseTimestamp;
+        private final byte[] sourceResponseBytes;
+        private final String transformationStatus;
+        private final byte[] targetRequestBytes;
+        private final List<TargetResponse> targetResponses;
+        private final String error;
+    }
+
+    /**
+     * Encodes the tuple into a record, including its length prefix.  This must be called before the tuple has
+     * been closed, since the target request is read out of its (ref-counted) buffers.
+     */
+    public static byte[] encode(SourceTargetCaptureTuple tuple) {
+        try {
+            var baos = new ByteArrayOutputStream(estimateSize(tuple));
+            var out = new DataOutputStream(baos);
+            out.writeInt(0); // placeholder for the length
+            var requestKey = tuple.getRequestKey();
+            writeString(out, requestKey.getTrafficStreamKey().getNodeId());
+            writeString(out, requestKey.getTrafficStreamKey().getConnectionId());
+            out.writeInt(requestKey.getSourceRequestIndex());
+
+            var requestData = Optional.ofNullable(tuple.sourcePair).map(p -> p.requestData);
+            var responseData = Optional.ofNullable(tuple.sourcePair).map(p -> p.responseData);
+            writeInstant(out, requestData.map(HttpMessageAndTimestamp::getLastPacketTimestamp).orElse(null));
+            writeByteArrays(out, requestData.map(d -> d.packetBytes).orElse(null));
+            writeInstant(out, responseData.map(HttpMessageAndTimestamp::getLastPacketTimestamp).orElse(null));
+            writeByteArrays(out, responseData.map(d -> d.packetBytes).orElse(null));
+
+            writeString(
+                out,
+                Optional.ofNullable(tuple.transformationStatus).map(s -> s.getClass().getSimpleName()).orElse(null)
+            );
+            writeByteBufs(out, tuple.targetRequestData);
+            out.writeInt(tuple.responseList.size());
+            for (var response : tuple.responseList) {
+                out.writeLong(Optional.ofNullable(response.targetResponseDuration).map(Duration::toNanos).orElse(-1L));
+                writeByteArrays(out, response.targetResponseData);
+                writeString(out, Optional.ofNullable(response.errorCause).map(Object::toString).orElse(null));
+            }
+            writeString(out, Optional.ofNullable(tuple.topLevelErrorCause).map(Object::toString).orElse(null));
+            out.flush();
+
+            var record = baos.toByteArray();
+            var bodyLength = record.length - Integer.BYTES;
+            record[0] = (byte) (bodyLength >>> 24);
+            record[1] = (byte) (bodyLength >>> 16);
+            record[2] = (byte) (bodyLength >>> 8);
+            record[3] = (byte) bodyLength;
+            return record;
+        } catch (IOException e) {
+            // writes to a ByteArrayOutputStream don't fail
+            throw Lombok.sneakyThrow(e);
+        }
+    }
+
+    private static int estimateSize(SourceTargetCaptureTuple tuple) {
+        long size = 256;
+        if (tuple.sourcePair != null) {
+            size += sumLengths(Optional.ofNullable(tuple.sourcePair.requestData).map(d -> d.packetBytes).orElse(null));
+            size += sumLengths(Optional.ofNullable(tuple.sourcePair.responseData).map(d -> d.packetBytes).orElse(null));
+        }
+        if (tuple.targetRequestData != null && !tuple.targetRequestData.isClosed()) {
+            size += tuple.targetRequestData.streamUnretained().mapToLong(ByteBuf::readableBytes).sum();
+        }
+        for (var response : tuple.responseList) {
+            size += sumLengths(response.targetResponseData);
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE - 8);
+    }
+
+    private static long sumLengths(List<byte[]> arrays) {
+        return arrays == null ? 0 : arrays.stream().mapToLong(a -> a.length).sum();
+    }
+
+    public static void writeFileHeader(DataOutputStream out) throws IOException {
+        out.writeInt(FILE_MAGIC);
+    }
+
+    public static void readFileHeader(DataInputStream in) throws IOException {
+        var magic = in.readInt();
+        if (magic != FILE_MAGIC) {
+            throw new IOException("Not a tuple file (magic=" + Integer.toHexString(magic) + ")");
+        }
+    }
+
+    /**
+     * @return the next record or null if the stream has ended
+     */
+    public static Record readRecord(DataInputStream in) throws IOException {
+        int bodyLength;
+        try {
+            bodyLength = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        var body = new byte[bodyLength];
+        in.readFully(body);
+        var bodyIn = new DataInputStream(new ByteArrayInputStream(body));
+        var nodeId = readString(bodyIn);
+        var connectionId = readString(bodyIn);
+        var sourceRequestIndex = bodyIn.readInt();
+        var sourceRequestTimestamp = readInstant(bodyIn);
+        var sourceRequestBytes = readBytes(bodyIn);
+        var sourceResponseTimestamp = readInstant(bodyIn);
+        var sourceResponseBytes = readBytes(bodyIn);
+        var transformationStatus = readString(bodyIn);
+        var targetRequestBytes = readBytes(bodyIn);
+        var responseCount = bodyIn.readInt();
+        var targetResponses = new ArrayList<TargetResponse>(responseCount);
+        for (int i = 0; i < responseCount; ++i) {
+            var nanos = bodyIn.readLong();
+            var responseBytes = readBytes(bodyIn);
+            var error = readString(bodyIn);
+            targetResponses.add(new TargetResponse(responseBytes, nanos < 0 ? null : Duration.ofNanos(nanos), error));
+        }
+        var error = readString(bodyIn);
+        return new Record(
+            nodeId,
+            connectionId,
+            sourceRequestIndex,
+            sourceRequestTimestamp,
+            sourceRequestBytes,
+            sourceResponseTimestamp,
+            sourceResponseBytes,
+            transformationStatus,
+            targetRequestBytes,
+            targetResponses,
+            error
+        );
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            var bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        var bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        if (instant == null) {
+            out.writeLong(Long.MIN_VALUE);
+        } else {
+            out.writeLong(instant.getEpochSecond());
+            out.writeInt(instant.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        var seconds = in.readLong();
+        return seconds == Long.MIN_VALUE ? null : Instant.ofEpochSecond(seconds, in.readInt());
+    }
+
+    private static void writeByteArrays(DataOutputStream out, List<byte[]> arrays) throws IOException {
+        if (arrays == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt((int) sumLengths(arrays));
+        for (var a : arrays) {
+            out.write(a);
+        }
+    }
+
+    private static void writeByteBufs(DataOutputStream out, ByteBufList bufs) throws IOException {
+        if (bufs == null || bufs.isClosed()) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(bufs.streamUnretained().mapToInt(ByteBuf::readableBytes).sum());
+        for (var buf : (Iterable<ByteBuf>) bufs.streamUnretained()::iterator) {
+            buf.getBytes(buf.readerIndex(), out, buf.readableBytes());
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        var length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
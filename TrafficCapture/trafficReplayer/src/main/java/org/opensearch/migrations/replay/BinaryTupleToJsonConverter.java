@@ -0,0 +1,194 @@
+package org.opensearch.migrations.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.opensearch.migrations.replay.datatypes.PojoTrafficStreamKeyAndContext;
+import org.opensearch.migrations.replay.datatypes.UniqueReplayerRequestKey;
+import org.opensearch.migrations.replay.tracing.ChannelContextManager;
+import org.opensearch.migrations.replay.tracing.RootReplayerContext;
+import org.opensearch.migrations.tracing.IContextTracker;
+import org.opensearch.migrations.tracing.RootOtelContext;
+import org.opensearch.migrations.transform.IJsonTransformer;
+import org.opensearch.migrations.transform.TransformationLoader;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Converts the files that BinaryTupleWriter produces into the same JSON lines that the replayer would have
+ * logged through ResultsToLogsConsumer, so that the expensive parsing of the messages can be done offline
+ * (or not at all).
+ */
+@Slf4j
+public class BinaryTupleToJsonConverter {
+    private static final ObjectMapper PLAIN_MAPPER = new ObjectMapper();
+
+    public static class Parameters {
+        @Parameter(
+            required = true,
+            description = "tuple files, or directories of them, to convert (in order)")
+        List<String> inputs = new ArrayList<>();
+        @Parameter(
+            required = false,
+            names = { "-o", "--output" },
+            arity = 1,
+            description = "file to write the json tuples to, one per line.  Defaults to stdout.")
+        String outputFile;
+        @Parameter(
+            required = false,
+            names = { "--tuple-transformer-config" },
+            arity = 1,
+            description = "Configuration of tuple transformers to apply to each tuple before it is written.  "
+                + "See the replayer's option of the same name.")
+        String tupleTransformerConfig;
+    }
+
+    private final RootReplayerContext rootContext;
+    private final ChannelContextManager channelContextManager;
+    private final IJsonTransformer tupleTransformer;
+
+    public BinaryTupleToJsonConverter(IJsonTransformer tupleTransformer) {
+        this.rootContext = new RootReplayerContext(
+            RootOtelContext.initializeOpenTelemetryWithCollectorOrAsNoop(null, "tupleConverter", "local"),
+            IContextTracker.DO_NOTHING_TRACKER
+        );
+        this.channelContextManager = new ChannelContextManager(rootContext);
+        this.tupleTransformer = tupleTransformer;
+    }
+
+    public static void main(String[] args) throws Exception {
+        var params = new Parameters();
+        var jCommander = JCommander.newBuilder().addObject(params).build();
+        try {
+            jCommander.parse(args);
+        } catch (ParameterException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Got args: " + String.join("; ", args));
+            jCommander.usage();
+            System.exit(2);
+            return;
+        }
+
+        var converter = new BinaryTupleToJsonConverter(
+            new TransformationLoader().getTransformerFactoryLoader(params.tupleTransformerConfig)
+        );
+        try (
+            var writer = new BufferedWriter(
+                params.outputFile == null
+                    ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                    : Files.newBufferedWriter(Paths.get(params.outputFile))
+            )
+        ) {
+            for (var file : expandInputs(params.inputs)) {
+                var count = converter.convertFile(file, writer);
+                log.atInfo().setMessage("Converted {} tuples from {}").addArgument(count).addArgument(file).log();
+            }
+        }
+    }
+
+    static List<Path> expandInputs(List<String> inputs) throws IOException {
+        var files = new ArrayList<Path>();
+        for (var input : inputs) {
+            var path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                try (var children = Files.list(path)) {
+                    files.addAll(
+                        children.filter(p -> p.getFileName().toString().endsWith(BinaryTupleFormat.FILE_SUFFIX))
+                            .sorted()
+                            .collect(Collectors.toList())
+                    );
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @return the number of tuples that were converted
+     */
+    public long convertFile(Path file, Writer writer) throws IOException {
+        long count = 0;
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            BinaryTupleFormat.readFileHeader(in);
+            BinaryTupleFormat.Record record;
+            while ((record = BinaryTupleFormat.readRecord(in)) != null) {
+                writer.write(PLAIN_MAPPER.writeValueAsString(tupleTransformer.transformJson(toJSONObject(record))));
+                writer.write('\n');
+                ++count;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    Map<String, Object> toJSONObject(BinaryTupleFormat.Record record) {
+        var trafficStreamKey = PojoTrafficStreamKeyAndContext.build(
+            record.getNodeId(),
+            record.getConnectionId(),
+            0,
+            tsk -> rootContext.createTrafficStreamContextForStreamSource(
+                channelContextManager.retainOrCreateContext(tsk),
+                tsk
+            )
+        );
+        var requestKey = new UniqueReplayerRequestKey(trafficStreamKey, 0, record.getSourceRequestIndex());
+        var trafficStreamContext = trafficStreamKey.getTrafficStreamsContext();
+        var httpTransactionContext = trafficStreamContext.createHttpTransactionContext(requestKey, Instant.EPOCH);
+        try (var tupleContext = httpTransactionContext.createTupleContext()) {
+            var sourceResponseLatency = Optional.ofNullable(record.getSourceRequestTimestamp())
+                .flatMap(
+                    requestTime -> Optional.ofNullable(record.getSourceResponseTimestamp())
+                        .map(responseTime -> Duration.between(requestTime, responseTime))
+                )
+                .orElse(Duration.ZERO);
+            var parsed = new ParsedHttpMessagesAsDicts(
+                tupleContext,
+                Optional.ofNullable(record.getSourceRequestBytes())
+                    .map(b -> ParsedHttpMessagesAsDicts.convertRequest(tupleContext, List.of(b))),
+                Optional.ofNullable(record.getSourceResponseBytes())
+                    .map(b -> ParsedHttpMessagesAsDicts.convertResponse(tupleContext, List.of(b), sourceResponseLatency)),
+                Optional.ofNullable(record.getTargetRequestBytes())
+                    .map(b -> ParsedHttpMessagesAsDicts.convertRequest(tupleContext, List.of(b))),
+                record.getTargetResponses().stream()
+                    .map(r -> ParsedHttpMessagesAsDicts.convertResponse(
+                        tupleContext,
+                        r.getResponseBytes() == null ? List.of() : List.of(r.getResponseBytes()),
+                        Optional.ofNullable(r.getDuration()).orElse(Duration.ZERO)
+                    ))
+                    .collect(Collectors.toList())
+            );
+            return ResultsToLogsConsumer.toJSONObject(
+                parsed,
+                record.getConnectionId() + "." + record.getSourceRequestIndex(),
+                record.getError(),
+                record.getTargetResponses().size(),
+                record.getTargetResponses().stream().filter(r -> r.getError() != null).count()
+            );
+        } finally {
+            httpTransactionContext.close();
+            trafficStreamContext.close();
+            channelContextManager.releaseContextFor(trafficStreamContext.getLogicalEnclosingScope());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.opensearch.migrations.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes tuples to rolling files in the BinaryTupleFormat instead of converting every one of them to JSON as
+ * they're produced.  Each tuple is encoded on the thread that hands it over (the tuple is closed as soon as
+ * accept returns) and is then queued for a single writer thread, so the replay threads never wait on the disk
+ * unless the writer has fallen more than maxQueuedBytes behind.
+ *
+ * Since the messages aren't parsed here, the status codes and request line values that the tuple context
+ * reports as metrics are pulled out of the start line of each message instead (see HttpStartLines).
+ */
+@Slf4j
+public class BinaryTupleWriter implements Consumer<SourceTargetCaptureTuple>, AutoCloseable {
+    public static final long DEFAULT_MAX_FILE_BYTES = 256L * 1024 * 1024;
+    public static final long DEFAULT_MAX_QUEUED_BYTES = 64L * 1024 * 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 1024 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BACKPRESSURE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final Path directory;
+    private final String filePrefix;
+    private final long maxFileBytes;
+    private final long maxQueuedBytes;
+    private final long startMillis;
+
+    private final ConcurrentLinkedQueue<byte[]> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    @Getter
+    private final AtomicLong tuplesWritten = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean writerIdle;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    // only touched by the writer thread
+    private DataOutputStream currentFile;
+    private long currentFileBytes;
+    private int fileIndex;
+
+    public BinaryTupleWriter(Path directory, String filePrefix) throws IOException {
+        this(directory, filePrefix, DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_QUEUED_BYTES);
+    }
+
+    public BinaryTupleWriter(Path directory, String filePrefix, long maxFileBytes, long maxQueuedBytes)
+        throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.filePrefix = filePrefix;
+        this.maxFileBytes = maxFileBytes;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.startMillis = Instant.now().toEpochMilli();
+        this.writerThread = new Thread(this::runWriter, "binaryTupleWriter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void accept(SourceTargetCaptureTuple tuple) {
+        HttpStartLines.setTupleContextAttributes(tuple);
+        var record = BinaryTupleFormat.encode(tuple);
+        while (queuedBytes.get() > maxQueuedBytes && failure == null && !closed) {
+            LockSupport.parkNanos(BACKPRESSURE_PARK_NANOS);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("The tuple writer has failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("The tuple writer has already been closed");
+        }
+        queuedBytes.addAndGet(record.length);
+        queue.add(record);
+        if (writerIdle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void runWriter() {
+        try {
+            while (true) {
+                var record = queue.poll();
+                if (record == null) {
+                    if (closed && queue.isEmpty()) {
+                        break;
+                    }
+                    if (currentFile != null) {
+                        currentFile.flush();
+                    }
+                    writerIdle = true;
+                    if (queue.isEmpty() && !closed) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    writerIdle = false;
+                    continue;
+                }
+                writeRecord(record);
+                queuedBytes.addAndGet(-record.length);
+            }
+        } catch (Throwable t) {
+            log.atError().setCause(t).setMessage("Failed to write tuples to {}").addArgument(directory).log();
+            failure = t;
+        } finally {
+            closeCurrentFile();
+        }
+    }
+
+    private void writeRecord(byte[] record) throws IOException {
+        if (currentFile != null && currentFileBytes + record.length > maxFileBytes) {
+            closeCurrentFile();
+        }
+        if (currentFile == null) {
+            var path = directory.resolve(
+                // zero-padded so that the files sort in the order that they were written
+                String.format("%s.%d.%06d%s", filePrefix, startMillis, fileIndex++, BinaryTupleFormat.FILE_SUFFIX)
+            );
+            log.atInfo().setMessage("Writing tuples to {}").addArgument(path).log();
+            currentFile = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), OUTPUT_BUFFER_SIZE));
+            BinaryTupleFormat.writeFileHeader(currentFile);
+            currentFileBytes = Integer.BYTES;
+        }
+        currentFile.write(record);
+        currentFileBytes += record.length;
+        tuplesWritten.incrementAndGet();
+    }
+
+    private void closeCurrentFile() {
+        if (currentFile == null) {
+            return;
+        }
+        try {
+            currentFile.close();
+        } catch (IOException e) {
+            log.atError().setCause(e).setMessage("Failed to close a tuple file in {}").addArgument(directory).log();
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        currentFile = null;
+    }
+
+    /**
+     * Waits for everything that has been accepted to be written and closes the current file.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the tuple writer to finish", e);
+        }
+        if (failure != null) {
+            throw new IOException("The tuple writer failed", failure);
+        }
+    }
+}
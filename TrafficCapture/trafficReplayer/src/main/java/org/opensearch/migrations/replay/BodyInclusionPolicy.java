@@ -0,0 +1,83 @@
+package org.opensearch.migrations.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Decides, by the URI of a tuple's source request, whether the bodies of the tuple's messages are included in
+ * its output.  A body is left out when it's longer than the limit for its URI, which can be 0 to always skip the
+ * bodies of an endpoint (e.g. _bulk) whose payloads aren't worth their cost.  Sizes are those of the bodies as
+ * they were sent (before any decompression), so they can be checked without parsing anything.
+ */
+public class BodyInclusionPolicy {
+    public static final long UNLIMITED = -1;
+    public static final BodyInclusionPolicy INCLUDE_ALL = new BodyInclusionPolicy(List.of(), UNLIMITED);
+
+    @AllArgsConstructor
+    private static class Rule {
+        final Pattern uriPattern;
+        final long maxBodyBytes;
+    }
+
+    private final List<Rule> rules;
+    @Getter
+    private final long defaultMaxBodyBytes;
+
+    private BodyInclusionPolicy(List<Rule> rules, long defaultMaxBodyBytes) {
+        this.rules = rules;
+        this.defaultMaxBodyBytes = defaultMaxBodyBytes;
+    }
+
+    /**
+     * @param ruleSpecs each of the form URI_REGEX=MAX_BODY_BYTES, where the regex only needs to match part of the
+     *                  URI.  The first rule that matches is used.  A limit of -1 includes every body.
+     * @param defaultMaxBodyBytes the limit for URIs that no rule matches
+     */
+    public static BodyInclusionPolicy parse(List<String> ruleSpecs, long defaultMaxBodyBytes) {
+        var rules = new ArrayList<Rule>();
+        for (var spec : ruleSpecs) {
+            var separatorIndex = spec.lastIndexOf('=');
+            if (separatorIndex <= 0) {
+                throw new IllegalArgumentException("Expected a body limit of the form URI_REGEX=MAX_BODY_BYTES, "
+                    + "but got " + spec);
+            }
+            try {
+                rules.add(new Rule(
+                    Pattern.compile(spec.substring(0, separatorIndex)),
+                    checkLimit(Long.parseLong(spec.substring(separatorIndex + 1).trim()))
+                ));
+            } catch (NumberFormatException | PatternSyntaxException e) {
+                throw new IllegalArgumentException("Could not parse the body limit " + spec, e);
+            }
+        }
+        return new BodyInclusionPolicy(rules, checkLimit(defaultMaxBodyBytes));
+    }
+
+    private static long checkLimit(long maxBodyBytes) {
+        if (maxBodyBytes < UNLIMITED) {
+            throw new IllegalArgumentException("Body limits must be -1 (unlimited) or more, but got " + maxBodyBytes);
+        }
+        return maxBodyBytes;
+    }
+
+    public long getMaxBodyBytes(String uri) {
+        if (uri != null) {
+            for (var rule : rules) {
+                if (rule.uriPattern.matcher(uri).find()) {
+                    return rule.maxBodyBytes;
+                }
+            }
+        }
+        return defaultMaxBodyBytes;
+    }
+
+    public boolean isBodyIncluded(String uri, long bodyBytes) {
+        var maxBodyBytes = getMaxBodyBytes(uri);
+        return maxBodyBytes == UNLIMITED || bodyBytes <= maxBodyBytes;
+    }
+}
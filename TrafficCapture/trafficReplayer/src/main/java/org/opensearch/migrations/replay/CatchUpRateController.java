@@ -0,0 +1,102 @@
+package org.opensearch.migrations.replay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Speeds the replay schedule up when it has fallen behind the source (e.g. after a restart) and puts it back
+ * to its normal rate once it has caught up.  The lag is the difference between the wall clock and the source
+ * time that the TimeShifter maps the wall clock to, i.e. how far behind the capture time requests are currently
+ * being scheduled.  It's only the TimeShifter's offset: it doesn't include how long scheduled requests wait to
+ * be sent or for the target to respond, so a target that can't keep up won't make this lag grow.
+ *
+ * Each call to adjustRate multiplies the rate by the step ratio while the lag is above the target, up to the
+ * ceiling.  As soon as the lag has dropped to the target or below, the rate returns to the base rate.
+ */
+@Slf4j
+public class CatchUpRateController {
+    public static final double DEFAULT_STEP_RATIO = 1.5;
+
+    private final TimeShifter timeShifter;
+    private final double baseRateMultiplier;
+    private final double maxRateMultiplier;
+    private final Duration targetLag;
+    private final double stepRatio;
+    private final Supplier<Instant> clock;
+
+    public CatchUpRateController(
+        TimeShifter timeShifter,
+        double baseRateMultiplier,
+        double maxRateMultiplier,
+        Duration targetLag
+    ) {
+        this(timeShifter, baseRateMultiplier, maxRateMultiplier, targetLag, DEFAULT_STEP_RATIO, Instant::now);
+    }
+
+    public CatchUpRateController(
+        TimeShifter timeShifter,
+        double baseRateMultiplier,
+        double maxRateMultiplier,
+        Duration targetLag,
+        double stepRatio,
+        Supplier<Instant> clock
+    ) {
+        if (maxRateMultiplier < baseRateMultiplier) {
+            throw new IllegalArgumentException("The maximum rate multiplier (" + maxRateMultiplier +
+                ") must be at least as large as the base rate multiplier (" + baseRateMultiplier + ")");
+        }
+        if (stepRatio <= 1) {
+            throw new IllegalArgumentException("stepRatio must be greater than 1");
+        }
+        this.timeShifter = timeShifter;
+        this.baseRateMultiplier = baseRateMultiplier;
+        this.maxRateMultiplier = maxRateMultiplier;
+        this.targetLag = targetLag;
+        this.stepRatio = stepRatio;
+        this.clock = clock;
+    }
+
+    /**
+     * Meant to be called periodically.  Does nothing until the TimeShifter has been given its first timestamp.
+     */
+    public void adjustRate() {
+        var now = clock.get();
+        var currentSourceTime = timeShifter.transformRealTimeToSourceTime(now);
+        if (currentSourceTime.isEmpty()) {
+            return;
+        }
+        var lag = Duration.between(currentSourceTime.get(), now);
+        var currentRate = timeShifter.maxRateMultiplier();
+        var newRate = lag.compareTo(targetLag) > 0
+            ? Math.min(maxRateMultiplier, currentRate * stepRatio)
+            : baseRateMultiplier;
+        if (newRate != currentRate) {
+            log.atInfo().setMessage("Replay schedule is {} behind the source (target={}), changing the rate "
+                    + "from {}x to {}x")
+                .addArgument(lag)
+                .addArgument(targetLag)
+                .addArgument(currentRate)
+                .addArgument(newRate)
+                .log();
+            timeShifter.setRateMultiplier(newRate, now);
+        }
+    }
+
+    /**
+     * Returns how far behind the source time requests are currently being scheduled (the TimeShifter's offset
+     * from the wall clock), or zero if the replay hasn't started yet.
+     */
+    public Duration getCurrentLag() {
+        var now = clock.get();
+        return timeShifter.transformRealTimeToSourceTime(now)
+            .map(sourceTime -> Duration.between(sourceTime, now))
+            .orElse(Duration.ZERO);
+    }
+
+    public double getCurrentRateMultiplier() {
+        return timeShifter.maxRateMultiplier();
+    }
+}
@@ -1,12 +1,15 @@
 package org.opensearch.migrations.replay;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiFunction;
 
 import org.opensearch.migrations.NettyFutureBinders;
 import org.opensearch.migrations.replay.datatypes.ConnectionReplaySession;
+import org.opensearch.migrations.replay.datatypes.ISourceTrafficChannelKey;
 import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.replay.tracing.IRootReplayerContext;
 import org.opensearch.migrations.replay.util.TextTrackedFuture;
 import org.opensearch.migrations.replay.util.TrackedFuture;
 
@@ -21,6 +24,7 @@ import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.ScheduledFuture;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -28,10 +32,37 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ClientConnectionPool {
 
-    private final BiFunction<EventLoop, IReplayContexts.ITargetRequestContext, TrackedFuture<String, ChannelFuture>>
-        channelCreator;
+    /**
+     * The connection id of the context that pooled connections are traced under.  Its node id is the pool's name.
+     */
+    public static final String POOLED_CONNECTIONS_ID = "pooledTargetConnections";
+
+    @FunctionalInterface
+    public interface ChannelCreator {
+        /**
+         * @param socketParentCtx the context that the socket of the new connection will be traced under
+         */
+        TrackedFuture<String, ChannelFuture> createChannel(
+            EventLoop eventLoop,
+            IReplayContexts.ITargetRequestContext requestCtx,
+            IReplayContexts.IChannelKeyContext socketParentCtx
+        );
+    }
+
+    private final ChannelCreator channelCreator;
     private final NioEventLoopGroup eventLoopGroup;
     private final LoadingCache<Key, ConnectionReplaySession> connectionId2ChannelCache;
+    /**
+     * Empty unless sessions multiplex their requests onto a bounded number of connections for each event loop
+     */
+    private final Map<EventLoop, TargetChannelPool> eventLoopToChannelPool;
+    /**
+     * The parent of the sockets of pooled connections, since each of them is shared by many source connections.
+     * This is null unless connections are being pooled.
+     */
+    private final IReplayContexts.IChannelKeyContext pooledConnectionsContext;
+    @Getter
+    private final TargetChannelPool.Stats channelPoolStats = new TargetChannelPool.Stats();
 
     @EqualsAndHashCode
     @AllArgsConstructor
@@ -45,12 +76,51 @@ public class ClientConnectionPool {
     }
 
     public ClientConnectionPool(
-        BiFunction<EventLoop, IReplayContexts.ITargetRequestContext, TrackedFuture<String, ChannelFuture>> channelCreator,
+        ChannelCreator channelCreator,
         @NonNull String targetConnectionPoolName,
         int numThreads
     ) {
+        this(channelCreator, targetConnectionPoolName, numThreads, 0, null);
+    }
+
+    /**
+     * @param maxPooledConnectionsPerThread when 0, each session has a connection of its own.  Otherwise, sessions
+     *                                      lease a connection for each of their requests from a pool (one per
+     *                                      thread) that has at most this many connections.
+     * @param rootContext                   used to trace pooled connections.  This is only required when
+     *                                      maxPooledConnectionsPerThread is greater than 0.
+     */
+    public ClientConnectionPool(
+        ChannelCreator channelCreator,
+        @NonNull String targetConnectionPoolName,
+        int numThreads,
+        int maxPooledConnectionsPerThread,
+        IRootReplayerContext rootContext
+    ) {
+        if (maxPooledConnectionsPerThread < 0) {
+            throw new IllegalArgumentException("maxPooledConnectionsPerThread must not be negative");
+        }
+        if (maxPooledConnectionsPerThread > 0 && rootContext == null) {
+            throw new IllegalArgumentException("A rootContext is required to pool connections");
+        }
         this.channelCreator = channelCreator;
         this.eventLoopGroup = new NioEventLoopGroup(numThreads, new DefaultThreadFactory(targetConnectionPoolName));
+        this.eventLoopToChannelPool = new IdentityHashMap<>();
+        if (maxPooledConnectionsPerThread > 0) {
+            pooledConnectionsContext = rootContext.createChannelContext(
+                new ISourceTrafficChannelKey.PojoImpl(targetConnectionPoolName, POOLED_CONNECTIONS_ID)
+            );
+            eventLoopGroup.forEach(executor -> {
+                var eventLoop = (EventLoop) executor;
+                eventLoopToChannelPool.put(
+                    eventLoop,
+                    new TargetChannelPool(eventLoop, channelCreator, pooledConnectionsContext,
+                        maxPooledConnectionsPerThread, channelPoolStats)
+                );
+            });
+        } else {
+            pooledConnectionsContext = null;
+        }
 
         connectionId2ChannelCache = CacheBuilder.newBuilder().build(CacheLoader.from(key -> {
             throw new UnsupportedOperationException("Use Cache.get(key, callable) instead");
@@ -74,7 +144,12 @@ public class ClientConnectionPool {
         // the same event loop. That means that we don't have to worry about concurrent
         // accesses/changes to the OTHER value that we're storing within the cache.
         var eventLoop = eventLoopGroup.next();
-        return new ConnectionReplaySession(eventLoop, channelKeyCtx, channelCreator);
+        return new ConnectionReplaySession(
+            eventLoop,
+            channelKeyCtx,
+            channelCreator,
+            eventLoopToChannelPool.get(eventLoop)
+        );
     }
 
     @SneakyThrows
@@ -105,7 +180,7 @@ public class ClientConnectionPool {
         var connectionReplaySession = connectionId2ChannelCache.getIfPresent(getKey(connId, sessionNumber));
         if (connectionReplaySession != null) {
             closeClientConnectionChannel(connectionReplaySession);
-            connectionId2ChannelCache.invalidate(connId);
+            connectionId2ChannelCache.invalidate(getKey(connId, sessionNumber));
         } else {
             log.atTrace()
                 .setMessage(
@@ -119,10 +194,30 @@ public class ClientConnectionPool {
         log.atInfo().setMessage("Shutting down ClientConnectionPool").log();
         var rval = NettyFutureBinders.bindNettyFutureToCompletableFuture(eventLoopGroup.shutdownGracefully());
         connectionId2ChannelCache.invalidateAll();
+        if (pooledConnectionsContext != null) {
+            // the sockets will all have been closed (and their contexts with them) once the event loops have ended
+            return rval.whenComplete((v, t) -> pooledConnectionsContext.close());
+        }
         return rval;
     }
 
+    public boolean isPoolingChannels() {
+        return !eventLoopToChannelPool.isEmpty();
+    }
+
     private TrackedFuture<String, Channel> closeClientConnectionChannel(ConnectionReplaySession session) {
+        if (isPoolingChannels()) {
+            // the channels belong to the pool and are shared with other sessions, so only this session's lease
+            // (if it still has one) is given up
+            var trigger = new TextTrackedFuture<Channel>("releasing the pooled channel of a closed session");
+            session.eventLoop.execute(() -> {
+                session.releaseLeasedChannel(false);
+                warnIfWorkIsRemaining(session);
+                session.schedule.clear();
+                trigger.future.complete(null);
+            });
+            return trigger;
+        }
         return session
             .getChannelFutureInAnyState() // this could throw, especially if the even loop has begun to shut down
             .thenCompose(channelFuture -> {
@@ -140,15 +235,19 @@ public class ClientConnectionPool {
                     .thenApply(v -> {
                         log.atTrace().setMessage(() ->
                             "channel.close() has finished for " + session.getChannelKeyContext() + " with value=" + v).log();
-                        if (session.hasWorkRemaining()) {
-                            log.atWarn().setMessage(() ->
-                                "Work items are still remaining for this connection session" +
-                                    "(last associated with connection=" + session.getChannelKeyContext() + ").  "
-                                    + session.calculateSizeSlowly() + " requests that were enqueued won't be run").log();
-                        }
+                        warnIfWorkIsRemaining(session);
                         session.schedule.clear();
                         return channelFuture.channel();
                     }, () -> "clearing work");
             }, () -> "composing close through retrieved channel from the session");
     }
+
+    private static void warnIfWorkIsRemaining(ConnectionReplaySession session) {
+        if (session.hasWorkRemaining()) {
+            log.atWarn().setMessage(() ->
+                "Work items are still remaining for this connection session" +
+                    "(last associated with connection=" + session.getChannelKeyContext() + ").  "
+                    + session.calculateSizeSlowly() + " requests that were enqueued won't be run").log();
+        }
+    }
 }
@@ -262,6 +262,36 @@ public class HttpByteBufFormatter {
         }
     }
 
+    /**
+     * Like processHttpMessageFromBufs, but returns the first message that comes out of the handlers (e.g. the
+     * converted headers) and stops writing byteBufs into the pipeline as soon as there is one so that the rest
+     * of the body isn't decoded.
+     */
+    public static <T> T processHttpMessageHeadersFromBufs(HttpMessageType msgType,
+                                                          Stream<ByteBuf> byteBufStream,
+                                                          ChannelHandler... handlers) {
+        EmbeddedChannel channel = new EmbeddedChannel(
+            msgType == HttpMessageType.REQUEST ? new HttpServerCodec() : new HttpClientCodec(),
+            new HttpContentDecompressor()
+        );
+        for (var h : handlers) {
+            channel.pipeline().addLast(h);
+        }
+        try {
+            var iterator = byteBufStream.iterator();
+            while (iterator.hasNext()) {
+                channel.writeInbound(iterator.next().retainedDuplicate());
+                T message = channel.readInbound();
+                if (message != null) {
+                    return message;
+                }
+            }
+            return null;
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
     /**
      * @see HttpByteBufFormatter#parseHttpMessageFromBufs
      */
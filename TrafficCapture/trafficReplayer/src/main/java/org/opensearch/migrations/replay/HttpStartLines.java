@@ -0,0 +1,106 @@
+package org.opensearch.migrations.replay;
+
+import java.util.List;
+
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+
+/**
+ * Cheap access to the start line (request line or status line) of raw HTTP messages for code paths that
+ * don't otherwise parse the messages.
+ */
+public class HttpStartLines {
+    private static final int MAX_START_LINE_LENGTH = 8 * 1024;
+
+    private HttpStartLines() {}
+
+    /**
+     * Sets the values that the tuple context reports as metrics (which ParsedHttpMessagesAsDicts would set
+     * while it parses the whole messages) from the start lines of the tuple's messages.
+     */
+    public static void setTupleContextAttributes(SourceTargetCaptureTuple tuple) {
+        var context = tuple.context;
+        if (tuple.sourcePair != null) {
+            if (tuple.sourcePair.requestData != null) {
+                setRequestLineAttributes(context, readStartLine(tuple.sourcePair.requestData.packetBytes));
+            }
+            if (tuple.sourcePair.responseData != null) {
+                var statusCode = parseStatusCode(readStartLine(tuple.sourcePair.responseData.packetBytes));
+                if (statusCode != null) {
+                    context.setSourceStatus(statusCode);
+                }
+            }
+        }
+        tuple.getLastPrimaryTargetResponse().ifPresent(lastResponse -> {
+            var statusCode = parseStatusCode(readStartLine(lastResponse.targetResponseData));
+            if (statusCode != null) {
+                context.setTargetStatus(statusCode);
+            }
+        });
+    }
+
+    private static void setRequestLineAttributes(IReplayContexts.ITupleHandlingContext context, String requestLine) {
+        var parts = splitRequestLine(requestLine);
+        if (parts != null) {
+            context.setMethod(parts[0]);
+            context.setEndpoint(parts[1]);
+            context.setHttpVersion(parts[2]);
+        }
+    }
+
+    /**
+     * @return the method, Request-URI and HTTP-Version of a request line or null if it isn't one
+     */
+    static String[] splitRequestLine(String requestLine) {
+        // METHOD SP Request-URI SP HTTP-Version
+        var parts = requestLine == null ? null : requestLine.split(" ");
+        return parts != null && parts.length == 3 ? parts : null;
+    }
+
+    /**
+     * @return the Request-URI of a request line or null if it isn't one
+     */
+    public static String parseRequestPath(String requestLine) {
+        var parts = splitRequestLine(requestLine);
+        return parts == null ? null : parts[1];
+    }
+
+    /**
+     * @return the status code from a status line (HTTP-Version SP Status-Code SP Reason-Phrase) or null
+     */
+    public static Integer parseStatusCode(String statusLine) {
+        if (statusLine == null) {
+            return null;
+        }
+        var parts = statusLine.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the first line of the message, which may span packets, or null if there isn't a complete one
+     */
+    public static String readStartLine(List<byte[]> packets) {
+        if (packets == null) {
+            return null;
+        }
+        var sb = new StringBuilder();
+        for (var packet : packets) {
+            for (var b : packet) {
+                if (b == '\r' || b == '\n') {
+                    return sb.toString();
+                }
+                if (sb.length() >= MAX_START_LINE_LENGTH) {
+                    return null;
+                }
+                sb.append((char) (b & 0xff));
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,180 @@
+package org.opensearch.migrations.replay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+import org.opensearch.migrations.replay.util.TextTrackedFuture;
+import org.opensearch.migrations.replay.util.TrackedFuture;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Governs how many requests may be outstanding against the target when the replayer is running as fast as
+ * the target can take it, rather than at the pace that the requests were originally observed.  Requests on
+ * each connection still go out in their original order, but requests across connections are admitted as
+ * soon as there is room under the current concurrency limit.
+ *
+ * The limit follows an additive-increase/multiplicative-decrease loop.  Every request that completes within
+ * the target latency and without an error grows the limit by 1/limit (about one slot for every limit's
+ * worth of requests).  A slow or failed request shrinks the limit by the backoff ratio, at most once per
+ * target latency period, so that one overload that slows many outstanding requests only counts once.
+ *
+ * This also keeps track of the achieved throughput and of how much faster than the source the replay has
+ * been running so that those can be reported.
+ */
+@Slf4j
+public class MaxThroughputController {
+    public static final double DEFAULT_BACKOFF_RATIO = 0.7;
+
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+    private final LongSupplier nanoTimeSupplier;
+    private final ArrayDeque<CompletableFuture<Void>> waitingAdmissions;
+
+    private double concurrencyLimit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    private long startNanos = -1;
+    private long completedCount;
+    private long failedCount;
+    private Instant firstSourceTime;
+    private Instant lastSourceTime;
+
+    public MaxThroughputController(int initialConcurrency, int maxConcurrency, Duration targetLatency) {
+        this(1, initialConcurrency, maxConcurrency, targetLatency, DEFAULT_BACKOFF_RATIO, System::nanoTime);
+    }
+
+    public MaxThroughputController(
+        int minConcurrency,
+        int initialConcurrency,
+        int maxConcurrency,
+        Duration targetLatency,
+        double backoffRatio,
+        LongSupplier nanoTimeSupplier
+    ) {
+        if (minConcurrency < 1 || initialConcurrency < minConcurrency || maxConcurrency < initialConcurrency) {
+            throw new IllegalArgumentException("Concurrency values must satisfy 1 <= min (" + minConcurrency +
+                ") <= initial (" + initialConcurrency + ") <= max (" + maxConcurrency + ")");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1, exclusive");
+        }
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.concurrencyLimit = initialConcurrency;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.nanoTimeSupplier = nanoTimeSupplier;
+        this.waitingAdmissions = new ArrayDeque<>();
+        this.lastDecreaseNanos = nanoTimeSupplier.getAsLong() - targetLatencyNanos;
+    }
+
+    /**
+     * Returns a future that completes once the caller may send its request.  Every admission must be paired
+     * with a call to onRequestFinished.
+     */
+    public TrackedFuture<String, Void> admit() {
+        synchronized (this) {
+            if (startNanos < 0) {
+                startNanos = nanoTimeSupplier.getAsLong();
+            }
+            if (inFlight < (int) concurrencyLimit) {
+                ++inFlight;
+                return TextTrackedFuture.completedFuture(null, () -> "admitted immediately");
+            }
+            var admission = new CompletableFuture<Void>();
+            waitingAdmissions.add(admission);
+            return new TextTrackedFuture<>(admission, () -> "waiting for room under the concurrency limit");
+        }
+    }
+
+    public void onRequestFinished(Instant sourceTimestamp, Duration latency, boolean failed) {
+        var admissionsToRelease = new ArrayList<CompletableFuture<Void>>();
+        synchronized (this) {
+            --inFlight;
+            ++completedCount;
+            if (failed) {
+                ++failedCount;
+            }
+            if (sourceTimestamp != null) {
+                if (firstSourceTime == null || sourceTimestamp.isBefore(firstSourceTime)) {
+                    firstSourceTime = sourceTimestamp;
+                }
+                if (lastSourceTime == null || sourceTimestamp.isAfter(lastSourceTime)) {
+                    lastSourceTime = sourceTimestamp;
+                }
+            }
+            var now = nanoTimeSupplier.getAsLong();
+            if (failed || latency.toNanos() > targetLatencyNanos) {
+                if (now - lastDecreaseNanos >= targetLatencyNanos) {
+                    concurrencyLimit = Math.max(minConcurrency, concurrencyLimit * backoffRatio);
+                    lastDecreaseNanos = now;
+                    log.atDebug().setMessage("Reduced the concurrency limit to {} (latency={}, failed={})")
+                        .addArgument((int) concurrencyLimit)
+                        .addArgument(latency)
+                        .addArgument(failed)
+                        .log();
+                }
+            } else {
+                concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1.0 / concurrencyLimit);
+            }
+            while (inFlight < (int) concurrencyLimit && !waitingAdmissions.isEmpty()) {
+                ++inFlight;
+                admissionsToRelease.add(waitingAdmissions.poll());
+            }
+        }
+        // complete outside of the lock since the completions will run the sends for those requests
+        admissionsToRelease.forEach(admission -> admission.complete(null));
+    }
+
+    public synchronized int getConcurrencyLimit() {
+        return (int) concurrencyLimit;
+    }
+
+    public synchronized long getCompletedCount() {
+        return completedCount;
+    }
+
+    public synchronized double getRequestsPerSecond() {
+        var elapsedNanos = getElapsedNanos();
+        return elapsedNanos <= 0 ? 0 : completedCount * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * The span of source time that the completed requests covered, divided by the wall time that it took to
+     * replay them.
+     */
+    public synchronized double getEffectiveSpeedup() {
+        var elapsedNanos = getElapsedNanos();
+        if (elapsedNanos <= 0 || firstSourceTime == null) {
+            return 0;
+        }
+        return Duration.between(firstSourceTime, lastSourceTime).toNanos() / (double) elapsedNanos;
+    }
+
+    private long getElapsedNanos() {
+        return startNanos < 0 ? 0 : nanoTimeSupplier.getAsLong() - startNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+            "%d requests completed (%d failed) at %.1f requests/sec, %.2fx the source's pace; "
+                + "concurrencyLimit=%d inFlight=%d waiting=%d",
+            completedCount,
+            failedCount,
+            getRequestsPerSecond(),
+            getEffectiveSpeedup(),
+            (int) concurrencyLimit,
+            inFlight,
+            waitingAdmissions.size()
+        );
+    }
+}
@@ -9,6 +9,7 @@ import org.opensearch.migrations.replay.tracing.IReplayContexts;
 import org.opensearch.migrations.transform.IAuthTransformerFactory;
 import org.opensearch.migrations.transform.IJsonTransformer;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -18,13 +19,59 @@ public class PacketToTransformingHttpHandlerFactory
 
     private final IJsonTransformer jsonTransformer;
     private final IAuthTransformerFactory authTransformerFactory;
+    private final boolean streamNdjsonBodies;
+    /**
+     * Null unless a cache was given and both the json transformer and the auth transformer are deterministic
+     */
+    @Getter
+    private final TransformedRequestCache transformedRequestCache;
 
     public PacketToTransformingHttpHandlerFactory(
         IJsonTransformer jsonTransformer,
         IAuthTransformerFactory authTransformerFactory
+    ) {
+        this(jsonTransformer, authTransformerFactory, false);
+    }
+
+    public PacketToTransformingHttpHandlerFactory(
+        IJsonTransformer jsonTransformer,
+        IAuthTransformerFactory authTransformerFactory,
+        boolean streamNdjsonBodies
+    ) {
+        this(jsonTransformer, authTransformerFactory, streamNdjsonBodies, null);
+    }
+
+    /**
+     * @param transformedRequestCache when not null, transformed requests are reused for identical source
+     *                                requests, as long as the transformations are deterministic.  Otherwise
+     *                                (e.g. for SigV4 signing, which depends upon the time) the cache is bypassed.
+     */
+    public PacketToTransformingHttpHandlerFactory(
+        IJsonTransformer jsonTransformer,
+        IAuthTransformerFactory authTransformerFactory,
+        boolean streamNdjsonBodies,
+        TransformedRequestCache transformedRequestCache
     ) {
         this.jsonTransformer = jsonTransformer;
         this.authTransformerFactory = authTransformerFactory;
+        this.streamNdjsonBodies = streamNdjsonBodies;
+        if (transformedRequestCache != null && !isDeterministic(jsonTransformer, authTransformerFactory)) {
+            log.atInfo().setMessage("Not caching transformed requests since the transformations aren't "
+                    + "deterministic (jsonTransformer={}, authTransformerFactory={})")
+                .addArgument(jsonTransformer)
+                .addArgument(authTransformerFactory)
+                .log();
+            transformedRequestCache = null;
+        }
+        this.transformedRequestCache = transformedRequestCache;
+    }
+
+    private static boolean isDeterministic(
+        IJsonTransformer jsonTransformer,
+        IAuthTransformerFactory authTransformerFactory
+    ) {
+        return (jsonTransformer == null || jsonTransformer.isDeterministic())
+            && (authTransformerFactory == null || authTransformerFactory.isDeterministic());
     }
 
     @Override
@@ -36,7 +83,8 @@ public class PacketToTransformingHttpHandlerFactory
             jsonTransformer,
             authTransformerFactory,
             new TransformedPacketReceiver(),
-            httpTransactionContext
+            httpTransactionContext,
+            streamNdjsonBodies
         );
     }
 }
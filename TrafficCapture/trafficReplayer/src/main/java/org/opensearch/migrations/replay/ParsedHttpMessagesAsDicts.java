@@ -1,5 +1,6 @@
 package org.opensearch.migrations.replay;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.LinkedHashMap;
@@ -7,9 +8,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.opensearch.migrations.replay.HttpByteBufFormatter.HttpMessageType;
+import org.opensearch.migrations.replay.datahandlers.PayloadAccessFaultingMap;
 import org.opensearch.migrations.replay.datahandlers.http.HttpJsonMessageWithFaultingPayload;
 import org.opensearch.migrations.replay.datahandlers.http.HttpJsonRequestWithFaultingPayload;
 import org.opensearch.migrations.replay.datahandlers.http.HttpJsonResponseWithFaultingPayload;
@@ -24,24 +28,44 @@ import org.opensearch.migrations.transform.JsonKeysForHttpMessage;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.base64.Base64Dialect;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * TODO - This class will pull all bodies in as a byte[], even if that byte[] isn't
- * going to be used.  While in most cases, we'll likely want to emit all of the bytes
- * anyway, we might not want to deal with them as say a 10MB single array.  We should
- * build an optional streaming approach.  The optional part would be like what
- * PayloadAccessFaultingMap does (with the ability to load lazily or throw) plus a
- * stream-like interface for bodies instead of parsing the bytes.  Just leaving the
- * ByteBufs as is might make sense, though it requires callers to understand ownership.
+ * The messages of a tuple as maps, as they're written to the tuple logs (after the tuple transformation).
+ *
+ * When built from a SourceTargetCaptureTuple, only the start lines and headers of the messages are parsed up
+ * front.  Each body is only decompressed and parsed when something reads its payload (see
+ * PayloadAccessFaultingMap), which must happen while the tuple is still being handled since the payloads are
+ * read from the tuple's buffers.  A tuple transformation or consumer that only looks at status codes never pays
+ * for the bodies.  A BodyInclusionPolicy can also leave the bodies of some endpoints (or of any that are too
+ * large) out altogether, in which case the message has an omittedPayloadBytes value instead of a payload.
  */
 @Slf4j
 public class ParsedHttpMessagesAsDicts {
     public static final String STATUS_CODE_KEY = "Status-Code";
     public static final String RESPONSE_TIME_MS_KEY = "response_time_ms";
     public static final String EXCEPTION_KEY_STRING = "Exception";
+    /**
+     * Only set for the responses of additional targets (when replaying to more than one), starting at 1
+     */
+    public static final String TARGET_INDEX_KEY = "targetIndex";
+    /**
+     * Set on the target response that combines the outcomes of all of the attempts (e.g. partial _bulk retries)
+     */
+    public static final String COMBINED_FROM_ATTEMPTS_KEY = "combinedFromAttempts";
+    /**
+     * Set instead of a payload when the body was left out because of the BodyInclusionPolicy
+     */
+    public static final String OMITTED_PAYLOAD_BYTES_KEY = "omittedPayloadBytes";
+    public static final String PAYLOAD_KEY = "payload";
+    public static final String REQUEST_URI_KEY = "Request-URI";
+    private static final byte[] END_OF_HEADERS = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
 
     public final Optional<Map<String, Object>> sourceRequestOp;
     public final Optional<Map<String, Object>> sourceResponseOp;
@@ -50,37 +74,115 @@ public class ParsedHttpMessagesAsDicts {
     public final IReplayContexts.ITupleHandlingContext context;
 
     public ParsedHttpMessagesAsDicts(@NonNull SourceTargetCaptureTuple tuple) {
-        this(tuple, Optional.ofNullable(tuple.sourcePair));
+        this(tuple, BodyInclusionPolicy.INCLUDE_ALL);
+    }
+
+    /**
+     * @param bodyInclusionPolicy decides which bodies are left out, by the URI of the source request (or of the
+     *                            target request, when there's no source request)
+     */
+    public ParsedHttpMessagesAsDicts(
+        @NonNull SourceTargetCaptureTuple tuple,
+        @NonNull BodyInclusionPolicy bodyInclusionPolicy
+    ) {
+        this(tuple, Optional.ofNullable(tuple.sourcePair), bodyInclusionPolicy);
     }
 
     protected ParsedHttpMessagesAsDicts(
         @NonNull SourceTargetCaptureTuple tuple,
         Optional<RequestResponsePacketPair> sourcePairOp
+    ) {
+        this(tuple, sourcePairOp, BodyInclusionPolicy.INCLUDE_ALL);
+    }
+
+    protected ParsedHttpMessagesAsDicts(
+        @NonNull SourceTargetCaptureTuple tuple,
+        Optional<RequestResponsePacketPair> sourcePairOp,
+        @NonNull BodyInclusionPolicy bodyInclusionPolicy
+    ) {
+        this(tuple, sourcePairOp, getSourceRequestOp(tuple.context, sourcePairOp, bodyInclusionPolicy),
+            bodyInclusionPolicy);
+    }
+
+    private ParsedHttpMessagesAsDicts(
+        SourceTargetCaptureTuple tuple,
+        Optional<RequestResponsePacketPair> sourcePairOp,
+        Optional<Map<String, Object>> sourceRequestOp,
+        BodyInclusionPolicy bodyInclusionPolicy
+    ) {
+        this(tuple, sourcePairOp, sourceRequestOp,
+            getTargetRequestOp(tuple, getRequestUri(sourceRequestOp), bodyInclusionPolicy), bodyInclusionPolicy);
+    }
+
+    private ParsedHttpMessagesAsDicts(
+        SourceTargetCaptureTuple tuple,
+        Optional<RequestResponsePacketPair> sourcePairOp,
+        Optional<Map<String, Object>> sourceRequestOp,
+        Optional<Map<String, Object>> targetRequestOp,
+        BodyInclusionPolicy bodyInclusionPolicy
     ) {
         this(
             tuple.context,
-            getSourceRequestOp(tuple.context, sourcePairOp),
-            getSourceResponseOp(tuple, sourcePairOp),
-            getTargetRequestOp(tuple),
-            getTargetResponseOp(tuple)
+            sourceRequestOp,
+            getSourceResponseOp(tuple, sourcePairOp,
+                getRequestUri(sourceRequestOp.or(() -> targetRequestOp)), bodyInclusionPolicy),
+            targetRequestOp,
+            getTargetResponseOp(tuple, getRequestUri(sourceRequestOp.or(() -> targetRequestOp)), bodyInclusionPolicy)
         );
     }
 
-    private static List<Map<String, Object>> getTargetResponseOp(SourceTargetCaptureTuple tuple) {
+    private static String getRequestUri(Optional<Map<String, Object>> requestOp) {
+        return requestOp.map(r -> r.get(REQUEST_URI_KEY)).map(Object::toString).orElse(null);
+    }
+
+    private static List<Map<String, Object>> getTargetResponseOp(
+        SourceTargetCaptureTuple tuple,
+        String requestUri,
+        BodyInclusionPolicy bodyInclusionPolicy
+    ) {
         return tuple.responseList.stream()
-            .map(r -> convertResponse(tuple.context, r.targetResponseData, r.targetResponseDuration))
+            .map(r -> {
+                var responseData = Optional.ofNullable(r.targetResponseData).orElse(List.of());
+                var responseMap = convertResponse(
+                    tuple.context,
+                    () -> responseData.stream().map(Unpooled::wrappedBuffer),
+                    r.targetResponseDuration,
+                    requestUri,
+                    bodyInclusionPolicy
+                );
+                if (r.targetIndex == 0 && !r.combined) {
+                    return responseMap;
+                }
+                var mapWithTarget = new LinkedHashMap<String, Object>();
+                if (r.targetIndex != 0) {
+                    mapWithTarget.put(TARGET_INDEX_KEY, r.targetIndex);
+                }
+                if (r.combined) {
+                    mapWithTarget.put(COMBINED_FROM_ATTEMPTS_KEY, true);
+                }
+                mapWithTarget.putAll(responseMap);
+                return mapWithTarget;
+            })
             .collect(Collectors.toList());
     }
 
-    private static Optional<Map<String, Object>> getTargetRequestOp(SourceTargetCaptureTuple tuple) {
+    /**
+     * The target request's payload is read straight from the tuple's ByteBufList, without copying it
+     */
+    private static Optional<Map<String, Object>> getTargetRequestOp(
+        SourceTargetCaptureTuple tuple,
+        String sourceRequestUri,
+        BodyInclusionPolicy bodyInclusionPolicy
+    ) {
         return Optional.ofNullable(tuple.targetRequestData)
-            .map(ByteBufList::asByteArrayStream)
-            .map(d -> convertRequest(tuple.context, d.collect(Collectors.toList())));
+            .map(d -> convertRequest(tuple.context, d::streamUnretained, sourceRequestUri, bodyInclusionPolicy));
     }
 
     private static Optional<Map<String, Object>> getSourceResponseOp(
         SourceTargetCaptureTuple tuple,
-        Optional<RequestResponsePacketPair> sourcePairOp
+        Optional<RequestResponsePacketPair> sourcePairOp,
+        String requestUri,
+        BodyInclusionPolicy bodyInclusionPolicy
     ) {
         return sourcePairOp.flatMap(
             p -> Optional.ofNullable(p.responseData)
@@ -88,12 +190,14 @@ public class ParsedHttpMessagesAsDicts {
                 .map(
                     d -> convertResponse(
                         tuple.context,
-                        d,
+                        () -> d.stream().map(Unpooled::wrappedBuffer),
                         // TODO: These durations are not measuring the same values!
                         Duration.between(
                             tuple.sourcePair.requestData.getLastPacketTimestamp(),
                             tuple.sourcePair.responseData.getLastPacketTimestamp()
-                        )
+                        ),
+                        requestUri,
+                        bodyInclusionPolicy
                     )
                 )
         );
@@ -101,12 +205,14 @@ public class ParsedHttpMessagesAsDicts {
 
     private static Optional<Map<String, Object>> getSourceRequestOp(
         @NonNull IReplayContexts.ITupleHandlingContext context,
-        Optional<RequestResponsePacketPair> sourcePairOp
+        Optional<RequestResponsePacketPair> sourcePairOp,
+        BodyInclusionPolicy bodyInclusionPolicy
     ) {
         return sourcePairOp.flatMap(
             p -> Optional.ofNullable(p.requestData)
                 .flatMap(d -> Optional.ofNullable(d.packetBytes))
-                .map(d -> convertRequest(context, d))
+                .map(d -> convertRequest(context, () -> d.stream().map(Unpooled::wrappedBuffer), null,
+                    bodyInclusionPolicy))
         );
     }
 
@@ -131,8 +237,13 @@ public class ParsedHttpMessagesAsDicts {
         List<Map<String, Object>> targetResponseList
     ) {
         sourceResponseOp.ifPresent(r -> context.setSourceStatus((Integer) r.get(STATUS_CODE_KEY)));
-        if (!targetResponseList.isEmpty()) {
-            context.setTargetStatus((Integer) targetResponseList.get(targetResponseList.size() - 1).get(STATUS_CODE_KEY));
+        // the status of the primary target, whose responses don't have a target index
+        for (int i = targetResponseList.size() - 1; i >= 0; --i) {
+            var response = targetResponseList.get(i);
+            if (!response.containsKey(TARGET_INDEX_KEY)) {
+                context.setTargetStatus((Integer) response.get(STATUS_CODE_KEY));
+                break;
+            }
         }
     }
     private static String byteBufToBase64String(ByteBuf content) {
@@ -165,7 +276,7 @@ public class ParsedHttpMessagesAsDicts {
         }
     }
 
-    private static Map<String, Object> convertRequest(
+    static Map<String, Object> convertRequest(
         @NonNull IReplayContexts.ITupleHandlingContext context,
         @NonNull List<byte[]> data
     ) {
@@ -186,7 +297,7 @@ public class ParsedHttpMessagesAsDicts {
                 var message = (HttpJsonRequestWithFaultingPayload) messageHolder.get();
                 if (message != null) {
                     var map = new LinkedHashMap<>(message.headers());
-                    map.put("Request-URI", message.path());
+                    map.put(REQUEST_URI_KEY, message.path());
                     map.put("Method", message.method());
                     map.put("HTTP-Version", message.protocol());
                     context.setMethod(message.method());
@@ -194,7 +305,7 @@ public class ParsedHttpMessagesAsDicts {
                     context.setHttpVersion(message.protocol());
                     encodeBinaryPayloadIfExists(message);
                     if (!message.payload().isEmpty()) {
-                        map.put("payload", message.payload());
+                        map.put(PAYLOAD_KEY, message.payload());
                     }
                     return map;
                 } else {
@@ -204,7 +315,7 @@ public class ParsedHttpMessagesAsDicts {
         });
     }
 
-    private static Map<String, Object> convertResponse(
+    static Map<String, Object> convertResponse(
         @NonNull IReplayContexts.ITupleHandlingContext context,
         @NonNull List<byte[]> data,
         Duration latency
@@ -233,7 +344,7 @@ public class ParsedHttpMessagesAsDicts {
                     context.setHttpVersion(message.protocol());
                     encodeBinaryPayloadIfExists(message);
                     if (!message.payload().isEmpty()) {
-                        map.put("payload", message.payload());
+                        map.put(PAYLOAD_KEY, message.payload());
                     }
                     return map;
                 } else {
@@ -243,6 +354,168 @@ public class ParsedHttpMessagesAsDicts {
         });
     }
 
+    /**
+     * Parses only the start line and headers now and leaves the body to be parsed when the payload is accessed.
+     *
+     * @param bufsSupplier called for each pass over the message's bytes, including the one made when the payload
+     *                     is loaded, so the buffers must still be valid then
+     * @param requestUriForPolicy the URI that the bodyInclusionPolicy is checked with, or null to use this
+     *                            request's own URI
+     */
+    static Map<String, Object> convertRequest(
+        @NonNull IReplayContexts.ITupleHandlingContext context,
+        @NonNull Supplier<Stream<ByteBuf>> bufsSupplier,
+        String requestUriForPolicy,
+        @NonNull BodyInclusionPolicy bodyInclusionPolicy
+    ) {
+        return makeSafeMap(context, () -> {
+            try (var transformationCtx = context.getLogicalEnclosingScope().createTransformationContext()) {
+                HttpJsonRequestWithFaultingPayload message = HttpByteBufFormatter.processHttpMessageHeadersFromBufs(
+                    HttpMessageType.REQUEST,
+                    bufsSupplier.get(),
+                    new NettyDecodedHttpRequestConvertHandler(transformationCtx)
+                );
+                if (message == null) {
+                    return Map.of(EXCEPTION_KEY_STRING, "Message couldn't be parsed as a full http message");
+                }
+                var map = new LinkedHashMap<String, Object>(message.headers());
+                map.put(REQUEST_URI_KEY, message.path());
+                map.put("Method", message.method());
+                map.put("HTTP-Version", message.protocol());
+                context.setMethod(message.method());
+                context.setEndpoint(message.path());
+                context.setHttpVersion(message.protocol());
+                addLazyPayload(context, HttpMessageType.REQUEST, message, map, bufsSupplier,
+                    Optional.ofNullable(requestUriForPolicy).orElse(message.path()), bodyInclusionPolicy);
+                return map;
+            }
+        });
+    }
+
+    /**
+     * @see #convertRequest(IReplayContexts.ITupleHandlingContext, Supplier, String, BodyInclusionPolicy)
+     */
+    static Map<String, Object> convertResponse(
+        @NonNull IReplayContexts.ITupleHandlingContext context,
+        @NonNull Supplier<Stream<ByteBuf>> bufsSupplier,
+        Duration latency,
+        String requestUriForPolicy,
+        @NonNull BodyInclusionPolicy bodyInclusionPolicy
+    ) {
+        return makeSafeMap(context, () -> {
+            try (var transformationCtx = context.getLogicalEnclosingScope().createTransformationContext()) {
+                HttpJsonResponseWithFaultingPayload message = HttpByteBufFormatter.processHttpMessageHeadersFromBufs(
+                    HttpMessageType.RESPONSE,
+                    bufsSupplier.get(),
+                    new NettyDecodedHttpResponseConvertHandler(transformationCtx)
+                );
+                if (message == null) {
+                    return Map.of(EXCEPTION_KEY_STRING, "Message couldn't be parsed as a full http message");
+                }
+                var map = new LinkedHashMap<String, Object>(message.headers());
+                map.put("HTTP-Version", message.protocol());
+                map.put(STATUS_CODE_KEY, Integer.parseInt(message.code()));
+                map.put("Reason-Phrase", message.reason());
+                map.put(RESPONSE_TIME_MS_KEY, latency.toMillis());
+                context.setHttpVersion(message.protocol());
+                addLazyPayload(context, HttpMessageType.RESPONSE, message, map, bufsSupplier,
+                    requestUriForPolicy, bodyInclusionPolicy);
+                return map;
+            }
+        });
+    }
+
+    private static void addLazyPayload(
+        IReplayContexts.ITupleHandlingContext context,
+        HttpMessageType messageType,
+        HttpJsonMessageWithFaultingPayload message,
+        Map<String, Object> map,
+        Supplier<Stream<ByteBuf>> bufsSupplier,
+        String requestUri,
+        BodyInclusionPolicy bodyInclusionPolicy
+    ) throws IOException {
+        if (bodyInclusionPolicy != BodyInclusionPolicy.INCLUDE_ALL) {
+            var bodyBytes = countBodyBytes(bufsSupplier);
+            if (!bodyInclusionPolicy.isBodyIncluded(requestUri, bodyBytes)) {
+                map.put(OMITTED_PAYLOAD_BYTES_KEY, bodyBytes);
+                return;
+            }
+        }
+        var payload = (PayloadAccessFaultingMap) message.payload();
+        payload.setPayloadLoader(() -> loadPayload(context, messageType, bufsSupplier));
+        map.put(PAYLOAD_KEY, payload);
+    }
+
+    /**
+     * @return the number of bytes after the headers, as they were sent (e.g. compressed or chunked)
+     */
+    private static long countBodyBytes(Supplier<Stream<ByteBuf>> bufsSupplier) throws IOException {
+        long totalBytes = bufsSupplier.get().mapToLong(ByteBuf::readableBytes).sum();
+        try (var inputStream = ByteBufList.asInputStream(bufsSupplier.get())) {
+            long headerBytes = 0;
+            int matchedLength = 0;
+            int b;
+            while ((b = inputStream.read()) >= 0) {
+                ++headerBytes;
+                if (b == END_OF_HEADERS[matchedLength]) {
+                    if (++matchedLength == END_OF_HEADERS.length) {
+                        return totalBytes - headerBytes;
+                    }
+                } else {
+                    matchedLength = b == END_OF_HEADERS[0] ? 1 : 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Parses the whole message to get its payload.  Each load gets a transformation context of its own so that
+     * how the body was parsed (json, text, or binary) is reported.  The headers are converted again, but with
+     * HeadersConvertHandler, which doesn't report them to that context, since they were already reported when
+     * the message was first converted.
+     */
+    private static Map<String, Object> loadPayload(
+        IReplayContexts.ITupleHandlingContext context,
+        HttpMessageType messageType,
+        Supplier<Stream<ByteBuf>> bufsSupplier
+    ) {
+        return makeSafeMap(context, () -> {
+            try (var transformationCtx = context.getLogicalEnclosingScope().createTransformationContext()) {
+                HttpJsonMessageWithFaultingPayload message = HttpByteBufFormatter.processHttpMessageFromBufs(
+                    messageType,
+                    bufsSupplier.get(),
+                    new HeadersConvertHandler(),
+                    new NettyJsonBodyAccumulateHandler(transformationCtx)
+                );
+                if (message == null) {
+                    return Map.of(EXCEPTION_KEY_STRING, "Message couldn't be parsed as a full http message");
+                }
+                encodeBinaryPayloadIfExists(message);
+                var payload = message.payload();
+                if (payload instanceof PayloadAccessFaultingMap) {
+                    ((PayloadAccessFaultingMap) payload).setDisableThrowingPayloadNotLoaded(true);
+                }
+                return payload;
+            }
+        });
+    }
+
+    private static class HeadersConvertHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof HttpRequest) {
+                ctx.fireChannelRead(NettyDecodedHttpRequestConvertHandler.parseHeadersIntoMessage((HttpRequest) msg));
+            } else if (msg instanceof HttpResponse) {
+                ctx.fireChannelRead(
+                    NettyDecodedHttpResponseConvertHandler.parseHeadersIntoMessage((HttpResponse) msg)
+                );
+            } else {
+                super.channelRead(ctx, msg);
+            }
+        }
+    }
+
     private static void encodeBinaryPayloadIfExists(HttpJsonMessageWithFaultingPayload message) {
         if (message.payload() != null) {
             if (message.payload().containsKey(JsonKeysForHttpMessage.INLINED_BINARY_BODY_DOCUMENT_KEY)) {
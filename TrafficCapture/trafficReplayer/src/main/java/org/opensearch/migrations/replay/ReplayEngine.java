@@ -2,6 +2,8 @@ package org.opensearch.migrations.replay;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
@@ -10,6 +12,7 @@ import org.opensearch.migrations.replay.datatypes.ByteBufList;
 import org.opensearch.migrations.replay.datatypes.IndexedChannelInteraction;
 import org.opensearch.migrations.replay.tracing.IReplayContexts;
 import org.opensearch.migrations.replay.traffic.source.BufferedFlowController;
+import org.opensearch.migrations.replay.util.TextTrackedFuture;
 import org.opensearch.migrations.replay.util.TrackedFuture;
 
 import io.netty.util.concurrent.ScheduledFuture;
@@ -27,11 +30,25 @@ public class ReplayEngine {
     public static final int BACKPRESSURE_UPDATE_FREQUENCY = 8;
     public static final TimeUnit TIME_UNIT_MILLIS = TimeUnit.MILLISECONDS;
     public static final Duration EXPECTED_TRANSFORMATION_DURATION = Duration.ofSeconds(1);
+    public static final Duration MAX_THROUGHPUT_REPORT_PERIOD = Duration.ofSeconds(30);
     private final RequestSenderOrchestrator networkSendOrchestrator;
     private final BufferedFlowController contentTimeController;
     private final AtomicLong lastCompletedSourceTimeEpochMs;
     private final AtomicLong lastIdleUpdatedTimestampEpochMs;
     private final TimeShifter timeShifter;
+    /**
+     * When set, requests are transformed on these threads as soon as they have been accumulated (which is
+     * already bounded by the lookahead window of the traffic source) instead of on the event loop that will
+     * send them.  That keeps heavy transformations from stalling the socket I/O and the send timing for the
+     * other connections that share the event loop.  When null, transformations are scheduled onto the
+     * connection's event loop shortly before the request is due to be sent.
+     */
+    private final Executor transformationExecutor;
+    /**
+     * When set, the replay isn't paced by the source timestamps at all.  Requests are sent as soon as the
+     * previous interactions on their connection have finished and this controller has admitted them.
+     */
+    private final MaxThroughputController maxThroughputController;
 
     /**
      * If this proves to be a contention bottleneck, we can move to a scheme with ThreadLocals
@@ -50,8 +67,37 @@ public class ReplayEngine {
         RequestSenderOrchestrator networkSendOrchestrator,
         BufferedFlowController contentTimeController,
         TimeShifter timeShifter
+    ) {
+        this(networkSendOrchestrator, contentTimeController, timeShifter, null);
+    }
+
+    /**
+     * @param transformationExecutor optional executor to run request transformations on, away from the
+     *                               event loops that send the requests.
+     */
+    public ReplayEngine(
+        RequestSenderOrchestrator networkSendOrchestrator,
+        BufferedFlowController contentTimeController,
+        TimeShifter timeShifter,
+        Executor transformationExecutor
+    ) {
+        this(networkSendOrchestrator, contentTimeController, timeShifter, transformationExecutor, null);
+    }
+
+    /**
+     * @param maxThroughputController optional controller to replay as fast as the target can take it, keeping
+     *                                each connection's requests in order but otherwise ignoring source time.
+     */
+    public ReplayEngine(
+        RequestSenderOrchestrator networkSendOrchestrator,
+        BufferedFlowController contentTimeController,
+        TimeShifter timeShifter,
+        Executor transformationExecutor,
+        MaxThroughputController maxThroughputController
     ) {
         this.networkSendOrchestrator = networkSendOrchestrator;
+        this.transformationExecutor = transformationExecutor;
+        this.maxThroughputController = maxThroughputController;
         this.contentTimeController = contentTimeController;
         this.timeShifter = timeShifter;
         this.totalCountOfScheduledTasksOutstanding = new AtomicLong();
@@ -66,6 +112,16 @@ public class ReplayEngine {
             bufferPeriodMs,
             TIME_UNIT_MILLIS
         );
+        if (maxThroughputController != null) {
+            var reportPeriodMs = MAX_THROUGHPUT_REPORT_PERIOD.toMillis();
+            networkSendOrchestrator.scheduleAtFixedRate(
+                () -> log.atInfo().setMessage("Max-throughput replay progress: {}")
+                    .addArgument(maxThroughputController).log(),
+                reportPeriodMs,
+                reportPeriodMs,
+                TIME_UNIT_MILLIS
+            );
+        }
     }
 
     private long getUpdatePeriodMs() {
@@ -99,9 +155,17 @@ public class ReplayEngine {
             lastCompletedSourceTimeEpochMs.get(),
             lastIdleUpdatedTimestampEpochMs.get()
         );
-        var maxSkipTimeEpochMs = lastUpdatedTimeEpochMs + (long) (getUpdatePeriodMs() * this.timeShifter
-            .maxRateMultiplier());
-        lastIdleUpdatedTimestampEpochMs.set(Math.min(currentSourceTimeEpochMs, maxSkipTimeEpochMs));
+        if (maxThroughputController != null) {
+            // Nothing is outstanding and there's no pacing to preserve, so open up the next window of the source
+            lastIdleUpdatedTimestampEpochMs.set(
+                Math.max(lastUpdatedTimeEpochMs, currentSourceTimeEpochMs)
+                    + contentTimeController.getBufferTimeWindow().toMillis()
+            );
+        } else {
+            var maxSkipTimeEpochMs = lastUpdatedTimeEpochMs + (long) (getUpdatePeriodMs() * this.timeShifter
+                .maxRateMultiplier());
+            lastIdleUpdatedTimestampEpochMs.set(Math.min(currentSourceTimeEpochMs, maxSkipTimeEpochMs));
+        }
         contentTimeController.stopReadsPast(Instant.ofEpochMilli(lastIdleUpdatedTimestampEpochMs.get()));
     }
 
@@ -168,18 +232,55 @@ public class ReplayEngine {
         Instant originalStart,
         Supplier<TrackedFuture<String, T>> task
     ) {
+        if (transformationExecutor != null) {
+            return runTransformationWorkOnExecutor(requestCtx, task);
+        }
         var newCount = totalCountOfScheduledTasksOutstanding.incrementAndGet();
         final String label = "processing";
-        var start = timeShifter.transformSourceTimeToRealTime(originalStart);
+        var start = maxThroughputController != null
+            ? Instant.now()
+            : timeShifter.transformSourceTimeToRealTime(originalStart).minus(EXPECTED_TRANSFORMATION_DURATION);
         logStartOfWork(requestCtx, newCount, start, label);
-        var result = networkSendOrchestrator.scheduleWork(
-            requestCtx,
-            start.minus(EXPECTED_TRANSFORMATION_DURATION),
-            task
-        );
+        var result = networkSendOrchestrator.scheduleWork(requestCtx, start, task);
         return hookWorkFinishingUpdates(result, originalStart, requestCtx, label);
     }
 
+    private <T> TrackedFuture<String, T> runTransformationWorkOnExecutor(
+        IReplayContexts.IReplayerHttpTransactionContext requestCtx,
+        Supplier<TrackedFuture<String, T>> task
+    ) {
+        var newCount = totalCountOfScheduledTasksOutstanding.incrementAndGet();
+        logStartOfWork(requestCtx, newCount, Instant.now(), "processing on the transformation pool");
+        var queuedContext = requestCtx.createTransformationQueuedContext();
+        var taskStartedFuture = new CompletableFuture<TrackedFuture<String, T>>();
+        try {
+            transformationExecutor.execute(() -> {
+                queuedContext.close();
+                try {
+                    taskStartedFuture.complete(task.get());
+                } catch (Throwable t) {
+                    taskStartedFuture.completeExceptionally(t);
+                }
+            });
+        } catch (Exception e) {
+            queuedContext.close();
+            taskStartedFuture.completeExceptionally(e);
+        }
+        // Unlike work that is scheduled relative to the source time, finishing a transformation early says
+        // nothing about how far the replay has progressed, so only the outstanding count is updated here.
+        // The contentTimeController is advanced once the transformed request has been sent.
+        return new TextTrackedFuture<>(taskStartedFuture, () -> "waiting for a transformation thread")
+            .thenCompose(transformFuture -> transformFuture, () -> "transforming on a transformation thread")
+            .whenComplete((v, t) -> {
+                var remaining = totalCountOfScheduledTasksOutstanding.decrementAndGet();
+                log.atDebug()
+                    .setMessage("Transformation for {} finished, decremented tasksOutstanding to {}")
+                    .addArgument(requestCtx)
+                    .addArgument(remaining)
+                    .log();
+            }, () -> "Updating the outstanding task count after the transformation");
+    }
+
     public <T> TrackedFuture<String, T> scheduleRequest(
         IReplayContexts.IReplayerHttpTransactionContext ctx,
         Instant originalStart,
@@ -188,6 +289,9 @@ public class ReplayEngine {
         ByteBufList packets,
         RequestSenderOrchestrator.RetryVisitor<T> retryVisitor
     ) {
+        if (maxThroughputController != null) {
+            return scheduleRequestUponAdmission(ctx, originalStart, packets, retryVisitor);
+        }
         var newCount = totalCountOfScheduledTasksOutstanding.incrementAndGet();
         final String label = "request";
         var start = timeShifter.transformSourceTimeToRealTime(originalStart);
@@ -203,6 +307,60 @@ public class ReplayEngine {
         return hookWorkFinishingUpdates(result, originalStart, requestKey, label);
     }
 
+    private <T> TrackedFuture<String, T> scheduleRequestUponAdmission(
+        IReplayContexts.IReplayerHttpTransactionContext ctx,
+        Instant originalStart,
+        ByteBufList packets,
+        RequestSenderOrchestrator.RetryVisitor<T> retryVisitor
+    ) {
+        var newCount = totalCountOfScheduledTasksOutstanding.incrementAndGet();
+        final String label = "request";
+        var requestKey = ctx.getReplayerRequestKey();
+        logStartOfWork(requestKey, newCount, Instant.now(), label + " (upon admission)");
+        var admittedAtNanos = new AtomicLong(-1);
+        var result = networkSendOrchestrator.scheduleRequestUponAdmission(
+            requestKey,
+            ctx,
+            () -> maxThroughputController.admit()
+                .whenComplete((v, t) -> admittedAtNanos.set(System.nanoTime()), () -> "recording the admission time"),
+            packets,
+            retryVisitor
+        ).whenComplete((v, t) -> {
+            // retries are included in the latency, which is what should slow the controller down
+            if (admittedAtNanos.get() >= 0) {
+                maxThroughputController.onRequestFinished(
+                    originalStart,
+                    Duration.ofNanos(System.nanoTime() - admittedAtNanos.get()),
+                    isFailedOutcome(v, t)
+                );
+            }
+        }, () -> "reporting the request's outcome to the max-throughput controller");
+        return hookWorkFinishingUpdates(result, originalStart, requestKey, label);
+    }
+
+    /**
+     * A request failed, as far as the max-throughput controller is concerned, when it couldn't be sent or when
+     * the final response showed that the target was overloaded or unavailable (a 429 or a 5xx status).
+     */
+    static boolean isFailedOutcome(Object result, Throwable t) {
+        if (t != null) {
+            return true;
+        }
+        if (!(result instanceof TransformedTargetRequestAndResponseList)) {
+            return false;
+        }
+        var responses = ((TransformedTargetRequestAndResponseList) result).getResponseList();
+        if (responses.isEmpty()) {
+            return true;
+        }
+        var finalResponse = responses.get(responses.size() - 1);
+        if (finalResponse == null || finalResponse.getError() != null || finalResponse.getRawResponse() == null) {
+            return true;
+        }
+        var statusCode = finalResponse.getRawResponse().status().code();
+        return statusCode == 429 || statusCode >= 500;
+    }
+
     public TrackedFuture<String, Void> closeConnection(
         int channelInteractionNum,
         IReplayContexts.IChannelKeyContext ctx,
@@ -211,7 +369,10 @@ public class ReplayEngine {
     ) {
         var newCount = totalCountOfScheduledTasksOutstanding.incrementAndGet();
         final String label = "close";
-        var atTime = timeShifter.transformSourceTimeToRealTime(timestamp);
+        // In max-throughput mode, the close will still wait for the connection's earlier requests to finish
+        var atTime = maxThroughputController != null
+            ? Instant.now()
+            : timeShifter.transformSourceTimeToRealTime(timestamp);
         var channelKey = ctx.getChannelKey();
         logStartOfWork(new IndexedChannelInteraction(channelKey, channelInteractionNum), newCount, atTime, label);
         var future = networkSendOrchestrator.scheduleClose(ctx, channelSessionNumber, channelInteractionNum, atTime);
@@ -0,0 +1,48 @@
+package org.opensearch.migrations.replay;
+
+import java.net.URI;
+
+import org.opensearch.migrations.transform.IAuthTransformerFactory;
+import org.opensearch.migrations.transform.IJsonTransformer;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A cluster that requests are replayed to, along with how requests are transformed and authorized for it and
+ * the connections that are used to send them.  A TrafficReplayer can replay to several of these at once, in
+ * which case every source request is accumulated once and then transformed and sent to each target.
+ */
+@Getter
+public class ReplayTarget {
+    private final URI uri;
+    private final IAuthTransformerFactory authTransformerFactory;
+    private final IJsonTransformer jsonTransformer;
+    private final ClientConnectionPool clientConnectionPool;
+
+    public ReplayTarget(
+        @NonNull URI uri,
+        IAuthTransformerFactory authTransformerFactory,
+        IJsonTransformer jsonTransformer,
+        ClientConnectionPool clientConnectionPool
+    ) {
+        if (uri.getPort() < 0) {
+            throw new IllegalArgumentException("Port not present for URI: " + uri);
+        }
+        if (uri.getHost() == null) {
+            throw new IllegalArgumentException("Hostname not present for URI: " + uri);
+        }
+        if (uri.getScheme() == null) {
+            throw new IllegalArgumentException("Scheme (http|https) is not present for URI: " + uri);
+        }
+        this.uri = uri;
+        this.authTransformerFactory = authTransformerFactory;
+        this.jsonTransformer = jsonTransformer;
+        this.clientConnectionPool = clientConnectionPool;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplayTarget{" + uri + "}";
+    }
+}
@@ -27,7 +27,6 @@ import org.opensearch.migrations.replay.util.TrackedFuture;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.EventLoop;
 import io.netty.util.concurrent.ScheduledFuture;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -132,10 +131,24 @@ public class RequestSenderOrchestrator {
         DONE, RETRY
     }
 
-    @AllArgsConstructor
     public static class DeterminedTransformedResponse<T> {
         RetryDirective directive;
         T value;
+        /**
+         * What to send for the next attempt when retrying, instead of the same request, or null.  This is
+         * released once the retries that use it are done.
+         */
+        ByteBufList requestToRetry;
+
+        public DeterminedTransformedResponse(RetryDirective directive, T value) {
+            this(directive, value, null);
+        }
+
+        public DeterminedTransformedResponse(RetryDirective directive, T value, ByteBufList requestToRetry) {
+            this.directive = directive;
+            this.value = value;
+            this.requestToRetry = requestToRetry;
+        }
     }
 
     public interface RetryVisitor<T> {
@@ -179,6 +192,42 @@ public class RequestSenderOrchestrator {
         );
     }
 
+    /**
+     * Like scheduleRequest, but rather than sending at a specific time, the request is sent as soon as its turn
+     * on the connection has come up AND the future from the admission supplier has completed.  The admission is
+     * only requested once all of the earlier interactions for the connection are done so that requests that
+     * are blocked behind others on their own connection can never hold up admission for other connections.
+     */
+    public <T> TrackedFuture<String, T> scheduleRequestUponAdmission(
+        UniqueReplayerRequestKey requestKey,
+        IReplayContexts.IReplayerHttpTransactionContext ctx,
+        Supplier<TrackedFuture<String, Void>> admissionSupplier,
+        ByteBufList packets,
+        RetryVisitor<T> visitor
+    ) {
+        return submitUnorderedWorkToEventLoop(
+            ctx.getLogicalEnclosingScope(),
+            requestKey.sourceRequestIndexSessionIdentifier,
+            requestKey.getReplayerRequestIndex(),
+            connectionReplaySession -> admissionSupplier.get()
+                .thenCompose(
+                    v -> NettyFutureBinders.bindNettySubmitToTrackableFuture(connectionReplaySession.eventLoop),
+                    () -> "returning to the connection's event loop after being admitted"
+                )
+                .thenCompose(
+                    v -> scheduleSendRequestOnConnectionReplaySession(
+                        ctx,
+                        connectionReplaySession,
+                        now(),
+                        Duration.ZERO,
+                        packets,
+                        visitor
+                    ),
+                    () -> "sending the admitted request"
+                )
+        );
+    }
+
     public TrackedFuture<String, Void> scheduleClose(
         IReplayContexts.IChannelKeyContext ctx,
         int sessionNumber,
@@ -401,12 +450,16 @@ public class RequestSenderOrchestrator {
                     var newStartTime = referenceStartTime.plus(nextRetryDelay);
                     log.atInfo().setMessage(() -> "Making request scheduled at " + newStartTime).log();
                     var schedulingDelay = Duration.between(now(), newStartTime);
-                    return NettyFutureBinders.bindNettyScheduleToCompletableFuture(
+                    var nextRequest = dtr.requestToRetry != null ? dtr.requestToRetry : byteBufList;
+                    var retryFuture = NettyFutureBinders.bindNettyScheduleToCompletableFuture(
                         eventLoop, schedulingDelay)
                         .thenCompose(
-                            v -> sendRequestWithRetries(senderSupplier, eventLoop, byteBufList, newStartTime,
+                            v -> sendRequestWithRetries(senderSupplier, eventLoop, nextRequest, newStartTime,
                                 doubleRetryDelayCapped(nextRetryDelay), interval, visitor),
                             () -> "retrying request with delay of " + schedulingDelay);
+                    return dtr.requestToRetry == null ? retryFuture :
+                        retryFuture.whenComplete((v, t2) -> dtr.requestToRetry.release(),
+                            () -> "releasing the request that was built for retries");
                 } else {
                     return TextTrackedFuture.completedFuture(dtr.value,
                         () -> "done retrying and returning received response");
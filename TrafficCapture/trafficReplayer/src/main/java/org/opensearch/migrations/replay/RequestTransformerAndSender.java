@@ -73,8 +73,9 @@ public class RequestTransformerAndSender<T> {
 
     /**
      * Take a source request and transform it (on the work thread that we'll also SEND the transformed
-     * request).  If an exception happens during transformation, the returned TrackedFuture will have
-     * an exceptional completion.  The transformed request future is composed with a method that sends
+     * request, or on the ReplayEngine's transformation pool when one has been configured).  If an exception
+     * happens during transformation, the returned TrackedFuture will have an exceptional completion.
+     * The transformed request future is composed with a method that sends
      * the request and awaits a response.  Specifically, a response that is returned through the visitor
      * that will retry in case of any exceptional or error (status code) occurrences.<br><br>
      *
@@ -96,11 +97,31 @@ public class RequestTransformerAndSender<T> {
         @NonNull Instant start,
         @NonNull Instant end,
         Supplier<Stream<byte[]>> packetsSupplier) {
+        return transformAndSendRequest(inputRequestTransformerFactory, replayEngine, finishedAccumulatingResponseFuture,
+            ctx, start, end, packetsSupplier, true);
+    }
+
+    /**
+     * @param reportResponses whether the responses are passed to perResponseConsumer.  When the same request is
+     *                        sent to several targets, only one of them reports its responses so that each
+     *                        source request is only counted once.
+     * @see #transformAndSendRequest(PacketToTransformingHttpHandlerFactory, ReplayEngine, TrackedFuture,
+     * IReplayContexts.IReplayerHttpTransactionContext, Instant, Instant, Supplier)
+     */
+    public TrackedFuture<String, T> transformAndSendRequest(
+        PacketToTransformingHttpHandlerFactory inputRequestTransformerFactory,
+        ReplayEngine replayEngine,
+        TrackedFuture<String, RequestResponsePacketPair> finishedAccumulatingResponseFuture,
+        IReplayContexts.IReplayerHttpTransactionContext ctx,
+        @NonNull Instant start,
+        @NonNull Instant end,
+        Supplier<Stream<byte[]>> packetsSupplier,
+        boolean reportResponses) {
         try {
             var requestReadyFuture = replayEngine.scheduleTransformationWork(
                 ctx,
                 start,
-                () -> transformAllData(inputRequestTransformerFactory.create(ctx), packetsSupplier)
+                () -> transformAllDataOrReuseCachedResult(inputRequestTransformerFactory, ctx, packetsSupplier)
             );
             log.atDebug().setMessage(() -> "request transform future for " + ctx + " = " + requestReadyFuture).log();
             // It might be safer to chain this work directly inside the scheduleWork call above so that the
@@ -114,7 +135,11 @@ public class RequestTransformerAndSender<T> {
                     transformedRequest.transformedOutput.size(),
                     transformedRequest.transformedOutput,
                     getRetryCheckVisitor(transformedRequest, finishedAccumulatingResponseFuture,
-                        arr -> perResponseConsumer(arr, transformedRequest.transformationStatus, ctx))
+                        arr -> {
+                            if (reportResponses) {
+                                perResponseConsumer(arr, transformedRequest.transformationStatus, ctx);
+                            }
+                        })
                 ),
                 () -> "transitioning transformed packets onto the wire"
             );
@@ -124,6 +149,39 @@ public class RequestTransformerAndSender<T> {
         }
     }
 
+    /**
+     * When the factory has a cache, a request whose bytes are the same as a recently transformed one is given
+     * a copy of that transformed request without running the transformation pipeline at all.
+     */
+    static TrackedFuture<String, TransformedOutputAndResult<ByteBufList>> transformAllDataOrReuseCachedResult(
+        PacketToTransformingHttpHandlerFactory inputRequestTransformerFactory,
+        IReplayContexts.IReplayerHttpTransactionContext ctx,
+        Supplier<Stream<byte[]>> packetsSupplier
+    ) {
+        var cache = inputRequestTransformerFactory.getTransformedRequestCache();
+        if (cache == null) {
+            return transformAllData(inputRequestTransformerFactory.create(ctx), packetsSupplier);
+        }
+        var key = cache.makeKey(inputRequestTransformerFactory, packetsSupplier.get());
+        var cachedPackets = cache.get(key);
+        if (cachedPackets != null) {
+            log.atTrace().setMessage("Reusing the cached transformation of an identical request for {}")
+                .addArgument(ctx)
+                .log();
+            return TextTrackedFuture.completedFuture(
+                new TransformedOutputAndResult<>(cachedPackets, HttpRequestTransformationStatus.completed()),
+                () -> "reusing the cached transformation of an identical request"
+            );
+        }
+        return transformAllData(inputRequestTransformerFactory.create(ctx), packetsSupplier)
+            .thenApply(transformedRequest -> {
+                if (transformedRequest.transformationStatus.isCompleted()) {
+                    cache.put(key, transformedRequest.transformedOutput);
+                }
+                return transformedRequest;
+            }, () -> "caching the transformed request");
+    }
+
     private static <R> TrackedFuture<String, R> transformAllData(
         IPacketFinalizingConsumer<R> packetHandler,
         Supplier<Stream<byte[]>> packetSupplier
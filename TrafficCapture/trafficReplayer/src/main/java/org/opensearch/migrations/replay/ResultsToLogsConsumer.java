@@ -57,6 +57,26 @@ public class ResultsToLogsConsumer implements BiConsumer<SourceTargetCaptureTupl
     }
 
     private Map<String, Object> toJSONObject(SourceTargetCaptureTuple tuple, ParsedHttpMessagesAsDicts parsed) {
+        return toJSONObject(
+            parsed,
+            formatUniqueRequestKey(tuple.getRequestKey()),
+            Optional.ofNullable(tuple.topLevelErrorCause).map(Object::toString).orElse(null),
+            (int) tuple.responseList.stream().filter(r -> !r.combined).count(),
+            tuple.responseList.stream().filter(r -> r.errorCause != null).count()
+        );
+    }
+
+    /**
+     * Builds the output tuple from values that don't require the original SourceTargetCaptureTuple so that
+     * tuples that were written in another form (see BinaryTupleToJsonConverter) get exactly the same shape.
+     */
+    static Map<String, Object> toJSONObject(
+        ParsedHttpMessagesAsDicts parsed,
+        String connectionId,
+        String error,
+        int numRequests,
+        long numErrors
+    ) {
         var tupleMap = new LinkedHashMap<String, Object>();
 
         parsed.sourceRequestOp.ifPresent(r -> tupleMap.put("sourceRequest", r));
@@ -64,10 +84,10 @@ public class ResultsToLogsConsumer implements BiConsumer<SourceTargetCaptureTupl
         parsed.targetRequestOp.ifPresent(r -> tupleMap.put("targetRequest", r));
         tupleMap.put("targetResponses", parsed.targetResponseList);
 
-        tupleMap.put("connectionId", formatUniqueRequestKey(tuple.getRequestKey()));
-        Optional.ofNullable(tuple.topLevelErrorCause).ifPresent(e -> tupleMap.put("error", e.toString()));
-        tupleMap.put("numRequests",  tuple.responseList.size());
-        tupleMap.put("numErrors",  tuple.responseList.stream().filter(r->r.errorCause!=null).count());
+        tupleMap.put("connectionId", connectionId);
+        Optional.ofNullable(error).ifPresent(e -> tupleMap.put("error", e));
+        tupleMap.put("numRequests", numRequests);
+        tupleMap.put("numErrors", numErrors);
 
         return tupleMap;
     }
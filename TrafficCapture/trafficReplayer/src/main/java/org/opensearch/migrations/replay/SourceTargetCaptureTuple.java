@@ -2,6 +2,7 @@ package org.opensearch.migrations.replay;
 
 import java.time.Duration;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.StringJoiner;
@@ -26,9 +27,33 @@ public class SourceTargetCaptureTuple implements AutoCloseable {
         List<byte[]> targetResponseData;
         Throwable errorCause;
         Duration targetResponseDuration;
+        /**
+         * Which target this came from when replaying to several.  0 is the primary target.
+         */
+        int targetIndex;
+        /**
+         * @see AggregatedRawResponse#getResponseLatency()
+         */
+        Duration targetResponseLatency;
+        /**
+         * True for the response that combines the outcomes of all of the attempts to the primary target (see
+         * TransformedTargetRequestAndResponseList#getCombinedResponse()), which follows the responses to each
+         * attempt.
+         */
+        boolean combined;
+
+        public Response(List<byte[]> targetResponseData, Throwable errorCause, Duration targetResponseDuration) {
+            this(targetResponseData, errorCause, targetResponseDuration, 0, null, false);
+        }
 
         public String toString() {
             final var sj = new StringJoiner("\n");
+            if (targetIndex != 0) {
+                sj.add("targetIndex=").add(Integer.toString(targetIndex));
+            }
+            if (combined) {
+                sj.add("combined=true");
+            }
             if (targetResponseDuration != null) {
                 sj.add("targetResponseDuration=").add(targetResponseDuration + "");
             }
@@ -53,6 +78,10 @@ public class SourceTargetCaptureTuple implements AutoCloseable {
     public final ByteBufList targetRequestData;
     public final HttpRequestTransformationStatus transformationStatus;
     public final IReplayContexts.ITupleHandlingContext context;
+    /**
+     * The responses (including retries) from the primary target, then the response that combines them when
+     * there is one, followed by those of any additional targets
+     */
     public final List<Response> responseList;
     public final Throwable topLevelErrorCause;
 
@@ -69,13 +98,51 @@ public class SourceTargetCaptureTuple implements AutoCloseable {
         this.transformationStatus = transformedTargetRequestAndResponseList == null ? null :
             transformedTargetRequestAndResponseList.getTransformationStatus();
         this.responseList = transformedTargetRequestAndResponseList == null ? List.of() :
-            transformedTargetRequestAndResponseList.responses().stream()
-            .map(arr -> new Response(arr.packets.stream().map(AbstractMap.SimpleEntry::getValue)
-                .collect(Collectors.toList()), arr.error, arr.duration))
-            .collect(Collectors.toList());
+            makeResponseList(transformedTargetRequestAndResponseList);
         this.topLevelErrorCause = topLevelErrorCause;
     }
 
+    private static List<Response> makeResponseList(TransformedTargetRequestAndResponseList results) {
+        var responses = new ArrayList<Response>();
+        addResponses(responses, results.responses(), 0);
+        Optional.ofNullable(results.getCombinedResponse())
+            .ifPresent(combinedResponse -> responses.add(makeResponse(combinedResponse, 0, true)));
+        var additionalTargetResponseLists = results.getAdditionalTargetResponseLists();
+        for (int i = 0; i < additionalTargetResponseLists.size(); ++i) {
+            addResponses(responses, additionalTargetResponseLists.get(i), i + 1);
+        }
+        return responses;
+    }
+
+    private static void addResponses(List<Response> responses, List<AggregatedRawResponse> source, int targetIndex) {
+        source.forEach(arr -> responses.add(makeResponse(arr, targetIndex, false)));
+    }
+
+    private static Response makeResponse(AggregatedRawResponse arr, int targetIndex, boolean combined) {
+        return new Response(
+            arr.packets.stream().map(AbstractMap.SimpleEntry::getValue).collect(Collectors.toList()),
+            arr.error,
+            arr.duration,
+            targetIndex,
+            arr.getResponseLatency(),
+            combined
+        );
+    }
+
+    /**
+     * @return the final response from the primary target, which is the one that's compared to the source.  When
+     * the attempts were combined, that's the combined response.
+     */
+    public Optional<Response> getLastPrimaryTargetResponse() {
+        Response last = null;
+        for (var r : responseList) {
+            if (r.targetIndex == 0) {
+                last = r;
+            }
+        }
+        return Optional.ofNullable(last);
+    }
+
     @Override
     public void close() {
         Optional.ofNullable(targetRequestData).ifPresent(ByteBufList::release);
@@ -0,0 +1,185 @@
+package org.opensearch.migrations.replay;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.replay.util.TextTrackedFuture;
+import org.opensearch.migrations.replay.util.TrackedFuture;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoop;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A bounded set of keep-alive connections to the target that requests from many source connections take
+ * turns using.  There is one of these for each event loop, and all of its state is only touched from that
+ * event loop's thread, so acquire and release must be called from there.
+ *
+ * A ConnectionReplaySession leases a channel for each request that it sends and releases it once the
+ * response has been received.  Since a session only sends one request at a time (in the order of the source),
+ * ordering within a source connection is unaffected by which channels its requests go out on.  When every
+ * channel is leased, requests wait in FIFO order for the next one to be released.
+ */
+@Slf4j
+public class TargetChannelPool {
+
+    /**
+     * Counts across all the pools of a ClientConnectionPool, which can be read from any thread (e.g. for gauges).
+     */
+    @Getter
+    public static class Stats {
+        private final AtomicLong openConnections = new AtomicLong();
+        private final AtomicLong leasedConnections = new AtomicLong();
+        private final AtomicLong waitingRequests = new AtomicLong();
+        private final LongAdder totalWaits = new LongAdder();
+        private final LongAdder totalWaitMillis = new LongAdder();
+    }
+
+    @AllArgsConstructor
+    private static class Waiter {
+        final IReplayContexts.ITargetRequestContext ctx;
+        final TextTrackedFuture<ChannelFuture> future;
+        final long startNanos;
+    }
+
+    private final EventLoop eventLoop;
+    private final ClientConnectionPool.ChannelCreator channelCreator;
+    /**
+     * Since the connections outlive the requests (and source connections) that they're opened for, their sockets
+     * are traced under this instead
+     */
+    private final IReplayContexts.IChannelKeyContext socketParentContext;
+    private final int maxConnections;
+    private final Stats stats;
+    private final ArrayDeque<ChannelFuture> idleChannels = new ArrayDeque<>();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    /** Channels that are open or being opened, whether they're idle or leased */
+    private int numConnections;
+
+    public TargetChannelPool(
+        EventLoop eventLoop,
+        ClientConnectionPool.ChannelCreator channelCreator,
+        IReplayContexts.IChannelKeyContext socketParentContext,
+        int maxConnections,
+        Stats stats
+    ) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be at least 1, but was " + maxConnections);
+        }
+        this.eventLoop = eventLoop;
+        this.channelCreator = channelCreator;
+        this.socketParentContext = socketParentContext;
+        this.maxConnections = maxConnections;
+        this.stats = stats;
+    }
+
+    /**
+     * @return a future for a channel that the caller has exclusive use of until it's passed to release()
+     */
+    public TrackedFuture<String, ChannelFuture> acquire(IReplayContexts.ITargetRequestContext ctx) {
+        assert eventLoop.inEventLoop() : "acquire must be called from the pool's event loop";
+        var idleChannel = pollActiveIdleChannel();
+        if (idleChannel != null) {
+            stats.leasedConnections.incrementAndGet();
+            return TextTrackedFuture.completedFuture(idleChannel, () -> "reusing an idle pooled target connection");
+        } else if (numConnections < maxConnections) {
+            stats.leasedConnections.incrementAndGet();
+            return createChannel(ctx);
+        }
+        var waiter = new Waiter(
+            ctx,
+            new TextTrackedFuture<>("waiting for a pooled target connection"),
+            System.nanoTime()
+        );
+        waiters.add(waiter);
+        stats.waitingRequests.incrementAndGet();
+        log.atDebug().setMessage("All {} pooled target connections are in use, {} requests are now waiting")
+            .addArgument(maxConnections)
+            .addArgument(waiters::size)
+            .log();
+        return waiter.future;
+    }
+
+    /**
+     * Returns a channel that was acquired from this pool.  If reusable is false (e.g. because the response
+     * wasn't fully read), the channel is closed rather than being given to another request.
+     */
+    public void release(ChannelFuture channelFuture, boolean reusable) {
+        assert eventLoop.inEventLoop() : "release must be called from the pool's event loop";
+        stats.leasedConnections.decrementAndGet();
+        if (!reusable || !channelFuture.channel().isActive()) {
+            discard(channelFuture);
+            createChannelsForWaiters();
+        } else if (!waiters.isEmpty()) {
+            stats.leasedConnections.incrementAndGet();
+            pollWaiter().future.future.complete(channelFuture);
+        } else {
+            idleChannels.addLast(channelFuture);
+        }
+    }
+
+    /**
+     * Called when there may be room for more connections, since a connection was closed or couldn't be opened
+     */
+    private void createChannelsForWaiters() {
+        while (!waiters.isEmpty() && numConnections < maxConnections) {
+            var waiter = pollWaiter();
+            stats.leasedConnections.incrementAndGet();
+            createChannel(waiter.ctx).whenComplete((v, t) -> {
+                if (t != null) {
+                    waiter.future.future.completeExceptionally(TrackedFuture.unwindPossibleCompletionException(t));
+                } else {
+                    waiter.future.future.complete(v);
+                }
+            }, () -> "handing a new pooled target connection to a request that was waiting for one");
+        }
+    }
+
+    private ChannelFuture pollActiveIdleChannel() {
+        ChannelFuture channelFuture;
+        // most recently used first, so that connections beyond what's needed go idle and can be closed by the target
+        while ((channelFuture = idleChannels.pollLast()) != null) {
+            if (channelFuture.channel().isActive()) {
+                return channelFuture;
+            }
+            discard(channelFuture);
+        }
+        return null;
+    }
+
+    private Waiter pollWaiter() {
+        var waiter = waiters.poll();
+        var waitMillis = Duration.ofNanos(System.nanoTime() - waiter.startNanos).toMillis();
+        stats.waitingRequests.decrementAndGet();
+        stats.totalWaits.increment();
+        stats.totalWaitMillis.add(waitMillis);
+        return waiter;
+    }
+
+    private TrackedFuture<String, ChannelFuture> createChannel(IReplayContexts.ITargetRequestContext ctx) {
+        ++numConnections;
+        stats.openConnections.incrementAndGet();
+        return channelCreator.createChannel(eventLoop, ctx, socketParentContext).whenComplete((v, t) -> {
+            if (t != null) {
+                // the caller never got a channel, so it won't release one
+                --numConnections;
+                stats.openConnections.decrementAndGet();
+                stats.leasedConnections.decrementAndGet();
+                createChannelsForWaiters();
+            }
+        }, () -> "creating a new pooled target connection");
+    }
+
+    private void discard(ChannelFuture channelFuture) {
+        --numConnections;
+        stats.openConnections.decrementAndGet();
+        if (channelFuture.channel().isOpen()) {
+            channelFuture.channel().close();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.time.Instant;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.event.Level;
 
@@ -12,10 +13,23 @@ import org.slf4j.event.Level;
 @Slf4j
 public class TimeShifter {
 
-    private final AtomicReference<Instant> sourceTimeStart = new AtomicReference<>();
-    private AtomicReference<Instant> systemTimeStart = new AtomicReference<>();
+    /**
+     * The point that the mapping between source and system time is anchored to along with the rate that
+     * applies from that point onward.  These are swapped as a unit whenever the rate changes so that every
+     * caller sees a consistent, continuous mapping.
+     */
+    @AllArgsConstructor
+    private static class Baseline {
+        final Instant sourceTimeStart;
+        final Instant systemTimeStart;
+        final double rateMultiplier;
+    }
 
-    private final double rateMultiplier;
+    private final AtomicReference<Baseline> baselineRef = new AtomicReference<>();
+    /**
+     * The rate to use until the first timestamp has been set
+     */
+    private volatile double initialRateMultiplier;
     private final Duration realtimeOffset;
 
     public TimeShifter() {
@@ -27,48 +41,78 @@ public class TimeShifter {
     }
 
     public TimeShifter(double rateMultiplier, Duration realtimeOffset) {
-        this.rateMultiplier = rateMultiplier;
+        this.initialRateMultiplier = rateMultiplier;
         this.realtimeOffset = realtimeOffset;
     }
 
     public void setFirstTimestamp(Instant sourceTime) {
-        var didSet = sourceTimeStart.compareAndSet(null, sourceTime);
-        if (didSet) {
-            var didSetSystemStart = systemTimeStart.compareAndSet(null, Instant.now());
-            assert didSetSystemStart : "expected to always start systemTimeStart immediately after sourceTimeStart ";
-        }
+        var didSet = baselineRef.compareAndSet(null, new Baseline(sourceTime, Instant.now(), initialRateMultiplier));
         log.atLevel(didSet ? Level.INFO : Level.TRACE)
             .setMessage("Set baseline source timestamp for all future interactions to {}")
             .addArgument(sourceTime)
             .log();
     }
 
+    /**
+     * Change the rate that source time will advance relative to system time from realTime onward.  Work that
+     * was already mapped to real times with the previous rate isn't affected.
+     */
+    public void setRateMultiplier(double newRateMultiplier, Instant realTime) {
+        while (true) {
+            var baseline = baselineRef.get();
+            if (baseline == null) {
+                initialRateMultiplier = newRateMultiplier;
+                // in case the first timestamp was being set concurrently, loop around to rebase it
+                if (baselineRef.get() == null) {
+                    return;
+                }
+                continue;
+            }
+            var newBaseline = new Baseline(
+                transformRealTimeToSourceTime(baseline, realTime),
+                realTime.minus(realtimeOffset),
+                newRateMultiplier
+            );
+            if (baselineRef.compareAndSet(baseline, newBaseline)) {
+                return;
+            }
+        }
+    }
+
     Instant transformSourceTimeToRealTime(Instant sourceTime) {
-        if (sourceTimeStart.get() == null) {
+        var baseline = baselineRef.get();
+        if (baseline == null) {
             throw new IllegalStateException("setFirstTimestamp has not yet been called");
         }
         // realtime = systemTimeStart + ((sourceTime-sourceTimeStart) / rateMultiplier) + targetOffset
-        return systemTimeStart.get()
+        return baseline.systemTimeStart
             .plus(
                 Duration.ofMillis(
-                    (long) (Duration.between(sourceTimeStart.get(), sourceTime).toMillis() / rateMultiplier)
+                    (long) (Duration.between(baseline.sourceTimeStart, sourceTime).toMillis()
+                        / baseline.rateMultiplier)
                 )
             )
             .plus(realtimeOffset);
     }
 
     Optional<Instant> transformRealTimeToSourceTime(Instant realTime) {
-        return Optional.ofNullable(sourceTimeStart.get()).map(start ->
+        return Optional.ofNullable(baselineRef.get()).map(baseline -> transformRealTimeToSourceTime(baseline, realTime));
+    }
+
+    private Instant transformRealTimeToSourceTime(Baseline baseline, Instant realTime) {
         // sourceTime = sourceTimeStart + (realTime-systemTimeStart-targetOffset) * rateMultiplier
-        start.plus(
+        return baseline.sourceTimeStart.plus(
             Duration.ofMillis(
-                (long) (Duration.between(systemTimeStart.get(), realTime.minus(realtimeOffset)).toMillis()
-                    * rateMultiplier)
+                (long) (Duration.between(baseline.systemTimeStart, realTime.minus(realtimeOffset)).toMillis()
+                    * baseline.rateMultiplier)
             )
-        ));
+        );
     }
 
+    /**
+     * Returns the rate that source time is currently advancing at, relative to system time.
+     */
     public double maxRateMultiplier() {
-        return rateMultiplier;
+        return Optional.ofNullable(baselineRef.get()).map(b -> b.rateMultiplier).orElse(initialRateMultiplier);
     }
 }
@@ -2,6 +2,7 @@ package org.opensearch.migrations.replay;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.Clock;
 import java.time.Duration;
 
@@ -11,6 +12,7 @@ import org.opensearch.migrations.replay.tracing.RootReplayerContext;
 import org.opensearch.migrations.replay.traffic.source.BlockingTrafficSource;
 import org.opensearch.migrations.replay.traffic.source.ISimpleTrafficCaptureSource;
 import org.opensearch.migrations.replay.traffic.source.InputStreamOfTraffic;
+import org.opensearch.migrations.replay.traffic.source.SegmentDirectoryTrafficCaptureSource;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -37,10 +39,12 @@ public class TrafficCaptureSourceFactory {
             appParams.kafkaTrafficGroupId
         );
         boolean isInputFileActive = appParams.inputFilename != null;
+        boolean isSegmentDirectoryActive = appParams.inputSegmentDirectory != null;
 
-        if (isInputFileActive && isKafkaActive) {
+        if ((isInputFileActive ? 1 : 0) + (isKafkaActive ? 1 : 0) + (isSegmentDirectoryActive ? 1 : 0) > 1) {
             throw new IllegalArgumentException(
-                "Only one traffic source can be specified, detected options for input file as well as Kafka"
+                "Only one traffic source can be specified, detected options for more than one of an input file, "
+                    + "an input segment directory, or Kafka"
             );
         }
 
@@ -53,8 +57,13 @@ public class TrafficCaptureSourceFactory {
                 appParams.kafkaTrafficEnableMSKAuth,
                 appParams.kafkaTrafficPropertyFile,
                 Clock.systemUTC(),
-                new KafkaBehavioralPolicy()
+                new KafkaBehavioralPolicy(),
+                appParams.kafkaTrafficPartitionsAsConnectionShards,
+                Duration.ofMillis(appParams.kafkaTrafficCommitIntervalMs),
+                appParams.kafkaTrafficMaxRecordsPerCommit
             );
+        } else if (isSegmentDirectoryActive) {
+            return new SegmentDirectoryTrafficCaptureSource(ctx, Paths.get(appParams.inputSegmentDirectory));
         } else {
             return new InputStreamOfTraffic(
                 ctx,
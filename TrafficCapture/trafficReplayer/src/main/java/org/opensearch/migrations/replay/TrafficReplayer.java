@@ -9,22 +9,27 @@ import java.nio.file.Paths;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.opensearch.migrations.jcommander.NoSplitter;
+import org.opensearch.migrations.replay.tracing.IRootReplayerContext;
 import org.opensearch.migrations.replay.tracing.RootReplayerContext;
 import org.opensearch.migrations.replay.traffic.source.TrafficStreamLimiter;
 import org.opensearch.migrations.replay.util.ActiveContextMonitor;
 import org.opensearch.migrations.replay.util.OrderedWorkerTracker;
+import org.opensearch.migrations.replay.util.TrackedFutureDiagnostics;
 import org.opensearch.migrations.replay.util.TrackedFutureJsonFormatter;
 import org.opensearch.migrations.tracing.ActiveContextTracker;
 import org.opensearch.migrations.tracing.ActiveContextTrackerByActivityType;
 import org.opensearch.migrations.tracing.CompositeContextTracker;
 import org.opensearch.migrations.tracing.RootOtelContext;
+import org.opensearch.migrations.tracing.TraceSampling;
 import org.opensearch.migrations.transform.IAuthTransformerFactory;
 import org.opensearch.migrations.transform.RemovingAuthTransformerFactory;
 import org.opensearch.migrations.transform.SigV4AuthTransformerFactory;
@@ -36,11 +41,14 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.ParametersDelegate;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
+import org.slf4j.helpers.NOPLogger;
 import software.amazon.awssdk.arns.Arn;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
@@ -52,11 +60,13 @@ public class TrafficReplayer {
     public static final String SIGV_4_AUTH_HEADER_SERVICE_REGION_ARG = "--sigv4-auth-header-service-region";
     public static final String AUTH_HEADER_VALUE_ARG = "--auth-header-value";
     public static final String REMOVE_AUTH_HEADER_VALUE_ARG = "--remove-auth-header";
+    public static final String ADDITIONAL_TARGET_ARG = "--additional-target";
     public static final String AWS_AUTH_HEADER_USER_AND_SECRET_ARG = "--auth-header-user-and-secret";
     public static final String PACKET_TIMEOUT_SECONDS_PARAMETER_NAME = "--packet-timeout-seconds";
 
     public static final String LOOKAHEAD_TIME_WINDOW_PARAMETER_NAME = "--lookahead-time-window";
     private static final long ACTIVE_WORK_MONITOR_CADENCE_MS = 30 * 1000L;
+    private static final long CATCH_UP_ADJUSTMENT_CADENCE_MS = 5 * 1000L;
 
     public static class DualException extends Exception {
         public final Throwable originalCause;
@@ -139,6 +149,21 @@ public class TrafficReplayer {
                 + "(cannot be used with other auth arguments)")
         String useSigV4ServiceAndRegion;
 
+        @Parameter(
+            required = false,
+            names = { ADDITIONAL_TARGET_ARG },
+            splitter = NoSplitter.class,
+            arity = 1,
+            description = "Another target to replay every request to, alongside the primary target.  This may be "
+                + "repeated.  The value is a json object with a \"uri\" and, optionally, that target's own "
+                + "\"insecure\" flag, auth (\"authHeaderValue\", \"authHeaderUserAndSecret\" as a two element "
+                + "array, \"sigv4AuthHeaderServiceRegion\", or \"removeAuthHeader\") and \"transformerConfig\" "
+                + "(the same as --transformer-config).  The primary target's auth, transformer and --insecure "
+                + "options aren't inherited.  "
+                + "Requests are read and accumulated once and then sent to every target in parallel.  The "
+                + "responses of every target are included in each tuple's targetResponses.")
+        List<String> additionalTargets = new ArrayList<>();
+
         @ParametersDelegate
         private RequestTransformationParams requestTransformationParams = new RequestTransformationParams();
 
@@ -159,6 +184,13 @@ public class TrafficReplayer {
             arity = 1,
             description = "input file to read the request/response traces for the source cluster")
         String inputFilename;
+        @Parameter(
+            required = false,
+            names = { "--input-segment-directory" },
+            arity = 1,
+            description = "directory of capture segment files (as written by the capture proxy's "
+                + "--traceSegmentDirectory option) to read the request/response traces for the source cluster from")
+        String inputSegmentDirectory;
         @Parameter(
             required = false,
             names = {"-t", PACKET_TIMEOUT_SECONDS_PARAMETER_NAME },
@@ -173,6 +205,47 @@ public class TrafficReplayer {
                 + "This means that between each interaction will be replayed at this rate faster "
                 + "than the original observations, provided that the replayer and target are able to keep up.")
         double speedupFactor = 1.0;
+        @Parameter(
+            required = false,
+            names = { "--max-throughput" },
+            arity = 0,
+            description = "Ignore the original timing of the requests and replay them as fast as the target can "
+                + "handle them.  Requests on each connection are still sent in order, one after another.  The "
+                + "number of requests outstanding across all connections is adjusted up while the target keeps "
+                + "responding within --max-throughput-target-latency-ms and down when it slows or fails.  "
+                + "--speedup-factor is ignored when this is set.")
+        boolean maxThroughput;
+        @Parameter(
+            required = false,
+            names = { "--max-throughput-target-latency-ms" },
+            arity = 1,
+            description = "In --max-throughput mode, the response latency above which the replayer will reduce the "
+                + "number of requests that it sends concurrently.")
+        long maxThroughputTargetLatencyMs = 1000;
+        @Parameter(
+            required = false,
+            names = { "--max-throughput-initial-concurrency" },
+            arity = 1,
+            description = "In --max-throughput mode, the number of requests that may be outstanding at the start "
+                + "of the replay.  The ceiling is --max-concurrent-requests.")
+        int maxThroughputInitialConcurrency = 16;
+        @Parameter(
+            required = false,
+            names = { "--catch-up-max-speedup-factor" },
+            arity = 1,
+            description = "When this is larger than --speedup-factor, the replayer will automatically raise its "
+                + "speedup factor, up to this value, while it is scheduling requests more than "
+                + "--catch-up-target-lag-seconds after the time that they were captured.  Once it has caught up, "
+                + "it returns to --speedup-factor.  This doesn't account for requests that are waiting on a slow "
+                + "target.")
+        double catchUpMaxSpeedupFactor = 0;
+        @Parameter(
+            required = false,
+            names = { "--catch-up-target-lag-seconds" },
+            arity = 1,
+            description = "How far behind the source traffic the replayer's schedule can be before it starts to "
+                + "catch up (see --catch-up-max-speedup-factor).")
+        long catchUpTargetLagSeconds = 60;
         @Parameter(
             required = false,
             names = { LOOKAHEAD_TIME_WINDOW_PARAMETER_NAME },
@@ -185,12 +258,67 @@ public class TrafficReplayer {
             arity = 1,
             description = "Maximum number of requests at a time that can be outstanding")
         int maxConcurrentRequests = 1024;
+        @Parameter(
+            required = false,
+            names = { "--max-concurrent-request-bytes" },
+            arity = 1,
+            description = "Maximum number of bytes of requests (see --include-expected-response-bytes) that can be "
+                + "outstanding at a time, in addition to --max-concurrent-requests.  This bounds how much of the "
+                + "heap outstanding work can use.  A request that is larger than this is sent by itself.  When 0 "
+                + "(the default), outstanding work is only limited by --max-concurrent-requests.")
+        long maxConcurrentRequestBytes = 0;
+        @Parameter(
+            required = false,
+            names = { "--include-expected-response-bytes" },
+            arity = 0,
+            description = "Add a running average of the sizes of the target's responses to the cost of each "
+                + "request for --max-concurrent-request-bytes.")
+        boolean includeExpectedResponseBytes;
         @Parameter(
             required = false,
             names = { "--num-client-threads" },
             arity = 1,
             description = "Number of threads to use to send requests from.")
         int numClientThreads = 0;
+        @Parameter(
+            required = false,
+            names = { "--max-target-connections-per-thread" },
+            arity = 1,
+            description = "When greater than 0, requests from all source connections are multiplexed onto at most "
+                + "this many keep-alive connections to the target for each client thread.  Requests from one "
+                + "source connection are still sent one at a time and in order.  When 0 (the default), each "
+                + "source connection is replayed over a target connection of its own.")
+        int maxTargetConnectionsPerThread = 0;
+        @Parameter(
+            required = false,
+            names = { "--num-transformation-threads" },
+            arity = 1,
+            description = "Number of threads to transform requests on, ahead of when they're sent.  When 0 (the "
+                + "default), requests are transformed on the same threads that send them, which can delay the "
+                + "sends for other connections when transformations are expensive.")
+        int numTransformationThreads = 0;
+
+        @Parameter(
+            required = false,
+            names = { "--stream-ndjson-transformations" },
+            arity = 0,
+            description = "Transform the bodies of _bulk and _msearch requests one action (or search) at a time, "
+                + "forwarding each item as a chunk as soon as it's been transformed, rather than parsing and "
+                + "transforming the whole body at once.  Each invocation of the transformation only sees the lines "
+                + "of one item and the headers returned for the first item are used for the request.  If a later "
+                + "item can't be transformed, the partially sent request is aborted instead of being resent "
+                + "without its transformation.")
+        boolean streamNdjsonTransformations;
+
+        @Parameter(
+            required = false,
+            names = { "--transformation-cache-bytes" },
+            arity = 1,
+            description = "When greater than 0, transformed requests are kept in a least-recently-used cache of "
+                + "up to this many bytes so that identical source requests can be sent without being transformed "
+                + "again.  The cache is bypassed for targets whose transformations aren't deterministic, such as "
+                + "when requests are signed with SigV4.  When 0 (the default), every request is transformed.")
+        long transformationCacheBytes = 0;
 
         // https://github.com/opensearch-project/opensearch-java/blob/main/java-client/src/main/java/org/opensearch/client/transport/httpclient5/ApacheHttpClient5TransportBuilder.java#L49-L54
         @Parameter(
@@ -231,6 +359,95 @@ public class TrafficReplayer {
             arity = 1,
             description = "File path for Kafka properties file to use for additional or overriden Kafka properties")
         String kafkaTrafficPropertyFile;
+        @Parameter(
+            required = false,
+            names = { "--kafka-traffic-partitions-as-connection-shards" },
+            arity = 0,
+            description = "Treat each Kafka partition as an independent shard of whole connections.  This requires "
+                + "a capture proxy that keys every record for a connection identically (the default).  When "
+                + "partitions are revoked from this replayer, the connections that were being replayed from them "
+                + "are closed right away instead of being left to expire, since the partition's new owner will "
+                + "replay them.")
+        boolean kafkaTrafficPartitionsAsConnectionShards;
+        @Parameter(
+            required = false,
+            names = { "--kafka-traffic-commit-interval-ms" },
+            arity = 1,
+            description = "How long to let the offsets of finished records accumulate before committing them to "
+                + "Kafka.  Commits are sent asynchronously, one at a time.")
+        long kafkaTrafficCommitIntervalMs = 1000;
+        @Parameter(
+            required = false,
+            names = { "--kafka-traffic-max-records-per-commit" },
+            arity = 1,
+            description = "Commit offsets before --kafka-traffic-commit-interval-ms has elapsed once this many "
+                + "records have finished.")
+        int kafkaTrafficMaxRecordsPerCommit = 1000;
+
+        @Parameter(
+            required = false,
+            names = { "--tuple-output-directory" },
+            arity = 1,
+            description = "Write the source/target tuples to rolling binary files in this directory instead of "
+                + "logging each of them as json.  Use BinaryTupleToJsonConverter to produce the json afterward.  "
+                + "The one-line summary of each tuple is still logged (to the "
+                + ResultsToLogsConsumer.TRANSACTION_SUMMARY_LOGGER + " logger) when that logger is enabled.")
+        String tupleOutputDirectory;
+        @Parameter(
+            required = false,
+            names = { "--tuple-output-max-file-mb" },
+            arity = 1,
+            description = "Start a new tuple file once the current one reaches this size (in MiB).")
+        long tupleOutputMaxFileMb = BinaryTupleWriter.DEFAULT_MAX_FILE_BYTES / (1024 * 1024);
+        @Parameter(
+            required = false,
+            names = { "--compare-tuples-online" },
+            arity = 0,
+            description = "Compare each source and target response as it's received and report the results as "
+                + "metrics (status codes, latencies, _search hit counts and _bulk item statuses, by endpoint).  "
+                + "Only the tuples that don't match are written.")
+        boolean compareTuplesOnline;
+        @Parameter(
+            required = false,
+            names = { "--tuple-max-body-bytes" },
+            arity = 1,
+            description = "Leave the bodies of tuple messages that are larger than this many bytes (as they were "
+                + "sent, before decompression) out of the tuple logs.  0 leaves out every body.  -1 (the "
+                + "default) includes them all.  See also --tuple-max-body-bytes-for-uri.")
+        long tupleMaxBodyBytes = BodyInclusionPolicy.UNLIMITED;
+        @Parameter(
+            required = false,
+            names = { "--tuple-max-body-bytes-for-uri" },
+            splitter = NoSplitter.class,
+            arity = 1,
+            description = "A URI_REGEX=MAX_BODY_BYTES pair that overrides --tuple-max-body-bytes for the tuples "
+                + "whose source request URI matches the regex (e.g. '_bulk=0' to skip the bodies of bulk "
+                + "requests and their responses).  This may be repeated, and the first matching pair is used.")
+        List<String> tupleMaxBodyBytesForUri = new ArrayList<>();
+
+        @Parameter(
+            required = false,
+            names = { "--lightweight-tracked-futures" },
+            arity = 0,
+            description = "Don't keep the diagnostic chains of the futures that are created for each request, "
+                + "which reduces allocations and retained memory.  Diagnostics are turned back on for all new "
+                + "work while any request has been outstanding for a minute or more.")
+        boolean lightweightTrackedFutures;
+        @Parameter(
+            required = false,
+            names = { "--tracked-future-diagnostics-sample-rate" },
+            arity = 1,
+            description = "With --lightweight-tracked-futures, the fraction (0-1) of requests that still keep "
+                + "full diagnostics for their futures.")
+        double trackedFutureDiagnosticsSampleRate = 0;
+        @Parameter(
+            required = false,
+            names = { "--active-context-tracking-sample-one-in" },
+            arity = 1,
+            description = "Keep only about 1 in this many open contexts (spans) for the periodic report of the "
+                + "oldest outstanding work.  All contexts are still counted and the age of the oldest one is "
+                + "still reported.")
+        int activeContextTrackingSampleOneIn = 1;
 
         @Parameter(
             required = false,
@@ -239,6 +456,26 @@ public class TrafficReplayer {
             description = "Endpoint (host:port) for the OpenTelemetry Collector to which metrics logs should be"
                 + "forwarded. If no value is provided, metrics will not be forwarded.")
         String otelCollectorEndpoint;
+        @Parameter(
+            required = false,
+            names = { "--otel-trace-sample-ratio" },
+            arity = 1,
+            description = "The fraction (0-1) of traces (e.g. connections and everything done for them) to record "
+                + "spans for.  Metrics are still recorded for all of the work.")
+        double otelTraceSampleRatio = 1.0;
+        @Parameter(
+            required = false,
+            names = { "--otel-skip-error-traces" },
+            arity = 0,
+            description = "Don't record spans for work that observed an exception when its trace wasn't sampled "
+                + "with --otel-trace-sample-ratio.")
+        boolean otelSkipErrorTraces;
+        @Parameter(
+            required = false,
+            names = { "--otel-metrics-only" },
+            arity = 0,
+            description = "Only send metrics to the OpenTelemetry Collector.  No spans are created or exported.")
+        boolean otelMetricsOnly;
     }
 
     public interface TransformerParams {
@@ -401,21 +638,41 @@ public class TrafficReplayer {
             System.exit(4);
             return;
         }
-        var globalContextTracker = new ActiveContextTracker();
-        var perContextTracker = new ActiveContextTrackerByActivityType();
+        BodyInclusionPolicy bodyInclusionPolicy;
+        try {
+            bodyInclusionPolicy = BodyInclusionPolicy.parse(params.tupleMaxBodyBytesForUri, params.tupleMaxBodyBytes);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            log.atError().setMessage("Invalid tuple body limits").setCause(e).log();
+            System.exit(2);
+            return;
+        }
+        if (params.lightweightTrackedFutures) {
+            TrackedFutureDiagnostics.setSampleRate(params.trackedFutureDiagnosticsSampleRate);
+            TrackedFutureDiagnostics.setEnabledByDefault(false, "--lightweight-tracked-futures was set");
+        }
+        var globalContextTracker = new ActiveContextTracker(params.activeContextTrackingSampleOneIn);
+        var perContextTracker = new ActiveContextTrackerByActivityType(params.activeContextTrackingSampleOneIn);
         var scheduledExecutorService = Executors.newScheduledThreadPool(
             1,
             new DefaultThreadFactory("activeWorkMonitorThread")
         );
         var contextTrackers = new CompositeContextTracker(globalContextTracker, perContextTracker);
+        var traceSampling = params.otelMetricsOnly
+            ? TraceSampling.METRICS_ONLY
+            : TraceSampling.of(params.otelTraceSampleRatio, !params.otelSkipErrorTraces);
         var topContext = new RootReplayerContext(
             RootOtelContext.initializeOpenTelemetryWithCollectorOrAsNoop(params.otelCollectorEndpoint,
                 "replay",
-                ProcessHelpers.getNodeInstanceName()),
-            contextTrackers
+                ProcessHelpers.getNodeInstanceName(),
+                traceSampling),
+            contextTrackers,
+            traceSampling
         );
 
         ActiveContextMonitor activeContextMonitor = null;
+        BinaryTupleWriter binaryTupleWriter = null;
+        var additionalAuthTransformers = new ArrayList<IAuthTransformerFactory>();
         try (
             var blockingTrafficSource = TrafficCaptureSourceFactory.createTrafficCaptureSource(
                 topContext,
@@ -423,9 +680,18 @@ public class TrafficReplayer {
                 Duration.ofSeconds(params.lookaheadTimeSeconds)
             );
             var authTransformer = buildAuthTransformerFactory(params);
-            var trafficStreamLimiter = new TrafficStreamLimiter(params.maxConcurrentRequests)
+            var trafficStreamLimiter = new TrafficStreamLimiter(
+                params.maxConcurrentRequests,
+                params.maxConcurrentRequestBytes,
+                params.includeExpectedResponseBytes
+            )
         ) {
             var timeShifter = new TimeShifter(params.speedupFactor);
+            var maxThroughputController = !params.maxThroughput ? null : new MaxThroughputController(
+                Math.min(params.maxThroughputInitialConcurrency, params.maxConcurrentRequests),
+                params.maxConcurrentRequests,
+                Duration.ofMillis(params.maxThroughputTargetLatencyMs)
+            );
             var serverTimeout = Duration.ofSeconds(params.targetServerResponseTimeoutSeconds);
 
             String requestTransformerConfig = getTransformerConfig(params.requestTransformationParams);
@@ -443,18 +709,41 @@ public class TrafficReplayer {
             final var orderedRequestTracker = new OrderedWorkerTracker<Void>();
             final var hostname = uri.getHost();
 
-            var tr = new TrafficReplayerTopLevel(
-                topContext,
+            var clientConnectionPool = TrafficReplayerTopLevel.makeNettyPacketConsumerConnectionPool(
+                uri,
+                params.allowInsecureConnections,
+                params.numClientThreads,
+                null,
+                params.maxTargetConnectionsPerThread,
+                topContext
+            );
+            var targets = new ArrayList<ReplayTarget>();
+            targets.add(new ReplayTarget(
                 uri,
                 authTransformer,
-                new TransformationLoader().getTransformerFactoryLoader(hostname, params.userAgent, requestTransformerConfig),
-                TrafficReplayerTopLevel.makeNettyPacketConsumerConnectionPool(
-                    uri,
-                    params.allowInsecureConnections,
-                    params.numClientThreads
+                new TransformationLoader().getTransformerFactoryLoader(
+                    hostname,
+                    params.userAgent,
+                    requestTransformerConfig
                 ),
+                clientConnectionPool
+            ));
+            for (var additionalTargetJson : params.additionalTargets) {
+                var additionalTarget = buildAdditionalTarget(topContext, params, additionalTargetJson);
+                additionalAuthTransformers.add(additionalTarget.getAuthTransformerFactory());
+                targets.add(additionalTarget);
+            }
+            var transformedRequestCache = params.transformationCacheBytes > 0
+                ? new TransformedRequestCache(params.transformationCacheBytes)
+                : null;
+            var tr = new TrafficReplayerTopLevel(
+                topContext,
+                targets,
                 trafficStreamLimiter,
-                orderedRequestTracker
+                orderedRequestTracker,
+                params.numTransformationThreads,
+                params.streamNdjsonTransformations,
+                transformedRequestCache
             );
             activeContextMonitor = new ActiveContextMonitor(
                 globalContextTracker,
@@ -474,19 +763,90 @@ public class TrafficReplayer {
                 finalActiveContextMonitor.run();
             }, ACTIVE_WORK_MONITOR_CADENCE_MS, ACTIVE_WORK_MONITOR_CADENCE_MS, TimeUnit.MILLISECONDS);
 
+            var catchUpRateController = new CatchUpRateController(
+                timeShifter,
+                params.speedupFactor,
+                Math.max(params.speedupFactor, params.catchUpMaxSpeedupFactor),
+                Duration.ofSeconds(params.catchUpTargetLagSeconds)
+            );
+            topContext.registerReplayPacingGauges(
+                () -> catchUpRateController.getCurrentLag().toMillis(),
+                catchUpRateController::getCurrentRateMultiplier
+            );
+            if (params.catchUpMaxSpeedupFactor > params.speedupFactor && maxThroughputController == null) {
+                scheduledExecutorService.scheduleAtFixedRate(
+                    catchUpRateController::adjustRate,
+                    CATCH_UP_ADJUSTMENT_CADENCE_MS,
+                    CATCH_UP_ADJUSTMENT_CADENCE_MS,
+                    TimeUnit.MILLISECONDS
+                );
+            }
+
+            topContext.registerTrafficStreamLimiterGauges(
+                trafficStreamLimiter.getInUseBytes()::get,
+                trafficStreamLimiter.getWaitingBytes()::get,
+                trafficStreamLimiter.getWaitingItems()::get
+            );
+            if (clientConnectionPool.isPoolingChannels()) {
+                var poolStats = clientConnectionPool.getChannelPoolStats();
+                topContext.registerTargetConnectionPoolGauges(
+                    poolStats.getOpenConnections()::get,
+                    poolStats.getLeasedConnections()::get,
+                    poolStats.getWaitingRequests()::get,
+                    poolStats.getTotalWaits()::sum,
+                    poolStats.getTotalWaitMillis()::sum
+                );
+            }
+            if (transformedRequestCache != null) {
+                topContext.registerTransformationCacheGauges(
+                    transformedRequestCache::getHitCount,
+                    transformedRequestCache::getMissCount,
+                    transformedRequestCache::getCachedBytes
+                );
+            }
+
             setupShutdownHookForReplayer(tr);
-            var tupleWriter = new TupleParserChainConsumer(new ResultsToLogsConsumer(null, null,
-                new TransformationLoader().getTransformerFactoryLoader(tupleTransformerConfig)));
+            binaryTupleWriter = params.tupleOutputDirectory == null ? null : new BinaryTupleWriter(
+                Paths.get(params.tupleOutputDirectory),
+                "tuples." + workerId,
+                params.tupleOutputMaxFileMb * 1024 * 1024,
+                BinaryTupleWriter.DEFAULT_MAX_QUEUED_BYTES
+            );
+            Consumer<SourceTargetCaptureTuple> tupleWriter;
+            if (binaryTupleWriter == null) {
+                tupleWriter = new TupleParserChainConsumer(new ResultsToLogsConsumer(null, null,
+                    new TransformationLoader().getTransformerFactoryLoader(tupleTransformerConfig)),
+                    bodyInclusionPolicy);
+            } else if (LoggerFactory.getLogger(ResultsToLogsConsumer.TRANSACTION_SUMMARY_LOGGER).isInfoEnabled()) {
+                // the full tuples go to the binary files, but keep the per-tuple progress summaries.  Payloads are
+                // parsed lazily, so only the start lines and headers get parsed for these.
+                tupleWriter = binaryTupleWriter.andThen(new TupleParserChainConsumer(
+                    new ResultsToLogsConsumer(NOPLogger.NOP_LOGGER, null, null), bodyInclusionPolicy));
+            } else {
+                tupleWriter = binaryTupleWriter;
+            }
+            if (params.compareTuplesOnline) {
+                tupleWriter = new TupleComparator(tupleWriter);
+            }
             tr.setupRunAndWaitForReplayWithShutdownChecks(
                 Duration.ofSeconds(params.observedPacketConnectionTimeout),
                 serverTimeout,
                 blockingTrafficSource,
                 timeShifter,
+                maxThroughputController,
                 tupleWriter
             );
             log.info("Done processing TrafficStreams");
         } finally {
             scheduledExecutorService.shutdown();
+            if (binaryTupleWriter != null) {
+                binaryTupleWriter.close();
+            }
+            for (var additionalAuthTransformer : additionalAuthTransformers) {
+                if (additionalAuthTransformer != null) {
+                    additionalAuthTransformer.close();
+                }
+            }
             if (activeContextMonitor != null) {
                 var acmLevel = globalContextTracker.getActiveScopesByAge().findAny().isPresent()
                     ? Level.ERROR
@@ -536,24 +896,50 @@ public class TrafficReplayer {
         );
     }
 
+    private static int countAuthOptions(
+        boolean removeAuthHeader,
+        String authHeaderValue,
+        List<String> awsAuthHeaderUserAndSecret,
+        String useSigV4ServiceAndRegion
+    ) {
+        return (removeAuthHeader ? 1 : 0) +
+            (authHeaderValue != null ? 1 : 0) +
+            (awsAuthHeaderUserAndSecret != null ? 1 : 0) +
+            (useSigV4ServiceAndRegion != null ? 1 : 0);
+    }
+
     private static IAuthTransformerFactory buildAuthTransformerFactory(Parameters params) {
-        if (params.removeAuthHeader
-            && params.authHeaderValue != null
-            && params.useSigV4ServiceAndRegion != null
-            && params.awsAuthHeaderUserAndSecret != null) {
+        if (countAuthOptions(
+            params.removeAuthHeader,
+            params.authHeaderValue,
+            params.awsAuthHeaderUserAndSecret,
+            params.useSigV4ServiceAndRegion
+        ) > 1) {
             throw new IllegalArgumentException(
                 "Cannot specify more than one auth option: " + formatAuthArgFlagsAsString()
             );
         }
+        return buildAuthTransformerFactory(
+            params.removeAuthHeader,
+            params.authHeaderValue,
+            params.awsAuthHeaderUserAndSecret,
+            params.useSigV4ServiceAndRegion
+        );
+    }
 
-        var authHeaderValue = params.authHeaderValue;
-        if (params.awsAuthHeaderUserAndSecret != null) {
-            if (params.awsAuthHeaderUserAndSecret.size() != 2) {
+    private static IAuthTransformerFactory buildAuthTransformerFactory(
+        boolean removeAuthHeader,
+        String authHeaderValue,
+        List<String> awsAuthHeaderUserAndSecret,
+        String useSigV4ServiceAndRegion
+    ) {
+        if (awsAuthHeaderUserAndSecret != null) {
+            if (awsAuthHeaderUserAndSecret.size() != 2) {
                 throw new ParameterException(
                     AWS_AUTH_HEADER_USER_AND_SECRET_ARG + " must specify two arguments, <USERNAME> <SECRET_ARN>"
                 );
             }
-            var secretArnStr = params.awsAuthHeaderUserAndSecret.get(1);
+            var secretArnStr = awsAuthHeaderUserAndSecret.get(1);
             var regionOp = Arn.fromString(secretArnStr).region();
             if (regionOp.isEmpty()) {
                 throw new ParameterException(
@@ -566,7 +952,7 @@ public class TrafficReplayer {
                 AWSAuthService awsAuthService = new AWSAuthService(credentialsProvider, Region.of(regionOp.get()))
             ) {
                 authHeaderValue = awsAuthService.getBasicAuthHeaderFromSecret(
-                    params.awsAuthHeaderUserAndSecret.get(0),
+                    awsAuthHeaderUserAndSecret.get(0),
                     secretArnStr
                 );
             }
@@ -574,8 +960,8 @@ public class TrafficReplayer {
 
         if (authHeaderValue != null) {
             return new StaticAuthTransformerFactory(authHeaderValue);
-        } else if (params.useSigV4ServiceAndRegion != null) {
-            var serviceAndRegion = params.useSigV4ServiceAndRegion.split(",");
+        } else if (useSigV4ServiceAndRegion != null) {
+            var serviceAndRegion = useSigV4ServiceAndRegion.split(",");
             if (serviceAndRegion.length != 2) {
                 throw new IllegalArgumentException(
                     "Format for "
@@ -594,10 +980,81 @@ public class TrafficReplayer {
                 "https",
                 Clock::systemUTC
             );
-        } else if (params.removeAuthHeader) {
+        } else if (removeAuthHeader) {
             return RemovingAuthTransformerFactory.instance;
         } else {
             return null; // default is to do nothing to auth headers
         }
     }
+
+    /**
+     * @param additionalTargetJson see the description of --additional-target
+     */
+    static ReplayTarget buildAdditionalTarget(
+        IRootReplayerContext rootContext,
+        Parameters params,
+        String additionalTargetJson
+    ) throws IOException {
+        var targetNode = new ObjectMapper().readTree(additionalTargetJson);
+        if (targetNode == null || !targetNode.isObject() || !targetNode.path("uri").isTextual()) {
+            throw new ParameterException(
+                ADDITIONAL_TARGET_ARG + " must be a json object with at least a \"uri\", but was "
+                    + additionalTargetJson
+            );
+        }
+        URI uri;
+        try {
+            uri = new URI(targetNode.get("uri").asText());
+        } catch (Exception e) {
+            throw new ParameterException("Exception parsing the uri of " + ADDITIONAL_TARGET_ARG + " " +
+                additionalTargetJson, e);
+        }
+        var userAndSecretNode = targetNode.get("authHeaderUserAndSecret");
+        List<String> awsAuthHeaderUserAndSecret = null;
+        if (userAndSecretNode != null) {
+            awsAuthHeaderUserAndSecret = new ArrayList<>();
+            for (var item : userAndSecretNode) {
+                awsAuthHeaderUserAndSecret.add(item.asText());
+            }
+        }
+        var removeAuthHeader = targetNode.path("removeAuthHeader").asBoolean(false);
+        var authHeaderValue = getTextOrNull(targetNode, "authHeaderValue");
+        var useSigV4ServiceAndRegion = getTextOrNull(targetNode, "sigv4AuthHeaderServiceRegion");
+        if (countAuthOptions(removeAuthHeader, authHeaderValue, awsAuthHeaderUserAndSecret,
+            useSigV4ServiceAndRegion) > 1) {
+            throw new ParameterException(
+                "Cannot specify more than one auth option (authHeaderValue, authHeaderUserAndSecret, "
+                    + "sigv4AuthHeaderServiceRegion, removeAuthHeader) for the " + ADDITIONAL_TARGET_ARG + " "
+                    + uri
+            );
+        }
+        var authTransformer = buildAuthTransformerFactory(
+            removeAuthHeader,
+            authHeaderValue,
+            awsAuthHeaderUserAndSecret,
+            useSigV4ServiceAndRegion
+        );
+        var transformerConfigNode = targetNode.get("transformerConfig");
+        var transformerConfig = transformerConfigNode == null || transformerConfigNode.isNull()
+            ? null
+            : (transformerConfigNode.isTextual() ? transformerConfigNode.asText() : transformerConfigNode.toString());
+        return new ReplayTarget(
+            uri,
+            authTransformer,
+            new TransformationLoader().getTransformerFactoryLoader(uri.getHost(), params.userAgent, transformerConfig),
+            TrafficReplayerTopLevel.makeNettyPacketConsumerConnectionPool(
+                uri,
+                targetNode.path("insecure").asBoolean(false),
+                params.numClientThreads,
+                null,
+                params.maxTargetConnectionsPerThread,
+                rootContext
+            )
+        );
+    }
+
+    private static String getTextOrNull(JsonNode node, String fieldName) {
+        var fieldNode = node.get(fieldName);
+        return fieldNode == null || fieldNode.isNull() ? null : fieldNode.asText();
+    }
 }
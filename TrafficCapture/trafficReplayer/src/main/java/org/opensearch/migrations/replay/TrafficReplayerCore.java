@@ -2,7 +2,9 @@ package org.opensearch.migrations.replay;
 
 import java.io.EOFException;
 import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -25,6 +27,7 @@ import org.opensearch.migrations.replay.traffic.source.ITrafficStreamWithKey;
 import org.opensearch.migrations.replay.traffic.source.TrafficStreamLimiter;
 import org.opensearch.migrations.replay.util.TextTrackedFuture;
 import org.opensearch.migrations.replay.util.TrackedFuture;
+import org.opensearch.migrations.replay.util.TrackedFutureDiagnostics;
 import org.opensearch.migrations.trafficcapture.protos.TrafficStreamUtils;
 import org.opensearch.migrations.transform.IAuthTransformerFactory;
 import org.opensearch.migrations.transform.IJsonTransformer;
@@ -48,7 +51,10 @@ public abstract class TrafficReplayerCore extends RequestTransformerAndSender<Tr
         int size();
     }
 
-    private final PacketToTransformingHttpHandlerFactory inputRequestTransformerFactory;
+    /**
+     * One for each target, in the same order as the targets.  The first is for the primary target.
+     */
+    private final List<PacketToTransformingHttpHandlerFactory> inputRequestTransformerFactories;
     protected final TrafficStreamLimiter liveTrafficStreamLimiter;
     protected final AtomicInteger successfulRequestCount;
     protected final AtomicInteger exceptionRequestCount;
@@ -67,22 +73,66 @@ public abstract class TrafficReplayerCore extends RequestTransformerAndSender<Tr
         TrafficStreamLimiter trafficStreamLimiter,
         IWorkTracker<Void> requestWorkTracker,
         IRetryVisitorFactory retryVisitorFactory
+    ) {
+        this(context, serverUri, authTransformer, jsonTransformer, trafficStreamLimiter, requestWorkTracker,
+            retryVisitorFactory, false);
+    }
+
+    protected TrafficReplayerCore(
+        IRootReplayerContext context,
+        URI serverUri,
+        IAuthTransformerFactory authTransformer,
+        IJsonTransformer jsonTransformer,
+        TrafficStreamLimiter trafficStreamLimiter,
+        IWorkTracker<Void> requestWorkTracker,
+        IRetryVisitorFactory retryVisitorFactory,
+        boolean streamNdjsonBodies
+    ) {
+        this(context, List.of(new ReplayTarget(serverUri, authTransformer, jsonTransformer, null)),
+            trafficStreamLimiter, requestWorkTracker, retryVisitorFactory, streamNdjsonBodies);
+    }
+
+    /**
+     * @param targets the clusters to send every request to.  Requests are accumulated once and then
+     *                transformed and sent to each of these independently.  The first is the primary target,
+     *                whose request is the one that's kept in the SourceTargetCaptureTuple.
+     */
+    protected TrafficReplayerCore(
+        IRootReplayerContext context,
+        List<ReplayTarget> targets,
+        TrafficStreamLimiter trafficStreamLimiter,
+        IWorkTracker<Void> requestWorkTracker,
+        IRetryVisitorFactory retryVisitorFactory,
+        boolean streamNdjsonBodies
+    ) {
+        this(context, targets, trafficStreamLimiter, requestWorkTracker, retryVisitorFactory, streamNdjsonBodies,
+            null);
+    }
+
+    /**
+     * @param transformedRequestCache when not null, shared by all the targets (whose transformations are
+     *                                deterministic) to reuse transformed requests for identical source requests
+     */
+    protected TrafficReplayerCore(
+        IRootReplayerContext context,
+        List<ReplayTarget> targets,
+        TrafficStreamLimiter trafficStreamLimiter,
+        IWorkTracker<Void> requestWorkTracker,
+        IRetryVisitorFactory retryVisitorFactory,
+        boolean streamNdjsonBodies,
+        TransformedRequestCache transformedRequestCache
     ) {
         super(retryVisitorFactory);
         this.topLevelContext = context;
-
-        if (serverUri.getPort() < 0) {
-            throw new IllegalArgumentException("Port not present for URI: " + serverUri);
-        }
-        if (serverUri.getHost() == null) {
-            throw new IllegalArgumentException("Hostname not present for URI: " + serverUri);
-        }
-        if (serverUri.getScheme() == null) {
-            throw new IllegalArgumentException("Scheme (http|https) is not present for URI: " + serverUri);
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("At least one target must be specified");
         }
         this.liveTrafficStreamLimiter = trafficStreamLimiter;
         this.requestWorkTracker = requestWorkTracker;
-        inputRequestTransformerFactory = new PacketToTransformingHttpHandlerFactory(jsonTransformer, authTransformer);
+        inputRequestTransformerFactories = targets.stream()
+            .map(t -> new PacketToTransformingHttpHandlerFactory(t.getJsonTransformer(),
+                t.getAuthTransformerFactory(), streamNdjsonBodies, transformedRequestCache))
+            .collect(Collectors.toList());
         successfulRequestCount = new AtomicInteger();
         exceptionRequestCount = new AtomicInteger();
         nextChunkFutureRef = new AtomicReference<>();
@@ -93,16 +143,35 @@ public abstract class TrafficReplayerCore extends RequestTransformerAndSender<Tr
 
     @AllArgsConstructor
     class TrafficReplayerAccumulationCallbacks implements AccumulationCallbacks {
-        private final ReplayEngine replayEngine;
+        /**
+         * One for each target, in the same order as the targets
+         */
+        private final List<ReplayEngine> replayEngines;
         private Consumer<SourceTargetCaptureTuple> resultTupleConsumer;
         private ITrafficCaptureSource trafficCaptureSource;
 
+        TrafficReplayerAccumulationCallbacks(
+            ReplayEngine replayEngine,
+            Consumer<SourceTargetCaptureTuple> resultTupleConsumer,
+            ITrafficCaptureSource trafficCaptureSource
+        ) {
+            this(List.of(replayEngine), resultTupleConsumer, trafficCaptureSource);
+        }
+
         @Override
         public Consumer<RequestResponsePacketPair> onRequestReceived(
             @NonNull IReplayContexts.IReplayerHttpTransactionContext ctx,
             @NonNull HttpMessageAndTimestamp request
         ) {
-            replayEngine.setFirstTimestamp(request.getFirstPacketTimestamp());
+            // a sample of requests keep full diagnostics for their futures, even when they're off by default
+            return TrackedFutureDiagnostics.withSampledDiagnostics(() -> startReplayingRequest(ctx, request));
+        }
+
+        private Consumer<RequestResponsePacketPair> startReplayingRequest(
+            IReplayContexts.IReplayerHttpTransactionContext ctx,
+            HttpMessageAndTimestamp request
+        ) {
+            replayEngines.forEach(e -> e.setFirstTimestamp(request.getFirstPacketTimestamp()));
 
             var requestKey = ctx.getReplayerRequestKey();
 
@@ -149,13 +218,22 @@ public abstract class TrafficReplayerCore extends RequestTransformerAndSender<Tr
             var workDequeuedByLimiterFuture = new TextTrackedFuture<TrafficStreamLimiter.WorkItem>(
                 () -> "waiting for " + ctx + " to be queued and run through TrafficStreamLimiter"
             );
-            var wi = liveTrafficStreamLimiter.queueWork(1, ctx, workDequeuedByLimiterFuture.future::complete);
+            var requestBytes = request.stream().mapToLong(b -> b.length).sum();
+            var wi = liveTrafficStreamLimiter.queueWork(1, requestBytes, ctx, workDequeuedByLimiterFuture.future::complete);
             var httpSentRequestFuture = workDequeuedByLimiterFuture.thenCompose(
-                    ignored -> transformAndSendRequest(replayEngine, request, finishedAccumulatingResponseFuture, ctx),
+                    ignored -> transformAndSendRequestToAllTargets(replayEngines, request,
+                        finishedAccumulatingResponseFuture, ctx),
                     () -> "Waiting to get response from target"
                 )
                 .whenComplete(
-                    (v, t) -> liveTrafficStreamLimiter.doneProcessing(wi),
+                    (v, t) -> {
+                        if (v != null) {
+                            liveTrafficStreamLimiter.recordResponseBytes(
+                                v.streamResponsesFromAllTargets().mapToLong(AggregatedRawResult::getSizeInBytes).sum()
+                            );
+                        }
+                        liveTrafficStreamLimiter.doneProcessing(wi);
+                    },
                     () -> "releasing work item for the traffic limiter"
                 );
             httpSentRequestFuture.future.whenComplete(
@@ -259,8 +337,12 @@ public abstract class TrafficReplayerCore extends RequestTransformerAndSender<Tr
             @NonNull Instant timestamp,
             @NonNull List<ITrafficStreamKey> trafficStreamKeysBeingHeld
         ) {
-            replayEngine.setFirstTimestamp(timestamp);
-            var cf = replayEngine.closeConnection(channelInteractionNum, ctx, channelSessionNumber, timestamp);
+            replayEngines.forEach(e -> e.setFirstTimestamp(timestamp));
+            var cf = TextTrackedFuture.allOf(
+                replayEngines.stream()
+                    .map(e -> e.closeConnection(channelInteractionNum, ctx, channelSessionNumber, timestamp)),
+                () -> "closing the connection for every target"
+            );
             cf.map(
                 f -> f.whenComplete((v, t) -> commitTrafficStreams(status, trafficStreamKeysBeingHeld)),
                 () -> "closing the channel in the ReplayEngine"
@@ -299,6 +381,7 @@ public abstract class TrafficReplayerCore extends RequestTransformerAndSender<Tr
     }
 
     /**
+     * Transforms and sends the request to the primary target.
      * @see RequestTransformerAndSender#transformAndSendRequest
      */
     public TrackedFuture<String, TransformedTargetRequestAndResponseList> transformAndSendRequest(
@@ -306,15 +389,100 @@ public abstract class TrafficReplayerCore extends RequestTransformerAndSender<Tr
         HttpMessageAndTimestamp request,
         TrackedFuture<String, RequestResponsePacketPair> finishedAccumulatingResponseFuture,
         IReplayContexts.IReplayerHttpTransactionContext ctx
+    ) {
+        return transformAndSendRequest(0, replayEngine, request, finishedAccumulatingResponseFuture, ctx);
+    }
+
+    private TrackedFuture<String, TransformedTargetRequestAndResponseList> transformAndSendRequest(
+        int targetIndex,
+        ReplayEngine replayEngine,
+        HttpMessageAndTimestamp request,
+        TrackedFuture<String, RequestResponsePacketPair> finishedAccumulatingResponseFuture,
+        IReplayContexts.IReplayerHttpTransactionContext ctx
     ) {
         return transformAndSendRequest(
-            inputRequestTransformerFactory,
+            inputRequestTransformerFactories.get(targetIndex),
             replayEngine,
             finishedAccumulatingResponseFuture,
             ctx,
             request.getFirstPacketTimestamp(),
             request.getLastPacketTimestamp(),
-            request.packetBytes::stream);
+            request.packetBytes::stream,
+            // the additional targets' responses aren't counted, so that each request is only counted once
+            targetIndex == 0);
+    }
+
+    /**
+     * Transforms and sends the request to every target at once.  The result has the request and responses of
+     * the primary target, plus the responses of each of the others.  A failure to transform or send the request
+     * to the primary target fails the returned future (as it would with only one target), but a failure for
+     * any other target is only recorded as an error response for that target.
+     */
+    private TrackedFuture<String, TransformedTargetRequestAndResponseList> transformAndSendRequestToAllTargets(
+        List<ReplayEngine> replayEngines,
+        HttpMessageAndTimestamp request,
+        TrackedFuture<String, RequestResponsePacketPair> finishedAccumulatingResponseFuture,
+        IReplayContexts.IReplayerHttpTransactionContext ctx
+    ) {
+        if (replayEngines.size() == 1) {
+            return transformAndSendRequest(0, replayEngines.get(0), request, finishedAccumulatingResponseFuture, ctx);
+        }
+        var perTargetFutures = new ArrayList<TrackedFuture<String, TransformedTargetRequestAndResponseList>>();
+        for (int i = 0; i < replayEngines.size(); ++i) {
+            perTargetFutures.add(
+                transformAndSendRequest(i, replayEngines.get(i), request, finishedAccumulatingResponseFuture, ctx)
+            );
+        }
+        return TextTrackedFuture.allOf(perTargetFutures.stream(), () -> "waiting for every target to respond")
+            .getDeferredFutureThroughHandle(
+                (v, ignored) -> combineResultsFromAllTargets(perTargetFutures),
+                () -> "combining the results from every target"
+            );
+    }
+
+    static TrackedFuture<String, TransformedTargetRequestAndResponseList> combineResultsFromAllTargets(
+        List<TrackedFuture<String, TransformedTargetRequestAndResponseList>> perTargetFutures
+    ) {
+        // every future is done by now, so join() returns (or throws) immediately
+        var additionalTargetResults = new ArrayList<TransformedTargetRequestAndResponseList>();
+        var additionalTargetErrors = new ArrayList<Throwable>();
+        for (var f : perTargetFutures.subList(1, perTargetFutures.size())) {
+            try {
+                additionalTargetResults.add(f.future.join());
+                additionalTargetErrors.add(null);
+            } catch (Exception e) {
+                additionalTargetResults.add(null);
+                additionalTargetErrors.add(TrackedFuture.unwindPossibleCompletionException(e));
+            }
+        }
+        final TransformedTargetRequestAndResponseList primaryResult;
+        try {
+            primaryResult = perTargetFutures.get(0).future.join();
+        } catch (Exception e) {
+            additionalTargetResults.stream()
+                .filter(r -> r != null && r.requestPackets != null)
+                .forEach(r -> r.requestPackets.release());
+            return TextTrackedFuture.failedFuture(
+                TrackedFuture.unwindPossibleCompletionException(e),
+                () -> "the request couldn't be sent to the primary target"
+            );
+        }
+        for (int i = 0; i < additionalTargetResults.size(); ++i) {
+            var result = additionalTargetResults.get(i);
+            if (result != null) {
+                primaryResult.addResponsesFromAdditionalTarget(result);
+            } else {
+                var error = additionalTargetErrors.get(i);
+                log.atWarn().setCause(error)
+                    .setMessage("The request couldn't be sent to additional target #{}")
+                    .addArgument(i + 1)
+                    .log();
+                primaryResult.addResponsesFromAdditionalTarget(
+                    List.of(new AggregatedRawResponse(null, 0, Duration.ZERO, List.of(), error))
+                );
+            }
+        }
+        return TextTrackedFuture.completedFuture(primaryResult, () -> "results from every target");
     }
 
     @Override
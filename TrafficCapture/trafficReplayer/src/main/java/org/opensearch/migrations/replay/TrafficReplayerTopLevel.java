@@ -2,12 +2,16 @@ package org.opensearch.migrations.replay;
 
 import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -22,6 +26,7 @@ import org.opensearch.migrations.replay.http.retries.OpenSearchDefaultRetry;
 import org.opensearch.migrations.replay.http.retries.RetryCollectingVisitorFactory;
 import org.opensearch.migrations.replay.tracing.IRootReplayerContext;
 import org.opensearch.migrations.replay.traffic.source.BlockingTrafficSource;
+import org.opensearch.migrations.replay.traffic.source.SlowestMemberFlowController;
 import org.opensearch.migrations.replay.traffic.source.TrafficStreamLimiter;
 import org.opensearch.migrations.replay.util.TextTrackedFuture;
 import org.opensearch.migrations.replay.util.TrackedFuture;
@@ -31,6 +36,7 @@ import org.opensearch.migrations.transform.IJsonTransformer;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +46,7 @@ import org.slf4j.spi.LoggingEventBuilder;
 @Slf4j
 public class TrafficReplayerTopLevel extends TrafficReplayerCore implements AutoCloseable {
     public static final String TARGET_CONNECTION_POOL_NAME = "targetConnectionPool";
+    public static final String TRANSFORMATION_POOL_NAME = "requestTransformer";
     public static final int MAX_ITEMS_TO_SHOW_FOR_LEFTOVER_WORK_AT_INFO_LEVEL = 10;
 
     public static final AtomicInteger targetConnectionPoolUniqueCounter = new AtomicInteger();
@@ -77,9 +84,18 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
     }
 
     private final AtomicReference<TextTrackedFuture<Void>> allRemainingWorkFutureOrShutdownSignalRef;
+    /**
+     * The pool for the primary target
+     */
     protected final ClientConnectionPool clientConnectionPool;
+    protected final List<ReplayTarget> targets;
     private final AtomicReference<Error> shutdownReasonRef;
     private final AtomicReference<CompletableFuture<Void>> shutdownFutureRef;
+    /**
+     * When positive, requests are transformed on a dedicated pool of this many threads rather than on the
+     * event loops of the clientConnectionPool.
+     */
+    private final int numTransformationThreads;
 
     public TrafficReplayerTopLevel(
         IRootReplayerContext context,
@@ -90,19 +106,106 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
         TrafficStreamLimiter trafficStreamLimiter,
         IStreamableWorkTracker<Void> workTracker
     ) {
-        super(
+        this(
             context,
             serverUri,
             authTransformerFactory,
             jsonTransformer,
+            clientConnectionPool,
+            trafficStreamLimiter,
+            workTracker,
+            0
+        );
+    }
+
+    public TrafficReplayerTopLevel(
+        IRootReplayerContext context,
+        URI serverUri,
+        IAuthTransformerFactory authTransformerFactory,
+        IJsonTransformer jsonTransformer,
+        ClientConnectionPool clientConnectionPool,
+        TrafficStreamLimiter trafficStreamLimiter,
+        IStreamableWorkTracker<Void> workTracker,
+        int numTransformationThreads
+    ) {
+        this(
+            context,
+            serverUri,
+            authTransformerFactory,
+            jsonTransformer,
+            clientConnectionPool,
+            trafficStreamLimiter,
+            workTracker,
+            numTransformationThreads,
+            false
+        );
+    }
+
+    public TrafficReplayerTopLevel(
+        IRootReplayerContext context,
+        URI serverUri,
+        IAuthTransformerFactory authTransformerFactory,
+        IJsonTransformer jsonTransformer,
+        ClientConnectionPool clientConnectionPool,
+        TrafficStreamLimiter trafficStreamLimiter,
+        IStreamableWorkTracker<Void> workTracker,
+        int numTransformationThreads,
+        boolean streamNdjsonBodies
+    ) {
+        this(
+            context,
+            List.of(new ReplayTarget(serverUri, authTransformerFactory, jsonTransformer, clientConnectionPool)),
             trafficStreamLimiter,
             workTracker,
-            new RetryCollectingVisitorFactory(new OpenSearchDefaultRetry())
+            numTransformationThreads,
+            streamNdjsonBodies
         );
-        this.clientConnectionPool = clientConnectionPool;
+    }
+
+    /**
+     * @param targets every cluster to replay to, each with its own connection pool.  Requests are accumulated
+     *                once and sent to all of them.  The first is the primary target, which is the one whose
+     *                request is kept in each SourceTargetCaptureTuple.
+     */
+    public TrafficReplayerTopLevel(
+        IRootReplayerContext context,
+        List<ReplayTarget> targets,
+        TrafficStreamLimiter trafficStreamLimiter,
+        IStreamableWorkTracker<Void> workTracker,
+        int numTransformationThreads,
+        boolean streamNdjsonBodies
+    ) {
+        this(context, targets, trafficStreamLimiter, workTracker, numTransformationThreads, streamNdjsonBodies, null);
+    }
+
+    /**
+     * @param transformedRequestCache when not null, transformed requests are reused for identical source requests
+     *                                for every target whose transformations are deterministic
+     */
+    public TrafficReplayerTopLevel(
+        IRootReplayerContext context,
+        List<ReplayTarget> targets,
+        TrafficStreamLimiter trafficStreamLimiter,
+        IStreamableWorkTracker<Void> workTracker,
+        int numTransformationThreads,
+        boolean streamNdjsonBodies,
+        TransformedRequestCache transformedRequestCache
+    ) {
+        super(
+            context,
+            targets,
+            trafficStreamLimiter,
+            workTracker,
+            new RetryCollectingVisitorFactory(new OpenSearchDefaultRetry()),
+            streamNdjsonBodies,
+            transformedRequestCache
+        );
+        this.targets = List.copyOf(targets);
+        this.clientConnectionPool = targets.get(0).getClientConnectionPool();
         allRemainingWorkFutureOrShutdownSignalRef = new AtomicReference<>();
         shutdownReasonRef = new AtomicReference<>();
         shutdownFutureRef = new AtomicReference<>();
+        this.numTransformationThreads = numTransformationThreads;
     }
 
 
@@ -116,6 +219,30 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
         boolean allowInsecureConnections,
         int numSendingThreads,
         String connectionPoolName
+    ) {
+        return makeNettyPacketConsumerConnectionPool(
+            serverUri,
+            allowInsecureConnections,
+            numSendingThreads,
+            connectionPoolName,
+            0,
+            null
+        );
+    }
+
+    /**
+     * @param maxPooledConnectionsPerThread when greater than 0, requests from all source connections are sent
+     *                                      over at most this many keep-alive connections per sending thread
+     *                                      rather than each source connection getting its own target connection
+     * @param rootContext                   only required when maxPooledConnectionsPerThread is greater than 0
+     */
+    public static ClientConnectionPool makeNettyPacketConsumerConnectionPool(
+        URI serverUri,
+        boolean allowInsecureConnections,
+        int numSendingThreads,
+        String connectionPoolName,
+        int maxPooledConnectionsPerThread,
+        IRootReplayerContext rootContext
     ) {
         return new ClientConnectionPool(
             NettyPacketToHttpConsumer.createClientConnectionFactory(
@@ -123,7 +250,9 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
             connectionPoolName != null
                 ? connectionPoolName
                 : getTargetConnectionPoolName(targetConnectionPoolUniqueCounter.getAndIncrement()),
-            numSendingThreads
+            numSendingThreads,
+            maxPooledConnectionsPerThread,
+            rootContext
         );
     }
 
@@ -151,16 +280,57 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
         TimeShifter timeShifter,
         Consumer<SourceTargetCaptureTuple> resultTupleConsumer
     ) throws InterruptedException, ExecutionException {
-        var senderOrchestrator = new RequestSenderOrchestrator(
-            clientConnectionPool,
-            (replaySession, ctx) -> new NettyPacketToHttpConsumer(replaySession, ctx, targetServerResponseTimeout)
+        setupRunAndWaitForReplayToFinish(
+            observedPacketConnectionTimeout,
+            targetServerResponseTimeout,
+            trafficSource,
+            timeShifter,
+            null,
+            resultTupleConsumer
         );
-        var replayEngine = new ReplayEngine(senderOrchestrator, trafficSource, timeShifter);
+    }
+
+    /**
+     * @param maxThroughputController when non-null, requests are replayed as fast as this controller admits
+     *                                them instead of being paced by the timeShifter.
+     */
+    public void setupRunAndWaitForReplayToFinish(
+        Duration observedPacketConnectionTimeout,
+        Duration targetServerResponseTimeout,
+        BlockingTrafficSource trafficSource,
+        TimeShifter timeShifter,
+        MaxThroughputController maxThroughputController,
+        Consumer<SourceTargetCaptureTuple> resultTupleConsumer
+    ) throws InterruptedException, ExecutionException {
+        ExecutorService transformationExecutor = numTransformationThreads <= 0
+            ? null
+            : Executors.newFixedThreadPool(
+                numTransformationThreads,
+                new DefaultThreadFactory(TRANSFORMATION_POOL_NAME, true)
+            );
+        // every target shares the traffic source and the timeShifter, so they're all paced together, and
+        // reads from the source are held back by whichever target is furthest behind
+        var sharedFlowController = targets.size() > 1 ? new SlowestMemberFlowController(trafficSource) : null;
+        var replayEngines = new ArrayList<ReplayEngine>(targets.size());
+        for (var target : targets) {
+            var senderOrchestrator = new RequestSenderOrchestrator(
+                target.getClientConnectionPool(),
+                (replaySession, ctx) -> new NettyPacketToHttpConsumer(replaySession, ctx, targetServerResponseTimeout)
+            );
+            replayEngines.add(new ReplayEngine(
+                senderOrchestrator,
+                sharedFlowController == null ? trafficSource : sharedFlowController.createMember(),
+                timeShifter,
+                transformationExecutor,
+                maxThroughputController
+            ));
+        }
+        var replayEngine = replayEngines.get(0);
         CapturedTrafficToHttpTransactionAccumulator trafficToHttpTransactionAccumulator =
             new CapturedTrafficToHttpTransactionAccumulator(
                 observedPacketConnectionTimeout,
                 "(see command line option " + TrafficReplayer.PACKET_TIMEOUT_SECONDS_PARAMETER_NAME + ")",
-                new TrafficReplayerAccumulationCallbacks(replayEngine, resultTupleConsumer, trafficSource)
+                new TrafficReplayerAccumulationCallbacks(replayEngines, resultTupleConsumer, trafficSource)
             );
         try {
             pullCaptureFromSourceToAccumulator(trafficSource, trafficToHttpTransactionAccumulator);
@@ -171,7 +341,17 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
             throw e;
         } finally {
             trafficToHttpTransactionAccumulator.close();
-            wrapUpWorkAndEmitSummary(replayEngine, trafficToHttpTransactionAccumulator);
+            try {
+                wrapUpWorkAndEmitSummary(replayEngine, trafficToHttpTransactionAccumulator);
+            } finally {
+                if (transformationExecutor != null) {
+                    transformationExecutor.shutdown();
+                }
+                if (maxThroughputController != null) {
+                    log.atInfo().setMessage("Max-throughput replay summary: {}")
+                        .addArgument(maxThroughputController).log();
+                }
+            }
             assert shutdownFutureRef.get() != null || requestWorkTracker.isEmpty()
                 : "expected to wait for all the in flight requests to fully flush and self destruct themselves";
         }
@@ -183,7 +363,8 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
      * but rather call waitForRemainingWork.  If a subclass wants more details  from either of the two main
      * non-field components of a TrafficReplayer, they have access to each of them here.
      *
-     * @param replayEngine The ReplayEngine that may still be working to send the accumulated requests.
+     * @param replayEngine The ReplayEngine (for the primary target) that may still be working to send the
+     *                     accumulated requests.
      * @param trafficToHttpTransactionAccumulator The accumulator that had reconstructed the incoming records and
      *                                            has now finished
      */
@@ -239,6 +420,24 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
         BlockingTrafficSource trafficSource,
         TimeShifter timeShifter,
         Consumer<SourceTargetCaptureTuple> resultTupleConsumer
+    ) throws TrafficReplayer.TerminationException, ExecutionException, InterruptedException {
+        setupRunAndWaitForReplayWithShutdownChecks(
+            observedPacketConnectionTimeout,
+            targetServerResponseTimeout,
+            trafficSource,
+            timeShifter,
+            null,
+            resultTupleConsumer
+        );
+    }
+
+    public void setupRunAndWaitForReplayWithShutdownChecks(
+        Duration observedPacketConnectionTimeout,
+        Duration targetServerResponseTimeout,
+        BlockingTrafficSource trafficSource,
+        TimeShifter timeShifter,
+        MaxThroughputController maxThroughputController,
+        Consumer<SourceTargetCaptureTuple> resultTupleConsumer
     ) throws TrafficReplayer.TerminationException, ExecutionException, InterruptedException {
         try {
             setupRunAndWaitForReplayToFinish(
@@ -246,6 +445,7 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
                 targetServerResponseTimeout,
                 trafficSource,
                 timeShifter,
+                maxThroughputController,
                 resultTupleConsumer
             );
         } catch (InterruptedException e) {
@@ -396,7 +596,9 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
         liveTrafficStreamLimiter.close();
 
 
-        var nettyShutdownFuture = clientConnectionPool.shutdownNow();
+        var nettyShutdownFuture = CompletableFuture.allOf(
+            targets.stream().map(t -> t.getClientConnectionPool().shutdownNow()).toArray(CompletableFuture[]::new)
+        );
         nettyShutdownFuture.whenComplete((v, t) -> {
             if (t != null) {
                 shutdownFutureRef.get().completeExceptionally(t);
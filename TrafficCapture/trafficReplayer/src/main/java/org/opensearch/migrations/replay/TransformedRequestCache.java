@@ -0,0 +1,156 @@
+package org.opensearch.migrations.replay;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+
+import io.netty.buffer.Unpooled;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A least-recently-used cache of fully transformed requests, bounded by the total number of bytes that it holds.
+ * Workloads often send the very same request many times (health checks, the same search over and over, etc),
+ * and since a deterministic transformation of the same bytes always yields the same bytes, the transformed
+ * request can be reused without running it through the JSON transformation pipeline again.
+ *
+ * Entries are keyed by a SHA-256 digest of the source request's bytes along with the identity of whatever
+ * performed the transformation (e.g. a PacketToTransformingHttpHandlerFactory), so that targets with different
+ * transformations can share one cache.  It's up to the callers to only use this for transformations that are
+ * deterministic.  This class is thread-safe.
+ */
+@Slf4j
+public class TransformedRequestCache {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * Identifies a source request for a specific transformation.  Instances are only meaningful to the cache
+     * that made them.
+     */
+    public static final class Key {
+        private final Object transformerIdentity;
+        private final byte[] digest;
+        private final int hashCode;
+
+        private Key(Object transformerIdentity, byte[] digest) {
+            this.transformerIdentity = transformerIdentity;
+            this.digest = digest;
+            this.hashCode = 31 * System.identityHashCode(transformerIdentity) + Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            var other = (Key) o;
+            return transformerIdentity == other.transformerIdentity && Arrays.equals(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private final long maxBytes;
+    /** In access order, so that the eldest entry is the least recently used one.  Guarded by this. */
+    private final LinkedHashMap<Key, byte[][]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TransformedRequestCache(long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive, but was " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    public Key makeKey(Object transformerIdentity, Stream<byte[]> sourcePackets) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " must be supported by every JVM", e);
+        }
+        sourcePackets.forEach(messageDigest::update);
+        return new Key(transformerIdentity, messageDigest.digest());
+    }
+
+    /**
+     * @return a new ByteBufList (which the caller must release) with the transformed request that was put for
+     * the key, or null if there isn't one (anymore).
+     */
+    public ByteBufList get(Key key) {
+        byte[][] chunks;
+        synchronized (this) {
+            chunks = entries.get(key);
+        }
+        if (chunks == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        var transformedPackets = new ByteBufList();
+        for (var chunk : chunks) {
+            // read-only since every hit shares the same arrays
+            var byteBuf = Unpooled.wrappedBuffer(chunk).asReadOnly();
+            transformedPackets.add(byteBuf);
+            byteBuf.release();
+        }
+        return transformedPackets;
+    }
+
+    /**
+     * Copies the transformed packets into the cache, evicting the least recently used entries as necessary to
+     * stay within the byte budget.  The caller keeps its ownership of transformedPackets.
+     */
+    public void put(Key key, ByteBufList transformedPackets) {
+        var chunks = transformedPackets.asByteArrayStream().toArray(byte[][]::new);
+        long size = sizeOf(chunks);
+        if (size > maxBytes) {
+            log.atDebug().setMessage("Not caching a transformed request of {} bytes since the cache only holds {}")
+                .addArgument(size)
+                .addArgument(maxBytes)
+                .log();
+            return;
+        }
+        synchronized (this) {
+            var previous = entries.put(key, chunks);
+            if (previous != null) {
+                cachedBytes.addAndGet(-sizeOf(previous));
+            }
+            cachedBytes.addAndGet(size);
+            var iterator = entries.values().iterator();
+            while (cachedBytes.get() > maxBytes && iterator.hasNext()) {
+                cachedBytes.addAndGet(-sizeOf(iterator.next()));
+                iterator.remove();
+            }
+        }
+    }
+
+    private static long sizeOf(byte[][] chunks) {
+        return Arrays.stream(chunks).mapToLong(c -> c.length).sum();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getCachedBytes() {
+        return cachedBytes.get();
+    }
+}
@@ -4,11 +4,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.opensearch.migrations.replay.datatypes.ByteBufList;
 import org.opensearch.migrations.replay.datatypes.HttpRequestTransformationStatus;
 
 import lombok.Getter;
+import lombok.Setter;
 
 public class TransformedTargetRequestAndResponseList {
 
@@ -20,6 +22,22 @@ public class TransformedTargetRequestAndResponseList {
     @Getter
     protected final List<AggregatedRawResponse> responseList;
 
+    /**
+     * When replaying to more than one target, the responses of each of the other targets (in the order of the
+     * targets).  The requests and responses of this object are those of the first (primary) target.
+     */
+    @Getter
+    private final List<List<AggregatedRawResponse>> additionalTargetResponseLists;
+
+    /**
+     * A response with the outcome of all of the attempts, such as a _bulk response that combines the item results
+     * of partial retries with those of the original request, or null when there was nothing to combine.  It's
+     * kept apart from responseList so that the response to every attempt is recorded as it was received.
+     */
+    @Getter
+    @Setter
+    private AggregatedRawResponse combinedResponse;
+
     public TransformedTargetRequestAndResponseList(
         ByteBufList requestPackets,
         HttpRequestTransformationStatus transformationStatus
@@ -27,6 +45,7 @@ public class TransformedTargetRequestAndResponseList {
         this.requestPackets = requestPackets;
         this.transformationStatus = transformationStatus;
         this.responseList = new ArrayList<>();
+        this.additionalTargetResponseLists = new ArrayList<>();
     }
 
     public TransformedTargetRequestAndResponseList(
@@ -43,10 +62,32 @@ public class TransformedTargetRequestAndResponseList {
         responseList.add(r);
     }
 
+    /**
+     * Adds the responses from the next of the additional targets.  The target's (transformed) request isn't
+     * kept, so it's released here.
+     */
+    public void addResponsesFromAdditionalTarget(TransformedTargetRequestAndResponseList otherTargetResults) {
+        additionalTargetResponseLists.add(new ArrayList<>(otherTargetResults.responseList));
+        if (otherTargetResults.requestPackets != null) {
+            otherTargetResults.requestPackets.release();
+        }
+    }
+
+    public void addResponsesFromAdditionalTarget(List<AggregatedRawResponse> otherTargetResponses) {
+        additionalTargetResponseLists.add(new ArrayList<>(otherTargetResponses));
+    }
+
     public List<AggregatedRawResponse> responses() {
         return Collections.unmodifiableList(responseList);
     }
 
+    /**
+     * @return the responses of the primary target followed by those of each additional target
+     */
+    public Stream<AggregatedRawResponse> streamResponsesFromAllTargets() {
+        return Stream.concat(responseList.stream(), additionalTargetResponseLists.stream().flatMap(List::stream));
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("TransformedTargetRequestAndResponse{");
@@ -54,6 +95,14 @@ public class TransformedTargetRequestAndResponseList {
         sb.append(responseList.stream()
             .map(AggregatedRawResponse::toString)
             .collect(Collectors.joining("\n", "[", "]")));
+        if (combinedResponse != null) {
+            sb.append("combinedResponse=").append(combinedResponse);
+        }
+        for (var otherResponses : additionalTargetResponseLists) {
+            sb.append(otherResponses.stream()
+                .map(AggregatedRawResponse::toString)
+                .collect(Collectors.joining("\n", "[", "]")));
+        }
         return sb.toString();
     }
 }
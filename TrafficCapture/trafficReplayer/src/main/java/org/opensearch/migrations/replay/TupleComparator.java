@@ -0,0 +1,286 @@
+package org.opensearch.migrations.replay;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.opensearch.migrations.replay.util.RefSafeStreamUtils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the source and target responses of each tuple as it's produced and exports the results as metrics
+ * (aggregated by the endpoint category of the request) so that a replay can be validated without writing
+ * and post-processing every tuple.  Only the tuples that don't match are passed on to the mismatchConsumer.
+ *
+ * A tuple matches when there was no error, both status codes are known and equal, and, for _search and _bulk
+ * requests, the hit counts or the per-item statuses are the same.  The bodies of _search and _bulk responses
+ * are scanned with a streaming parser for just those values, other bodies aren't parsed at all.
+ */
+@Slf4j
+public class TupleComparator implements Consumer<SourceTargetCaptureTuple> {
+    public static final String SEARCH_ENDPOINT_CATEGORY = "_search";
+    public static final String BULK_ENDPOINT_CATEGORY = "_bulk";
+    public static final String INDEX_ENDPOINT_CATEGORY = "{index}";
+    public static final String ROOT_ENDPOINT_CATEGORY = "/";
+    public static final String UNKNOWN_ENDPOINT_CATEGORY = "unknown";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final List<String> HITS_TOTAL_PATH = List.of("hits", "total");
+    private static final List<String> HITS_TOTAL_VALUE_PATH = List.of("hits", "total", "value");
+    private static final List<String> BULK_ITEM_STATUS_PATH = List.of("items", "[]", "*", "status");
+
+    private final Consumer<SourceTargetCaptureTuple> mismatchConsumer;
+    @Getter
+    private final AtomicLong matchedCount = new AtomicLong();
+    @Getter
+    private final AtomicLong mismatchedCount = new AtomicLong();
+
+    public TupleComparator(@NonNull Consumer<SourceTargetCaptureTuple> mismatchConsumer) {
+        this.mismatchConsumer = mismatchConsumer;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Comparison {
+        private final String endpointCategory;
+        private final Integer sourceStatus;
+        private final Integer targetStatus;
+        private final Duration sourceLatency;
+        private final Duration targetLatency;
+        private final Long sourceHitCount;
+        private final Long targetHitCount;
+        /** null unless both bulk responses could be scanned */
+        private final Integer bulkItemMismatches;
+        private final boolean matched;
+    }
+
+    /** What was found in a response body.  Values that weren't found are null. */
+    static class ResponseBodySummary {
+        Long hitCount;
+        List<Integer> bulkItemStatuses;
+    }
+
+    @Override
+    public void accept(SourceTargetCaptureTuple tuple) {
+        HttpStartLines.setTupleContextAttributes(tuple);
+        var comparison = compare(tuple);
+        var context = tuple.context;
+        var category = comparison.endpointCategory;
+        if (comparison.sourceLatency != null && comparison.targetLatency != null) {
+            context.onLatencyCompared(category, comparison.sourceLatency, comparison.targetLatency);
+        }
+        if (comparison.sourceHitCount != null && comparison.targetHitCount != null) {
+            context.onSearchHitCountsCompared(category, comparison.sourceHitCount, comparison.targetHitCount);
+        }
+        if (comparison.bulkItemMismatches != null) {
+            context.onBulkItemsCompared(comparison.bulkItemMismatches);
+        }
+        context.onComparisonFinished(category, comparison.matched);
+
+        if (comparison.matched) {
+            matchedCount.incrementAndGet();
+        } else {
+            mismatchedCount.incrementAndGet();
+            log.atDebug().setMessage("Source and target responses didn't match for {}").addArgument(context).log();
+            mismatchConsumer.accept(tuple);
+        }
+    }
+
+    public static Comparison compare(SourceTargetCaptureTuple tuple) {
+        var sourcePair = Optional.ofNullable(tuple.sourcePair);
+        var sourceRequest = sourcePair.map(p -> p.requestData);
+        var sourceResponse = sourcePair.map(p -> p.responseData);
+        var lastTargetResponse = tuple.getLastPrimaryTargetResponse();
+
+        var category = categorizeEndpoint(
+            sourceRequest.map(r -> HttpStartLines.parseRequestPath(HttpStartLines.readStartLine(r.packetBytes)))
+                .orElse(null)
+        );
+        var sourceStatus = sourceResponse.map(r -> HttpStartLines.parseStatusCode(
+            HttpStartLines.readStartLine(r.packetBytes))).orElse(null);
+        var targetStatus = lastTargetResponse.map(r -> HttpStartLines.parseStatusCode(
+            HttpStartLines.readStartLine(r.targetResponseData))).orElse(null);
+        // both are from the end of the request until the end of the response
+        var sourceLatency = sourceRequest.flatMap(req -> sourceResponse.map(
+            resp -> Duration.between(req.getLastPacketTimestamp(), resp.getLastPacketTimestamp())
+        )).orElse(null);
+        var targetLatency = lastTargetResponse.map(r -> r.targetResponseLatency).orElse(null);
+
+        Long sourceHitCount = null;
+        Long targetHitCount = null;
+        Integer bulkItemMismatches = null;
+        if ((SEARCH_ENDPOINT_CATEGORY.equals(category) || BULK_ENDPOINT_CATEGORY.equals(category))
+            && sourceResponse.isPresent()
+            && lastTargetResponse.isPresent()) {
+            var sourceSummary = summarizeResponseBody(sourceResponse.get().packetBytes);
+            var targetSummary = summarizeResponseBody(lastTargetResponse.get().targetResponseData);
+            sourceHitCount = sourceSummary.hitCount;
+            targetHitCount = targetSummary.hitCount;
+            if (sourceSummary.bulkItemStatuses != null && targetSummary.bulkItemStatuses != null) {
+                bulkItemMismatches = countMismatches(sourceSummary.bulkItemStatuses, targetSummary.bulkItemStatuses);
+            }
+        }
+
+        var matched = tuple.topLevelErrorCause == null
+            && sourceStatus != null
+            && sourceStatus.equals(targetStatus)
+            && Objects.equals(sourceHitCount, targetHitCount)
+            && (bulkItemMismatches == null || bulkItemMismatches == 0);
+        return new Comparison(
+            category,
+            sourceStatus,
+            targetStatus,
+            sourceLatency,
+            targetLatency,
+            sourceHitCount,
+            targetHitCount,
+            bulkItemMismatches,
+            matched
+        );
+    }
+
+    private static int countMismatches(List<Integer> sourceStatuses, List<Integer> targetStatuses) {
+        int mismatches = Math.abs(sourceStatuses.size() - targetStatuses.size());
+        for (int i = 0; i < Math.min(sourceStatuses.size(), targetStatuses.size()); ++i) {
+            if (!sourceStatuses.get(i).equals(targetStatuses.get(i))) {
+                ++mismatches;
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Reduces a request path to a value with a small number of possibilities that's suitable to be a metric
+     * attribute - the first path segment that's an API name (e.g. "/myIndex/_search?q=x" becomes "_search").
+     */
+    public static String categorizeEndpoint(String path) {
+        if (path == null) {
+            return UNKNOWN_ENDPOINT_CATEGORY;
+        }
+        var queryStart = path.indexOf('?');
+        var segments = (queryStart < 0 ? path : path.substring(0, queryStart)).split("/");
+        boolean hadSegment = false;
+        for (var segment : segments) {
+            if (segment.startsWith("_")) {
+                return segment;
+            }
+            hadSegment |= !segment.isEmpty();
+        }
+        return hadSegment ? INDEX_ENDPOINT_CATEGORY : ROOT_ENDPOINT_CATEGORY;
+    }
+
+    static ResponseBodySummary summarizeResponseBody(List<byte[]> packets) {
+        var handler = new ResponseBodyScanningHandler();
+        try {
+            RefSafeStreamUtils.refSafeTransform(
+                packets.stream(),
+                Unpooled::wrappedBuffer,
+                byteBufStream -> HttpByteBufFormatter.processHttpMessageFromBufs(
+                    HttpByteBufFormatter.HttpMessageType.RESPONSE,
+                    byteBufStream,
+                    handler
+                )
+            );
+        } catch (Exception e) {
+            log.atDebug().setCause(e).setMessage("Couldn't scan a response body").log();
+        }
+        return handler.summary;
+    }
+
+    /**
+     * Feeds the (decompressed) body into a non-blocking json parser as it's decoded and keeps track of the
+     * values that are used for comparisons.  Nothing else from the body is kept.
+     */
+    private static class ResponseBodyScanningHandler extends ChannelInboundHandlerAdapter {
+        private final ResponseBodySummary summary = new ResponseBodySummary();
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private boolean failed;
+
+        ResponseBodyScanningHandler() {
+            try {
+                parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        @Override
+        public void channelRead(@NonNull ChannelHandlerContext ctx, @NonNull Object msg) {
+            if (msg instanceof HttpContent && !failed) {
+                try {
+                    feeder.feedInput(((HttpContent) msg).content().nioBuffer());
+                    consumeInput();
+                    if (msg instanceof LastHttpContent) {
+                        feeder.endOfInput();
+                        consumeInput();
+                    }
+                } catch (IOException e) {
+                    // not json (or truncated) - whatever was found so far is still valid
+                    failed = true;
+                }
+            }
+            ctx.fireChannelRead(msg);
+        }
+
+        private void consumeInput() throws IOException {
+            JsonToken token;
+            while (!parser.isClosed() && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (token == JsonToken.START_ARRAY && pathMatches(parser.getParsingContext(), BULK_ITEM_STATUS_PATH, 2)) {
+                    summary.bulkItemStatuses = new ArrayList<>();
+                } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                    var context = parser.getParsingContext();
+                    if (pathMatches(context, HITS_TOTAL_PATH, HITS_TOTAL_PATH.size())
+                        || pathMatches(context, HITS_TOTAL_VALUE_PATH, HITS_TOTAL_VALUE_PATH.size())) {
+                        summary.hitCount = parser.getLongValue();
+                    } else if (summary.bulkItemStatuses != null
+                        && pathMatches(context, BULK_ITEM_STATUS_PATH, BULK_ITEM_STATUS_PATH.size())) {
+                        summary.bulkItemStatuses.add(parser.getIntValue());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Checks whether the parser is at the first pathLength elements of path, where "[]" matches any array
+         * element and "*" matches any field name.
+         */
+        private static boolean pathMatches(JsonStreamContext context, List<String> path, int pathLength) {
+            var i = pathLength - 1;
+            for (var c = context; !c.inRoot(); c = c.getParent()) {
+                if (i < 0) {
+                    return false;
+                }
+                var expected = path.get(i--);
+                if (c.inArray()) {
+                    if (!"[]".equals(expected)) {
+                        return false;
+                    }
+                } else if (!"*".equals(expected) && !expected.equals(c.getCurrentName())) {
+                    return false;
+                }
+            }
+            return i < 0;
+        }
+    }
+}
@@ -7,14 +7,23 @@ import lombok.NonNull;
 
 public class TupleParserChainConsumer implements Consumer<SourceTargetCaptureTuple> {
     private final BiConsumer<SourceTargetCaptureTuple, ParsedHttpMessagesAsDicts> innerConsumer;
+    private final BodyInclusionPolicy bodyInclusionPolicy;
 
     public TupleParserChainConsumer(@NonNull BiConsumer<SourceTargetCaptureTuple, ParsedHttpMessagesAsDicts> innerConsumer) {
+        this(innerConsumer, BodyInclusionPolicy.INCLUDE_ALL);
+    }
+
+    public TupleParserChainConsumer(
+        @NonNull BiConsumer<SourceTargetCaptureTuple, ParsedHttpMessagesAsDicts> innerConsumer,
+        @NonNull BodyInclusionPolicy bodyInclusionPolicy
+    ) {
         this.innerConsumer = innerConsumer;
+        this.bodyInclusionPolicy = bodyInclusionPolicy;
     }
 
     @Override
     public void accept(SourceTargetCaptureTuple tuple) {
-        var parsedMsgs = new ParsedHttpMessagesAsDicts(tuple);
+        var parsedMsgs = new ParsedHttpMessagesAsDicts(tuple, bodyInclusionPolicy);
         innerConsumer.accept(tuple, parsedMsgs);
     }
 }
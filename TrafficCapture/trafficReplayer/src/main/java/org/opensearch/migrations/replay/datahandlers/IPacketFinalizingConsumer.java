@@ -1,5 +1,6 @@
 package org.opensearch.migrations.replay.datahandlers;
 
+import org.opensearch.migrations.replay.util.TextTrackedFuture;
 import org.opensearch.migrations.replay.util.TrackedFuture;
 
 /**
@@ -12,4 +13,14 @@ import org.opensearch.migrations.replay.util.TrackedFuture;
 public interface IPacketFinalizingConsumer<R> extends IPacketConsumer {
 
     TrackedFuture<String, R> finalizeRequest();
+
+    /**
+     * Called instead of finalizeRequest() when the request can't be completed after some of its bytes have
+     * already been consumed.  Implementations that send the bytes somewhere should make sure that the partial
+     * request is never completed by what gets sent next (e.g. by closing the connection).  By default, the
+     * returned future fails with the cause.
+     */
+    default TrackedFuture<String, R> abortRequest(Throwable cause) {
+        return TextTrackedFuture.failedFuture(cause, () -> "request was aborted");
+    }
 }
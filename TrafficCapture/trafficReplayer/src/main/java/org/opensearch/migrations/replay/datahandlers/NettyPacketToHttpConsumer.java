@@ -9,10 +9,10 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiFunction;
 
 import org.opensearch.migrations.NettyFutureBinders;
 import org.opensearch.migrations.replay.AggregatedRawResponse;
+import org.opensearch.migrations.replay.ClientConnectionPool;
 import org.opensearch.migrations.replay.datahandlers.http.helpers.ReadMeteringHandler;
 import org.opensearch.migrations.replay.datahandlers.http.helpers.WriteMeteringHandler;
 import org.opensearch.migrations.replay.datatypes.ConnectionReplaySession;
@@ -162,9 +162,9 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
         return currentRequestContextUnion.getLogicalEnclosingScope();
     }
 
-    public static BiFunction<EventLoop, IReplayContexts.ITargetRequestContext, TrackedFuture<String,ChannelFuture>>
-    createClientConnectionFactory(SslContext sslContext, URI uri) {
-        return (eventLoop, ctx) -> NettyPacketToHttpConsumer.createClientConnection(eventLoop, sslContext, uri, ctx);
+    public static ClientConnectionPool.ChannelCreator createClientConnectionFactory(SslContext sslContext, URI uri) {
+        return (eventLoop, ctx, socketParentCtx) ->
+            NettyPacketToHttpConsumer.createClientConnection(eventLoop, sslContext, uri, ctx, socketParentCtx);
     }
 
     public static class ChannelNotActiveException extends IOException { }
@@ -175,7 +175,23 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
         URI serverUri,
         IReplayContexts.ITargetRequestContext replayedRequestCtx
     ) {
-        return createClientConnection(eventLoop, sslContext, serverUri, replayedRequestCtx, Duration.ofMillis(1));
+        return createClientConnection(eventLoop, sslContext, serverUri, replayedRequestCtx,
+            replayedRequestCtx.getLogicalEnclosingScope().getChannelKeyContext());
+    }
+
+    /**
+     * @param socketParentCtx the context that the socket of the new connection is traced under.  That's the
+     *                        channel of the request, unless the connection will be shared by many channels.
+     */
+    public static TrackedFuture<String, ChannelFuture> createClientConnection(
+        EventLoop eventLoop,
+        SslContext sslContext,
+        URI serverUri,
+        IReplayContexts.ITargetRequestContext replayedRequestCtx,
+        IReplayContexts.IChannelKeyContext socketParentCtx
+    ) {
+        return createClientConnection(eventLoop, sslContext, serverUri, replayedRequestCtx, socketParentCtx,
+            Duration.ofMillis(1));
     }
 
     public static TrackedFuture<String, ChannelFuture> createClientConnection(
@@ -183,6 +199,7 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
             SslContext sslContext,
             URI serverUri,
             IReplayContexts.ITargetRequestContext requestCtx,
+            IReplayContexts.IChannelKeyContext socketParentCtx,
             Duration nextRetryDuration
     ) {
         var connectingCtx = requestCtx.createHttpConnectingContext();
@@ -195,12 +212,11 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
         log.atTrace().setMessage(() -> "Active - setting up backend connection to " + host + ":" + port).log();
 
         Bootstrap b = new Bootstrap();
-        var channelKeyCtx = requestCtx.getLogicalEnclosingScope().getChannelKeyContext();
         b.group(eventLoop).handler(new ChannelInitializer<>() {
             @Override
             protected void initChannel(@NonNull Channel ch) throws Exception {
                 ch.pipeline()
-                    .addFirst(CONNECTION_CLOSE_HANDLER_NAME, new ConnectionClosedListenerHandler(channelKeyCtx));
+                    .addFirst(CONNECTION_CLOSE_HANDLER_NAME, new ConnectionClosedListenerHandler(socketParentCtx));
             }
         }).channel(NioSocketChannel.class).option(ChannelOption.AUTO_READ, false);
 
@@ -219,12 +235,13 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
                         t = new ChannelNotActiveException();
                     }
                     if (t == null) {
-                        return initializeConnectionHandlers(sslContext, channelKeyCtx, outboundChannelFuture);
+                        return initializeConnectionHandlers(sslContext, socketParentCtx, outboundChannelFuture);
                     }
                     connectingCtx.addTraceException(t, true);
                     if (t instanceof Exception) { // let Throwables propagate
                         return NettyFutureBinders.bindNettyScheduleToCompletableFuture(eventLoop, nextRetryDuration)
                             .thenCompose(x -> createClientConnection(eventLoop, sslContext, serverUri, requestCtx,
+                                    socketParentCtx,
                                     Duration.ofMillis(Math.min(MAX_WAIT_BETWEEN_CREATE_RETRIES.toMillis(),
                                         nextRetryDuration.multipliedBy(2).toMillis()))),
                                 () -> "");
@@ -420,6 +437,24 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
         );
     }
 
+    /**
+     * Closes the channel once the bytes that have already been consumed have been written, so that the target
+     * never sees the rest of a partial request, and then finalizes with the cause as the response's error.
+     */
+    @Override
+    public TrackedFuture<String, AggregatedRawResponse> abortRequest(Throwable cause) {
+        activeChannelFuture = activeChannelFuture.getDeferredFutureThroughHandle((v, t) -> {
+            log.atWarn().setCause(cause)
+                .setMessage(() -> httpContext().getReplayerRequestKey() + " aborting a partially sent request")
+                .log();
+            if (channel != null) {
+                channel.close();
+            }
+            return TrackedFuture.Factory.failedFuture(cause, () -> "aborted request");
+        }, () -> "abortRequest - closing the channel after the prior writes");
+        return finalizeRequest();
+    }
+
     @Override
     public TrackedFuture<String, AggregatedRawResponse> finalizeRequest() {
         var ff = activeChannelFuture.getDeferredFutureThroughHandle((v, t) -> {
@@ -434,6 +469,8 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
             var future = new CompletableFuture<AggregatedRawResponse>();
             var rval = new TrackedFuture<>(future, () -> "NettyPacketToHttpConsumer.finalizeRequest()");
             if (t == null) {
+                // every packet has been written by now
+                responseBuilder.markRequestSent(Instant.now());
                 var responseWatchHandler = (BacksideHttpWatcherHandler) channel.pipeline()
                     .get(BACKSIDE_HTTP_WATCHER_HANDLER_NAME);
                 responseWatchHandler.addCallback(future::complete);
@@ -451,6 +488,9 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
                     deactivateChannel();
                 }
             } finally {
+                // when the session leases channels from a pool, a channel that didn't get a complete response
+                // may still have bytes in flight, so it can't be handed to another request
+                replaySession.releaseLeasedChannel(t == null && v != null && v.getError() == null);
                 getCurrentRequestSpan().close();
                 getParentContext().close();
             }
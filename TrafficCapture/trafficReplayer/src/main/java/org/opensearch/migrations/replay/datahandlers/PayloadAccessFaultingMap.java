@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.Supplier;
 
 import org.opensearch.migrations.replay.datahandlers.http.StrictCaseInsensitiveHttpHeadersMap;
 
@@ -22,6 +23,9 @@ import lombok.extern.slf4j.Slf4j;
  * It is meant to be used in a highly specific use case where we optimistically try to NOT parse
  * the paylaod (unzip, parse, etc).  If a transform DOES require the payload to be present, get()
  *
+ * Alternatively, a payloadLoader can be set so that rather than throwing, the payload is parsed the first time
+ * that anything in the map is accessed.  That lets a message be handed out with only its headers parsed when the
+ * caller may never look at its body.
  */
 @EqualsAndHashCode(callSuper = false)
 @Slf4j
@@ -32,6 +36,12 @@ public class PayloadAccessFaultingMap extends AbstractMap<String, Object> {
     @Getter
     @Setter
     private boolean disableThrowingPayloadNotLoaded;
+    /**
+     * Called (once) upon the first access to fill in the payload, after which this map never throws
+     */
+    @Setter
+    @EqualsAndHashCode.Exclude
+    private Supplier<Map<String, Object>> payloadLoader;
 
     public PayloadAccessFaultingMap(StrictCaseInsensitiveHttpHeadersMap headers) {
         underlyingMap = new TreeMap<>();
@@ -43,6 +53,7 @@ public class PayloadAccessFaultingMap extends AbstractMap<String, Object> {
     @Override
     @NonNull
     public Set<Map.Entry<String, Object>> entrySet() {
+        loadPayloadIfPending();
         if (underlyingMap.isEmpty() && !disableThrowingPayloadNotLoaded) {
             return new AbstractSet<>() {
                 @Override
@@ -73,9 +84,23 @@ public class PayloadAccessFaultingMap extends AbstractMap<String, Object> {
 
     @Override
     public Object put(String key, Object value) {
+        loadPayloadIfPending();
         return underlyingMap.put(key, value);
     }
 
+    public boolean isPayloadLoadPending() {
+        return payloadLoader != null;
+    }
+
+    private void loadPayloadIfPending() {
+        if (payloadLoader != null) {
+            var loader = payloadLoader;
+            payloadLoader = null;
+            underlyingMap.putAll(loader.get());
+            disableThrowingPayloadNotLoaded = true;
+        }
+    }
+
     @Override
     public Object get(Object key) {
         var value = super.get(key);
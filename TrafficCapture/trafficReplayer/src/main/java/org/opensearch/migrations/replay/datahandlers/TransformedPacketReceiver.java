@@ -19,4 +19,10 @@ public class TransformedPacketReceiver implements IPacketFinalizingConsumer<Byte
     public TrackedFuture<String, ByteBufList> finalizeRequest() {
         return TrackedFuture.Factory.completedFuture(packets, () -> "TransformedPacketReceiver.finalize...");
     }
+
+    @Override
+    public TrackedFuture<String, ByteBufList> abortRequest(Throwable cause) {
+        packets.release();
+        return TrackedFuture.Factory.failedFuture(cause, () -> "TransformedPacketReceiver.abort...");
+    }
 }
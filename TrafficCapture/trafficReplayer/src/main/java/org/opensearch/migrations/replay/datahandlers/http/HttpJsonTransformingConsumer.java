@@ -66,6 +66,21 @@ public class HttpJsonTransformingConsumer<R> implements IPacketFinalizingConsume
         IAuthTransformerFactory authTransformerFactory,
         IPacketFinalizingConsumer<R> transformedPacketReceiver,
         IReplayContexts.IReplayerHttpTransactionContext httpTransactionContext
+    ) {
+        this(transformer, authTransformerFactory, transformedPacketReceiver, httpTransactionContext, false);
+    }
+
+    /**
+     * @param streamNdjsonBodies when true, the bodies of _bulk and _msearch requests that need to be transformed
+     *                           are parsed, transformed, and reserialized one NDJSON item at a time.  See
+     *                           NettyNdjsonStreamingTransformHandler.
+     */
+    public HttpJsonTransformingConsumer(
+        IJsonTransformer transformer,
+        IAuthTransformerFactory authTransformerFactory,
+        IPacketFinalizingConsumer<R> transformedPacketReceiver,
+        IReplayContexts.IReplayerHttpTransactionContext httpTransactionContext,
+        boolean streamNdjsonBodies
     ) {
         transformationContext = httpTransactionContext.createTransformationContext();
         chunkSizes = new ArrayList<>(HTTP_MESSAGE_NUM_SEGMENTS);
@@ -76,7 +91,8 @@ public class HttpJsonTransformingConsumer<R> implements IPacketFinalizingConsume
             chunkSizes,
             transformedPacketReceiver,
             authTransformerFactory,
-            transformationContext
+            transformationContext,
+            streamNdjsonBodies
         );
         pipelineOrchestrator.addInitialHandlers(channel.pipeline(), transformer);
     }
@@ -119,6 +135,7 @@ public class HttpJsonTransformingConsumer<R> implements IPacketFinalizingConsume
 
     public TrackedFuture<String, TransformedOutputAndResult<R>> finalizeRequest() {
         var offloadingHandler = getOffloadingHandler();
+        StreamedRequestAbortedException abortCause = null;
         try {
             channel.checkException();
             if (lastConsumeException != null) {
@@ -129,9 +146,16 @@ public class HttpJsonTransformingConsumer<R> implements IPacketFinalizingConsume
             }
         } catch (Exception e) {
             this.transformationContext.addCaughtException(e);
-            log.atWarn().setCause(e)
-                .setMessage("Caught IncompleteJsonBodyException when sending the end of content").log();
-            return redriveWithoutTransformation(pipelineOrchestrator.packetReceiver, e);
+            abortCause = findStreamedRequestAbortedException(e);
+            if (abortCause != null && offloadingHandler != null) {
+                log.atWarn().setCause(e).setMessage("Aborting a request that failed after it had started to be sent")
+                    .log();
+                // fall through so that the handlers are removed before the request is aborted
+            } else {
+                log.atWarn().setCause(e)
+                    .setMessage("Caught IncompleteJsonBodyException when sending the end of content").log();
+                return redriveWithoutTransformation(pipelineOrchestrator.packetReceiver, e);
+            }
         } finally {
             channel.finishAndReleaseAll();
             var cf = channel.close();
@@ -139,6 +163,9 @@ public class HttpJsonTransformingConsumer<R> implements IPacketFinalizingConsume
                 log.atInfo().setCause(cf.cause()).setMessage("Exception encountered during write").log();
             }
         }
+        if (abortCause != null) {
+            return abortPartiallySentRequest(offloadingHandler, abortCause);
+        }
         if (offloadingHandler == null) {
             // the NettyDecodedHttpRequestHandler gave up and didn't bother installing the baseline handlers -
             // redrive the chunks
@@ -162,6 +189,35 @@ public class HttpJsonTransformingConsumer<R> implements IPacketFinalizingConsume
         }, () -> "HttpJsonTransformingConsumer.finalizeRequest() is waiting to handle");
     }
 
+    private static StreamedRequestAbortedException findStreamedRequestAbortedException(Throwable t) {
+        for (; t != null; t = t.getCause()) {
+            if (t instanceof StreamedRequestAbortedException) {
+                return (StreamedRequestAbortedException) t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Part of the transformed request has already gone to the packet receiver, so the original request can't be
+     * redriven into it.  Once the bytes that were already sent have been consumed, the receiver is told to abort.
+     */
+    private TrackedFuture<String, TransformedOutputAndResult<R>> abortPartiallySentRequest(
+        NettySendByteBufsToPacketHandlerHandler<R> offloadingHandler,
+        StreamedRequestAbortedException cause
+    ) {
+        return offloadingHandler.getPacketReceiverCompletionFuture().getDeferredFutureThroughHandle(
+            (v, t) -> offloadingHandler.packetReceiver.abortRequest(cause),
+            () -> "HttpJsonTransformingConsumer waiting for prior sends before aborting the request"
+        ).thenApply(
+            r -> new TransformedOutputAndResult<>(r, HttpRequestTransformationStatus.makeError(cause)),
+            () -> "aborted request packaging"
+        ).whenComplete((v, t) -> {
+            transformationContext.onTransformFailure();
+            transformationContext.close();
+        }, () -> "HttpJsonTransformingConsumer.abortPartiallySentRequest()");
+    }
+
     private TrackedFuture<String, TransformedOutputAndResult<R>> redriveWithoutTransformation(
         IPacketFinalizingConsumer<R> packetConsumer,
         Throwable reason
@@ -83,7 +83,8 @@ public class NettyDecodedHttpRequestPreliminaryTransformHandler<R> extends Chann
                 requestPipelineOrchestrator.addJsonParsingHandlers(
                     ctx,
                     transformer,
-                    getAuthTransformerAsStreamingTransformer(authTransformer)
+                    getAuthTransformerAsStreamingTransformer(authTransformer),
+                    httpJsonMessage.path()
                 );
                 ctx.fireChannelRead(handleAuthHeaders(httpJsonMessage, authTransformer));
             }
@@ -60,7 +60,7 @@ public class NettyJsonBodySerializeHandler extends ChannelInboundHandlerAdapter
 
     private static final ByteBuf NEWLINE = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(new byte[]{'\n'}));
 
-    private void serializePayloadList(ChannelHandlerContext ctx, List<Object> payloadList, boolean addLastNewline)
+    static void serializePayloadList(ChannelHandlerContext ctx, List<Object> payloadList, boolean addLastNewline)
         throws IOException
     {
         var it = payloadList.iterator();
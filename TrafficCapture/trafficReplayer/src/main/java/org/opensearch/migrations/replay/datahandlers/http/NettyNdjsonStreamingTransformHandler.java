@@ -0,0 +1,208 @@
+package org.opensearch.migrations.replay.datahandlers.http;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.opensearch.migrations.replay.datahandlers.JsonAccumulator;
+import org.opensearch.migrations.replay.datahandlers.PayloadAccessFaultingMap;
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.transform.IJsonTransformer;
+import org.opensearch.migrations.transform.JsonKeysForHttpMessage;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * This handler takes the place of the NettyJsonBodyAccumulateHandler, NettyJsonBodyConvertHandler, and
+ * NettyJsonBodySerializeHandler for _bulk and _msearch requests.  Rather than building the whole body into
+ * a tree before transforming it, each NDJSON item (a bulk action with its source, or an msearch header with
+ * its body) is parsed, transformed, and serialized as soon as its last line has arrived.
+ *
+ * The transformer sees the same message shape as it would for the whole request, except that the
+ * inlinedJsonSequenceBodies list only holds the lines of one item.  The method, URI, and headers that the
+ * transformation returns for the first item are the ones that are sent, since they need to go out before
+ * the rest of the body has been read.  Because the final length of the body isn't known at that point, the
+ * request is always sent with a chunked transfer-encoding, which lets NettyJsonContentStreamToByteBufHandler
+ * forward each item's bytes as soon as they're serialized.
+ *
+ * Unlike the accumulating handler, there is no fallback to a text or binary payload.  A body that isn't valid
+ * NDJSON will throw.  If that happens before anything has been sent, the original request is redriven without
+ * any transformation.  Once the headers have been sent, the failure is rethrown as a
+ * StreamedRequestAbortedException so that the partially sent request is aborted instead.
+ */
+@Slf4j
+public class NettyNdjsonStreamingTransformHandler extends ChannelInboundHandlerAdapter {
+    private static final String BULK_ENDPOINT = "_bulk";
+    private static final String MSEARCH_ENDPOINT = "_msearch";
+    /**
+     * Bulk actions that are followed by a source line.  'delete' is the only action that stands alone.
+     */
+    private static final Set<String> BULK_ACTIONS_WITH_SOURCE = Set.of("index", "create", "update");
+
+    private final IJsonTransformer transformer;
+    private final IReplayContexts.IRequestTransformationContext context;
+    private final JsonAccumulator jsonAccumulator;
+    private final List<Object> currentItemLines;
+
+    HttpJsonRequestWithFaultingPayload capturedHttpJsonMessage;
+    boolean isMultiSearch;
+    boolean headersWereSent;
+    boolean failed;
+
+    @SneakyThrows
+    public NettyNdjsonStreamingTransformHandler(
+        IJsonTransformer transformer,
+        IReplayContexts.IRequestTransformationContext context
+    ) {
+        this.transformer = transformer;
+        this.context = context;
+        this.jsonAccumulator = new JsonAccumulator();
+        this.currentItemLines = new ArrayList<>(2);
+    }
+
+    /**
+     * Returns true if the last segment of the request's path (ignoring any query string) is _bulk or _msearch.
+     */
+    public static boolean isStreamableNdjsonPath(String uri) {
+        return getEndpoint(uri) != null;
+    }
+
+    private static String getEndpoint(String uri) {
+        if (uri == null) {
+            return null;
+        }
+        var queryStart = uri.indexOf('?');
+        var path = queryStart < 0 ? uri : uri.substring(0, queryStart);
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        var lastSegment = path.substring(path.lastIndexOf('/') + 1);
+        return (BULK_ENDPOINT.equals(lastSegment) || MSEARCH_ENDPOINT.equals(lastSegment)) ? lastSegment : null;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (failed && msg instanceof HttpContent) {
+            // the request has already failed, so there's nothing left to do with the rest of the body
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        try {
+            readMessage(ctx, msg);
+        } catch (Exception e) {
+            failed = true;
+            if (headersWereSent && !(e instanceof StreamedRequestAbortedException)) {
+                throw new StreamedRequestAbortedException(e);
+            }
+            throw e;
+        }
+    }
+
+    private void readMessage(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpJsonRequestWithFaultingPayload) {
+            capturedHttpJsonMessage = (HttpJsonRequestWithFaultingPayload) msg;
+            isMultiSearch = MSEARCH_ENDPOINT.equals(getEndpoint(capturedHttpJsonMessage.path()));
+        } else if (msg instanceof HttpContent) {
+            var contentBuf = ((HttpContent) msg).content();
+            try {
+                jsonAccumulator.consumeByteBuffer(contentBuf.nioBuffer());
+                Object nextObj;
+                while ((nextObj = jsonAccumulator.getNextTopLevelObject()) != null) {
+                    currentItemLines.add(nextObj);
+                    if (isItemComplete()) {
+                        transformAndSendItem(ctx);
+                    }
+                }
+            } finally {
+                contentBuf.release();
+            }
+            if (msg instanceof LastHttpContent) {
+                finishBody(ctx);
+            }
+        } else {
+            super.channelRead(ctx, msg);
+        }
+    }
+
+    private boolean isItemComplete() {
+        if (currentItemLines.size() > 1) {
+            return true;
+        } else if (isMultiSearch) {
+            return false;
+        }
+        var action = currentItemLines.get(0);
+        return !(action instanceof Map) ||
+            ((Map<?, ?>) action).keySet().stream().noneMatch(BULK_ACTIONS_WITH_SOURCE::contains);
+    }
+
+    private void finishBody(ChannelHandlerContext ctx) throws IOException {
+        if (jsonAccumulator.hasPartialValues()) {
+            throw new TransformationException(new IllegalStateException(
+                "The NDJSON body ended in the middle of a value after " +
+                    jsonAccumulator.getTotalBytesFullyConsumed() + " bytes"));
+        }
+        // an incomplete trailing item (or an empty body) is still passed through the transformation so that
+        // the headers are always sent once and nothing that was read is dropped
+        if (!currentItemLines.isEmpty() || !headersWereSent) {
+            transformAndSendItem(ctx);
+        }
+        context.onJsonPayloadParseSucceeded();
+        ctx.fireChannelRead(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+
+    private void transformAndSendItem(ChannelHandlerContext ctx) throws IOException {
+        var transformedMessage = transformItem(new ArrayList<>(currentItemLines));
+        currentItemLines.clear();
+        var payload = transformedMessage.payload();
+        if (!headersWereSent) {
+            transformedMessage.setPayloadFaultMap(null);
+            var headers = transformedMessage.headers().asStrictMap();
+            headers.remove(NettyJsonContentStreamToByteBufHandler.CONTENT_LENGTH_HEADER_NAME);
+            headers.put("transfer-encoding", List.of("chunked"));
+            headersWereSent = true;
+            ctx.fireChannelRead(transformedMessage);
+        }
+        if (payload == null) {
+            return;
+        }
+        var bodies = payload.get(JsonKeysForHttpMessage.INLINED_NDJSON_BODIES_DOCUMENT_KEY);
+        if (bodies instanceof List) {
+            NettyJsonBodySerializeHandler.serializePayloadList(ctx, (List<Object>) bodies, true);
+        } else if (payload.containsKey(JsonKeysForHttpMessage.INLINED_JSON_BODY_DOCUMENT_KEY)) {
+            NettyJsonBodySerializeHandler.serializePayloadList(ctx,
+                List.of(payload.get(JsonKeysForHttpMessage.INLINED_JSON_BODY_DOCUMENT_KEY)), true);
+        }
+    }
+
+    private HttpJsonRequestWithFaultingPayload transformItem(List<Object> itemLines) {
+        var itemMessage = new HttpJsonRequestWithFaultingPayload();
+        itemMessage.setMethod(capturedHttpJsonMessage.method());
+        itemMessage.setPath(capturedHttpJsonMessage.path());
+        itemMessage.setProtocol(capturedHttpJsonMessage.protocol());
+        var strictHeaders = new StrictCaseInsensitiveHttpHeadersMap();
+        capturedHttpJsonMessage.headers().asStrictMap()
+            .forEach((k, v) -> strictHeaders.put(k, new ArrayList<>(v)));
+        itemMessage.setHeaders(new ListKeyAdaptingCaseInsensitiveHeadersMap(strictHeaders));
+        var payload = new PayloadAccessFaultingMap(strictHeaders);
+        payload.setDisableThrowingPayloadNotLoaded(true);
+        if (!itemLines.isEmpty()) {
+            payload.put(JsonKeysForHttpMessage.INLINED_NDJSON_BODIES_DOCUMENT_KEY, itemLines);
+        }
+        itemMessage.setPayloadFaultMap(payload);
+        try {
+            return NettyJsonBodyConvertHandler.transform(transformer, itemMessage);
+        } catch (TransformationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TransformationException(e);
+        }
+    }
+}
@@ -76,6 +76,13 @@ public class NettySendByteBufsToPacketHandlerHandler<R> extends ChannelInboundHa
         }
 
         var packetReceiverCompletionFuture = currentFuture.getDeferredFutureThroughHandle((v1, t1) -> {
+            if (t1 != null) {
+                // don't finalize a request whose bytes weren't all sent
+                return TextTrackedFuture.<TransformedOutputAndResult<R>>failedFuture(
+                    t1,
+                    () -> "handlerRemoved: currentFuture failed after the handler was removed"
+                );
+            }
             assert v1 != null
                 : "expected in progress Boolean to be not null since null should signal that work was never started";
             // TODO - spend some more time on this block of code.  I'm not sure what the error would be
@@ -137,9 +144,14 @@ public class NettySendByteBufsToPacketHandlerHandler<R> extends ChannelInboundHa
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-        currentFuture = TrackedFuture.Factory.failedFuture(
-            cause,
-            () -> "NettySendByteBufsToPacketHandlerHandler got an exception"
+        // wait for any packets that are still being sent so that the packet receiver isn't used concurrently
+        // by whatever handles this failure
+        currentFuture = currentFuture.getDeferredFutureThroughHandle(
+            (v, t) -> TextTrackedFuture.<Boolean>failedFuture(
+                cause,
+                () -> "NettySendByteBufsToPacketHandlerHandler got an exception"
+            ),
+            () -> "NettySendByteBufsToPacketHandlerHandler waiting for prior sends before failing"
         );
         super.exceptionCaught(ctx, cause);
     }
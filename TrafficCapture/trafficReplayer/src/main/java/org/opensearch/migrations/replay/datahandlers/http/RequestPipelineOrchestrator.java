@@ -48,6 +48,10 @@ public class RequestPipelineOrchestrator<R> {
     private final IReplayContexts.IRequestTransformationContext httpTransactionContext;
     @Getter
     final IAuthTransformerFactory authTransfomerFactory;
+    /**
+     * When set, _bulk and _msearch bodies are transformed one NDJSON item at a time rather than as a whole.
+     */
+    private final boolean streamNdjsonBodies;
 
     public RequestPipelineOrchestrator(
         List<List<Integer>> chunkSizes,
@@ -55,6 +59,17 @@ public class RequestPipelineOrchestrator<R> {
         IAuthTransformerFactory incomingAuthTransformerFactory,
         IReplayContexts.IRequestTransformationContext httpTransactionContext
     ) {
+        this(chunkSizes, packetReceiver, incomingAuthTransformerFactory, httpTransactionContext, false);
+    }
+
+    public RequestPipelineOrchestrator(
+        List<List<Integer>> chunkSizes,
+        IPacketFinalizingConsumer<R> packetReceiver,
+        IAuthTransformerFactory incomingAuthTransformerFactory,
+        IReplayContexts.IRequestTransformationContext httpTransactionContext,
+        boolean streamNdjsonBodies
+    ) {
+        this.streamNdjsonBodies = streamNdjsonBodies;
         this.chunkSizes = chunkSizes;
         this.packetReceiver = packetReceiver;
         this.authTransfomerFactory = incomingAuthTransformerFactory != null
@@ -87,15 +102,17 @@ public class RequestPipelineOrchestrator<R> {
         ChannelHandlerContext ctx,
         IAuthTransformer.StreamingFullMessageTransformer authTransfomer
     ) {
-        addContentParsingHandlers(ctx, null, authTransfomer);
+        addContentParsingHandlers(ctx, null, authTransfomer, false);
     }
 
     void addJsonParsingHandlers(
         ChannelHandlerContext ctx,
         IJsonTransformer transformer,
-        IAuthTransformer.StreamingFullMessageTransformer authTransfomer
+        IAuthTransformer.StreamingFullMessageTransformer authTransfomer,
+        String requestUri
     ) {
-        addContentParsingHandlers(ctx, transformer, authTransfomer);
+        addContentParsingHandlers(ctx, transformer, authTransfomer,
+            streamNdjsonBodies && NettyNdjsonStreamingTransformHandler.isStreamableNdjsonPath(requestUri));
     }
 
     void addInitialHandlers(ChannelPipeline pipeline, IJsonTransformer transformer) {
@@ -137,7 +154,8 @@ public class RequestPipelineOrchestrator<R> {
     void addContentParsingHandlers(
         ChannelHandlerContext ctx,
         IJsonTransformer transformer,
-        IAuthTransformer.StreamingFullMessageTransformer authTransfomer
+        IAuthTransformer.StreamingFullMessageTransformer authTransfomer,
+        boolean streamNdjsonItems
     ) {
         httpTransactionContext.onPayloadParse();
         log.debug("Adding content parsing handlers to pipeline");
@@ -150,16 +168,23 @@ public class RequestPipelineOrchestrator<R> {
         if (transformer != null) {
             httpTransactionContext.onJsonPayloadParseRequired();
             log.debug("Adding JSON handlers to pipeline");
-            // IN: Netty HttpRequest(2) + HttpJsonRequest(1) with headers + HttpContent(2) blocks
-            // OUT: Netty HttpRequest(2) + HttpJsonRequest(2) with headers AND payload
             addLoggingHandler(pipeline, "C");
-            pipeline.addLast(new NettyJsonBodyAccumulateHandler(httpTransactionContext));
-            // IN: Netty HttpRequest(2) + HttpJsonRequest(2) with headers AND payload
-            // OUT: Netty HttpRequest(2) + HttpJsonRequest(3) with headers AND payload (transformed)
-            pipeline.addLast(new NettyJsonBodyConvertHandler(transformer));
-            // IN: Netty HttpRequest(2) + HttpJsonRequest(3) with headers AND payload
-            // OUT: Netty HttpRequest(2) + HttpJsonRequest(3) with headers only + HttpContent(3) blocks
-            pipeline.addLast(new NettyJsonBodySerializeHandler());
+            if (streamNdjsonItems) {
+                // IN: Netty HttpRequest(2) + HttpJsonRequest(1) with headers + HttpContent(2) blocks
+                // OUT: Netty HttpRequest(2) + HttpJsonRequest(3) with headers only (now chunked) + HttpContent(3)
+                // blocks that are fired as each NDJSON item is transformed
+                pipeline.addLast(new NettyNdjsonStreamingTransformHandler(transformer, httpTransactionContext));
+            } else {
+                // IN: Netty HttpRequest(2) + HttpJsonRequest(1) with headers + HttpContent(2) blocks
+                // OUT: Netty HttpRequest(2) + HttpJsonRequest(2) with headers AND payload
+                pipeline.addLast(new NettyJsonBodyAccumulateHandler(httpTransactionContext));
+                // IN: Netty HttpRequest(2) + HttpJsonRequest(2) with headers AND payload
+                // OUT: Netty HttpRequest(2) + HttpJsonRequest(3) with headers AND payload (transformed)
+                pipeline.addLast(new NettyJsonBodyConvertHandler(transformer));
+                // IN: Netty HttpRequest(2) + HttpJsonRequest(3) with headers AND payload
+                // OUT: Netty HttpRequest(2) + HttpJsonRequest(3) with headers only + HttpContent(3) blocks
+                pipeline.addLast(new NettyJsonBodySerializeHandler());
+            }
             addLoggingHandler(pipeline, "F");
         }
         if (authTransfomer != null) {
@@ -0,0 +1,11 @@
+package org.opensearch.migrations.replay.datahandlers.http;
+
+/**
+ * Thrown when a transformation fails after part of the transformed request has already been passed on to the
+ * packet receiver.  The original request can't be redriven into that receiver, so the request is aborted.
+ */
+public class StreamedRequestAbortedException extends TransformationException {
+    public StreamedRequestAbortedException(Throwable cause) {
+        super("The transformation failed after part of the request had been sent", cause);
+    }
+}
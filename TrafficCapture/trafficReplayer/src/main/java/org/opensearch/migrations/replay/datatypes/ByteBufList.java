@@ -1,10 +1,15 @@
 package org.opensearch.migrations.replay.datatypes;
 
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.StringJoiner;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.util.AbstractReferenceCounted;
@@ -48,6 +53,24 @@ public class ByteBufList extends AbstractReferenceCounted {
         });
     }
 
+    /**
+     * @return a stream over the bytes of every buffer, in order, that doesn't copy them.  This list must not be
+     * released until the caller is done reading.
+     */
+    public InputStream asInputStream() {
+        return asInputStream(data.stream());
+    }
+
+    /**
+     * Reads each of the byteBufs in turn without copying them or changing their reader indices.  The caller
+     * keeps its ownership of the byteBufs, which must not be released until it's done reading.
+     */
+    public static InputStream asInputStream(Stream<ByteBuf> byteBufs) {
+        var streams = byteBufs.map(bb -> (InputStream) new ByteBufInputStream(bb.duplicate()))
+            .collect(Collectors.toList());
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
     public CompositeByteBuf asCompositeByteBufRetained() {
         return asCompositeByteBufRetained(data.stream());
     }
@@ -1,7 +1,7 @@
 package org.opensearch.migrations.replay.datatypes;
 
-import java.util.function.BiFunction;
-
+import org.opensearch.migrations.replay.ClientConnectionPool;
+import org.opensearch.migrations.replay.TargetChannelPool;
 import org.opensearch.migrations.replay.tracing.IReplayContexts;
 import org.opensearch.migrations.replay.util.OnlineRadixSorter;
 import org.opensearch.migrations.replay.util.TextTrackedFuture;
@@ -32,23 +32,38 @@ public class ConnectionReplaySession {
     public final EventLoop eventLoop;
     public final OnlineRadixSorter scheduleSequencer;
     @Getter
-    private final BiFunction<EventLoop, IReplayContexts.ITargetRequestContext, TrackedFuture<String, ChannelFuture>> channelFutureFutureFactory;
+    private final ClientConnectionPool.ChannelCreator channelFutureFutureFactory;
+    /**
+     * When this is set, channels are leased from the pool for each request rather than this session having a
+     * channel of its own.  In that case, cachedChannel is the channel that's currently leased, if any.
+     */
+    private final TargetChannelPool channelPool;
     private ChannelFuture cachedChannel; // only can be accessed from the eventLoop thread
     public final TimeToResponseFulfillmentFutureMap schedule;
     @Getter
     private final IReplayContexts.IChannelKeyContext channelKeyContext;
 
+    public ConnectionReplaySession(
+        EventLoop eventLoop,
+        IReplayContexts.IChannelKeyContext channelKeyContext,
+        ClientConnectionPool.ChannelCreator channelFutureFutureFactory
+    ) {
+        this(eventLoop, channelKeyContext, channelFutureFutureFactory, null);
+    }
+
     @SneakyThrows
     public ConnectionReplaySession(
         EventLoop eventLoop,
         IReplayContexts.IChannelKeyContext channelKeyContext,
-        BiFunction<EventLoop, IReplayContexts.ITargetRequestContext, TrackedFuture<String, ChannelFuture>> channelFutureFutureFactory
+        ClientConnectionPool.ChannelCreator channelFutureFutureFactory,
+        TargetChannelPool channelPool
     ) {
         this.eventLoop = eventLoop;
         this.channelKeyContext = channelKeyContext;
         this.scheduleSequencer = new OnlineRadixSorter(0);
         this.schedule = new TimeToResponseFulfillmentFutureMap();
         this.channelFutureFutureFactory = channelFutureFutureFactory;
+        this.channelPool = channelPool;
     }
 
     public TrackedFuture<String, ChannelFuture> getChannelFutureInAnyState() {
@@ -62,10 +77,25 @@ public class ConnectionReplaySession {
     {
         TextTrackedFuture<ChannelFuture> trigger = new TextTrackedFuture<>("procuring a connection");
         eventLoop.submit(() -> {
-            if (cachedChannel != null && cachedChannel.channel().isActive()) {
+            if (channelPool != null) {
+                if (cachedChannel != null) {
+                    // the last channel that was leased wasn't usable, so give it back before getting another one
+                    releaseLeasedChannel(false);
+                }
+                channelPool.acquire(ctx)
+                    .whenComplete((v, t) -> {
+                        if (t == null) {
+                            cachedChannel = v;
+                            trigger.future.complete(v);
+                        } else {
+                            trigger.future.completeExceptionally(TrackedFuture.unwindPossibleCompletionException(t));
+                        }
+                    }, () -> "leasing a pooled channel to signal back to an event loop trigger");
+            } else if (cachedChannel != null && cachedChannel.channel().isActive()) {
                 trigger.future.complete(cachedChannel);
             } else {
-                channelFutureFutureFactory.apply(eventLoop, ctx)
+                channelFutureFutureFactory.createChannel(eventLoop, ctx,
+                        ctx.getLogicalEnclosingScope().getChannelKeyContext())
                     .whenComplete((v, t) -> {
                         if (t == null) {
                             trigger.future.complete(v);
@@ -79,6 +109,27 @@ public class ConnectionReplaySession {
         return trigger;
     }
 
+    /**
+     * Gives the channel that was leased for the last request back to the pool, when this session is using one.
+     * This does nothing for sessions that have a channel of their own.
+     * @param reusable false if the channel may be in an unknown state (e.g. a response wasn't fully read), in
+     *                 which case it is closed
+     */
+    public void releaseLeasedChannel(boolean reusable) {
+        if (channelPool == null) {
+            return;
+        }
+        if (!eventLoop.inEventLoop()) {
+            eventLoop.execute(() -> releaseLeasedChannel(reusable));
+            return;
+        }
+        if (cachedChannel != null) {
+            var leasedChannel = cachedChannel;
+            cachedChannel = null;
+            channelPool.release(leasedChannel, reusable);
+        }
+    }
+
     public boolean hasWorkRemaining() {
         return !scheduleSequencer.isEmpty() || schedule.hasPendingTransmissions();
     }
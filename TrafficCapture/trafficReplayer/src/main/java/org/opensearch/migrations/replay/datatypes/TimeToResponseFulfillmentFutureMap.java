@@ -23,11 +23,17 @@ public class TimeToResponseFulfillmentFutureMap {
     }
 
     Deque<FutureWorkPoint> timeToRunnableMap = new ArrayDeque<>();
+    /** How many of the items in timeToRunnableMap are TRANSMIT tasks */
+    private int pendingTransmissions;
 
     public FutureWorkPoint appendTaskTrigger(Instant start, ChannelTaskType taskType) {
-        assert timeToRunnableMap.stream().map(fwp -> fwp.startTime).allMatch(t -> !t.isAfter(start));
+        // items are appended in time order, so only the last one needs to be checked
+        assert timeToRunnableMap.isEmpty() || !timeToRunnableMap.peekLast().startTime.isAfter(start);
         var fpp = new FutureWorkPoint(start, taskType);
         timeToRunnableMap.offer(fpp);
+        if (taskType == ChannelTaskType.TRANSMIT) {
+            ++pendingTransmissions;
+        }
         return fpp;
     }
 
@@ -36,7 +42,14 @@ public class TimeToResponseFulfillmentFutureMap {
     }
 
     public Instant removeFirstItem() {
-        return timeToRunnableMap.isEmpty() ? null : timeToRunnableMap.pop().startTime;
+        if (timeToRunnableMap.isEmpty()) {
+            return null;
+        }
+        var fwp = timeToRunnableMap.pop();
+        if (fwp.channelTaskType == ChannelTaskType.TRANSMIT) {
+            --pendingTransmissions;
+        }
+        return fwp.startTime;
     }
 
     public boolean isEmpty() {
@@ -45,14 +58,11 @@ public class TimeToResponseFulfillmentFutureMap {
 
     public void clear() {
         timeToRunnableMap.clear();
+        pendingTransmissions = 0;
     }
 
     public boolean hasPendingTransmissions() {
-        if (timeToRunnableMap.isEmpty()) {
-            return false;
-        } else {
-            return timeToRunnableMap.stream().anyMatch(fwp -> fwp.channelTaskType == ChannelTaskType.TRANSMIT);
-        }
+        return pendingTransmissions > 0;
     }
 
     @Override
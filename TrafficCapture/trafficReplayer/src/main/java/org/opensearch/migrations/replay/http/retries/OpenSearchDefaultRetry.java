@@ -1,6 +1,7 @@
 package org.opensearch.migrations.replay.http.retries;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -9,6 +10,7 @@ import org.opensearch.migrations.replay.AggregatedRawResponse;
 import org.opensearch.migrations.replay.HttpByteBufFormatter;
 import org.opensearch.migrations.replay.IRequestResponsePacketPair;
 import org.opensearch.migrations.replay.RequestSenderOrchestrator;
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
 import org.opensearch.migrations.replay.util.TextTrackedFuture;
 import org.opensearch.migrations.replay.util.TrackedFuture;
 
@@ -21,6 +23,7 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.LastHttpContent;
 import lombok.NonNull;
 import lombok.SneakyThrows;
@@ -100,6 +103,38 @@ public class OpenSearchDefaultRetry extends DefaultRetry {
     }
 
 
+    private static boolean isBulkRequest(HttpRequest parsedRequest) {
+        return parsedRequest != null && bulkPathMatcher.matcher(parsedRequest.uri()).matches();
+    }
+
+    /**
+     * When some items of a _bulk request failed on the target because it was overloaded or unavailable, only
+     * those items are sent again, rather than the whole (possibly very large) request.
+     */
+    @Override
+    public ByteBufList getRequestToRetry(@NonNull ByteBuf targetRequestBytes,
+                                         @NonNull AggregatedRawResponse currentResponse) {
+        var parsedRequest = HttpByteBufFormatter.parseHttpRequestFromBufs(Stream.of(targetRequestBytes), 0);
+        if (isBulkRequest(parsedRequest) &&
+            Optional.ofNullable(currentResponse.getRawResponse()).map(r -> r.status().code() == 200).orElse(false))
+        {
+            var responseByteBuf = currentResponse.getResponseAsByteBuf();
+            if (!bulkResponseHadNoErrors(responseByteBuf)) {
+                return PartialBulkRequestBuilder.buildRequestWithRetryableItems(targetRequestBytes, responseByteBuf);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * When a _bulk request was retried with only its failed items, the item results of the retries are merged
+     * into the first response so that there's a result for every item of the original request.
+     */
+    @Override
+    public AggregatedRawResponse combineResponses(List<AggregatedRawResponse> responses) {
+        return PartialBulkResponseCombiner.combine(responses);
+    }
+
     @Override
     public TrackedFuture<String, RequestSenderOrchestrator.RetryDirective>
     shouldRetry(@NonNull ByteBuf targetRequestBytes,
@@ -108,8 +143,7 @@ public class OpenSearchDefaultRetry extends DefaultRetry {
 
         var targetRequestByteBuf = Unpooled.wrappedBuffer(targetRequestBytes);
         var parsedRequest = HttpByteBufFormatter.parseHttpRequestFromBufs(Stream.of(targetRequestByteBuf), 0);
-        if (parsedRequest != null &&
-            bulkPathMatcher.matcher(parsedRequest.uri()).matches() &&
+        if (isBulkRequest(parsedRequest) &&
             // do a more granular check.  If the raw response wasn't present, then just push it to the superclass
             // since it isn't going to be any kind of response, let alone a bulk one
             Optional.ofNullable(currentResponse.getRawResponse())
@@ -0,0 +1,237 @@
+package org.opensearch.migrations.replay.http.retries;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.opensearch.migrations.replay.HttpByteBufFormatter;
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds a _bulk request that only has the items of a previous _bulk request that failed in a way that's
+ * worth retrying (the target was overloaded or unavailable), so that a few failures within a large bulk
+ * request don't cause the whole request to be sent again.
+ *
+ * The items of the request are matched up to the items of the response by their position.  Whenever that
+ * can't be done (e.g. the response was filtered or the body couldn't be parsed), no request is built and
+ * the caller should resend the original request instead.
+ */
+@Slf4j
+class PartialBulkRequestBuilder {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final String DELETE_ACTION = "delete";
+
+    private PartialBulkRequestBuilder() {}
+
+    static boolean isRetryableItemStatus(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    /**
+     * @return a new request (which the caller must release) with only the items whose responses had retryable
+     * statuses, or null if the original request should be resent as it is.
+     */
+    static ByteBufList buildRequestWithRetryableItems(ByteBuf targetRequestBytes, ByteBuf targetResponseBytes) {
+        var request = HttpByteBufFormatter.parseHttpRequestFromBufs(
+            Stream.of(targetRequestBytes),
+            Integer.MAX_VALUE
+        );
+        if (request == null) {
+            return null;
+        }
+        try {
+            var response = HttpByteBufFormatter.parseHttpResponseFromBufs(
+                Stream.of(targetResponseBytes),
+                Integer.MAX_VALUE
+            );
+            if (response == null) {
+                return null;
+            }
+            try {
+                return buildRequestWithRetryableItems(request, response);
+            } finally {
+                response.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.atWarn().setCause(e)
+                .setMessage("Could not match the bulk response items to the request, so the whole request will be "
+                    + "retried")
+                .log();
+            return null;
+        } finally {
+            request.release();
+        }
+    }
+
+    private static ByteBufList buildRequestWithRetryableItems(FullHttpRequest request, FullHttpResponse response)
+        throws IOException {
+        var body = request.content();
+        var items = findItems(body);
+        var statuses = readItemStatuses(response.content());
+        if (statuses == null || statuses.size() != items.size()) {
+            log.atDebug().setMessage("Found {} items in the bulk request but {} item statuses in the response")
+                .addArgument(items::size)
+                .addArgument(() -> statuses == null ? "no" : Integer.toString(statuses.size()))
+                .log();
+            return null;
+        }
+
+        var retryBody = Unpooled.buffer();
+        int numRetryableItems = 0;
+        for (int i = 0; i < items.size(); ++i) {
+            if (isRetryableItemStatus(statuses.get(i))) {
+                var item = items.get(i);
+                retryBody.writeBytes(body, item.start, item.end - item.start);
+                if (body.getByte(item.end - 1) != '\n') {
+                    retryBody.writeByte('\n');
+                }
+                ++numRetryableItems;
+            }
+        }
+        if (numRetryableItems == 0) {
+            retryBody.release();
+            return null;
+        }
+        log.atDebug().setMessage("Retrying {} of {} bulk items")
+            .addArgument(numRetryableItems)
+            .addArgument(items.size())
+            .log();
+
+        var head = new StringBuilder();
+        head.append(request.method()).append(' ').append(request.uri()).append(' ')
+            .append(request.protocolVersion()).append("\r\n");
+        request.headers().forEach(kvp -> {
+            if (!HttpHeaderNames.CONTENT_LENGTH.contentEqualsIgnoreCase(kvp.getKey()) &&
+                !HttpHeaderNames.TRANSFER_ENCODING.contentEqualsIgnoreCase(kvp.getKey()))
+            {
+                head.append(kvp.getKey()).append(": ").append(kvp.getValue()).append("\r\n");
+            }
+        });
+        head.append(HttpHeaderNames.CONTENT_LENGTH).append(": ").append(retryBody.readableBytes()).append("\r\n\r\n");
+
+        var wholeRequest = Unpooled.wrappedBuffer(
+            Unpooled.wrappedBuffer(head.toString().getBytes(StandardCharsets.UTF_8)),
+            retryBody
+        );
+        try {
+            return new ByteBufList(wholeRequest);
+        } finally {
+            wholeRequest.release();
+        }
+    }
+
+    private static class ItemRange {
+        final int start;
+        final int end;
+
+        ItemRange(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * @return the byte ranges (including the trailing newlines) of each action and its source, when it has one
+     */
+    private static List<ItemRange> findItems(ByteBuf body) throws IOException {
+        var items = new ArrayList<ItemRange>();
+        int itemStart = -1;
+        int linesLeftInItem = 0;
+        int lineStart = body.readerIndex();
+        int bodyEnd = body.writerIndex();
+        while (lineStart < bodyEnd) {
+            int newline = body.indexOf(lineStart, bodyEnd, (byte) '\n');
+            int lineEnd = newline < 0 ? bodyEnd : newline + 1;
+            if (!isBlank(body, lineStart, lineEnd)) {
+                if (linesLeftInItem == 0) {
+                    itemStart = lineStart;
+                    linesLeftInItem = DELETE_ACTION.equals(getActionName(body, lineStart, lineEnd)) ? 1 : 2;
+                }
+                if (--linesLeftInItem == 0) {
+                    items.add(new ItemRange(itemStart, lineEnd));
+                }
+            }
+            lineStart = lineEnd;
+        }
+        if (linesLeftInItem != 0) {
+            throw new IllegalArgumentException("The bulk request ended in the middle of an item");
+        }
+        return items;
+    }
+
+    private static boolean isBlank(ByteBuf body, int start, int end) {
+        for (int i = start; i < end; ++i) {
+            if (!Character.isWhitespace(body.getByte(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getActionName(ByteBuf body, int start, int end) throws IOException {
+        try (var parser = jsonFactory.createParser(new ByteBufInputStream(body.slice(start, end - start)))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || parser.nextToken() != JsonToken.FIELD_NAME) {
+                throw new IllegalArgumentException("Expected a bulk action line, but found " + parser.currentToken());
+            }
+            return parser.getCurrentName();
+        }
+    }
+
+    /**
+     * @return the status of each of the items of a bulk response, or null if there was no items array
+     */
+    private static List<Integer> readItemStatuses(ByteBuf responseBody) throws IOException {
+        try (var parser = jsonFactory.createParser(new ByteBufInputStream(responseBody.duplicate()))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if ("items".equals(fieldName) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    return readStatusesFromItemsArray(parser);
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    private static List<Integer> readStatusesFromItemsArray(JsonParser parser) throws IOException {
+        var statuses = new ArrayList<Integer>();
+        // each item looks like {"index": {"_id": ..., "status": 429, "error": {...}}}
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int status = -1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        var fieldName = parser.getCurrentName();
+                        parser.nextToken();
+                        if ("status".equals(fieldName)) {
+                            status = parser.getValueAsInt(-1);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            statuses.add(status);
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,210 @@
+package org.opensearch.migrations.replay.http.retries;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.opensearch.migrations.replay.AggregatedRawResponse;
+import org.opensearch.migrations.replay.HttpByteBufFormatter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Combines the responses to a _bulk request that was retried with requests from PartialBulkRequestBuilder
+ * into one response with a result for every item of the original request, so that the outcome of the
+ * request as a whole is what gets compared to the source and logged.  The first bulk response is the base,
+ * and each item's result is replaced by the one from the latest retry that included the item.
+ *
+ * The items that each retry included are worked out the same way that PartialBulkRequestBuilder chose
+ * them: the items of the previous bulk response with retryable statuses, or all of them when the request
+ * was resent as it was.  When the responses can't be lined up that way, nothing is combined.
+ */
+@Slf4j
+class PartialBulkResponseCombiner {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String ITEMS_KEY = "items";
+    private static final String ERRORS_KEY = "errors";
+
+    private PartialBulkResponseCombiner() {}
+
+    private static class BulkResponse {
+        final HttpResponse headers;
+        final ObjectNode body;
+        final ArrayNode items;
+
+        BulkResponse(HttpResponse headers, ObjectNode body) {
+            this.headers = headers;
+            this.body = body;
+            this.items = (ArrayNode) body.get(ITEMS_KEY);
+        }
+    }
+
+    /**
+     * @return a response with the combined item results, or null if the final response should be kept as is
+     * (because no partial retries were made, the final attempt didn't get a bulk response, or the items
+     * couldn't be lined up).
+     */
+    static AggregatedRawResponse combine(List<AggregatedRawResponse> responses) {
+        try {
+            return combineOrNull(responses);
+        } catch (IOException | RuntimeException e) {
+            log.atWarn().setCause(e)
+                .setMessage("Could not combine the responses of the partial bulk retries, so only the final "
+                    + "response will be used")
+                .log();
+            return null;
+        }
+    }
+
+    private static AggregatedRawResponse combineOrNull(List<AggregatedRawResponse> responses) throws IOException {
+        BulkResponse base = null;
+        ArrayNode combinedItems = null;
+        // positions (within the original request) of the items of the request that was most recently sent
+        List<Integer> positions = null;
+        ArrayNode previousItems = null;
+        boolean hadPartialRetry = false;
+        for (var response : responses) {
+            var bulkResponse = parseBulkResponse(response);
+            if (bulkResponse == null) {
+                // the same request will have been resent
+                previousItems = null;
+                continue;
+            }
+            var items = bulkResponse.items;
+            if (base == null) {
+                base = bulkResponse;
+                combinedItems = items.deepCopy();
+                positions = IntStream.range(0, items.size()).boxed().collect(Collectors.toList());
+            } else {
+                var retriedPositions = previousItems == null ? null : getRetryablePositions(previousItems, positions);
+                if (retriedPositions != null && retriedPositions.size() == items.size()) {
+                    hadPartialRetry |= retriedPositions.size() < positions.size();
+                    positions = retriedPositions;
+                } else if (items.size() != positions.size()) {
+                    log.atDebug().setMessage("A bulk response had {} items, which doesn't line up with the {} items "
+                            + "that were sent")
+                        .addArgument(items::size)
+                        .addArgument(positions::size)
+                        .log();
+                    return null;
+                }
+                for (int i = 0; i < items.size(); ++i) {
+                    combinedItems.set(positions.get(i), items.get(i));
+                }
+            }
+            previousItems = items;
+        }
+        if (!hadPartialRetry || previousItems == null) {
+            return null;
+        }
+        return makeCombinedResponse(base, combinedItems, responses.get(responses.size() - 1));
+    }
+
+    private static List<Integer> getRetryablePositions(ArrayNode items, List<Integer> positions) {
+        var retryablePositions = new ArrayList<Integer>();
+        for (int i = 0; i < items.size(); ++i) {
+            var status = getItemResult(items.get(i)).path("status").asInt(-1);
+            if (PartialBulkRequestBuilder.isRetryableItemStatus(status)) {
+                retryablePositions.add(positions.get(i));
+            }
+        }
+        return retryablePositions;
+    }
+
+    /**
+     * Each item looks like {"index": {"_id": ..., "status": 429, "error": {...}}}
+     */
+    private static JsonNode getItemResult(JsonNode item) {
+        var fields = item.elements();
+        return fields.hasNext() ? fields.next() : item;
+    }
+
+    private static BulkResponse parseBulkResponse(AggregatedRawResponse response) throws IOException {
+        if (response.getRawResponse() == null || response.getRawResponse().status().code() != 200) {
+            return null;
+        }
+        var fullResponse = HttpByteBufFormatter.parseHttpResponseFromBufs(
+            Stream.of(response.getResponseAsByteBuf()),
+            Integer.MAX_VALUE
+        );
+        if (fullResponse == null) {
+            return null;
+        }
+        try {
+            var body = objectMapper.readTree(new ByteBufInputStream(fullResponse.content().duplicate()));
+            if (!(body instanceof ObjectNode) || !(body.get(ITEMS_KEY) instanceof ArrayNode)) {
+                return null;
+            }
+            var headers = new DefaultHttpResponse(fullResponse.protocolVersion(), fullResponse.status(),
+                fullResponse.headers().copy());
+            return new BulkResponse(headers, (ObjectNode) body);
+        } finally {
+            fullResponse.release();
+        }
+    }
+
+    private static AggregatedRawResponse makeCombinedResponse(
+        BulkResponse base,
+        ArrayNode combinedItems,
+        AggregatedRawResponse finalResponse
+    ) throws IOException {
+        var body = base.body.deepCopy();
+        body.set(ITEMS_KEY, combinedItems);
+        var anyErrors = false;
+        for (var item : combinedItems) {
+            anyErrors |= getItemResult(item).has("error");
+        }
+        body.put(ERRORS_KEY, anyErrors);
+        var bodyBytes = objectMapper.writeValueAsBytes(body);
+
+        // the body was decoded when it was parsed and its length has changed
+        HttpHeaders headers = new DefaultHttpHeaders();
+        base.headers.headers().forEach(kvp -> {
+            if (!HttpHeaderNames.CONTENT_LENGTH.contentEqualsIgnoreCase(kvp.getKey()) &&
+                !HttpHeaderNames.TRANSFER_ENCODING.contentEqualsIgnoreCase(kvp.getKey()) &&
+                !HttpHeaderNames.CONTENT_ENCODING.contentEqualsIgnoreCase(kvp.getKey()))
+            {
+                headers.add(kvp.getKey(), kvp.getValue());
+            }
+        });
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, bodyBytes.length);
+        var status = HttpResponseStatus.OK;
+        var head = new StringBuilder();
+        head.append(base.headers.protocolVersion()).append(' ').append(status).append("\r\n");
+        headers.forEach(kvp -> head.append(kvp.getKey()).append(": ").append(kvp.getValue()).append("\r\n"));
+        head.append("\r\n");
+        var headBytes = head.toString().getBytes(StandardCharsets.UTF_8);
+        var responseBytes = new byte[headBytes.length + bodyBytes.length];
+        System.arraycopy(headBytes, 0, responseBytes, 0, headBytes.length);
+        System.arraycopy(bodyBytes, 0, responseBytes, headBytes.length, bodyBytes.length);
+
+        return new AggregatedRawResponse(
+            new DefaultHttpResponse(base.headers.protocolVersion(), status, headers),
+            responseBytes.length,
+            finalResponse.getDuration(),
+            List.of(new AbstractMap.SimpleEntry<>(
+                Optional.ofNullable(finalResponse.getLastPacketTimestamp()).orElseGet(Instant::now),
+                responseBytes)),
+            null,
+            finalResponse.getResponseLatency()
+        );
+    }
+}
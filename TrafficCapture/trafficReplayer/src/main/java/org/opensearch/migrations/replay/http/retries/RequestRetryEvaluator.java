@@ -5,6 +5,7 @@ import java.util.List;
 import org.opensearch.migrations.replay.AggregatedRawResponse;
 import org.opensearch.migrations.replay.IRequestResponsePacketPair;
 import org.opensearch.migrations.replay.RequestSenderOrchestrator;
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
 import org.opensearch.migrations.replay.util.TrackedFuture;
 
 import io.netty.buffer.ByteBuf;
@@ -17,4 +18,26 @@ public interface RequestRetryEvaluator {
         List<AggregatedRawResponse> previousResponses,
         AggregatedRawResponse currentResponse,
         TrackedFuture<String, ? extends IRequestResponsePacketPair> reconstructedSourceTransactionFuture);
+
+    /**
+     * Gives the evaluator the chance to send something other than the same request again once shouldRetry
+     * has determined that the request should be retried (e.g. only the parts of a request that failed).  This
+     * is only called after a RETRY determination.
+     * @return a new request, which the caller will release, or null to resend targetRequestBytes
+     */
+    default ByteBufList getRequestToRetry(ByteBuf targetRequestBytes, AggregatedRawResponse currentResponse) {
+        return null;
+    }
+
+    /**
+     * Called once no more attempts will be made for a request that was retried with a request from
+     * getRequestToRetry, so that the responses can be combined into one with the outcome of the original
+     * request as a whole (e.g. a _bulk response with a result for every item of the original request).
+     * @param responses the responses to every attempt, in order
+     * @return a response for the request as a whole, which is recorded in addition to the response to every
+     * attempt, or null if there's nothing to combine
+     */
+    default AggregatedRawResponse combineResponses(List<AggregatedRawResponse> responses) {
+        return null;
+    }
 }
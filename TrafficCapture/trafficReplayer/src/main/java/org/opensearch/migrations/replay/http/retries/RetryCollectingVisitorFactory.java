@@ -1,6 +1,8 @@
 package org.opensearch.migrations.replay.http.retries;
 
 import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.opensearch.migrations.replay.IRequestResponsePacketPair;
 import org.opensearch.migrations.replay.RequestSenderOrchestrator;
@@ -24,6 +26,7 @@ public class RetryCollectingVisitorFactory implements IRetryVisitorFactory<Trans
         var collector = new TransformedTargetRequestAndResponseList(
             transformedResult.transformedOutput,
             transformedResult.transformationStatus);
+        var sentRequestToRetry = new AtomicBoolean();
         return (requestBytes, aggResponse, t) -> {
             if (t != null) {
                 return TextTrackedFuture.completedFuture(
@@ -34,12 +37,30 @@ public class RetryCollectingVisitorFactory implements IRetryVisitorFactory<Trans
             } else {
                 assert (aggResponse != null);
                 collector.addResponse(aggResponse);
+                // the caller releases requestBytes once this returns, but a request to retry with may need to be
+                // built from them once the determination has been made
+                requestBytes.retain();
                 return shouldRetry.shouldRetry(requestBytes, Collections.unmodifiableList(collector.getResponseList()),
                         aggResponse, finishedAccumulatingResponseFuture)
-                    .thenCompose(d -> TextTrackedFuture.completedFuture(
-                            new RequestSenderOrchestrator.DeterminedTransformedResponse<>(d, collector),
-                            () -> "Returning a future to retry due to a connection exception"),
-                        () -> "determining if we should retry or just return the response now");
+                    .thenCompose(d -> {
+                            ByteBufList requestToRetry = null;
+                            if (d == RequestSenderOrchestrator.RetryDirective.RETRY) {
+                                requestToRetry = shouldRetry.getRequestToRetry(requestBytes, aggResponse);
+                                if (requestToRetry != null) {
+                                    sentRequestToRetry.set(true);
+                                }
+                            } else if (sentRequestToRetry.get()) {
+                                Optional.ofNullable(shouldRetry.combineResponses(collector.responses()))
+                                    .ifPresent(collector::setCombinedResponse);
+                            }
+                            return TextTrackedFuture.completedFuture(
+                                new RequestSenderOrchestrator.DeterminedTransformedResponse<>(d, collector,
+                                    requestToRetry),
+                                () -> "Returning a future with the determination and the request to retry with");
+                        },
+                        () -> "determining if we should retry or just return the response now")
+                    .whenComplete((v, t2) -> requestBytes.release(),
+                        () -> "releasing the request bytes once the determination has been made");
             }
         };
     }
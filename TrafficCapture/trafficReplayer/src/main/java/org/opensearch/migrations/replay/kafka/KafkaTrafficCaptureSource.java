@@ -6,12 +6,17 @@ import java.io.InputStream;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -28,16 +33,23 @@ import org.opensearch.migrations.replay.tracing.ReplayContexts;
 import org.opensearch.migrations.replay.tracing.RootReplayerContext;
 import org.opensearch.migrations.replay.traffic.source.ISimpleTrafficCaptureSource;
 import org.opensearch.migrations.replay.traffic.source.ITrafficStreamWithKey;
+import org.opensearch.migrations.trafficcapture.protos.CloseObservation;
+import org.opensearch.migrations.trafficcapture.protos.TrafficObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamUtils;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Timestamp;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
 
 /**
  * Adapt a Kafka stream into a TrafficCaptureSource.
@@ -64,6 +76,20 @@ import org.apache.kafka.clients.consumer.KafkaConsumer;
  * Since the Kafka client requires all calls to be made from the same thread, we can't
  * simply run a background job to keep the client warm.  We need the caller to touch
  * this object periodically to keep the connection alive.
+ *
+ * When partitionsAreConnectionShards is set, every record for a connection is expected to
+ * be on the same partition (see KafkaCaptureFactory.getPartitioningKey()), so each partition
+ * is a self-contained shard of connections.  When a partition is revoked, its new owner will
+ * replay the connections that were still open here from their last committed offsets.  To
+ * hand those connections off cleanly, this source then emits a synthetic close for each of
+ * them so that the accumulations and target connections are released immediately rather
+ * than being left to expire.
+ *
+ * Large records are parsed on a separate pool of decoder threads so that the consumer thread
+ * can get back to Kafka sooner.  Each batch is still returned in the order that it was polled
+ * in.  Records are parsed without copying their payloads (the payloads of the parsed
+ * TrafficStreams are views into the record's value), so a payload is only copied once the
+ * accumulator takes it.
  */
 @Slf4j
 public class KafkaTrafficCaptureSource implements ISimpleTrafficCaptureSource {
@@ -71,13 +97,43 @@ public class KafkaTrafficCaptureSource implements ISimpleTrafficCaptureSource {
     // see
     // https://stackoverflow.com/questions/39730126/difference-between-session-timeout-ms-and-max-poll-interval-ms-for-kafka-0-10
     public static final String DEFAULT_POLL_INTERVAL_MS = "60000";
+    /**
+     * Smaller records are parsed right on the consumer's thread, where handing them off would cost more than
+     * parsing them does.
+     */
+    public static final int MIN_RECORD_SIZE_FOR_PARALLEL_DECODE = 64 * 1024;
+    private static final int DECODER_THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
 
     final TrackingKafkaConsumer trackingKafkaConsumer;
     private final ExecutorService kafkaExecutor;
+    private final ExecutorService decodeExecutor;
     private final AtomicLong trafficStreamsRead;
     private final KafkaBehavioralPolicy behavioralPolicy;
     private final ChannelContextManager channelContextManager;
     private final AtomicBoolean isClosed;
+    private final boolean partitionsAreConnectionShards;
+    // The following two members are only accessed from the kafkaExecutor thread
+    private final Map<Integer, Map<String, OpenConnection>> openConnectionsByPartition;
+    private final List<ITrafficStreamWithKey> closesForConnectionsOfRevokedPartitions;
+
+    @AllArgsConstructor
+    private static class DecodingRecord {
+        final KafkaCommitOffsetData offsetData;
+        final ConsumerRecord<String, byte[]> kafkaRecord;
+        final CompletableFuture<TrafficStream> trafficStreamFuture;
+    }
+
+    @AllArgsConstructor
+    private static class OpenConnection {
+        final String nodeId;
+        final String connectionId;
+        final String kafkaRecordKey;
+        final int generation;
+        final int partition;
+        final long offset;
+        final int trafficStreamIndex;
+        final Timestamp lastObservationTimestamp;
+    }
 
     public KafkaTrafficCaptureSource(
         @NonNull RootReplayerContext globalContext,
@@ -95,20 +151,70 @@ public class KafkaTrafficCaptureSource implements ISimpleTrafficCaptureSource {
         Duration keepAliveInterval,
         Clock clock,
         @NonNull KafkaBehavioralPolicy behavioralPolicy
+    ) {
+        this(globalContext, kafkaConsumer, topic, keepAliveInterval, clock, behavioralPolicy, false);
+    }
+
+    public KafkaTrafficCaptureSource(
+        @NonNull RootReplayerContext globalContext,
+        Consumer<String, byte[]> kafkaConsumer,
+        @NonNull String topic,
+        Duration keepAliveInterval,
+        Clock clock,
+        @NonNull KafkaBehavioralPolicy behavioralPolicy,
+        boolean partitionsAreConnectionShards
+    ) {
+        this(
+            globalContext,
+            kafkaConsumer,
+            topic,
+            keepAliveInterval,
+            clock,
+            behavioralPolicy,
+            partitionsAreConnectionShards,
+            TrackingKafkaConsumer.DEFAULT_COMMIT_INTERVAL,
+            TrackingKafkaConsumer.DEFAULT_MAX_RECORDS_PER_COMMIT
+        );
+    }
+
+    /**
+     * @param commitInterval how long to let finished records accumulate before committing their offsets
+     * @param maxRecordsPerCommit commit before the interval is up once this many records have finished
+     */
+    public KafkaTrafficCaptureSource(
+        @NonNull RootReplayerContext globalContext,
+        Consumer<String, byte[]> kafkaConsumer,
+        @NonNull String topic,
+        Duration keepAliveInterval,
+        Clock clock,
+        @NonNull KafkaBehavioralPolicy behavioralPolicy,
+        boolean partitionsAreConnectionShards,
+        @NonNull Duration commitInterval,
+        int maxRecordsPerCommit
     ) {
         this.channelContextManager = new ChannelContextManager(globalContext);
+        this.partitionsAreConnectionShards = partitionsAreConnectionShards;
+        this.openConnectionsByPartition = new HashMap<>();
+        this.closesForConnectionsOfRevokedPartitions = new ArrayList<>();
         trackingKafkaConsumer = new TrackingKafkaConsumer(
             globalContext,
             kafkaConsumer,
             topic,
             keepAliveInterval,
             clock,
-            this::onKeyFinishedCommitting
+            this::onKeyFinishedCommitting,
+            this::onPartitionsRevoked,
+            commitInterval,
+            maxRecordsPerCommit
         );
         trafficStreamsRead = new AtomicLong();
         this.behavioralPolicy = behavioralPolicy;
         kafkaConsumer.subscribe(Collections.singleton(topic), trackingKafkaConsumer);
         kafkaExecutor = Executors.newSingleThreadExecutor(new DefaultThreadFactory("kafkaConsumerThread"));
+        decodeExecutor = Executors.newFixedThreadPool(
+            DECODER_THREAD_COUNT,
+            new DefaultThreadFactory("kafkaRecordDecoder", true)
+        );
         isClosed = new AtomicBoolean(false);
     }
 
@@ -130,6 +236,91 @@ public class KafkaTrafficCaptureSource implements ISimpleTrafficCaptureSource {
         channelContextManager.releaseContextFor(kafkaCtx.getImmediateEnclosingScope());
     }
 
+    private void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        if (!partitionsAreConnectionShards) {
+            return;
+        }
+        int closesBefore = closesForConnectionsOfRevokedPartitions.size();
+        for (var partition : partitions) {
+            var openConnections = openConnectionsByPartition.remove(partition.partition());
+            if (openConnections != null) {
+                openConnections.values()
+                    .forEach(c -> closesForConnectionsOfRevokedPartitions.add(makeCloseForHandedOffConnection(c)));
+            }
+        }
+        log.atInfo()
+            .setMessage("Closing {} connections that were handed off along with revoked partitions {}")
+            .addArgument(() -> closesForConnectionsOfRevokedPartitions.size() - closesBefore)
+            .addArgument(partitions)
+            .log();
+    }
+
+    private ITrafficStreamWithKey makeCloseForHandedOffConnection(OpenConnection connection) {
+        var ts = TrafficStream.newBuilder()
+            .setNodeId(connection.nodeId)
+            .setConnectionId(connection.connectionId)
+            .setNumberOfThisLastChunk(connection.trafficStreamIndex + 1)
+            .addSubStream(
+                TrafficObservation.newBuilder()
+                    .setTs(connection.lastObservationTimestamp)
+                    .setClose(CloseObservation.getDefaultInstance())
+            )
+            .build();
+        // The generation is no longer current, so committing this key will be ignored, just as it
+        // would be for any other record that had been read from a revoked partition
+        var key = makeKey(
+            ts,
+            new PojoKafkaCommitOffsetData(connection.generation, connection.partition, connection.offset),
+            connection.kafkaRecordKey,
+            0
+        );
+        return new PojoTrafficStreamAndKey(ts, key);
+    }
+
+    private void trackConnectionForShard(KafkaCommitOffsetData offsetData, String kafkaRecordKey, TrafficStream ts) {
+        var openConnections = openConnectionsByPartition.computeIfAbsent(
+            offsetData.getPartition(),
+            p -> new HashMap<>()
+        );
+        var connectionKey = ts.getNodeId() + "." + ts.getConnectionId();
+        var observationCount = ts.getSubStreamCount();
+        if (observationCount > 0 && ts.getSubStream(observationCount - 1).hasClose()) {
+            openConnections.remove(connectionKey);
+            return;
+        }
+        var lastTimestamp = observationCount > 0
+            ? ts.getSubStream(observationCount - 1).getTs()
+            : Optional.ofNullable(openConnections.get(connectionKey))
+                .map(c -> c.lastObservationTimestamp)
+                .orElse(Timestamp.getDefaultInstance());
+        openConnections.put(
+            connectionKey,
+            new OpenConnection(
+                ts.getNodeId(),
+                ts.getConnectionId(),
+                kafkaRecordKey,
+                offsetData.getGeneration(),
+                offsetData.getPartition(),
+                offsetData.getOffset(),
+                TrafficStreamUtils.getTrafficStreamIndex(ts),
+                lastTimestamp
+            )
+        );
+    }
+
+    private TrafficStreamKeyWithKafkaRecordId makeKey(
+        TrafficStream ts,
+        KafkaCommitOffsetData offsetData,
+        String kafkaRecordKey,
+        int kafkaRecordSize
+    ) {
+        return new TrafficStreamKeyWithKafkaRecordId(tsk -> {
+            var channelKeyCtx = channelContextManager.retainOrCreateContext(tsk);
+            return channelContextManager.getGlobalContext()
+                .createTrafficStreamContextForKafkaSource(channelKeyCtx, kafkaRecordKey, kafkaRecordSize);
+        }, ts, offsetData);
+    }
+
     public static KafkaTrafficCaptureSource buildKafkaSource(
         @NonNull RootReplayerContext globalContext,
         @NonNull String brokers,
@@ -139,6 +330,58 @@ public class KafkaTrafficCaptureSource implements ISimpleTrafficCaptureSource {
         String propertyFilePath,
         @NonNull Clock clock,
         @NonNull KafkaBehavioralPolicy behavioralPolicy
+    ) throws IOException {
+        return buildKafkaSource(
+            globalContext,
+            brokers,
+            topic,
+            groupId,
+            enableMSKAuth,
+            propertyFilePath,
+            clock,
+            behavioralPolicy,
+            false
+        );
+    }
+
+    public static KafkaTrafficCaptureSource buildKafkaSource(
+        @NonNull RootReplayerContext globalContext,
+        @NonNull String brokers,
+        @NonNull String topic,
+        @NonNull String groupId,
+        boolean enableMSKAuth,
+        String propertyFilePath,
+        @NonNull Clock clock,
+        @NonNull KafkaBehavioralPolicy behavioralPolicy,
+        boolean partitionsAreConnectionShards
+    ) throws IOException {
+        return buildKafkaSource(
+            globalContext,
+            brokers,
+            topic,
+            groupId,
+            enableMSKAuth,
+            propertyFilePath,
+            clock,
+            behavioralPolicy,
+            partitionsAreConnectionShards,
+            TrackingKafkaConsumer.DEFAULT_COMMIT_INTERVAL,
+            TrackingKafkaConsumer.DEFAULT_MAX_RECORDS_PER_COMMIT
+        );
+    }
+
+    public static KafkaTrafficCaptureSource buildKafkaSource(
+        @NonNull RootReplayerContext globalContext,
+        @NonNull String brokers,
+        @NonNull String topic,
+        @NonNull String groupId,
+        boolean enableMSKAuth,
+        String propertyFilePath,
+        @NonNull Clock clock,
+        @NonNull KafkaBehavioralPolicy behavioralPolicy,
+        boolean partitionsAreConnectionShards,
+        @NonNull Duration commitInterval,
+        int maxRecordsPerCommit
     ) throws IOException {
         var kafkaProps = buildKafkaProperties(brokers, groupId, enableMSKAuth, propertyFilePath);
         kafkaProps.putIfAbsent(MAX_POLL_INTERVAL_KEY, DEFAULT_POLL_INTERVAL_MS);
@@ -150,7 +393,10 @@ public class KafkaTrafficCaptureSource implements ISimpleTrafficCaptureSource {
             topic,
             keepAlivePeriod,
             clock,
-            behavioralPolicy
+            behavioralPolicy,
+            partitionsAreConnectionShards,
+            commitInterval,
+            maxRecordsPerCommit
         );
     }
 
@@ -232,42 +478,92 @@ public class KafkaTrafficCaptureSource implements ISimpleTrafficCaptureSource {
     ) {
         log.atTrace().setMessage("readNextTrafficStreamSynchronously()").log();
         try {
-            return trackingKafkaConsumer.getNextBatchOfRecords(context, (offsetData, kafkaRecord) -> {
-                try {
-                    TrafficStream ts = TrafficStream.parseFrom(kafkaRecord.value());
-                    var trafficStreamsSoFar = trafficStreamsRead.incrementAndGet();
-                    log.atTrace()
-                        .setMessage("{}")
-                        .addArgument(
-                            () -> "Parsed traffic stream #" + trafficStreamsSoFar + ": " + offsetData + " " + ts
-                        )
-                        .log();
-                    var key = new TrafficStreamKeyWithKafkaRecordId(tsk -> {
-                        var channelKeyCtx = channelContextManager.retainOrCreateContext(tsk);
-                        return channelContextManager.getGlobalContext()
-                            .createTrafficStreamContextForKafkaSource(
-                                channelKeyCtx,
-                                kafkaRecord.key(),
-                                kafkaRecord.serializedKeySize() + kafkaRecord.serializedValueSize()
-                            );
-                    }, ts, offsetData);
-                    return (ITrafficStreamWithKey) new PojoTrafficStreamAndKey(ts, key);
-                } catch (InvalidProtocolBufferException e) {
-                    // Assume the behavioralPolicy instance does any logging that the host may be interested in
-                    RuntimeException recordError = behavioralPolicy.onInvalidKafkaRecord(kafkaRecord, e);
-                    if (recordError != null) {
-                        throw recordError;
-                    } else {
-                        return null;
-                    }
-                }
-            }).filter(Objects::nonNull).collect(Collectors.<ITrafficStreamWithKey>toList());
+            // start all of the decodes before waiting on any of them, then finish them in order
+            var decodingRecords = trackingKafkaConsumer.getNextBatchOfRecords(
+                context,
+                (offsetData, kafkaRecord) -> new DecodingRecord(offsetData, kafkaRecord, decodeRecord(kafkaRecord))
+            ).collect(Collectors.toList());
+            var trafficStreams = decodingRecords.stream()
+                .map(this::finishDecodingRecord)
+                .filter(Objects::nonNull)
+                .collect(Collectors.<ITrafficStreamWithKey>toList());
+            if (closesForConnectionsOfRevokedPartitions.isEmpty()) {
+                return trafficStreams;
+            }
+            // Any revocation happened before these records were polled, so the closes go first
+            var closesAndTrafficStreams = new ArrayList<>(closesForConnectionsOfRevokedPartitions);
+            closesForConnectionsOfRevokedPartitions.clear();
+            closesAndTrafficStreams.addAll(trafficStreams);
+            return closesAndTrafficStreams;
         } catch (Exception e) {
             log.atError().setCause(e).setMessage("Terminating Kafka traffic stream due to exception").log();
             throw e;
         }
     }
 
+    private CompletableFuture<TrafficStream> decodeRecord(ConsumerRecord<String, byte[]> kafkaRecord) {
+        if (kafkaRecord.value().length < MIN_RECORD_SIZE_FOR_PARALLEL_DECODE) {
+            return decodeRecordNow(kafkaRecord);
+        }
+        return CompletableFuture.supplyAsync(() -> decodeRecordNow(kafkaRecord), decodeExecutor)
+            .thenCompose(f -> f);
+    }
+
+    private static CompletableFuture<TrafficStream> decodeRecordNow(ConsumerRecord<String, byte[]> kafkaRecord) {
+        try {
+            // The deserializer hands back a new array for every record, so it's safe to alias
+            return CompletableFuture.completedFuture(
+                TrafficStreamUtils.decompressPayloadsIfNeeded(
+                    TrafficStreamUtils.parseTrafficStreamWithoutCopying(kafkaRecord.value())
+                )
+            );
+        } catch (InvalidProtocolBufferException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Must be called on the consumer's thread, in the order that the records were polled, since keys and
+     * connection shards are tracked in that order.
+     */
+    private ITrafficStreamWithKey finishDecodingRecord(DecodingRecord decodingRecord) {
+        var offsetData = decodingRecord.offsetData;
+        var kafkaRecord = decodingRecord.kafkaRecord;
+        TrafficStream ts;
+        try {
+            ts = decodingRecord.trafficStreamFuture.join();
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof InvalidProtocolBufferException)) {
+                throw e;
+            }
+            // Assume the behavioralPolicy instance does any logging that the host may be interested in
+            RuntimeException recordError = behavioralPolicy.onInvalidKafkaRecord(
+                kafkaRecord,
+                (InvalidProtocolBufferException) e.getCause()
+            );
+            if (recordError != null) {
+                throw recordError;
+            } else {
+                return null;
+            }
+        }
+        var trafficStreamsSoFar = trafficStreamsRead.incrementAndGet();
+        log.atTrace()
+            .setMessage("{}")
+            .addArgument(() -> "Parsed traffic stream #" + trafficStreamsSoFar + ": " + offsetData + " " + ts)
+            .log();
+        var key = makeKey(
+            ts,
+            offsetData,
+            kafkaRecord.key(),
+            kafkaRecord.serializedKeySize() + kafkaRecord.serializedValueSize()
+        );
+        if (partitionsAreConnectionShards) {
+            trackConnectionForShard(offsetData, kafkaRecord.key(), ts);
+        }
+        return new PojoTrafficStreamAndKey(ts, key);
+    }
+
     @Override
     public CommitResult commitTrafficStream(ITrafficStreamKey trafficStreamKey) {
         if (!(trafficStreamKey instanceof TrafficStreamKeyWithKafkaRecordId)) {
@@ -292,6 +588,7 @@ public class KafkaTrafficCaptureSource implements ISimpleTrafficCaptureSource {
         if (isClosed.compareAndSet(false, true)) {
             kafkaExecutor.submit(trackingKafkaConsumer::close).get();
             kafkaExecutor.shutdownNow();
+            decodeExecutor.shutdownNow();
         }
     }
 }
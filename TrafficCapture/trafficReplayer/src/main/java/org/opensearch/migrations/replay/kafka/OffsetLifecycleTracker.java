@@ -1,23 +1,32 @@
 package org.opensearch.migrations.replay.kafka;
 
 import java.util.Optional;
-import java.util.PriorityQueue;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * This uses a PriorityQueue to find the MINIMUM offset that has yet to be 'committed'.
- * This class assumes that add() will be called with ascending offsets and that
- * removeAndReturnNewHead may be called in any order.  removeAndReturnNewHead returns
- * the new commit offset for the partition that this object is associated with.
+ * This tracks the MINIMUM offset that has yet to be 'committed' for a partition.
+ * This class assumes that add() will be called with ascending offsets (from the single
+ * consumer thread) and that removeAndReturnNewHead may be called in any order and from
+ * any thread.  removeAndReturnNewHead returns the new commit offset for the partition
+ * that this object is associated with when the removal advanced it.
  * It's also assumed that callers MUST call removeAndReturnNewHead for every offset
  * that was previously added for commit points to be advanced.
+ *
+ * None of the operations take a lock, so finishing a request never waits on the consumer
+ * thread (or on other finishing requests).  The commit point only ever moves forward, so when
+ * two removals race, the one that observes the larger head is the one that reports it.
  */
 @Slf4j
 class OffsetLifecycleTracker {
-    private final PriorityQueue<Long> pQueue = new PriorityQueue<>();
-    private long cursorHighWatermark;
+    private final ConcurrentSkipListSet<Long> outstandingOffsets = new ConcurrentSkipListSet<>();
+    private final AtomicInteger outstandingCount = new AtomicInteger();
+    private final AtomicLong highestCommitOffsetReported = new AtomicLong(Long.MIN_VALUE);
+    private volatile long cursorHighWatermark = -1;
     final int consumerConnectionGeneration;
 
     OffsetLifecycleTracker(int generation) {
@@ -25,57 +34,63 @@ class OffsetLifecycleTracker {
     }
 
     boolean isEmpty() {
-        return pQueue.isEmpty();
+        return outstandingOffsets.isEmpty();
     }
 
     int size() {
-        return pQueue.size();
+        return outstandingCount.get();
     }
 
     void add(long offset) {
-        synchronized (pQueue) {
-            cursorHighWatermark = offset;
-            pQueue.add(offset);
-        }
+        // the offset must be outstanding before the watermark moves past it, otherwise a concurrent
+        // removal could see an empty set and commit past this offset
+        outstandingOffsets.add(offset);
+        outstandingCount.incrementAndGet();
+        cursorHighWatermark = offset;
     }
 
     Optional<Long> removeAndReturnNewHead(long offsetToRemove) {
-        synchronized (pQueue) {
-            var topCursor = pQueue.peek();
-            if (topCursor == null) {
-                throw new IllegalStateException(
-                    "pQueue looks to have been empty by the time we tried to remove " + offsetToRemove
-                );
-            }
-            var didRemove = pQueue.remove(offsetToRemove);
-            if (!didRemove) {
-                throw new IllegalStateException(
-                    "Expected all live records to have an entry and for them to be removed only once");
-            }
+        if (!outstandingOffsets.remove(offsetToRemove)) {
+            throw new IllegalStateException(
+                "Expected all live records to have an entry and for them to be removed only once (offset="
+                    + offsetToRemove + ")"
+            );
+        }
+        outstandingCount.decrementAndGet();
 
-            if (offsetToRemove == topCursor) {
-                topCursor = Optional.ofNullable(pQueue.peek()).orElse(cursorHighWatermark + 1); // most recent cursor
-                                                                                                // was previously popped
-                log.atDebug()
-                    .setMessage("Commit called for " + offsetToRemove + ", and new topCursor=" + topCursor)
-                    .log();
-                return Optional.of(topCursor);
-            } else {
-                log.atDebug().setMessage("Commit called for " + offsetToRemove + ", but topCursor=" + topCursor).log();
-                return Optional.empty();
-            }
+        // read the watermark before the set so that an offset added in between can't be skipped over
+        var highWatermark = cursorHighWatermark;
+        var lowestOutstanding = outstandingOffsets.ceiling(Long.MIN_VALUE);
+        long newHead = lowestOutstanding != null ? lowestOutstanding : highWatermark + 1;
+        if (newHead <= offsetToRemove) {
+            log.atDebug().setMessage("Commit called for {}, but the head is still {}")
+                .addArgument(offsetToRemove)
+                .addArgument(newHead)
+                .log();
+            return Optional.empty();
         }
+        var previousHead = highestCommitOffsetReported.getAndAccumulate(newHead, Math::max);
+        if (previousHead >= newHead) {
+            log.atDebug().setMessage("Commit called for {}, but a later head ({}) was already reported")
+                .addArgument(offsetToRemove)
+                .addArgument(previousHead)
+                .log();
+            return Optional.empty();
+        }
+        log.atDebug().setMessage("Commit called for {}, and new topCursor={}")
+            .addArgument(offsetToRemove)
+            .addArgument(newHead)
+            .log();
+        return Optional.of(newHead);
     }
 
     @Override
     public String toString() {
-        synchronized (pQueue) {
-            return new StringJoiner(", ", OffsetLifecycleTracker.class.getSimpleName() + "[", "]").add(
-                "pQueue=" + pQueue
-            )
-                .add("cursorHighWatermark=" + cursorHighWatermark)
-                .add("consumerConnectionGeneration=" + consumerConnectionGeneration)
-                .toString();
-        }
+        return new StringJoiner(", ", OffsetLifecycleTracker.class.getSimpleName() + "[", "]").add(
+            "outstandingOffsets=" + outstandingOffsets
+        )
+            .add("cursorHighWatermark=" + cursorHighWatermark)
+            .add("consumerConnectionGeneration=" + consumerConnectionGeneration)
+            .toString();
     }
 }
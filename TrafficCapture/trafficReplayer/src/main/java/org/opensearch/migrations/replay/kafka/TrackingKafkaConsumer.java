@@ -8,8 +8,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.PriorityQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
@@ -34,6 +34,7 @@ import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.event.Level;
 
@@ -42,6 +43,13 @@ import org.slf4j.event.Level;
  * and their current (asynchronously 'committed' by the calling contexts) offsets.  It
  * manages those offsets and the 'active' set of records that have been rendered by this
  * consumer, when to pause a poll loop(), and how to deal with consumer rebalances.
+ *
+ * Offsets that are ready to be committed accumulate (per partition, keeping only the latest)
+ * until the commit interval has elapsed or until enough records have finished, at which point
+ * they're sent with commitAsync from the consumer's thread.  Only one commit is outstanding at
+ * a time so that commits can't be reordered.  When one fails, its offsets are merged back into
+ * the pending set and retried on the next opportunity, after a backoff.  Revocations and close()
+ * still commit synchronously since the partitions are about to be handed to another consumer.
  */
 @Slf4j
 public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
@@ -86,6 +94,18 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
      */
     public static final int POLL_TIMEOUT_KEEP_ALIVE_DIVISOR = 4;
 
+    public static final Duration DEFAULT_COMMIT_INTERVAL = Duration.ofSeconds(1);
+    public static final int DEFAULT_MAX_RECORDS_PER_COMMIT = 1000;
+    /**
+     * How long to wait before trying again after a commit failed
+     */
+    public static final Duration COMMIT_RETRY_BACKOFF = Duration.ofSeconds(1);
+    /**
+     * The least amount of time to let pass between touches that are only being made to send
+     * commits or to collect their results (commitAsync callbacks only run within consumer calls).
+     */
+    public static final Duration MIN_COMMIT_TOUCH_INTERVAL = Duration.ofMillis(100);
+
     @NonNull
     private final RootReplayerContext globalContext;
     private final Consumer<String, byte[]> kafkaConsumer;
@@ -99,16 +119,28 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
      * the generations of each OffsetLifecycleTracker value may be different.
      */
     final Map<Integer, OffsetLifecycleTracker> partitionToOffsetLifecycleTrackerMap;
-    private final Object commitDataLock = new Object();
     // loosening visibility so that a unit test can read this
-    final Map<TopicPartition, OffsetAndMetadata> nextSetOfCommitsMap;
-    final Map<TopicPartition, PriorityQueue<OrderedKeyHolder>> nextSetOfKeysContextsBeingCommitted;
+    final ConcurrentHashMap<TopicPartition, OffsetAndMetadata> nextSetOfCommitsMap;
+    final ConcurrentHashMap<TopicPartition, PriorityBlockingQueue<OrderedKeyHolder>> nextSetOfKeysContextsBeingCommitted;
     final java.util.function.Consumer<ITrafficStreamKey> onCommitKeyCallback;
+    /**
+     * Called (on the consumer's thread) after the bookkeeping for revoked partitions has been discarded.
+     */
+    private final java.util.function.Consumer<Collection<TopicPartition>> onPartitionsRevokedCallback;
     private final Duration keepAliveInterval;
     private final AtomicReference<Instant> lastTouchTimeRef;
     private final AtomicInteger consumerConnectionGeneration;
     private final AtomicInteger kafkaRecordsLeftToCommitEventually;
-    private final AtomicBoolean kafkaRecordsReadyToCommit;
+    private final Duration commitInterval;
+    private final int maxRecordsPerCommit;
+    /**
+     * How many records have finished (in any order) since the last commit was sent
+     */
+    private final AtomicInteger recordsFinishedSinceLastCommit;
+    // The following are only written from the consumer's thread
+    private volatile boolean commitInFlight;
+    private volatile boolean lastCommitFailed;
+    private volatile Instant lastCommitAttemptTime;
 
     public TrackingKafkaConsumer(
         @NonNull RootReplayerContext globalContext,
@@ -117,20 +149,60 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
         Duration keepAliveInterval,
         Clock c,
         java.util.function.Consumer<ITrafficStreamKey> onCommitKeyCallback
+    ) {
+        this(globalContext, kafkaConsumer, topic, keepAliveInterval, c, onCommitKeyCallback, partitions -> {});
+    }
+
+    public TrackingKafkaConsumer(
+        @NonNull RootReplayerContext globalContext,
+        Consumer<String, byte[]> kafkaConsumer,
+        String topic,
+        Duration keepAliveInterval,
+        Clock c,
+        java.util.function.Consumer<ITrafficStreamKey> onCommitKeyCallback,
+        @NonNull java.util.function.Consumer<Collection<TopicPartition>> onPartitionsRevokedCallback
+    ) {
+        this(
+            globalContext,
+            kafkaConsumer,
+            topic,
+            keepAliveInterval,
+            c,
+            onCommitKeyCallback,
+            onPartitionsRevokedCallback,
+            DEFAULT_COMMIT_INTERVAL,
+            DEFAULT_MAX_RECORDS_PER_COMMIT
+        );
+    }
+
+    public TrackingKafkaConsumer(
+        @NonNull RootReplayerContext globalContext,
+        Consumer<String, byte[]> kafkaConsumer,
+        String topic,
+        Duration keepAliveInterval,
+        Clock c,
+        java.util.function.Consumer<ITrafficStreamKey> onCommitKeyCallback,
+        @NonNull java.util.function.Consumer<Collection<TopicPartition>> onPartitionsRevokedCallback,
+        @NonNull Duration commitInterval,
+        int maxRecordsPerCommit
     ) {
         this.globalContext = globalContext;
         this.kafkaConsumer = kafkaConsumer;
         this.topic = topic;
         this.clock = c;
-        this.partitionToOffsetLifecycleTrackerMap = new HashMap<>();
-        this.nextSetOfCommitsMap = new HashMap<>();
-        this.nextSetOfKeysContextsBeingCommitted = new HashMap<>();
+        this.partitionToOffsetLifecycleTrackerMap = new ConcurrentHashMap<>();
+        this.nextSetOfCommitsMap = new ConcurrentHashMap<>();
+        this.nextSetOfKeysContextsBeingCommitted = new ConcurrentHashMap<>();
         this.lastTouchTimeRef = new AtomicReference<>(Instant.EPOCH);
         consumerConnectionGeneration = new AtomicInteger();
         kafkaRecordsLeftToCommitEventually = new AtomicInteger();
-        kafkaRecordsReadyToCommit = new AtomicBoolean();
+        recordsFinishedSinceLastCommit = new AtomicInteger();
+        this.commitInterval = commitInterval;
+        this.maxRecordsPerCommit = maxRecordsPerCommit;
+        this.lastCommitAttemptTime = Instant.EPOCH;
         this.keepAliveInterval = keepAliveInterval;
         this.onCommitKeyCallback = onCommitKeyCallback;
+        this.onPartitionsRevokedCallback = onPartitionsRevokedCallback;
     }
 
     @Override
@@ -141,26 +213,23 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
         }
 
         new KafkaConsumerContexts.AsyncListeningContext(globalContext).onPartitionsRevoked(partitions);
-        synchronized (commitDataLock) {
-            safeCommit(globalContext::createCommitContext);
-            partitions.forEach(p -> {
-                var tp = new TopicPartition(topic, p.partition());
-                nextSetOfCommitsMap.remove(tp);
-                nextSetOfKeysContextsBeingCommitted.remove(tp);
-                partitionToOffsetLifecycleTrackerMap.remove(p.partition());
-            });
-            kafkaRecordsLeftToCommitEventually.set(
-                partitionToOffsetLifecycleTrackerMap.values().stream().mapToInt(OffsetLifecycleTracker::size).sum()
-            );
-            kafkaRecordsReadyToCommit.set(!nextSetOfCommitsMap.values().isEmpty());
-            log.atWarn()
-                .setMessage(
-                    () -> this
-                        + " partitions revoked for "
-                        + partitions.stream().map(String::valueOf).collect(Collectors.joining(","))
-                )
-                .log();
-        }
+        commitPendingOffsetsSynchronously(globalContext::createCommitContext);
+        partitions.forEach(p -> {
+            var tp = new TopicPartition(topic, p.partition());
+            // drop the tracker first so that any commitKafkaKey() racing with this will see that it's stale
+            partitionToOffsetLifecycleTrackerMap.remove(p.partition());
+            nextSetOfCommitsMap.remove(tp);
+            nextSetOfKeysContextsBeingCommitted.remove(tp);
+        });
+        updateRecordsLeftToCommit();
+        log.atWarn()
+            .setMessage(
+                () -> this
+                    + " partitions revoked for "
+                    + partitions.stream().map(String::valueOf).collect(Collectors.joining(","))
+            )
+            .log();
+        onPartitionsRevokedCallback.accept(partitions);
     }
 
     @Override
@@ -171,40 +240,45 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
         }
 
         new KafkaConsumerContexts.AsyncListeningContext(globalContext).onPartitionsAssigned(newPartitions);
-        synchronized (commitDataLock) {
-            consumerConnectionGeneration.incrementAndGet();
-            newPartitions.forEach(
-                p -> partitionToOffsetLifecycleTrackerMap.computeIfAbsent(
-                    p.partition(),
-                    x -> new OffsetLifecycleTracker(consumerConnectionGeneration.get())
-                )
-            );
-            log.atInfo()
-                .setMessage(
-                    () -> this
-                        + " partitions added for "
-                        + newPartitions.stream().map(String::valueOf).collect(Collectors.joining(","))
-                )
-                .log();
-        }
+        var generation = consumerConnectionGeneration.incrementAndGet();
+        newPartitions.forEach(
+            p -> partitionToOffsetLifecycleTrackerMap.computeIfAbsent(
+                p.partition(),
+                x -> new OffsetLifecycleTracker(generation)
+            )
+        );
+        log.atInfo()
+            .setMessage(
+                () -> this
+                    + " partitions added for "
+                    + newPartitions.stream().map(String::valueOf).collect(Collectors.joining(","))
+            )
+            .log();
     }
 
+    /**
+     * Must only be called from the consumer's thread.  Kafka's consumer only commits the offsets that it
+     * tracks itself (with auto-commit) upon close, so the offsets that are still pending here are committed
+     * synchronously first.  Otherwise, their records would be replayed again after a restart.
+     */
     public void close() {
         log.atInfo()
-            .setMessage(
-                () -> "Kafka consumer closing.  "
-                    + "Committing (implicitly by Kafka's consumer): "
-                    + nextCommitsToString()
-            )
+            .setMessage(() -> "Kafka consumer closing.  Committing: " + nextCommitsToString())
             .log();
-        kafkaConsumer.close();
+        try {
+            commitPendingOffsetsSynchronously(globalContext::createCommitContext);
+        } finally {
+            kafkaConsumer.close();
+        }
     }
 
     public Optional<Instant> getNextRequiredTouch() {
         var lastTouchTime = lastTouchTimeRef.get();
-        var r = kafkaRecordsLeftToCommitEventually.get() == 0
+        var r = kafkaRecordsLeftToCommitEventually.get() == 0 && !commitInFlight
             ? Optional.<Instant>empty()
-            : Optional.of(kafkaRecordsReadyToCommit.get() ? Instant.now() : lastTouchTime.plus(keepAliveInterval));
+            : Optional.of(getNextCommitTouchTime(lastTouchTime)
+                .filter(t -> t.isBefore(lastTouchTime.plus(keepAliveInterval)))
+                .orElse(lastTouchTime.plus(keepAliveInterval)));
         log.atTrace()
             .setMessage(
                 () -> "returning next required touch at "
@@ -243,11 +317,37 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
             } finally {
                 resume();
             }
-            safeCommit(context::createCommitContext);
+            maybeCommitAsync(context::createCommitContext);
             lastTouchTimeRef.set(clock.instant());
         }
     }
 
+    /**
+     * Returns when a touch would next be useful to send (or to collect the results of) a commit, if
+     * there's anything to commit.
+     */
+    private Optional<Instant> getNextCommitTouchTime(Instant lastTouchTime) {
+        var earliestTouch = lastTouchTime.plus(MIN_COMMIT_TOUCH_INTERVAL);
+        if (commitInFlight) {
+            return Optional.of(earliestTouch);
+        } else if (nextSetOfCommitsMap.isEmpty()) {
+            return Optional.empty();
+        }
+        var commitTime = getNextCommitTime();
+        return Optional.of(commitTime.isAfter(earliestTouch) ? commitTime : earliestTouch);
+    }
+
+    private Instant getNextCommitTime() {
+        if (lastCommitFailed) {
+            var retryDelay = commitInterval.compareTo(COMMIT_RETRY_BACKOFF) > 0 ? commitInterval : COMMIT_RETRY_BACKOFF;
+            return lastCommitAttemptTime.plus(retryDelay);
+        } else if (recordsFinishedSinceLastCommit.get() >= maxRecordsPerCommit) {
+            return Instant.EPOCH;
+        } else {
+            return lastCommitAttemptTime.plus(commitInterval);
+        }
+    }
+
     private void pause() {
         var activePartitions = kafkaConsumer.assignment();
         try {
@@ -309,9 +409,9 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
         ITrafficSourceContexts.IReadChunkContext context,
         BiFunction<KafkaCommitOffsetData, ConsumerRecord<String, byte[]>, T> builder
     ) {
-        safeCommit(context::createCommitContext);
+        maybeCommitAsync(context::createCommitContext);
         var records = safePollWithSwallowedRuntimeExceptions(context);
-        safeCommit(context::createCommitContext);
+        maybeCommitAsync(context::createCommitContext);
         return applyBuilder(builder, records);
     }
 
@@ -387,11 +487,11 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
         }
     }
 
+    /**
+     * This may be called from any thread.  It never blocks on the consumer's thread.
+     */
     ITrafficCaptureSource.CommitResult commitKafkaKey(ITrafficStreamKey streamKey, KafkaCommitOffsetData kafkaTsk) {
-        OffsetLifecycleTracker tracker;
-        synchronized (commitDataLock) {
-            tracker = partitionToOffsetLifecycleTrackerMap.get(kafkaTsk.getPartition());
-        }
+        var tracker = partitionToOffsetLifecycleTrackerMap.get(kafkaTsk.getPartition());
         if (tracker == null || tracker.consumerConnectionGeneration != kafkaTsk.getGeneration()) {
             log.atWarn()
                 .setMessage(
@@ -414,21 +514,24 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
 
         var k = new TopicPartition(topic, p);
 
+        addKeyContextForEventualCommit(streamKey, kafkaTsk, k);
+        recordsFinishedSinceLastCommit.incrementAndGet();
         newHeadValue = tracker.removeAndReturnNewHead(kafkaTsk.getOffset());
         return newHeadValue.map(o -> {
             var v = new OffsetAndMetadata(o);
             log.atDebug().setMessage(() -> "Adding new commit " + k + "->" + v + " to map").log();
-            synchronized (commitDataLock) {
-                addKeyContextForEventualCommit(streamKey, kafkaTsk, k);
-                nextSetOfCommitsMap.put(k, v);
+            nextSetOfCommitsMap.merge(k, v, TrackingKafkaConsumer::laterOffset);
+            if (partitionToOffsetLifecycleTrackerMap.get(p) != tracker) {
+                // the partition was revoked while this was being added.  Don't leave a stale commit behind.
+                nextSetOfCommitsMap.remove(k, v);
+                return ITrafficCaptureSource.CommitResult.IGNORED;
             }
             return ITrafficCaptureSource.CommitResult.AFTER_NEXT_READ;
-        }).orElseGet(() -> {
-            synchronized (commitDataLock) {
-                addKeyContextForEventualCommit(streamKey, kafkaTsk, k);
-            }
-            return ITrafficCaptureSource.CommitResult.BLOCKED_BY_OTHER_COMMITS;
-        });
+        }).orElse(ITrafficCaptureSource.CommitResult.BLOCKED_BY_OTHER_COMMITS);
+    }
+
+    private static OffsetAndMetadata laterOffset(OffsetAndMetadata a, OffsetAndMetadata b) {
+        return a.offset() >= b.offset() ? a : b;
     }
 
     private void addKeyContextForEventualCommit(
@@ -436,83 +539,135 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
         KafkaCommitOffsetData kafkaTsk,
         TopicPartition k
     ) {
-        nextSetOfKeysContextsBeingCommitted.computeIfAbsent(k, k2 -> new PriorityQueue<>())
+        nextSetOfKeysContextsBeingCommitted.computeIfAbsent(k, k2 -> new PriorityBlockingQueue<>())
             .add(new OrderedKeyHolder(kafkaTsk.getOffset(), streamKey));
     }
 
-    private void safeCommit(Supplier<IKafkaConsumerContexts.ICommitScopeContext> commitContextSupplier) {
-        HashMap<TopicPartition, OffsetAndMetadata> nextCommitsMapCopy;
-        IKafkaConsumerContexts.ICommitScopeContext context = null;
-        synchronized (commitDataLock) {
-            if (nextSetOfCommitsMap.isEmpty()) {
-                return;
+    /**
+     * Removes the pending commits for partitions that are still assigned and returns them.  An entry that
+     * is replaced with a later offset while this is running stays pending for the next commit.
+     */
+    private HashMap<TopicPartition, OffsetAndMetadata> takePendingCommits() {
+        var commits = new HashMap<TopicPartition, OffsetAndMetadata>();
+        nextSetOfCommitsMap.forEach((tp, offset) -> {
+            if (partitionToOffsetLifecycleTrackerMap.containsKey(tp.partition())) {
+                commits.put(tp, offset);
             }
-            context = commitContextSupplier.get();
-            nextCommitsMapCopy = new HashMap<>(nextSetOfCommitsMap);
+            nextSetOfCommitsMap.remove(tp, offset);
+        });
+        return commits;
+    }
+
+    /**
+     * Must only be called from the consumer's thread.  Sends the pending commits if no other commit
+     * is outstanding and the commit interval has passed (or enough records have finished).
+     */
+    private void maybeCommitAsync(Supplier<IKafkaConsumerContexts.ICommitScopeContext> commitContextSupplier) {
+        if (commitInFlight || nextSetOfCommitsMap.isEmpty() || clock.instant().isBefore(getNextCommitTime())) {
+            return;
         }
-        try {
-            safeCommitStatic(context, kafkaConsumer, nextCommitsMapCopy);
-            synchronized (commitDataLock) {
-                nextCommitsMapCopy.entrySet()
-                    .stream()
-                    .forEach(
-                        kvp -> callbackUpTo(
-                            onCommitKeyCallback,
-                            nextSetOfKeysContextsBeingCommitted.get(kvp.getKey()),
-                            kvp.getValue().offset()
-                        )
-                    );
-                nextCommitsMapCopy.forEach((k, v) -> nextSetOfCommitsMap.remove(k));
+        var commits = takePendingCommits();
+        if (commits.isEmpty()) {
+            return;
+        }
+        commitInFlight = true;
+        lastCommitAttemptTime = clock.instant();
+        recordsFinishedSinceLastCommit.set(0);
+        var context = commitContextSupplier.get();
+        var kafkaContext = context.createNewKafkaCommitContext();
+        log.atDebug().setMessage(() -> "Committing (async) " + commits).log();
+        OffsetCommitCallback callback = (offsets, e) -> {
+            kafkaContext.close();
+            context.close();
+            commitInFlight = false;
+            if (e == null) {
+                onCommitSucceeded(commits);
+            } else {
+                onCommitFailed(commits, e);
             }
-            // This function will only ever be called in a threadsafe way, mutually exclusive from any
-            // other call other than commitKafkaKey(). Since commitKafkaKey() doesn't alter
-            // partitionToOffsetLifecycleTrackerMap, these lines can be outside of the commitDataLock mutex
-            log.trace("partitionToOffsetLifecycleTrackerMap=" + partitionToOffsetLifecycleTrackerMap);
-            kafkaRecordsLeftToCommitEventually.set(
-                partitionToOffsetLifecycleTrackerMap.values().stream().mapToInt(OffsetLifecycleTracker::size).sum()
-            );
-            log.atDebug()
-                .setMessage(() -> "Done committing now records in flight=" + kafkaRecordsLeftToCommitEventually.get())
-                .log();
+        };
+        try {
+            kafkaConsumer.commitAsync(commits, callback);
         } catch (RuntimeException e) {
-            log.atWarn()
-                .setCause(e)
-                .setMessage(
-                    () -> "Error while committing.  "
-                        + "Another consumer may already be processing messages before these commits.  "
-                        + "Commits ARE NOT being discarded here, with the expectation that the revoked callback "
-                        + "(onPartitionsRevoked) will be called.  "
-                        + "Within that method, commits for unassigned partitions will be discarded.  "
-                        + "After that, touch() or poll() will trigger another commit attempt."
-                        + "Those calls will occur in the near future if assigned partitions have pending commits."
-                        + nextSetOfCommitsMap.entrySet()
-                            .stream()
-                            .map(kvp -> kvp.getKey() + "->" + kvp.getValue())
-                            .collect(Collectors.joining(","))
-                )
-                .log();
-        } finally {
-            if (context != null) {
-                context.close();
-            }
+            callback.onComplete(commits, e);
         }
     }
 
-    private static void safeCommitStatic(
-        IKafkaConsumerContexts.ICommitScopeContext context,
-        Consumer<String, byte[]> kafkaConsumer,
-        HashMap<TopicPartition, OffsetAndMetadata> nextCommitsMap
+    private void commitPendingOffsetsSynchronously(
+        Supplier<IKafkaConsumerContexts.ICommitScopeContext> commitContextSupplier
     ) {
-        assert !nextCommitsMap.isEmpty();
-        log.atDebug().setMessage(() -> "Committing " + nextCommitsMap).log();
-        try (var kafkaContext = context.createNewKafkaCommitContext()) {
-            kafkaConsumer.commitSync(nextCommitsMap);
+        if (nextSetOfCommitsMap.isEmpty()) {
+            return;
         }
+        var commits = takePendingCommits();
+        if (commits.isEmpty()) {
+            return;
+        }
+        var context = commitContextSupplier.get();
+        try {
+            log.atDebug().setMessage(() -> "Committing " + commits).log();
+            try (var kafkaContext = context.createNewKafkaCommitContext()) {
+                kafkaConsumer.commitSync(commits);
+            }
+            onCommitSucceeded(commits);
+        } catch (RuntimeException e) {
+            onCommitFailed(commits, e);
+        } finally {
+            context.close();
+        }
+    }
+
+    private void onCommitSucceeded(Map<TopicPartition, OffsetAndMetadata> commits) {
+        lastCommitFailed = false;
+        commits.forEach((tp, offset) -> {
+            var keyHolders = nextSetOfKeysContextsBeingCommitted.get(tp);
+            if (keyHolders != null) {
+                callbackUpTo(onCommitKeyCallback, keyHolders, offset.offset());
+            }
+        });
+        log.trace("partitionToOffsetLifecycleTrackerMap=" + partitionToOffsetLifecycleTrackerMap);
+        updateRecordsLeftToCommit();
+        log.atDebug()
+            .setMessage(() -> "Done committing now records in flight=" + kafkaRecordsLeftToCommitEventually.get())
+            .log();
+    }
+
+    private void onCommitFailed(Map<TopicPartition, OffsetAndMetadata> commits, Exception e) {
+        lastCommitFailed = true;
+        // put the offsets back (unless a later one has shown up since) so that they're retried.  Ones for
+        // partitions that have been revoked in the meantime are dropped since they belong to another consumer now.
+        commits.forEach((tp, offset) -> {
+            if (partitionToOffsetLifecycleTrackerMap.containsKey(tp.partition())) {
+                nextSetOfCommitsMap.merge(tp, offset, TrackingKafkaConsumer::laterOffset);
+            }
+        });
+        log.atWarn()
+            .setCause(e)
+            .setMessage(
+                () -> "Error while committing.  "
+                    + "Another consumer may already be processing messages before these commits.  "
+                    + "Commits ARE NOT being discarded here, with the expectation that the revoked callback "
+                    + "(onPartitionsRevoked) will be called.  "
+                    + "Within that method, commits for unassigned partitions will be discarded.  "
+                    + "After that, touch() or poll() will trigger another commit attempt (after a backoff)."
+                    + "Those calls will occur in the near future if assigned partitions have pending commits."
+                    + nextSetOfCommitsMap.entrySet()
+                        .stream()
+                        .map(kvp -> kvp.getKey() + "->" + kvp.getValue())
+                        .collect(Collectors.joining(","))
+            )
+            .log();
+    }
+
+    private void updateRecordsLeftToCommit() {
+        kafkaRecordsLeftToCommitEventually.set(
+            partitionToOffsetLifecycleTrackerMap.values().stream().mapToInt(OffsetLifecycleTracker::size).sum()
+        );
     }
 
     private static void callbackUpTo(
         java.util.function.Consumer<ITrafficStreamKey> onCommitKeyCallback,
-        PriorityQueue<OrderedKeyHolder> orderedKeyHolders,
+        PriorityBlockingQueue<OrderedKeyHolder> orderedKeyHolders,
         long upToOffset
     ) {
         for (var nextKeyHolder = orderedKeyHolders.peek(); nextKeyHolder != null
@@ -532,20 +687,19 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
 
     @Override
     public String toString() {
-        synchronized (commitDataLock) {
-            int partitionCount = partitionToOffsetLifecycleTrackerMap.size();
-            int commitsPending = nextSetOfCommitsMap.size();
-            int recordsLeftToCommit = kafkaRecordsLeftToCommitEventually.get();
-            boolean recordsReadyToCommit = kafkaRecordsReadyToCommit.get();
-            return String.format(
-                "TrackingKafkaConsumer{topic='%s', partitionCount=%d, commitsPending=%d, "
-                    + "recordsLeftToCommit=%d, recordsReadyToCommit=%b}",
-                topic,
-                partitionCount,
-                commitsPending,
-                recordsLeftToCommit,
-                recordsReadyToCommit
-            );
-        }
+        int partitionCount = partitionToOffsetLifecycleTrackerMap.size();
+        int commitsPending = nextSetOfCommitsMap.size();
+        int recordsLeftToCommit = kafkaRecordsLeftToCommitEventually.get();
+        boolean recordsReadyToCommit = !nextSetOfCommitsMap.isEmpty();
+        return String.format(
+            "TrackingKafkaConsumer{topic='%s', partitionCount=%d, commitsPending=%d, "
+                + "recordsLeftToCommit=%d, recordsReadyToCommit=%b, commitInFlight=%b}",
+            topic,
+            partitionCount,
+            commitsPending,
+            recordsLeftToCommit,
+            recordsReadyToCommit,
+            commitInFlight
+        );
     }
 }
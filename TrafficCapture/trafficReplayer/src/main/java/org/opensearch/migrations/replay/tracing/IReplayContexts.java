@@ -1,5 +1,6 @@
 package org.opensearch.migrations.replay.tracing;
 
+import java.time.Duration;
 import java.time.Instant;
 
 import org.opensearch.migrations.replay.datatypes.ISourceTrafficChannelKey;
@@ -23,6 +24,7 @@ public interface IReplayContexts {
         public static final String HTTP_TRANSACTION = "httpTransaction";
         public static final String ACCUMULATING_REQUEST = "accumulatingRequest";
         public static final String ACCUMULATING_RESPONSE = "accumulatingResponse";
+        public static final String QUEUED_FOR_TRANSFORMATION = "queuedForTransformation";
         public static final String TRANSFORMATION = "transformation";
         public static final String SCHEDULED = "scheduled";
         public static final String TARGET_TRANSACTION = "targetTransaction";
@@ -58,6 +60,20 @@ public interface IReplayContexts {
         public static final String TRANSFORM_BYTES_OUT = "transformBytesOut";
         public static final String TRANSFORM_CHUNKS_IN = "transformChunksIn";
         public static final String TRANSFORM_CHUNKS_OUT = "transformChunksOut";
+        public static final String TRANSFORMATION_QUEUE_DEPTH = "transformationQueueDepth";
+        public static final String REPLAY_SOURCE_LAG = "replaySourceLag";
+        public static final String REPLAY_RATE_MULTIPLIER = "replayRateMultiplier";
+        public static final String ADMITTED_REQUEST_BYTES = "admittedRequestBytes";
+        public static final String WAITING_REQUEST_BYTES = "waitingRequestBytes";
+        public static final String WAITING_REQUESTS = "waitingRequests";
+        public static final String POOLED_TARGET_CONNECTIONS = "pooledTargetConnections";
+        public static final String LEASED_TARGET_CONNECTIONS = "leasedTargetConnections";
+        public static final String TARGET_CONNECTION_POOL_WAITERS = "targetConnectionPoolWaiters";
+        public static final String TARGET_CONNECTION_POOL_WAITS = "targetConnectionPoolWaits";
+        public static final String TARGET_CONNECTION_POOL_WAIT_TIME = "targetConnectionPoolWaitTime";
+        public static final String TRANSFORMATION_CACHE_HITS = "transformationCacheHits";
+        public static final String TRANSFORMATION_CACHE_MISSES = "transformationCacheMisses";
+        public static final String TRANSFORMATION_CACHE_BYTES = "transformationCacheBytes";
         public static final String NETTY_SCHEDULE_LAG = "scheduleLag";
         public static final String NUM_REQUEST_RETRIES = "numRetriedRequests";
         public static final String SOURCE_TO_TARGET_REQUEST_LAG = "lagBetweenSourceAndTargetRequests";
@@ -69,6 +85,10 @@ public interface IReplayContexts {
         public static final String BYTES_WRITTEN_TO_TARGET = "bytesWrittenToTarget";
         public static final String BYTES_READ_FROM_TARGET = "bytesReadFromTarget";
         public static final String TUPLE_COMPARISON = "tupleComparison";
+        public static final String TUPLE_COMPARISON_RESULT = "tupleComparisonResult";
+        public static final String SOURCE_TARGET_LATENCY_DELTA = "sourceTargetLatencyDelta";
+        public static final String SEARCH_HIT_COUNT_DIFFERENCE = "searchHitCountDifference";
+        public static final String BULK_ITEM_MISMATCHES = "bulkItemMismatches";
     }
 
     interface IAccumulationScope extends IScopedInstrumentationAttributes {}
@@ -206,6 +226,8 @@ public interface IReplayContexts {
 
         IResponseAccumulationContext createResponseAccumulationContext();
 
+        ITransformationQueuedContext createTransformationQueuedContext();
+
         IRequestTransformationContext createTransformationContext();
 
         IScheduledContext createScheduledContext(Instant timestamp);
@@ -239,6 +261,21 @@ public interface IReplayContexts {
         }
     }
 
+    /**
+     * Covers the time that a request spends waiting for a thread from the dedicated transformation pool.
+     */
+    interface ITransformationQueuedContext
+        extends
+            IAccumulationScope,
+            IWithTypedEnclosingScope<IReplayerHttpTransactionContext> {
+        String ACTIVITY_NAME = ActivityNames.QUEUED_FOR_TRANSFORMATION;
+
+        @Override
+        default String getActivityName() {
+            return ACTIVITY_NAME;
+        }
+    }
+
     interface IRequestTransformationContext
         extends
             IAccumulationScope,
@@ -380,6 +417,9 @@ public interface IReplayContexts {
         AttributeKey<String> METHOD_KEY = AttributeKey.stringKey("method");
         AttributeKey<String> HTTP_VERSION_KEY = AttributeKey.stringKey("version"); // for the span, not metric
         AttributeKey<String> ENDPOINT_KEY = AttributeKey.stringKey("endpoint"); // for the span, not metric
+        AttributeKey<String> ENDPOINT_CATEGORY_KEY = AttributeKey.stringKey("endpointCategory");
+        AttributeKey<Boolean> TUPLE_MATCHED_KEY = AttributeKey.booleanKey("tupleMatched");
+        AttributeKey<Boolean> TARGET_SLOWER_KEY = AttributeKey.booleanKey("targetSlower");
 
         @Override
         default String getActivityName() {
@@ -396,6 +436,19 @@ public interface IReplayContexts {
 
         void setHttpVersion(String string);
 
+        /**
+         * The remaining methods are for the online comparison of source and target responses.  The endpoint
+         * category is a low-cardinality form of the request path (e.g. "_search") that the results are
+         * aggregated by.
+         */
+        void onComparisonFinished(String endpointCategory, boolean matched);
+
+        void onLatencyCompared(String endpointCategory, Duration sourceLatency, Duration targetLatency);
+
+        void onSearchHitCountsCompared(String endpointCategory, long sourceHitCount, long targetHitCount);
+
+        void onBulkItemsCompared(int mismatchedItems);
+
         default UniqueReplayerRequestKey getReplayerRequestKey() {
             return getLogicalEnclosingScope().getReplayerRequestKey();
         }
@@ -1,5 +1,8 @@
 package org.opensearch.migrations.replay.tracing;
 
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
 import org.opensearch.migrations.replay.datatypes.ISourceTrafficChannelKey;
 import org.opensearch.migrations.tracing.IInstrumentConstructor;
 import org.opensearch.migrations.tracing.IRootOtelContext;
@@ -9,4 +12,40 @@ public interface IRootReplayerContext extends IRootOtelContext, IInstrumentConst
     ITrafficSourceContexts.IReadChunkContext createReadChunkContext();
 
     IReplayContexts.IChannelKeyContext createChannelContext(ISourceTrafficChannelKey tsk);
+
+    /**
+     * Registers gauges for how far (in milliseconds) the replay schedule is behind the source (the TimeShifter's
+     * offset, which excludes time spent waiting on the target) and for the rate that the replay is running at
+     * relative to the source.  Closing the returned value unregisters them.
+     */
+    AutoCloseable registerReplayPacingGauges(LongSupplier sourceLagMillisSupplier, DoubleSupplier rateSupplier);
+
+    AutoCloseable registerTrafficStreamLimiterGauges(
+        LongSupplier inUseBytesSupplier,
+        LongSupplier waitingBytesSupplier,
+        LongSupplier waitingItemsSupplier
+    );
+
+    /**
+     * Registers gauges for how many target connections are open and leased across the pools that requests are
+     * multiplexed onto, how many requests are waiting for a connection, and counters for how many requests have
+     * had to wait and for how long in total.  Closing the returned value unregisters them.
+     */
+    AutoCloseable registerTargetConnectionPoolGauges(
+        LongSupplier openConnectionsSupplier,
+        LongSupplier leasedConnectionsSupplier,
+        LongSupplier waitingRequestsSupplier,
+        LongSupplier totalWaitsSupplier,
+        LongSupplier totalWaitMillisSupplier
+    );
+
+    /**
+     * Registers counters for how many transformed requests were found (or not) in the transformation cache and a
+     * gauge for how many bytes the cache is holding.  Closing the returned value unregisters them.
+     */
+    AutoCloseable registerTransformationCacheGauges(
+        LongSupplier hitsSupplier,
+        LongSupplier missesSupplier,
+        LongSupplier cachedBytesSupplier
+    );
 }
@@ -17,6 +17,7 @@ import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.api.metrics.DoubleHistogram;
 import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
 import io.opentelemetry.api.metrics.LongUpDownCounter;
 import io.opentelemetry.api.metrics.Meter;
 import lombok.Getter;
@@ -319,6 +320,11 @@ public interface ReplayContexts extends IReplayContexts {
             return new ReplayContexts.ResponseAccumulationContext(this);
         }
 
+        @Override
+        public IReplayContexts.ITransformationQueuedContext createTransformationQueuedContext() {
+            return new ReplayContexts.TransformationQueuedContext(this);
+        }
+
         @Override
         public RequestTransformationContext createTransformationContext() {
             return new ReplayContexts.RequestTransformationContext(this);
@@ -392,6 +398,42 @@ public interface ReplayContexts extends IReplayContexts {
         }
     }
 
+    class TransformationQueuedContext extends DirectNestedSpanContext<
+        RootReplayerContext,
+        HttpTransactionContext,
+        IReplayContexts.IReplayerHttpTransactionContext> implements IReplayContexts.ITransformationQueuedContext {
+        public TransformationQueuedContext(HttpTransactionContext enclosingScope) {
+            super(enclosingScope);
+            initializeSpan();
+            meterDeltaEvent(getMetrics().queueDepth, 1);
+        }
+
+        public static class MetricInstruments extends CommonScopedMetricInstruments {
+            final LongUpDownCounter queueDepth;
+
+            private MetricInstruments(Meter meter, String activityName) {
+                super(meter, activityName);
+                queueDepth = meter.upDownCounterBuilder(MetricNames.TRANSFORMATION_QUEUE_DEPTH)
+                    .setUnit(COUNT_UNIT_STR)
+                    .build();
+            }
+        }
+
+        public static @NonNull MetricInstruments makeMetrics(Meter meter) {
+            return new MetricInstruments(meter, ACTIVITY_NAME);
+        }
+
+        public @NonNull MetricInstruments getMetrics() {
+            return getRootInstrumentationScope().transformationQueuedInstruments;
+        }
+
+        @Override
+        public void sendMeterEventsForEnd() {
+            super.sendMeterEventsForEnd();
+            meterDeltaEvent(getMetrics().queueDepth, -1);
+        }
+    }
+
     class RequestTransformationContext extends DirectNestedSpanContext<
         RootReplayerContext,
         HttpTransactionContext,
@@ -795,10 +837,20 @@ public interface ReplayContexts extends IReplayContexts {
 
         public static class MetricInstruments extends CommonScopedMetricInstruments {
             private final LongCounter resultCounter;
+            private final LongCounter comparisonResultCounter;
+            private final DoubleHistogram latencyDelta;
+            private final LongHistogram searchHitCountDifference;
+            private final LongCounter bulkItemMismatches;
 
             private MetricInstruments(Meter meter, String activityName) {
                 super(meter, activityName);
                 resultCounter = meter.counterBuilder(MetricNames.TUPLE_COMPARISON).build();
+                comparisonResultCounter = meter.counterBuilder(MetricNames.TUPLE_COMPARISON_RESULT).build();
+                latencyDelta = meter.histogramBuilder(MetricNames.SOURCE_TARGET_LATENCY_DELTA).setUnit("ms").build();
+                searchHitCountDifference = meter.histogramBuilder(MetricNames.SEARCH_HIT_COUNT_DIFFERENCE)
+                    .ofLongs()
+                    .build();
+                bulkItemMismatches = meter.counterBuilder(MetricNames.BULK_ITEM_MISMATCHES).build();
             }
         }
 
@@ -870,6 +922,45 @@ public interface ReplayContexts extends IReplayContexts {
             setAttribute(HTTP_VERSION_KEY, httpVersion);
         }
 
+        @Override
+        public void onComparisonFinished(String endpointCategory, boolean matched) {
+            meterIncrementEvent(
+                getMetrics().comparisonResultCounter,
+                1,
+                Attributes.builder().put(ENDPOINT_CATEGORY_KEY, endpointCategory).put(TUPLE_MATCHED_KEY, matched)
+            );
+        }
+
+        /**
+         * Histograms can't record negative values, so the size of the difference is recorded along with which
+         * side was slower.
+         */
+        @Override
+        public void onLatencyCompared(String endpointCategory, Duration sourceLatency, Duration targetLatency) {
+            var delta = targetLatency.minus(sourceLatency);
+            meterHistogramMillis(
+                getMetrics().latencyDelta,
+                delta.abs(),
+                Attributes.builder()
+                    .put(ENDPOINT_CATEGORY_KEY, endpointCategory)
+                    .put(TARGET_SLOWER_KEY, delta.compareTo(Duration.ZERO) > 0)
+            );
+        }
+
+        @Override
+        public void onSearchHitCountsCompared(String endpointCategory, long sourceHitCount, long targetHitCount) {
+            meterHistogram(
+                getMetrics().searchHitCountDifference,
+                Math.abs(targetHitCount - sourceHitCount),
+                Attributes.builder().put(ENDPOINT_CATEGORY_KEY, endpointCategory)
+            );
+        }
+
+        @Override
+        public void onBulkItemsCompared(int mismatchedItems) {
+            meterIncrementEvent(getMetrics().bulkItemMismatches, mismatchedItems);
+        }
+
         @Override
         public String toString() {
             return getReplayerRequestKey().toString();
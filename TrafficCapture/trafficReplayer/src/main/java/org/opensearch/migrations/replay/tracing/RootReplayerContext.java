@@ -1,10 +1,14 @@
 package org.opensearch.migrations.replay.tracing;
 
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
 import org.opensearch.migrations.replay.datatypes.ISourceTrafficChannelKey;
 import org.opensearch.migrations.replay.datatypes.ITrafficStreamKey;
 import org.opensearch.migrations.replay.traffic.source.InputStreamOfTraffic;
 import org.opensearch.migrations.tracing.IContextTracker;
 import org.opensearch.migrations.tracing.RootOtelContext;
+import org.opensearch.migrations.tracing.TraceSampling;
 
 import io.opentelemetry.api.OpenTelemetry;
 import lombok.Getter;
@@ -29,6 +33,7 @@ public class RootReplayerContext extends RootOtelContext implements IRootReplaye
     public final ReplayContexts.HttpTransactionContext.MetricInstruments httpTransactionInstruments;
     public final ReplayContexts.RequestAccumulationContext.MetricInstruments requestAccumInstruments;
     public final ReplayContexts.ResponseAccumulationContext.MetricInstruments responseAccumInstruments;
+    public final ReplayContexts.TransformationQueuedContext.MetricInstruments transformationQueuedInstruments;
     public final ReplayContexts.RequestTransformationContext.MetricInstruments transformationInstruments;
     public final ReplayContexts.ScheduledContext.MetricInstruments scheduledInstruments;
     public final ReplayContexts.TargetRequestContext.MetricInstruments targetRequestInstruments;
@@ -40,7 +45,11 @@ public class RootReplayerContext extends RootOtelContext implements IRootReplaye
     public final ReplayContexts.SocketContext.MetricInstruments socketInstruments;
 
     public RootReplayerContext(OpenTelemetry sdk, IContextTracker contextTracker) {
-        super(SCOPE_NAME, contextTracker, sdk);
+        this(sdk, contextTracker, TraceSampling.SAMPLE_EVERYTHING);
+    }
+
+    public RootReplayerContext(OpenTelemetry sdk, IContextTracker contextTracker, TraceSampling traceSampling) {
+        super(SCOPE_NAME, contextTracker, sdk, traceSampling);
         var meter = this.getMeterProvider().get(SCOPE_NAME);
 
         asyncListeningInstruments = KafkaConsumerContexts.AsyncListeningContext.makeMetrics(meter);
@@ -60,6 +69,7 @@ public class RootReplayerContext extends RootOtelContext implements IRootReplaye
         httpTransactionInstruments = ReplayContexts.HttpTransactionContext.makeMetrics(meter);
         requestAccumInstruments = ReplayContexts.RequestAccumulationContext.makeMetrics(meter);
         responseAccumInstruments = ReplayContexts.ResponseAccumulationContext.makeMetrics(meter);
+        transformationQueuedInstruments = ReplayContexts.TransformationQueuedContext.makeMetrics(meter);
         transformationInstruments = ReplayContexts.RequestTransformationContext.makeMetrics(meter);
         scheduledInstruments = ReplayContexts.ScheduledContext.makeMetrics(meter);
         targetRequestInstruments = ReplayContexts.TargetRequestContext.makeMetrics(meter);
@@ -79,6 +89,103 @@ public class RootReplayerContext extends RootOtelContext implements IRootReplaye
         return new ReplayContexts.ChannelKeyContext(this, null, tsk);
     }
 
+    @Override
+    public AutoCloseable registerReplayPacingGauges(
+        LongSupplier sourceLagMillisSupplier,
+        DoubleSupplier rateSupplier
+    ) {
+        var meter = getMeterProvider().get(SCOPE_NAME);
+        var lagGauge = meter.gaugeBuilder(IReplayContexts.MetricNames.REPLAY_SOURCE_LAG)
+            .ofLongs()
+            .setUnit("ms")
+            .buildWithCallback(m -> m.record(sourceLagMillisSupplier.getAsLong()));
+        var rateGauge = meter.gaugeBuilder(IReplayContexts.MetricNames.REPLAY_RATE_MULTIPLIER)
+            .buildWithCallback(m -> m.record(rateSupplier.getAsDouble()));
+        return () -> {
+            lagGauge.close();
+            rateGauge.close();
+        };
+    }
+
+    @Override
+    public AutoCloseable registerTrafficStreamLimiterGauges(
+        LongSupplier inUseBytesSupplier,
+        LongSupplier waitingBytesSupplier,
+        LongSupplier waitingItemsSupplier
+    ) {
+        var meter = getMeterProvider().get(SCOPE_NAME);
+        var inUseBytesGauge = meter.gaugeBuilder(IReplayContexts.MetricNames.ADMITTED_REQUEST_BYTES)
+            .ofLongs()
+            .setUnit(ReplayContexts.BYTES_UNIT_STR)
+            .buildWithCallback(m -> m.record(inUseBytesSupplier.getAsLong()));
+        var waitingBytesGauge = meter.gaugeBuilder(IReplayContexts.MetricNames.WAITING_REQUEST_BYTES)
+            .ofLongs()
+            .setUnit(ReplayContexts.BYTES_UNIT_STR)
+            .buildWithCallback(m -> m.record(waitingBytesSupplier.getAsLong()));
+        var waitingItemsGauge = meter.gaugeBuilder(IReplayContexts.MetricNames.WAITING_REQUESTS)
+            .ofLongs()
+            .buildWithCallback(m -> m.record(waitingItemsSupplier.getAsLong()));
+        return () -> {
+            inUseBytesGauge.close();
+            waitingBytesGauge.close();
+            waitingItemsGauge.close();
+        };
+    }
+
+    @Override
+    public AutoCloseable registerTargetConnectionPoolGauges(
+        LongSupplier openConnectionsSupplier,
+        LongSupplier leasedConnectionsSupplier,
+        LongSupplier waitingRequestsSupplier,
+        LongSupplier totalWaitsSupplier,
+        LongSupplier totalWaitMillisSupplier
+    ) {
+        var meter = getMeterProvider().get(SCOPE_NAME);
+        var openGauge = meter.gaugeBuilder(IReplayContexts.MetricNames.POOLED_TARGET_CONNECTIONS)
+            .ofLongs()
+            .buildWithCallback(m -> m.record(openConnectionsSupplier.getAsLong()));
+        var leasedGauge = meter.gaugeBuilder(IReplayContexts.MetricNames.LEASED_TARGET_CONNECTIONS)
+            .ofLongs()
+            .buildWithCallback(m -> m.record(leasedConnectionsSupplier.getAsLong()));
+        var waitersGauge = meter.gaugeBuilder(IReplayContexts.MetricNames.TARGET_CONNECTION_POOL_WAITERS)
+            .ofLongs()
+            .buildWithCallback(m -> m.record(waitingRequestsSupplier.getAsLong()));
+        var waitsCounter = meter.counterBuilder(IReplayContexts.MetricNames.TARGET_CONNECTION_POOL_WAITS)
+            .buildWithCallback(m -> m.record(totalWaitsSupplier.getAsLong()));
+        var waitTimeCounter = meter.counterBuilder(IReplayContexts.MetricNames.TARGET_CONNECTION_POOL_WAIT_TIME)
+            .setUnit("ms")
+            .buildWithCallback(m -> m.record(totalWaitMillisSupplier.getAsLong()));
+        return () -> {
+            openGauge.close();
+            leasedGauge.close();
+            waitersGauge.close();
+            waitsCounter.close();
+            waitTimeCounter.close();
+        };
+    }
+
+    @Override
+    public AutoCloseable registerTransformationCacheGauges(
+        LongSupplier hitsSupplier,
+        LongSupplier missesSupplier,
+        LongSupplier cachedBytesSupplier
+    ) {
+        var meter = getMeterProvider().get(SCOPE_NAME);
+        var hitsCounter = meter.counterBuilder(IReplayContexts.MetricNames.TRANSFORMATION_CACHE_HITS)
+            .buildWithCallback(m -> m.record(hitsSupplier.getAsLong()));
+        var missesCounter = meter.counterBuilder(IReplayContexts.MetricNames.TRANSFORMATION_CACHE_MISSES)
+            .buildWithCallback(m -> m.record(missesSupplier.getAsLong()));
+        var bytesGauge = meter.gaugeBuilder(IReplayContexts.MetricNames.TRANSFORMATION_CACHE_BYTES)
+            .ofLongs()
+            .setUnit(ReplayContexts.BYTES_UNIT_STR)
+            .buildWithCallback(m -> m.record(cachedBytesSupplier.getAsLong()));
+        return () -> {
+            hitsCounter.close();
+            missesCounter.close();
+            bytesGauge.close();
+        };
+    }
+
     public IKafkaConsumerContexts.ICommitScopeContext createCommitContext() {
         return new KafkaConsumerContexts.CommitScopeContext(this, null);
     }
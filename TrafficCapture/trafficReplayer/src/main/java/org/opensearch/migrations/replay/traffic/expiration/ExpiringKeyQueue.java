@@ -2,82 +2,124 @@ package org.opensearch.migrations.replay.traffic.expiration;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 
-import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * This is a sequence of (concurrent) hashmaps segmented by time.  Each element in the sequence is
- * composed of a timestamp and a map.  The timestamp at each element is guaranteed to be greater
- * than all items within all maps that preceded it.
+ * This is a timer wheel of (concurrent) sets of connection ids, segmented by time.  Each bucket covers one
+ * granularity-wide window, beginning at the starting timestamp plus a whole number of granularities, and the
+ * timestamp at each bucket is guaranteed to be greater than all items within all buckets that preceded it.
+ *
+ * Buckets are found by the number of their window (relative to the starting timestamp), which indexes into
+ * a ring of buckets, so finding the bucket for a timestamp is O(1) and doesn't allocate anything.  The ring
+ * only needs to span the buckets between the oldest unexpired bucket and the newest one and it grows when
+ * that span doesn't fit.
  */
 @Slf4j
-@EqualsAndHashCode(callSuper = true)
-class ExpiringKeyQueue extends ConcurrentSkipListMap<EpochMillis, ConcurrentHashMap<String, Boolean>> {
-    private final Duration granularity;
+class ExpiringKeyQueue {
+    private static final int INITIAL_WHEEL_SIZE = 16;
+
+    private final long granularityMillis;
     private final String partitionId;
+    private final long originMillis;
+
+    private Set<String>[] wheel;
+    private long firstSlot;
+    private long lastSlot;
 
     ExpiringKeyQueue(Duration granularity, String partitionId, EpochMillis startingTimestamp) {
-        this.granularity = granularity;
+        this.granularityMillis = granularity.toMillis();
         this.partitionId = partitionId;
-        addNewSet(startingTimestamp);
+        this.originMillis = startingTimestamp.millis;
+        this.wheel = newWheel(INITIAL_WHEEL_SIZE);
+        wheel[0] = ConcurrentHashMap.newKeySet();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String>[] newWheel(int size) {
+        return new Set[size];
     }
 
-    public Instant getLatestPossibleKeyValue() {
-        return lastKey().toInstant().plus(granularity);
+    private long slotStartMillis(long slot) {
+        return originMillis + slot * granularityMillis;
     }
 
-    private ConcurrentHashMap<String, Boolean> addNewSet(EpochMillis timestampMillis) {
-        var accumulatorMap = new ConcurrentHashMap<String, Boolean>();
-        this.put(timestampMillis, accumulatorMap);
-        return accumulatorMap;
+    private Set<String> getBucket(long slot) {
+        return slot < firstSlot || slot > lastSlot ? null : wheel[(int) (slot & (wheel.length - 1))];
+    }
+
+    private boolean isEmpty() {
+        return firstSlot > lastSlot;
+    }
+
+    synchronized EpochMillis getFirstBucketTimestamp() {
+        return new EpochMillis(slotStartMillis(firstSlot));
+    }
+
+    synchronized long getLastBucketTimestampMillis() {
+        return slotStartMillis(lastSlot);
+    }
+
+    public synchronized Instant getLatestPossibleKeyValue() {
+        return Instant.ofEpochMilli(slotStartMillis(lastSlot) + granularityMillis);
     }
 
     /**
      * Returns null if the requested timestamp is in the expired range of timestamps,
-     * otherwise this returns the appropriate bucket.  It either finds it within the map
-     * or creates a new one and inserts it into the map (atomically).
+     * otherwise this returns the appropriate bucket.  It either finds it within the wheel
+     * or creates a new one and inserts it into the wheel (atomically).  Old buckets are
+     * expired (via onNewBucketCreated) before a new bucket is added.
      *
      * @param timestamp
      * @return
      */
-    ConcurrentHashMap<String, Boolean> getHashSetForTimestamp(EpochMillis timestamp, Runnable onNewBucketCreated) {
-        return Optional.ofNullable(this.floorEntry(timestamp)).map(kvp -> {
-            var shiftedKey = kvp.getKey().toInstant().plus(granularity);
-            if (timestamp.test(shiftedKey, (newTimestamp, computedFloor) -> newTimestamp >= computedFloor)) {
-                try {
-                    return createNewSlot(timestamp, kvp.getKey());
-                } finally {
-                    onNewBucketCreated.run();
-                }
-            }
-            return kvp.getValue();
-        }).orElse(null); // floorEntry could be null if the entry was too old
+    synchronized Set<String> getHashSetForTimestamp(EpochMillis timestamp, Runnable onNewBucketCreated) {
+        var slot = Math.floorDiv(timestamp.millis - originMillis, granularityMillis);
+        if (slot < firstSlot) {
+            return null;
+        }
+        var bucket = getBucket(slot);
+        if (bucket != null) {
+            return bucket;
+        }
+        onNewBucketCreated.run();
+        return createNewSlot(slot);
     }
 
-    /**
-     * We don't want to have a race condition where many nearby keys could be created.  This could happen
-     * if many requests come in with slightly different timestamps, but were being processed before the
-     * new bucket was created.  Since we're dealing with a map, the simplest way around this is to reduce,
-     * or quantize, the range of potential keys so that each key will uniquely identify an entire range.
-     * It should be impossible for two keys to have any overlap over the granularity window.
-     * <p>
-     * That allows us to put a new entry ONLY IF it isn't already there, which results in a uniqueness
-     * invariant that makes a lot of other things easier to reason with.
-     */
-    private ConcurrentHashMap<String, Boolean> createNewSlot(EpochMillis timestamp, EpochMillis referenceKey) {
-        var granularityMs = granularity.toMillis();
-        var quantizedDifference = (timestamp.millis - referenceKey.millis) / granularityMs;
-        var newKey = referenceKey.millis + (quantizedDifference * granularityMs);
-        var newMap = new ConcurrentHashMap<String, Boolean>();
-        var priorMap = putIfAbsent(new EpochMillis(newKey), newMap);
-        return priorMap == null ? newMap : priorMap;
+    private Set<String> createNewSlot(long slot) {
+        if (isEmpty()) {
+            firstSlot = slot;
+            lastSlot = slot;
+        } else {
+            var newFirstSlot = Math.min(firstSlot, slot);
+            var newLastSlot = Math.max(lastSlot, slot);
+            ensureWheelSize(newLastSlot - newFirstSlot + 1);
+            firstSlot = newFirstSlot;
+            lastSlot = newLastSlot;
+        }
+        var newBucket = ConcurrentHashMap.<String>newKeySet();
+        wheel[(int) (slot & (wheel.length - 1))] = newBucket;
+        return newBucket;
     }
 
-    void expireOldSlots(
+    private void ensureWheelSize(long span) {
+        if (span <= wheel.length) {
+            return;
+        }
+        var newSize = wheel.length;
+        while (newSize < span) {
+            newSize <<= 1;
+        }
+        var newWheel = newWheel(newSize);
+        for (var slot = firstSlot; slot <= lastSlot; ++slot) {
+            newWheel[(int) (slot & (newSize - 1))] = wheel[(int) (slot & (wheel.length - 1))];
+        }
+        wheel = newWheel;
+    }
+
+    synchronized void expireOldSlots(
         AccumulatorMap connectionAccumulatorMap,
         BehavioralPolicy behavioralPolicy,
         Duration minimumGuaranteedLifetime,
@@ -86,21 +128,29 @@ class ExpiringKeyQueue extends ConcurrentSkipListMap<EpochMillis, ConcurrentHash
         var startOfWindow = new EpochMillis(
             largestCurrentObservedTimestamp.toInstant().minus(minimumGuaranteedLifetime)
         );
-        for (var kvp = firstEntry(); kvp.getKey()
-            .test(startOfWindow, (first, windowStart) -> first < windowStart); kvp = firstEntry()) {
-            expireItemsBefore(connectionAccumulatorMap, behavioralPolicy, kvp.getValue(), startOfWindow);
-            remove(kvp.getKey());
+        while (!isEmpty() && slotStartMillis(firstSlot) < startOfWindow.millis) {
+            var index = (int) (firstSlot & (wheel.length - 1));
+            var bucket = wheel[index];
+            wheel[index] = null;
+            if (bucket != null) {
+                expireItemsBefore(connectionAccumulatorMap, behavioralPolicy, bucket, startOfWindow);
+            }
+            ++firstSlot;
+            // skip over the windows that never had a bucket
+            while (!isEmpty() && wheel[(int) (firstSlot & (wheel.length - 1))] == null) {
+                ++firstSlot;
+            }
         }
     }
 
     private void expireItemsBefore(
         AccumulatorMap connectionAccumulatorMap,
         BehavioralPolicy behavioralPolicy,
-        ConcurrentHashMap<String, Boolean> keyMap,
+        Set<String> keySet,
         EpochMillis earlierTimesToPreserve
     ) {
         log.debug("Expiring entries before " + earlierTimesToPreserve);
-        for (var connectionId : keyMap.keySet()) {
+        for (var connectionId : keySet) {
             var key = new ScopedConnectionIdKey(partitionId, connectionId);
             var accumulation = connectionAccumulatorMap.get(key);
             if (accumulation != null
@@ -2,6 +2,7 @@ package org.opensearch.migrations.replay.traffic.expiration;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -81,7 +82,9 @@ public class ExpiringTrafficStreamMap {
         var expiringQueue = getOrCreateNodeMap(trafficStreamKey.getNodeId(), observedTimestampMillis);
         var latestPossibleKeyValueAtIncoming = expiringQueue.getLatestPossibleKeyValue();
         // for expiration tracking purposes, push incoming packets' timestamps to be monotonic?
-        var timestampMillis = new EpochMillis(Math.max(observedTimestampMillis.millis, expiringQueue.lastKey().millis));
+        var timestampMillis = new EpochMillis(
+            Math.max(observedTimestampMillis.millis, expiringQueue.getLastBucketTimestampMillis())
+        );
 
         if (accumulation.hasBeenExpired()) {
             behavioralPolicy.onNewDataArrivingAfterItsAccumulationHadBeenRemoved(trafficStreamKey);
@@ -109,7 +112,7 @@ public class ExpiringTrafficStreamMap {
         var targetBucketHashSet = getHashSetForTimestampWhileExpiringOldBuckets(expiringQueue, timestampMillis);
 
         if (targetBucketHashSet == null) {
-            var startOfWindow = expiringQueue.firstKey().toInstant();
+            var startOfWindow = expiringQueue.getFirstBucketTimestamp().toInstant();
             assert !timestampMillis.test(startOfWindow, (ts, windowStart) -> ts < windowStart)
                 : "Only expected the target bucket to be missing when the incoming timestamp was before the "
                     + "expiring queue's time window";
@@ -137,11 +140,11 @@ public class ExpiringTrafficStreamMap {
                 sourceBucket.remove(trafficStreamKey.getConnectionId());
             }
         }
-        targetBucketHashSet.put(trafficStreamKey.getConnectionId(), Boolean.TRUE);
+        targetBucketHashSet.add(trafficStreamKey.getConnectionId());
         return true;
     }
 
-    private ConcurrentHashMap<String, Boolean> getHashSetForTimestampWhileExpiringOldBuckets(
+    private Set<String> getHashSetForTimestampWhileExpiringOldBuckets(
         ExpiringKeyQueue expiringQueue,
         EpochMillis timestampMillis
     ) {
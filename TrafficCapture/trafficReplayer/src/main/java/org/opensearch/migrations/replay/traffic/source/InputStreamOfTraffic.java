@@ -20,6 +20,7 @@ import org.opensearch.migrations.replay.tracing.ITrafficSourceContexts;
 import org.opensearch.migrations.replay.tracing.ReplayContexts;
 import org.opensearch.migrations.replay.tracing.RootReplayerContext;
 import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamUtils;
 
 import lombok.Lombok;
 import lombok.extern.slf4j.Slf4j;
@@ -73,7 +74,9 @@ public class InputStreamOfTraffic implements ISimpleTrafficCaptureSource, AutoCl
                 if (line == null) {
                     throw new EOFException();
                 }
-                ts = TrafficStream.parseFrom(Base64.getDecoder().decode(line));
+                ts = TrafficStreamUtils.decompressPayloadsIfNeeded(
+                    TrafficStream.parseFrom(Base64.getDecoder().decode(line))
+                );
             } catch (Exception e) {
                 throw Lombok.sneakyThrow(e);
             }
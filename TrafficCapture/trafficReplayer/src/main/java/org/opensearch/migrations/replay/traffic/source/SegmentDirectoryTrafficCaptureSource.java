@@ -0,0 +1,269 @@
+package org.opensearch.migrations.replay.traffic.source;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.opensearch.migrations.replay.datatypes.ITrafficStreamKey;
+import org.opensearch.migrations.replay.datatypes.PojoTrafficStreamAndKey;
+import org.opensearch.migrations.replay.datatypes.PojoTrafficStreamKeyAndContext;
+import org.opensearch.migrations.replay.tracing.ChannelContextManager;
+import org.opensearch.migrations.replay.tracing.ITrafficSourceContexts;
+import org.opensearch.migrations.replay.tracing.RootReplayerContext;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamUtils;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Lombok;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the segment files that the capture proxy writes with --traceSegmentDirectory.  Each file is a sequence
+ * of length-delimited TrafficStreams and files are named {@code <nodeId>.<segmentNumber>.tsseg}.
+ *
+ * Segments are memory-mapped and decoded (and decompressed) on a pool of threads, a few segments ahead of
+ * where the replay is, so that decoding doesn't hold up the replay.  The parsed payloads are views into the
+ * mapped files rather than copies.  Each node's segments are consumed in segment order, so TrafficStreams for
+ * any one connection are still delivered in the order that they were written, and the nodes' sequences are
+ * merged (k-way) by the timestamp of each TrafficStream's first observation so that the replay sees the
+ * traffic from all of the nodes in (approximately) the order that it happened.
+ */
+@Slf4j
+public class SegmentDirectoryTrafficCaptureSource implements ISimpleTrafficCaptureSource {
+    /** This must match RollingSegmentFileWriter.SEGMENT_FILE_SUFFIX, which is in the capture side's offloader. */
+    public static final String SEGMENT_FILE_SUFFIX = ".tsseg";
+    private static final Pattern SEGMENT_FILE_PATTERN = Pattern.compile(
+        "(.+)\\.(\\d+)" + Pattern.quote(SEGMENT_FILE_SUFFIX)
+    );
+    /** How many segments, per node, may be decoded ahead of the one that is being consumed */
+    private static final int SEGMENT_LOOKAHEAD = 2;
+    private static final int MAX_TRAFFIC_STREAMS_PER_CHUNK = 256;
+
+    /**
+     * The decoded segments of one node, consumed in order.  The merge timestamp is the timestamp of the head
+     * TrafficStream's first observation or, for a TrafficStream without observations, the timestamp of the
+     * last one before it so that it isn't moved relative to the rest of the node's traffic.
+     */
+    private class NodeCursor {
+        final String nodeId;
+        final Iterator<Path> remainingSegments;
+        final ArrayDeque<CompletableFuture<List<TrafficStream>>> decodingSegments = new ArrayDeque<>();
+        List<TrafficStream> currentSegment = List.of();
+        int indexInSegment;
+        Instant mergeTimestamp = Instant.EPOCH;
+
+        NodeCursor(String nodeId, List<Path> segments) {
+            this.nodeId = nodeId;
+            this.remainingSegments = segments.iterator();
+            scheduleDecodes();
+        }
+
+        private void scheduleDecodes() {
+            while (decodingSegments.size() < SEGMENT_LOOKAHEAD && remainingSegments.hasNext()) {
+                var segment = remainingSegments.next();
+                decodingSegments.add(CompletableFuture.supplyAsync(() -> decodeSegment(segment), decodePool));
+            }
+        }
+
+        /**
+         * Positions this cursor on the next TrafficStream, waiting for its segment to be decoded if necessary.
+         * @return false if the node has no more TrafficStreams
+         */
+        boolean advanceToNext() {
+            while (indexInSegment >= currentSegment.size()) {
+                var nextSegment = decodingSegments.poll();
+                if (nextSegment == null) {
+                    return false;
+                }
+                scheduleDecodes();
+                try {
+                    currentSegment = nextSegment.join();
+                } catch (CompletionException e) {
+                    log.atError().setCause(e.getCause()).setMessage("Failed to read capture segments for node {}")
+                        .addArgument(nodeId)
+                        .log();
+                    throw e;
+                }
+                indexInSegment = 0;
+            }
+            mergeTimestamp = TrafficStreamUtils.getFirstTimestamp(currentSegment.get(indexInSegment))
+                .orElse(mergeTimestamp);
+            return true;
+        }
+
+        TrafficStream take() {
+            var ts = currentSegment.get(indexInSegment);
+            currentSegment.set(indexInSegment++, null); // let it be collected once the replay is done with it
+            return ts;
+        }
+    }
+
+    private final ChannelContextManager channelContextManager;
+    private final ExecutorService decodePool;
+    // Only nodes that have a TrafficStream ready are in here.  Guarded by 'this'.
+    private final PriorityQueue<NodeCursor> mergeQueue = new PriorityQueue<>(
+        Comparator.comparing((NodeCursor c) -> c.mergeTimestamp).thenComparing(c -> c.nodeId)
+    );
+    private final List<NodeCursor> unstartedNodes;
+
+    public SegmentDirectoryTrafficCaptureSource(RootReplayerContext context, Path segmentDirectory)
+        throws IOException {
+        this.channelContextManager = new ChannelContextManager(context);
+        var segmentsByNode = findSegmentsByNode(segmentDirectory);
+        log.atInfo().setMessage("Reading capture segments for {} nodes from {}")
+            .addArgument(segmentsByNode.size())
+            .addArgument(segmentDirectory)
+            .log();
+        this.decodePool = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(segmentsByNode.size() * SEGMENT_LOOKAHEAD, Runtime.getRuntime().availableProcessors())),
+            new DefaultThreadFactory("segmentReader", true)
+        );
+        this.unstartedNodes = new ArrayList<>();
+        segmentsByNode.forEach((nodeId, segments) -> unstartedNodes.add(new NodeCursor(nodeId, segments)));
+    }
+
+    static Map<String, List<Path>> findSegmentsByNode(Path segmentDirectory) throws IOException {
+        var segmentsByNode = new TreeMap<String, List<Path>>();
+        try (var files = Files.list(segmentDirectory)) {
+            files.forEach(p -> {
+                var m = SEGMENT_FILE_PATTERN.matcher(p.getFileName().toString());
+                if (m.matches()) {
+                    segmentsByNode.computeIfAbsent(m.group(1), k -> new ArrayList<>()).add(p);
+                }
+            });
+        }
+        var segmentNumberComparator = Comparator.comparingLong(
+            (Path p) -> {
+                var m = SEGMENT_FILE_PATTERN.matcher(p.getFileName().toString());
+                m.matches();
+                return Long.parseLong(m.group(2));
+            }
+        );
+        segmentsByNode.values().forEach(list -> list.sort(segmentNumberComparator));
+        return segmentsByNode;
+    }
+
+    /**
+     * Maps the segment into memory and parses all of its TrafficStreams.  The payloads of the returned
+     * TrafficStreams alias the mapping, which stays valid for as long as any of them are reachable.
+     */
+    static List<TrafficStream> decodeSegment(Path segment) {
+        log.atDebug().setMessage("Reading capture segment {}").addArgument(segment).log();
+        var trafficStreams = new ArrayList<TrafficStream>();
+        try (var channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Capture segment " + segment + " is too large to map (" + size + " bytes)");
+            }
+            var codedInputStream = CodedInputStream.newInstance(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            codedInputStream.enableAliasing(true);
+            while (!codedInputStream.isAtEnd()) {
+                try {
+                    var length = codedInputStream.readRawVarint32();
+                    var previousLimit = codedInputStream.pushLimit(length);
+                    var ts = TrafficStream.parseFrom(codedInputStream);
+                    codedInputStream.checkLastTagWas(0);
+                    if (codedInputStream.getBytesUntilLimit() != 0) {
+                        throw InvalidProtocolBufferException.truncatedMessage();
+                    }
+                    codedInputStream.popLimit(previousLimit);
+                    trafficStreams.add(TrafficStreamUtils.decompressPayloadsIfNeeded(ts));
+                } catch (InvalidProtocolBufferException e) {
+                    // The writer abandons a segment after a failed write, so the rest of this file can't be
+                    // trusted, but the following segments can.
+                    log.atWarn().setCause(e).setMessage("Skipping the truncated remainder of capture segment {}")
+                        .addArgument(segment)
+                        .log();
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw Lombok.sneakyThrow(e);
+        }
+        return trafficStreams;
+    }
+
+    /**
+     * Returns a CompletableFuture to the next TrafficStreams, in merged order, or sets the cause exception to an
+     * EOFException once every segment has been read.
+     */
+    @Override
+    public CompletableFuture<List<ITrafficStreamWithKey>> readNextTrafficStreamChunk(
+        Supplier<ITrafficSourceContexts.IReadChunkContext> contextSupplier
+    ) {
+        return CompletableFuture.<List<ITrafficStreamWithKey>>supplyAsync(() -> {
+            try {
+                var trafficStreams = takeNextMergedTrafficStreams();
+                if (trafficStreams.isEmpty()) {
+                    throw new EOFException();
+                }
+                return trafficStreams;
+            } catch (Throwable e) {
+                throw Lombok.sneakyThrow(e instanceof CompletionException ? e.getCause() : e);
+            }
+        }).exceptionally(e -> {
+            var ecf = new CompletableFuture<List<ITrafficStreamWithKey>>();
+            ecf.completeExceptionally(e.getCause());
+            return ecf.join();
+        });
+    }
+
+    private synchronized List<ITrafficStreamWithKey> takeNextMergedTrafficStreams() {
+        // every node needs its first TrafficStream before anything can be merged
+        while (!unstartedNodes.isEmpty()) {
+            var cursor = unstartedNodes.remove(unstartedNodes.size() - 1);
+            if (cursor.advanceToNext()) {
+                mergeQueue.add(cursor);
+            }
+        }
+
+        var trafficStreams = new ArrayList<ITrafficStreamWithKey>();
+        while (trafficStreams.size() < MAX_TRAFFIC_STREAMS_PER_CHUNK && !mergeQueue.isEmpty()) {
+            var cursor = mergeQueue.poll();
+            trafficStreams.add(wrapWithKey(cursor.take()));
+            if (cursor.advanceToNext()) {
+                mergeQueue.add(cursor);
+            }
+        }
+        return trafficStreams;
+    }
+
+    private ITrafficStreamWithKey wrapWithKey(TrafficStream ts) {
+        return new PojoTrafficStreamAndKey(ts, PojoTrafficStreamKeyAndContext.build(ts, tsk -> {
+            var channelCtx = channelContextManager.retainOrCreateContext(tsk);
+            return channelContextManager.getGlobalContext().createTrafficStreamContextForStreamSource(channelCtx, tsk);
+        }));
+    }
+
+    @Override
+    public CommitResult commitTrafficStream(ITrafficStreamKey trafficStreamKey) {
+        // do nothing - this datasource isn't transactional
+        channelContextManager.releaseContextFor(trafficStreamKey.getTrafficStreamsContext().getLogicalEnclosingScope());
+        return CommitResult.IMMEDIATE;
+    }
+
+    @Override
+    public void close() {
+        decodePool.shutdownNow();
+    }
+}
@@ -0,0 +1,53 @@
+package org.opensearch.migrations.replay.traffic.source;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.opensearch.migrations.replay.Utils;
+
+/**
+ * Lets several ReplayEngines (one per target) share the BufferedFlowController of a single traffic source.
+ * Each engine is given its own member controller, and reads are only allowed past the earliest point that
+ * every member has reached.  That way, the slowest target holds back reads for all of them instead of the
+ * fastest target pulling in traffic that the others aren't ready for.
+ */
+public class SlowestMemberFlowController {
+    private final BufferedFlowController underlyingController;
+    private final List<AtomicReference<Instant>> memberPoints = new CopyOnWriteArrayList<>();
+
+    public SlowestMemberFlowController(BufferedFlowController underlyingController) {
+        this.underlyingController = underlyingController;
+    }
+
+    /**
+     * Members should all be created before any of them are used, since a new member starts out at the
+     * beginning of time and would hold everything back until it has caught up.
+     */
+    public BufferedFlowController createMember() {
+        var memberPoint = new AtomicReference<>(Instant.EPOCH);
+        memberPoints.add(memberPoint);
+        return new BufferedFlowController() {
+            @Override
+            public void stopReadsPast(Instant pointInTime) {
+                Utils.setIfLater(memberPoint, pointInTime);
+                updateUnderlyingController();
+            }
+
+            @Override
+            public Duration getBufferTimeWindow() {
+                return underlyingController.getBufferTimeWindow();
+            }
+        };
+    }
+
+    private void updateUnderlyingController() {
+        var slowestPoint = memberPoints.stream()
+            .map(AtomicReference::get)
+            .min(Instant::compareTo)
+            .orElse(Instant.EPOCH);
+        underlyingController.stopReadsPast(slowestPoint);
+    }
+}
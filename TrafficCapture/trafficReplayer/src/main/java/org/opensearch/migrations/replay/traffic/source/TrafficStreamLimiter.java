@@ -1,109 +1,216 @@
 package org.opensearch.migrations.replay.traffic.source;
 
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.opensearch.migrations.tracing.commoncontexts.IHttpTransactionContext;
 
+import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NonNull;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Admits work items in the order that they were queued once there's room for them within both the maximum
+ * number of concurrent items and, optionally, a budget of bytes.  An item's bytes are the size of its request
+ * plus, when includeExpectedResponseBytes is set, a running estimate of how large responses are, so that a
+ * large _bulk request holds back more of the following work than a small GET does.
+ *
+ * There's no thread that waits for room to become available.  Queueing an item or finishing one schedules a
+ * drain of as many items as can be admitted onto the admission executor, which runs the admitted items' tasks.
+ * By default, that's a dedicated thread so that the threads that finish items (e.g. netty event loops) never
+ * run admitted work themselves.  Only one drain runs at a time.  An item that is larger than the whole byte
+ * budget is admitted once nothing else is in progress.
+ */
 @Slf4j
 public class TrafficStreamLimiter implements AutoCloseable {
+    /** How much the latest response counts toward the running estimate of response sizes */
+    private static final double RESPONSE_SIZE_SMOOTHING = 0.05;
 
     @AllArgsConstructor
     public static class WorkItem {
         private final @NonNull Consumer<WorkItem> task;
         private final IHttpTransactionContext context;
         private final int cost;
+        private final long bytes;
     }
 
-    public final Semaphore liveTrafficStreamCostGate;
-    private final LinkedTransferQueue<WorkItem> workQueue;
-    private final Thread consumerThread;
-    private final AtomicBoolean stopped;
+    private final int maxConcurrentCost;
+    private final long maxConcurrentBytes;
+    private final boolean includeExpectedResponseBytes;
+    private final Executor admissionExecutor;
+    /** The executor that this created for admissions, which is shut down upon close, or null */
+    private final ExecutorService ownedAdmissionExecutor;
+    private final ConcurrentLinkedQueue<WorkItem> workQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    private final AtomicInteger inUseCost = new AtomicInteger();
+    @Getter
+    private final AtomicLong inUseBytes = new AtomicLong();
+    @Getter
+    private final AtomicInteger waitingItems = new AtomicInteger();
+    @Getter
+    private final AtomicLong waitingBytes = new AtomicLong();
+    private volatile double expectedResponseBytes;
 
     public TrafficStreamLimiter(int maxConcurrentCost) {
-        this.liveTrafficStreamCostGate = new Semaphore(maxConcurrentCost);
-        this.workQueue = new LinkedTransferQueue<>();
-        this.stopped = new AtomicBoolean();
-        this.consumerThread = new Thread(this::consumeFromQueue, "requestFeederThread");
-        this.consumerThread.start();
+        this(maxConcurrentCost, 0, false);
+    }
+
+    /**
+     * @param maxConcurrentBytes the byte budget, or 0 for no budget
+     */
+    public TrafficStreamLimiter(int maxConcurrentCost, long maxConcurrentBytes, boolean includeExpectedResponseBytes) {
+        this(maxConcurrentCost, maxConcurrentBytes, includeExpectedResponseBytes,
+            Executors.newSingleThreadExecutor(new DefaultThreadFactory("requestFeederThread", true)), true);
+    }
+
+    /**
+     * @param admissionExecutor runs the drains that admit items and run their tasks.  This isn't shut down
+     *                          upon close.
+     */
+    public TrafficStreamLimiter(
+        int maxConcurrentCost,
+        long maxConcurrentBytes,
+        boolean includeExpectedResponseBytes,
+        @NonNull Executor admissionExecutor
+    ) {
+        this(maxConcurrentCost, maxConcurrentBytes, includeExpectedResponseBytes, admissionExecutor, false);
+    }
+
+    private TrafficStreamLimiter(
+        int maxConcurrentCost,
+        long maxConcurrentBytes,
+        boolean includeExpectedResponseBytes,
+        Executor admissionExecutor,
+        boolean ownsAdmissionExecutor
+    ) {
+        this.maxConcurrentCost = maxConcurrentCost;
+        this.maxConcurrentBytes = maxConcurrentBytes;
+        this.includeExpectedResponseBytes = includeExpectedResponseBytes;
+        this.admissionExecutor = admissionExecutor;
+        this.ownedAdmissionExecutor = ownsAdmissionExecutor ? (ExecutorService) admissionExecutor : null;
     }
 
     public boolean isStopped() {
         return stopped.get();
     }
 
-    @SneakyThrows
-    private void consumeFromQueue() {
-        WorkItem workItem = null;
-        try {
-            while (!stopped.get()) {
-                workItem = workQueue.take();
-                log.atDebug()
-                    .setMessage(() -> "liveTrafficStreamCostGate.permits: {} acquiring: {}")
-                    .addArgument(liveTrafficStreamCostGate.availablePermits())
-                    .addArgument(workItem.cost)
-                    .log();
-                liveTrafficStreamCostGate.acquire(workItem.cost);
-                WorkItem finalWorkItem = workItem;
-                log.atDebug()
-                    .setMessage(
-                        () -> "Acquired liveTrafficStreamCostGate (available="
-                            + liveTrafficStreamCostGate.availablePermits()
-                            + ") to process "
-                            + finalWorkItem.context
-                    )
-                    .log();
-                workItem.task.accept(workItem);
-                workItem = null;
-            }
-        } catch (InterruptedException e) {
-            if (!stopped.get()) {
-                WorkItem finalWorkItem = workItem;
-                log.atError()
-                    .setMessage(
-                        () -> "consumeFromQueue() was interrupted with "
-                            + (finalWorkItem != null ? "an active task and " : "")
-                            + workQueue.size()
-                            + " enqueued items"
-                    )
-                    .log();
-            }
-            throw e;
-        }
+    public WorkItem queueWork(int cost, IHttpTransactionContext context, @NonNull Consumer<WorkItem> task) {
+        return queueWork(cost, 0, context, task);
     }
 
-    public WorkItem queueWork(int cost, IHttpTransactionContext context, @NonNull Consumer<WorkItem> task) {
-        var workItem = new WorkItem(task, context, cost);
-        var rval = workQueue.offer(workItem);
-        assert rval;
+    public WorkItem queueWork(
+        int cost,
+        long requestBytes,
+        IHttpTransactionContext context,
+        @NonNull Consumer<WorkItem> task
+    ) {
+        var bytes = requestBytes + (includeExpectedResponseBytes ? (long) expectedResponseBytes : 0);
+        var workItem = new WorkItem(task, context, cost, bytes);
+        waitingItems.incrementAndGet();
+        waitingBytes.addAndGet(bytes);
+        workQueue.add(workItem);
+        scheduleDrain();
         return workItem;
     }
 
     public void doneProcessing(@NonNull WorkItem workItem) {
-        liveTrafficStreamCostGate.release(workItem.cost);
+        inUseCost.addAndGet(-workItem.cost);
+        inUseBytes.addAndGet(-workItem.bytes);
         log.atDebug()
-            .setMessage(
-                () -> "released "
-                    + workItem.cost
-                    + " liveTrafficStreamCostGate.availablePermits="
-                    + liveTrafficStreamCostGate.availablePermits()
-                    + " for "
-                    + workItem.context
-            )
+            .setMessage(() -> "released " + workItem.cost + " (" + workItem.bytes + " bytes), leaving "
+                + inUseCost.get() + " (" + inUseBytes.get() + " bytes) in use, for " + workItem.context)
             .log();
+        scheduleDrain();
     }
 
+    /**
+     * Updates the estimate of response sizes that is added to the cost of items queued from now on.
+     */
+    public void recordResponseBytes(long responseBytes) {
+        if (includeExpectedResponseBytes) {
+            // races between concurrent updates only lose a sample
+            expectedResponseBytes += (responseBytes - expectedResponseBytes) * RESPONSE_SIZE_SMOOTHING;
+        }
+    }
+
+    public long getExpectedResponseBytes() {
+        return (long) expectedResponseBytes;
+    }
+
+    private boolean canAdmit(WorkItem workItem) {
+        var costInUse = inUseCost.get();
+        var bytesInUse = inUseBytes.get();
+        return (costInUse == 0 || costInUse + workItem.cost <= maxConcurrentCost)
+            && (maxConcurrentBytes <= 0 || bytesInUse == 0 || bytesInUse + workItem.bytes <= maxConcurrentBytes);
+    }
+
+    private void scheduleDrain() {
+        if (stopped.get()) {
+            return;
+        }
+        try {
+            admissionExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            if (!stopped.get()) {
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return; // the thread that is draining will loop around again
+        }
+        int missed = 1;
+        do {
+            WorkItem workItem;
+            while (!stopped.get() && (workItem = workQueue.peek()) != null && canAdmit(workItem)) {
+                workQueue.poll();
+                waitingItems.decrementAndGet();
+                waitingBytes.addAndGet(-workItem.bytes);
+                inUseCost.addAndGet(workItem.cost);
+                inUseBytes.addAndGet(workItem.bytes);
+                var finalWorkItem = workItem;
+                log.atDebug()
+                    .setMessage(() -> "Admitted " + finalWorkItem.context + " with cost " + finalWorkItem.cost + " ("
+                        + finalWorkItem.bytes + " bytes), now " + inUseCost.get() + " (" + inUseBytes.get()
+                        + " bytes) in use")
+                    .log();
+                try {
+                    workItem.task.accept(workItem);
+                } catch (Exception e) {
+                    log.atError().setCause(e).setMessage("Task for {} threw an exception")
+                        .addArgument(workItem.context)
+                        .log();
+                }
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Items that haven't been admitted yet won't ever be.
+     */
     @Override
-    public void close() throws Exception {
-        stopped.set(true);
-        this.consumerThread.interrupt();
-        this.consumerThread.join();
+    public void close() {
+        if (stopped.compareAndSet(false, true)) {
+            log.atInfo().setMessage("Stopping with {} items that were never admitted")
+                .addArgument(waitingItems::get)
+                .log();
+            if (ownedAdmissionExecutor != null) {
+                ownedAdmissionExecutor.shutdown();
+            }
+        }
     }
 }
@@ -4,6 +4,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -34,6 +35,11 @@ import org.slf4j.event.Level;
 public class ActiveContextMonitor implements Runnable {
 
     static final String INDENT = "  ";
+    /**
+     * When TrackedFutures are running without full diagnostics, requests that are older than this will turn
+     * full diagnostics back on (until there are no more requests that old).
+     */
+    static final Duration STUCK_REQUEST_AGE = Duration.ofSeconds(60);
 
     private final BiConsumer<Level, Supplier<String>> logger;
     private final ActiveContextTracker globalContextTracker;
@@ -44,6 +50,7 @@ public class ActiveContextMonitor implements Runnable {
 
     private final Predicate<Level> logLevelIsEnabled;
     private final AtomicReference<TreeMap<Duration, Level>> ageToLevelEdgeMapRef;
+    private boolean turnedOnFullDiagnostics;
 
     public ActiveContextMonitor(
         ActiveContextTracker globalContextTracker,
@@ -183,6 +190,8 @@ public class ActiveContextMonitor implements Runnable {
     private Stream<ActivitiesAndDepthsForLogging> getTopActivities(
         Set<IScopedInstrumentationAttributes> scopesSeenSoFar
     ) {
+        // reading the scopes of a type takes a snapshot of them, so only find each type's depth once
+        var depthsByType = new HashMap<Class<IScopedInstrumentationAttributes>, Integer>();
         var reverseOrderedList = perActivityContextTracker.getActiveScopeTypes()
             .map(
                 c -> Map.<
@@ -194,7 +203,10 @@ public class ActiveContextMonitor implements Runnable {
             )
             .sorted(
                 Comparator.comparingInt(
-                    kvp -> -1 * kvp.getValue().get().findAny().map(ActiveContextMonitor::contextDepth).orElse(0)
+                    kvp -> -1 * depthsByType.computeIfAbsent(
+                        kvp.getKey(),
+                        c -> kvp.getValue().get().findAny().map(ActiveContextMonitor::contextDepth).orElse(0)
+                    )
                 )
             )
             .map(
@@ -231,12 +243,25 @@ public class ActiveContextMonitor implements Runnable {
             scopesSeen,
             globalContextTracker.getActiveScopesByAge(),
             globalContextTracker.size(),
-            " GLOBAL scopes that are past thresholds that are not otherwise reported below",
+            " GLOBAL scopes that are past thresholds that are not otherwise reported below"
+                + (globalContextTracker.isSampling() ? describeOldestActiveScope() : ""),
             this::getLogLevelForActiveContext,
             ctx -> activityToString(ctx, scanUntilAncestorSeen(scopesSeen, ctx, 0))
         );
     }
 
+    /**
+     * When the tracker only keeps a sample of scopes, the oldest scopes might not be among those reported,
+     * but their age is still known.
+     */
+    private String describeOldestActiveScope() {
+        var oldestStartTime = globalContextTracker.getOldestActiveStartTimeNano();
+        return oldestStartTime.isPresent()
+            ? " (only a sample of scopes is shown, the oldest of all scopes has age="
+                + getAge(oldestStartTime.getAsLong()) + ")"
+            : "";
+    }
+
     @AllArgsConstructor
     @Getter
     private static class ScopePath {
@@ -398,8 +423,27 @@ public class ActiveContextMonitor implements Runnable {
         return firstLevel;
     }
 
+    /**
+     * Turns full TrackedFuture diagnostics on while some requests look to be stuck, if they were off, so that
+     * the futures for the work that follows can be inspected.
+     */
+    void updateTrackedFutureDiagnostics() {
+        var hasStuckRequests = orderedRequestTracker.orderedSet.stream()
+            .findFirst()
+            .map(tkaf -> getAge(tkaf.nanoTimeKey).compareTo(STUCK_REQUEST_AGE) >= 0)
+            .orElse(false);
+        if (hasStuckRequests && !TrackedFutureDiagnostics.isEnabledByDefault()) {
+            TrackedFutureDiagnostics.setEnabledByDefault(true, "there are requests older than " + STUCK_REQUEST_AGE);
+            turnedOnFullDiagnostics = true;
+        } else if (!hasStuckRequests && turnedOnFullDiagnostics) {
+            TrackedFutureDiagnostics.setEnabledByDefault(false, "there are no requests older than " + STUCK_REQUEST_AGE);
+            turnedOnFullDiagnostics = false;
+        }
+    }
+
     @Override
     public void run() {
+        updateTrackedFutureDiagnostics();
         logTopOpenActivities(true);
     }
 }
@@ -0,0 +1,156 @@
+package org.opensearch.migrations.replay.util;
+
+/**
+ * A map from int keys to values for keys that occupy a sliding window, such as the sequence numbers of
+ * requests that are waiting to be run in order.  Values are stored in an array indexed by the low bits of
+ * their key, so lookups, insertions and removals don't box keys or allocate entries.  The array grows (by
+ * doubling) whenever the span between the smallest and largest keys exceeds its capacity and the array is
+ * released once the map is empty again, so an idle instance only costs a few fields.
+ *
+ * This class is NOT thread safe.
+ */
+public class IntKeyedRingBuffer<T> {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private Object[] slots;
+    private int firstKey;
+    private int lastKey;
+    private int size;
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @throws IllegalStateException if the map is empty
+     */
+    public int firstKey() {
+        checkNotEmpty();
+        return firstKey;
+    }
+
+    /**
+     * @throws IllegalStateException if the map is empty
+     */
+    public int lastKey() {
+        checkNotEmpty();
+        return lastKey;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int key) {
+        if (size == 0 || key < firstKey || key > lastKey) {
+            return null;
+        }
+        return (T) slots[key & (slots.length - 1)];
+    }
+
+    /**
+     * @return the value that had been stored for key, or null
+     */
+    public T put(int key, T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null values can't be stored");
+        }
+        if (size == 0) {
+            if (slots == null) {
+                slots = new Object[INITIAL_CAPACITY];
+            }
+            firstKey = key;
+            lastKey = key;
+        } else {
+            var newFirstKey = Math.min(firstKey, key);
+            var newLastKey = Math.max(lastKey, key);
+            ensureCapacity((long) newLastKey - newFirstKey + 1);
+            firstKey = newFirstKey;
+            lastKey = newLastKey;
+        }
+        var index = key & (slots.length - 1);
+        @SuppressWarnings("unchecked")
+        var priorValue = (T) slots[index];
+        slots[index] = value;
+        if (priorValue == null) {
+            ++size;
+        }
+        return priorValue;
+    }
+
+    /**
+     * @return the value that had been stored for key, or null
+     */
+    public T remove(int key) {
+        var priorValue = get(key);
+        if (priorValue == null) {
+            return null;
+        }
+        slots[key & (slots.length - 1)] = null;
+        if (--size == 0) {
+            slots = null;
+        } else if (key == firstKey) {
+            do {
+                ++firstKey;
+            } while (slots[firstKey & (slots.length - 1)] == null);
+        } else if (key == lastKey) {
+            do {
+                --lastKey;
+            } while (slots[lastKey & (slots.length - 1)] == null);
+        }
+        return priorValue;
+    }
+
+    public void clear() {
+        slots = null;
+        size = 0;
+    }
+
+    private void ensureCapacity(long span) {
+        if (span <= slots.length) {
+            return;
+        }
+        if (span > (1 << 30)) {
+            throw new IllegalStateException("Can't hold keys that are " + span + " apart");
+        }
+        var newCapacity = slots.length;
+        while (newCapacity < span) {
+            newCapacity <<= 1;
+        }
+        var newSlots = new Object[newCapacity];
+        for (int key = firstKey; key <= lastKey; ++key) {
+            newSlots[key & (newCapacity - 1)] = slots[key & (slots.length - 1)];
+            if (key == Integer.MAX_VALUE) {
+                break;
+            }
+        }
+        slots = newSlots;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new IllegalStateException("The map is empty");
+        }
+    }
+
+    @Override
+    public String toString() {
+        var sb = new StringBuilder("{");
+        if (size > 0) {
+            for (int key = firstKey; key <= lastKey; ++key) {
+                var value = slots[key & (slots.length - 1)];
+                if (value != null) {
+                    if (sb.length() > 1) {
+                        sb.append(", ");
+                    }
+                    sb.append(key).append('=').append(value);
+                }
+                if (key == Integer.MAX_VALUE) {
+                    break;
+                }
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -1,8 +1,6 @@
 package org.opensearch.migrations.replay.util;
 
 import java.util.Optional;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 
@@ -15,9 +13,9 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * This provides a simple implementation to sort incoming elements that are ordered by a sequence
- * of unique and contiguous integers.  This implementation uses a SortedMap for staging out of order
- * elements and the memory utilization will be O(total number of items to be sequenced) in the worst case,
- * but O(1) when the items are arriving in order.
+ * of unique and contiguous integers.  This implementation uses a ring buffer keyed by those integers for
+ * staging out of order elements and the memory utilization will be O(total number of items to be sequenced)
+ * in the worst case, but O(1) when the items are arriving in order.
  *
  * After the item has been added, if other items were waiting for it, all the next currently sequenced
  * items are signaled.  This allows the calling context to visit the items in the natural
@@ -53,11 +51,11 @@ public class OnlineRadixSorter {
         }
     }
 
-    private final SortedMap<Integer, IndexedWork> items;
+    private final IntKeyedRingBuffer<IndexedWork> items;
     int currentOffset;
 
     public OnlineRadixSorter(int startingOffset) {
-        items = new TreeMap<>();
+        items = new IntKeyedRingBuffer<>();
         currentOffset = startingOffset;
     }
 
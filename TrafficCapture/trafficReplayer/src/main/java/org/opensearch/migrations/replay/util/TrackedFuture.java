@@ -27,6 +27,9 @@ import lombok.extern.slf4j.Slf4j;
  *
  * This is adding a great amount of clarity, though using it may still be a challenge.  Much
  * more work is expected to improve the UX for developers.
+ *
+ * Those diagnostics can be turned off (see {@link TrackedFutureDiagnostics}), in which case instances
+ * don't keep their diagnosticSupplier, parent or inner composed future.
  * @param <D> The type of object that will be returned to represent diagnostic information
  * @param <T> The type of value of the underlying (internal) CompletableFuture's result
  */
@@ -37,8 +40,12 @@ public class TrackedFuture<D, T> {
     protected AtomicReference<TrackedFuture<D, T>> innerComposedPendingCompletableFutureReference;
     @Getter
     public final Supplier<D> diagnosticSupplier;
+    /** null when this future doesn't have full diagnostics */
     protected final AtomicReference<TrackedFuture<D, ?>> parentDiagnosticFutureRef;
 
+    @SuppressWarnings("rawtypes")
+    private static final Supplier NO_DIAGNOSTICS_SUPPLIER = () -> null;
+
     private TrackedFuture() {
         throw new IllegalCallerException();
     }
@@ -68,9 +75,23 @@ public class TrackedFuture<D, T> {
         TrackedFuture<D, ?> parentFuture
     ) {
         this.future = future;
-        this.diagnosticSupplier = diagnosticSupplier;
-        this.parentDiagnosticFutureRef = new AtomicReference<>();
-        setParentDiagnosticFuture(parentFuture);
+        if (TrackedFutureDiagnostics.shouldTrack(parentFuture)) {
+            this.diagnosticSupplier = diagnosticSupplier;
+            this.parentDiagnosticFutureRef = new AtomicReference<>();
+            setParentDiagnosticFuture(parentFuture);
+        } else {
+            this.diagnosticSupplier = noDiagnosticsSupplier();
+            this.parentDiagnosticFutureRef = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <D> Supplier<D> noDiagnosticsSupplier() {
+        return (Supplier<D>) NO_DIAGNOSTICS_SUPPLIER;
+    }
+
+    public boolean hasFullDiagnostics() {
+        return parentDiagnosticFutureRef != null;
     }
 
     public TrackedFuture(@NonNull CompletableFuture<T> future, @NonNull Supplier<D> diagnosticSupplier) {
@@ -85,6 +106,9 @@ public class TrackedFuture<D, T> {
     }
 
     public TrackedFuture<D, ?> getParentDiagnosticFuture() {
+        if (parentDiagnosticFutureRef == null) {
+            return null;
+        }
         var p = parentDiagnosticFutureRef.get();
         if (future.isDone() && p != null) {
             p.setParentDiagnosticFuture(null);
@@ -93,7 +117,9 @@ public class TrackedFuture<D, T> {
     }
 
     protected void setParentDiagnosticFuture(TrackedFuture<D, ?> parent) {
-        if (parent == null) {
+        if (parentDiagnosticFutureRef == null) {
+            return;
+        } else if (parent == null) {
             parentDiagnosticFutureRef.set(null);
             return;
         }
@@ -160,17 +186,15 @@ public class TrackedFuture<D, T> {
         @NonNull Function<? super T, ? extends TrackedFuture<D, U>> fn,
         @NonNull Supplier<D> diagnosticSupplier
     ) {
-        var innerComposedCompletableFutureReference = new AtomicReference<TrackedFuture<D, U>>();
+        var innerComposedCompletableFutureReference = makeInnerComposedFutureReference();
         var newCf = this.future.thenCompose(v -> {
-            var innerFuture = fn.apply(v);
-            innerComposedCompletableFutureReference.set(innerFuture);
+            var innerFuture = applyWithInheritedDiagnostics(() -> fn.apply(v));
+            if (innerComposedCompletableFutureReference != null) {
+                innerComposedCompletableFutureReference.set(innerFuture);
+            }
             return innerFuture.future;
         });
-        var wrappedDiagnosticFuture = new TrackedFuture<>(newCf, diagnosticSupplier, this);
-        wrappedDiagnosticFuture.innerComposedPendingCompletableFutureReference =
-            innerComposedCompletableFutureReference;
-        wrappedDiagnosticFuture.future.whenComplete((v2, t2) -> innerComposedCompletableFutureReference.set(null));
-        return wrappedDiagnosticFuture;
+        return wrapComposedFuture(newCf, diagnosticSupplier, innerComposedCompletableFutureReference);
     }
 
     /**
@@ -190,18 +214,48 @@ public class TrackedFuture<D, T> {
         @NonNull BiFunction<? super T, Throwable, ? extends TrackedFuture<D, U>> fn,
         @NonNull Supplier<D> diagnosticSupplier
     ) {
-        var innerComposedCompletableFutureReference = new AtomicReference<TrackedFuture<D, U>>();
+        AtomicReference<TrackedFuture<D, U>> innerComposedCompletableFutureReference =
+            makeInnerComposedFutureReference();
         CompletableFuture<? extends TrackedFuture<D, U>> handledFuture = this.future.handle((v, t) -> {
-            var innerFuture = fn.apply(v, t);
-            innerComposedCompletableFutureReference.set(innerFuture);
+            var innerFuture = applyWithInheritedDiagnostics(() -> fn.apply(v, t));
+            if (innerComposedCompletableFutureReference != null) {
+                innerComposedCompletableFutureReference.set(innerFuture);
+            }
             return innerFuture;
         });
         var newCf = handledFuture.thenCompose(wcf -> wcf.future);
-        var wrappedDiagnosticFuture = new TrackedFuture<>(newCf, diagnosticSupplier, this);
-        wrappedDiagnosticFuture.innerComposedPendingCompletableFutureReference =
-            innerComposedCompletableFutureReference;
         // TODO: Add a count to how many futures have been completed and are falling away?
-        wrappedDiagnosticFuture.future.whenComplete((v2, t2) -> innerComposedCompletableFutureReference.set(null));
+        return wrapComposedFuture(newCf, diagnosticSupplier, innerComposedCompletableFutureReference);
+    }
+
+    private <U> AtomicReference<TrackedFuture<D, U>> makeInnerComposedFutureReference() {
+        return hasFullDiagnostics() ? new AtomicReference<>() : null;
+    }
+
+    /**
+     * When full diagnostics are only on for some work (see {@link TrackedFutureDiagnostics}), the futures that
+     * this one is composed upon are created by other code (and maybe on another thread), so they wouldn't
+     * otherwise know that they should have full diagnostics too.
+     */
+    private <U> U applyWithInheritedDiagnostics(Supplier<U> fn) {
+        return hasFullDiagnostics() && !TrackedFutureDiagnostics.isEnabledByDefault()
+            ? TrackedFutureDiagnostics.withFullDiagnostics(fn)
+            : fn.get();
+    }
+
+    private <U> TrackedFuture<D, U> wrapComposedFuture(
+        CompletableFuture<U> newCf,
+        Supplier<D> diagnosticSupplier,
+        AtomicReference<TrackedFuture<D, U>> innerComposedCompletableFutureReference
+    ) {
+        var wrappedDiagnosticFuture = new TrackedFuture<>(newCf, diagnosticSupplier, this);
+        if (innerComposedCompletableFutureReference != null) {
+            wrappedDiagnosticFuture.innerComposedPendingCompletableFutureReference =
+                innerComposedCompletableFutureReference;
+            wrappedDiagnosticFuture.future.whenComplete(
+                (v2, t2) -> innerComposedCompletableFutureReference.set(null)
+            );
+        }
         return wrappedDiagnosticFuture;
     }
 
@@ -0,0 +1,87 @@
+package org.opensearch.migrations.replay.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controls whether TrackedFutures keep their diagnostics - a diagnostic supplier, a link to the future that
+ * they were derived from, and the inner futures that they're composed upon.  Those are invaluable to figure
+ * out why work is stuck, but they're also a large share of what the replayer allocates and retains for
+ * every request.
+ *
+ * When full diagnostics are disabled, TrackedFutures are thin wrappers around CompletableFutures, except for
+ * the futures that are created within {@link #withFullDiagnostics(Supplier)}, within a sampled
+ * {@link #withSampledDiagnostics(Supplier)} call, or that are derived from another future that has full
+ * diagnostics.  Full diagnostics can be turned back on for everything at any time (e.g. once work looks to
+ * be stuck), which affects the futures that are created from then on.
+ */
+@Slf4j
+public class TrackedFutureDiagnostics {
+    private static volatile boolean enabledByDefault = true;
+    private static volatile double sampleRate;
+    private static final ThreadLocal<int[]> fullDiagnosticsScopeDepth = ThreadLocal.withInitial(() -> new int[1]);
+
+    private TrackedFutureDiagnostics() {}
+
+    public static boolean isEnabledByDefault() {
+        return enabledByDefault;
+    }
+
+    public static void setEnabledByDefault(boolean enabled, String reason) {
+        if (enabledByDefault != enabled) {
+            log.atInfo().setMessage("Turning {} full diagnostics for all new TrackedFutures because {}")
+                .addArgument(enabled ? "on" : "off")
+                .addArgument(reason)
+                .log();
+        }
+        enabledByDefault = enabled;
+    }
+
+    /**
+     * @param rate the fraction (0-1) of calls to withSampledDiagnostics that will create futures with full
+     *             diagnostics while full diagnostics aren't enabled by default
+     */
+    public static void setSampleRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("The sample rate must be between 0 and 1, but was " + rate);
+        }
+        sampleRate = rate;
+    }
+
+    /**
+     * @return true if a new future, derived from parent (which may be null), should have full diagnostics
+     */
+    static boolean shouldTrack(TrackedFuture<?, ?> parent) {
+        return enabledByDefault
+            || (parent != null && parent.hasFullDiagnostics())
+            || fullDiagnosticsScopeDepth.get()[0] > 0;
+    }
+
+    /**
+     * Runs supplier so that the futures that it creates (on this thread) have full diagnostics.
+     */
+    public static <U> U withFullDiagnostics(Supplier<U> supplier) {
+        var depth = fullDiagnosticsScopeDepth.get();
+        ++depth[0];
+        try {
+            return supplier.get();
+        } finally {
+            --depth[0];
+        }
+    }
+
+    /**
+     * Runs supplier with full diagnostics for a sampled fraction of calls.  Since the futures that are
+     * derived from those futures keep full diagnostics too, wrapping the code that starts a unit of work
+     * (e.g. a request) will give full diagnostics for that unit of work.
+     */
+    public static <U> U withSampledDiagnostics(Supplier<U> supplier) {
+        var rate = sampleRate;
+        if (!enabledByDefault && rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            return withFullDiagnostics(supplier);
+        }
+        return supplier.get();
+    }
+}
@@ -4,7 +4,12 @@ import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Timestamp;
 
 public class TrafficStreamUtils {
@@ -55,6 +60,78 @@ public class TrafficStreamUtils {
         }
     }
 
+    /**
+     * Parses a TrafficStream whose observation payloads are views into the given array rather than copies of it.
+     * The caller must not modify the array afterward.  Since every payload shares the array, it stays reachable
+     * for as long as any of those payloads are.
+     */
+    public static TrafficStream parseTrafficStreamWithoutCopying(byte[] serializedTrafficStream)
+        throws InvalidProtocolBufferException {
+        var codedInputStream = CodedInputStream.newInstance(serializedTrafficStream);
+        codedInputStream.enableAliasing(true);
+        var trafficStream = TrafficStream.parseFrom(codedInputStream);
+        codedInputStream.checkLastTagWas(0);
+        return trafficStream;
+    }
+
+    /**
+     * Returns a TrafficStream whose observation payloads are all uncompressed.  If the TrafficStream wasn't marked
+     * as having compressed payloads, the same object is returned.  Otherwise, the data of every read, write and
+     * segment observation is inflated and the compression marker is cleared.
+     */
+    public static TrafficStream decompressPayloadsIfNeeded(TrafficStream ts) throws InvalidProtocolBufferException {
+        var compression = ts.getPayloadCompression();
+        if (compression == PayloadCompression.UNCOMPRESSED) {
+            return ts;
+        } else if (compression != PayloadCompression.DEFLATE) {
+            throw new InvalidProtocolBufferException("Unsupported payload compression for TrafficStream "
+                + ts.getConnectionId() + "." + getTrafficStreamIndex(ts) + ": " + compression);
+        }
+        var builder = ts.toBuilder().clearPayloadCompression();
+        var inflater = new Inflater();
+        try {
+            for (int i = 0; i < builder.getSubStreamCount(); ++i) {
+                var tsoBuilder = builder.getSubStreamBuilder(i);
+                if (tsoBuilder.hasRead()) {
+                    tsoBuilder.getReadBuilder().setData(inflate(inflater, tsoBuilder.getRead().getData()));
+                } else if (tsoBuilder.hasReadSegment()) {
+                    tsoBuilder.getReadSegmentBuilder().setData(inflate(inflater, tsoBuilder.getReadSegment().getData()));
+                } else if (tsoBuilder.hasWrite()) {
+                    tsoBuilder.getWriteBuilder().setData(inflate(inflater, tsoBuilder.getWrite().getData()));
+                } else if (tsoBuilder.hasWriteSegment()) {
+                    tsoBuilder.getWriteSegmentBuilder()
+                        .setData(inflate(inflater, tsoBuilder.getWriteSegment().getData()));
+                }
+            }
+        } catch (DataFormatException e) {
+            var wrappedException = new InvalidProtocolBufferException("Could not inflate payload for TrafficStream "
+                + ts.getConnectionId() + "." + getTrafficStreamIndex(ts) + ": " + e.getMessage());
+            wrappedException.initCause(e);
+            throw wrappedException;
+        } finally {
+            inflater.end();
+        }
+        return builder.build();
+    }
+
+    private static ByteString inflate(Inflater inflater, ByteString compressedData) throws DataFormatException {
+        if (compressedData.isEmpty()) {
+            return compressedData;
+        }
+        inflater.reset();
+        inflater.setInput(compressedData.asReadOnlyByteBuffer());
+        var output = ByteString.newOutput(compressedData.size() * 4);
+        var buffer = new byte[8 * 1024];
+        while (!inflater.finished()) {
+            int bytesInflated = inflater.inflate(buffer);
+            if (bytesInflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("Compressed payload was truncated");
+            }
+            output.write(buffer, 0, bytesInflated);
+        }
+        return output.toByteString();
+    }
+
     public static int getTrafficStreamIndex(TrafficStream ts) {
         return ts.hasNumber() ? ts.getNumber() : ts.getNumberOfThisLastChunk();
     }
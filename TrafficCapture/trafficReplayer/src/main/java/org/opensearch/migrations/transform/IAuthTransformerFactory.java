@@ -9,6 +9,15 @@ public interface IAuthTransformerFactory extends AutoCloseable {
 
     default void close() throws IOException {}
 
+    /**
+     * @return true when the same request will always be given the same auth headers, so that the transformed
+     * request can be reused for an identical source request.  Factories whose signatures depend upon the time
+     * (e.g. SigV4) or any other outside state must leave this as false.
+     */
+    default boolean isDeterministic() {
+        return false;
+    }
+
     class NullAuthTransformerFactory implements IAuthTransformerFactory {
         public static final NullAuthTransformerFactory instance = new NullAuthTransformerFactory();
 
@@ -16,5 +25,10 @@ public interface IAuthTransformerFactory extends AutoCloseable {
         public IAuthTransformer getAuthTransformer(HttpJsonRequestWithFaultingPayload httpMessage) {
             return null;
         }
+
+        @Override
+        public boolean isDeterministic() {
+            return true;
+        }
     }
 }
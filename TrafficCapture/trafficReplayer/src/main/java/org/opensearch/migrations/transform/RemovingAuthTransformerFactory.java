@@ -13,6 +13,11 @@ public class RemovingAuthTransformerFactory implements IAuthTransformerFactory {
         return RemovingAuthTransformer.instance;
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
     private static class RemovingAuthTransformer extends IAuthTransformer.HeadersOnlyTransformer {
         private static final RemovingAuthTransformer instance = new RemovingAuthTransformer();
 
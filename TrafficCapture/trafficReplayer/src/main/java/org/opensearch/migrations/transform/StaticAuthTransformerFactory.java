@@ -18,4 +18,9 @@ public class StaticAuthTransformerFactory implements IAuthTransformerFactory {
             }
         };
     }
+
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
 }
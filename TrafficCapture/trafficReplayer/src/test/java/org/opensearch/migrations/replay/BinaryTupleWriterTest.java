@@ -0,0 +1,133 @@
+package org.opensearch.migrations.replay;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+import org.opensearch.migrations.replay.datatypes.HttpRequestTransformationStatus;
+import org.opensearch.migrations.replay.datatypes.PojoTrafficStreamKeyAndContext;
+import org.opensearch.migrations.tracing.InstrumentationTest;
+import org.opensearch.migrations.transform.TransformationLoader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BinaryTupleWriterTest extends InstrumentationTest {
+    private static final String REQUEST = "GET /_cat/indices HTTP/1.1\r\nHost: localhost\r\n\r\n";
+    private static final String RESPONSE = "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok";
+    private static final String TARGET_RESPONSE = "HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testTuplesRoundTripAndRollOverToNewFiles() throws Exception {
+        int numTuples = 10;
+        // small enough that every file only holds a few tuples
+        try (var writer = new BinaryTupleWriter(tempDir, "test", 512, 1024)) {
+            for (int i = 0; i < numTuples; ++i) {
+                writeTuple(writer, i);
+            }
+        }
+
+        var files = BinaryTupleToJsonConverter.expandInputs(List.of(tempDir.toString()));
+        Assertions.assertTrue(files.size() > 1, "expected the output to have been rolled over");
+        var records = new ArrayList<BinaryTupleFormat.Record>();
+        for (var file : files) {
+            try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                BinaryTupleFormat.readFileHeader(in);
+                BinaryTupleFormat.Record record;
+                while ((record = BinaryTupleFormat.readRecord(in)) != null) {
+                    records.add(record);
+                }
+            }
+        }
+        Assertions.assertEquals(numTuples, records.size());
+        for (int i = 0; i < numTuples; ++i) {
+            var record = records.get(i);
+            Assertions.assertEquals("c", record.getConnectionId());
+            Assertions.assertEquals(i, record.getSourceRequestIndex());
+            Assertions.assertEquals(Instant.EPOCH.plusSeconds(i), record.getSourceRequestTimestamp());
+            Assertions.assertEquals(REQUEST, new String(record.getSourceRequestBytes(), StandardCharsets.UTF_8));
+            Assertions.assertEquals(RESPONSE, new String(record.getSourceResponseBytes(), StandardCharsets.UTF_8));
+            Assertions.assertEquals(REQUEST, new String(record.getTargetRequestBytes(), StandardCharsets.UTF_8));
+            Assertions.assertEquals(1, record.getTargetResponses().size());
+            var targetResponse = record.getTargetResponses().get(0);
+            Assertions.assertEquals(Duration.ofMillis(i), targetResponse.getDuration());
+            Assertions.assertEquals(
+                TARGET_RESPONSE,
+                new String(targetResponse.getResponseBytes(), StandardCharsets.UTF_8)
+            );
+            Assertions.assertNull(targetResponse.getError());
+            Assertions.assertNull(record.getError());
+        }
+    }
+
+    @Test
+    public void testConvertedTuplesHaveTheLoggedShape() throws Exception {
+        try (var writer = new BinaryTupleWriter(tempDir, "test")) {
+            writeTuple(writer, 3);
+        }
+        var converter = new BinaryTupleToJsonConverter(
+            new TransformationLoader().getTransformerFactoryLoader(null, null, "NoopTransformerProvider")
+        );
+        var output = new StringWriter();
+        var files = BinaryTupleToJsonConverter.expandInputs(List.of(tempDir.toString()));
+        Assertions.assertEquals(1, converter.convertFile(files.get(0), output));
+
+        var json = new ObjectMapper().readTree(output.toString());
+        Assertions.assertEquals("c.3", json.get("connectionId").asText());
+        Assertions.assertEquals("/_cat/indices", json.get("sourceRequest").get("Request-URI").asText());
+        Assertions.assertEquals(200, json.get("sourceResponse").get(ParsedHttpMessagesAsDicts.STATUS_CODE_KEY).asInt());
+        Assertions.assertEquals(404,
+            json.get("targetResponses").get(0).get(ParsedHttpMessagesAsDicts.STATUS_CODE_KEY).asInt());
+        Assertions.assertEquals(1, json.get("numRequests").asInt());
+        Assertions.assertEquals(0, json.get("numErrors").asInt());
+    }
+
+    @Test
+    public void testStatusCodesAreParsedFromTheStatusLine() {
+        Assertions.assertEquals(201, HttpStartLines.parseStatusCode("HTTP/1.1 201 Created"));
+        Assertions.assertEquals(200, HttpStartLines.parseStatusCode("HTTP/1.0 200"));
+        Assertions.assertNull(HttpStartLines.parseStatusCode("GET / HTTP/1.1"));
+        Assertions.assertNull(HttpStartLines.parseStatusCode(null));
+    }
+
+    private void writeTuple(BinaryTupleWriter writer, int index) {
+        var trafficStreamKey = PojoTrafficStreamKeyAndContext.build(
+            "n",
+            "c",
+            0,
+            rootContext::createTrafficStreamContextForTest
+        );
+        var requestBytes = REQUEST.getBytes(StandardCharsets.UTF_8);
+        var sourcePair = new RequestResponsePacketPair(trafficStreamKey, Instant.EPOCH, index, 0);
+        sourcePair.addRequestData(Instant.EPOCH.plusSeconds(index), requestBytes);
+        sourcePair.addResponseData(Instant.EPOCH.plusSeconds(index + 1), RESPONSE.getBytes(StandardCharsets.UTF_8));
+        var targetRequest = new ByteBufList();
+        targetRequest.add(Unpooled.wrappedBuffer(requestBytes));
+        var targetResponse = new ArrayList<AbstractMap.SimpleEntry<Instant, byte[]>>();
+        targetResponse.add(new AbstractMap.SimpleEntry<>(Instant.now(), TARGET_RESPONSE.getBytes(StandardCharsets.UTF_8)));
+        var responses = new TransformedTargetRequestAndResponseList(
+            targetRequest,
+            HttpRequestTransformationStatus.skipped(),
+            new AggregatedRawResponse(null, 13, Duration.ofMillis(index), targetResponse, null)
+        );
+        try (var tupleContext = rootContext.getTestTupleContext("c", index);
+             var tuple = new SourceTargetCaptureTuple(tupleContext, sourcePair, responses, null)) {
+            writer.accept(tuple);
+        }
+    }
+}
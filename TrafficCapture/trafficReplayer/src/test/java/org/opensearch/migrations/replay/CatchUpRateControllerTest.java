@@ -0,0 +1,37 @@
+package org.opensearch.migrations.replay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CatchUpRateControllerTest {
+    @Test
+    public void testRateRisesWhileBehindAndReturnsToBaseOnceCaughtUp() {
+        var shifter = new TimeShifter(1.0);
+        var clock = new AtomicReference<>(Instant.now());
+        var controller = new CatchUpRateController(shifter, 1.0, 4.0, Duration.ofMinutes(1), 2.0, clock::get);
+
+        controller.adjustRate();
+        Assertions.assertEquals(1.0, controller.getCurrentRateMultiplier(), "nothing changes before replay starts");
+        Assertions.assertEquals(Duration.ZERO, controller.getCurrentLag());
+
+        shifter.setFirstTimestamp(clock.get().minus(Duration.ofMinutes(10)));
+        Assertions.assertTrue(controller.getCurrentLag().compareTo(Duration.ofMinutes(9)) > 0);
+
+        controller.adjustRate();
+        Assertions.assertEquals(2.0, controller.getCurrentRateMultiplier());
+        controller.adjustRate();
+        Assertions.assertEquals(4.0, controller.getCurrentRateMultiplier());
+        controller.adjustRate();
+        Assertions.assertEquals(4.0, controller.getCurrentRateMultiplier(), "the rate never exceeds the maximum");
+
+        // at 4x, every minute of wall time takes 3 minutes off of the lag
+        clock.set(clock.get().plus(Duration.ofMinutes(4)));
+        Assertions.assertTrue(controller.getCurrentLag().compareTo(Duration.ofMinutes(1)) < 0);
+        controller.adjustRate();
+        Assertions.assertEquals(1.0, controller.getCurrentRateMultiplier());
+    }
+}
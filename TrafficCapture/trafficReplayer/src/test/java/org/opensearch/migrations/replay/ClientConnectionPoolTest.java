@@ -0,0 +1,49 @@
+package org.opensearch.migrations.replay;
+
+import java.util.ArrayList;
+
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.replay.util.TextTrackedFuture;
+import org.opensearch.migrations.tracing.InstrumentationTest;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ClientConnectionPoolTest extends InstrumentationTest {
+
+    private static final ClientConnectionPool.ChannelCreator UNUSED_CHANNEL_CREATOR = (eventLoop, ctx, parentCtx) -> {
+        throw new IllegalStateException("no channels should be created");
+    };
+
+    @Test
+    public void testPooledSocketsAreTracedUnderThePoolRatherThanARequestsChannel() throws Exception {
+        var socketParents = new ArrayList<IReplayContexts.IChannelKeyContext>();
+        var pool = new ClientConnectionPool((eventLoop, ctx, socketParentCtx) -> {
+            socketParents.add(socketParentCtx);
+            return TextTrackedFuture.completedFuture(new EmbeddedChannel().newSucceededFuture(), () -> "test channel");
+        }, "testPool", 1, 1, rootContext);
+        try {
+            var httpTransactionCtx = rootContext.getTestConnectionRequestContext(0);
+            var session = pool.getCachedSession(httpTransactionCtx.getChannelKeyContext(), 0);
+            var targetRequestCtx = httpTransactionCtx.createTargetRequestContext();
+            session.getChannelFutureInActiveState(targetRequestCtx).get();
+            session.releaseLeasedChannel(true);
+            targetRequestCtx.close();
+            httpTransactionCtx.close();
+
+            Assertions.assertEquals(1, socketParents.size());
+            Assertions.assertNotSame(httpTransactionCtx.getChannelKeyContext(), socketParents.get(0));
+            Assertions.assertEquals("testPool", socketParents.get(0).getNodeId());
+            Assertions.assertEquals(ClientConnectionPool.POOLED_CONNECTIONS_ID, socketParents.get(0).getConnectionId());
+        } finally {
+            pool.shutdownNow().get();
+        }
+    }
+
+    @Test
+    public void testPoolingRequiresARootContext() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new ClientConnectionPool(UNUSED_CHANNEL_CREATOR, "testPool", 1, 1, null));
+    }
+}
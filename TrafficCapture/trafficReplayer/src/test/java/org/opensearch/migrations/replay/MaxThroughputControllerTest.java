@@ -0,0 +1,96 @@
+package org.opensearch.migrations.replay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opensearch.migrations.replay.datatypes.HttpRequestTransformationStatus;
+
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MaxThroughputControllerTest {
+    private static final Duration TARGET_LATENCY = Duration.ofMillis(100);
+    private static final Duration FAST = Duration.ofMillis(10);
+    private static final Duration SLOW = Duration.ofMillis(500);
+
+    @Test
+    public void testLimitGrowsWhileFastAndBacksOffOncePerLatencyPeriod() {
+        var clock = new AtomicLong();
+        var controller = new MaxThroughputController(1, 2, 4, TARGET_LATENCY, 0.5, clock::get);
+
+        Assertions.assertTrue(controller.admit().future.isDone());
+        Assertions.assertTrue(controller.admit().future.isDone());
+        var waiting = controller.admit();
+        Assertions.assertFalse(waiting.future.isDone());
+
+        controller.onRequestFinished(Instant.EPOCH, FAST, false);
+        Assertions.assertTrue(waiting.future.isDone());
+        Assertions.assertEquals(2, controller.getConcurrencyLimit());
+        controller.onRequestFinished(Instant.EPOCH, FAST, false);
+        controller.onRequestFinished(Instant.EPOCH, FAST, false);
+        Assertions.assertEquals(3, controller.getConcurrencyLimit());
+
+        // two slow responses in the same latency period only back off once
+        controller.admit();
+        controller.admit();
+        controller.onRequestFinished(Instant.EPOCH, SLOW, false);
+        Assertions.assertEquals(1, controller.getConcurrencyLimit());
+        controller.onRequestFinished(Instant.EPOCH, Duration.ZERO, true);
+        Assertions.assertEquals(1, controller.getConcurrencyLimit());
+
+        clock.addAndGet(TARGET_LATENCY.toNanos());
+        controller.admit();
+        controller.onRequestFinished(Instant.EPOCH, SLOW, false);
+        Assertions.assertEquals(1, controller.getConcurrencyLimit(), "the limit never drops below the minimum");
+    }
+
+    @Test
+    public void testThroughputAndSpeedupAreReported() {
+        var clock = new AtomicLong();
+        var controller = new MaxThroughputController(1, 10, 10, TARGET_LATENCY, 0.5, clock::get);
+        var sourceStart = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < 10; ++i) {
+            controller.admit();
+        }
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        for (int i = 0; i < 10; ++i) {
+            controller.onRequestFinished(sourceStart.plusSeconds(i * 2L), FAST, false);
+        }
+        Assertions.assertEquals(10, controller.getCompletedCount());
+        Assertions.assertEquals(5.0, controller.getRequestsPerSecond(), 0.001);
+        // 18 seconds of source traffic replayed in 2 seconds
+        Assertions.assertEquals(9.0, controller.getEffectiveSpeedup(), 0.001);
+    }
+
+    private static TransformedTargetRequestAndResponseList makeResults(int... statusCodes) {
+        var results = new TransformedTargetRequestAndResponseList(null, HttpRequestTransformationStatus.completed());
+        for (var statusCode : statusCodes) {
+            results.addResponse(AggregatedRawResponse.builder(Instant.now())
+                .addHttpParsedResponseObject(
+                    new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.valueOf(statusCode)))
+                .build());
+        }
+        return results;
+    }
+
+    @Test
+    public void testFailuresAreDerivedFromTheFinalResponse() {
+        Assertions.assertFalse(ReplayEngine.isFailedOutcome(makeResults(200), null));
+        Assertions.assertFalse(ReplayEngine.isFailedOutcome(makeResults(404), null));
+        Assertions.assertFalse(ReplayEngine.isFailedOutcome(makeResults(503, 200), null));
+        Assertions.assertTrue(ReplayEngine.isFailedOutcome(makeResults(429), null));
+        Assertions.assertTrue(ReplayEngine.isFailedOutcome(makeResults(200, 502), null));
+        Assertions.assertTrue(ReplayEngine.isFailedOutcome(makeResults(), null));
+
+        var errored = new TransformedTargetRequestAndResponseList(null, HttpRequestTransformationStatus.completed());
+        errored.addResponse(AggregatedRawResponse.builder(Instant.now())
+            .addErrorCause(new RuntimeException("connection reset"))
+            .build());
+        Assertions.assertTrue(ReplayEngine.isFailedOutcome(errored, null));
+        Assertions.assertTrue(ReplayEngine.isFailedOutcome(null, new RuntimeException("send failed")));
+    }
+}
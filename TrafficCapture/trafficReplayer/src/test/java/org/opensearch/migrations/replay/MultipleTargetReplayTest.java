@@ -0,0 +1,166 @@
+package org.opensearch.migrations.replay;
+
+import javax.net.ssl.SSLException;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+import org.opensearch.migrations.replay.datatypes.HttpRequestTransformationStatus;
+import org.opensearch.migrations.replay.e2etests.TrafficReplayerRunner;
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.replay.tracing.IRootReplayerContext;
+import org.opensearch.migrations.replay.traffic.generator.ExhaustiveTrafficStreamGenerator;
+import org.opensearch.migrations.replay.traffic.source.ArrayCursorTrafficSourceContext;
+import org.opensearch.migrations.replay.traffic.source.TrafficStreamLimiter;
+import org.opensearch.migrations.replay.util.TextTrackedFuture;
+import org.opensearch.migrations.testutils.SimpleNettyHttpServer;
+import org.opensearch.migrations.testutils.WrapWithNettyLeakDetection;
+import org.opensearch.migrations.tracing.InstrumentationTest;
+import org.opensearch.migrations.tracing.TestContext;
+import org.opensearch.migrations.transform.StaticAuthTransformerFactory;
+import org.opensearch.migrations.transform.TransformationLoader;
+
+import io.netty.buffer.Unpooled;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+@Slf4j
+public class MultipleTargetReplayTest extends InstrumentationTest {
+
+    private static TransformedTargetRequestAndResponseList makeResults(int numResponses) {
+        var results = new TransformedTargetRequestAndResponseList(
+            new ByteBufList(Unpooled.wrappedBuffer("request".getBytes(StandardCharsets.UTF_8))),
+            HttpRequestTransformationStatus.completed());
+        for (int i = 0; i < numResponses; ++i) {
+            results.addResponse(new AggregatedRawResponse(null, 0, Duration.ZERO, List.of(), null));
+        }
+        return results;
+    }
+
+    @Test
+    @WrapWithNettyLeakDetection(repetitions = 1)
+    public void testAdditionalTargetFailuresAreRecordedAsErrorResponses() throws Exception {
+        var primary = makeResults(2);
+        var additional = makeResults(1);
+        var additionalRequest = additional.requestPackets;
+        var failure = new RuntimeException("couldn't connect");
+        var combined = TrafficReplayerCore.combineResultsFromAllTargets(List.of(
+            TextTrackedFuture.completedFuture(primary, () -> "primary"),
+            TextTrackedFuture.completedFuture(additional, () -> "additional"),
+            TextTrackedFuture.failedFuture(failure, () -> "failed additional")
+        )).get();
+
+        Assertions.assertSame(primary, combined);
+        Assertions.assertEquals(0, additionalRequest.refCnt(), "only the primary target's request is kept");
+        try (var tuple = new SourceTargetCaptureTuple(rootContext.getTestTupleContext(), null, combined, null)) {
+            Assertions.assertEquals(List.of(0, 0, 1, 2),
+                tuple.responseList.stream().map(r -> r.targetIndex).collect(Collectors.toList()));
+            Assertions.assertNull(tuple.responseList.get(2).errorCause);
+            Assertions.assertSame(failure, tuple.responseList.get(3).errorCause);
+            Assertions.assertSame(tuple.responseList.get(1), tuple.getLastPrimaryTargetResponse().orElseThrow());
+        }
+    }
+
+    @Test
+    @WrapWithNettyLeakDetection(repetitions = 1)
+    public void testAPrimaryTargetFailureFailsTheRequestAndReleasesTheOthers() {
+        var additional = makeResults(1);
+        var additionalRequest = additional.requestPackets;
+        var failure = new RuntimeException("transformation failed");
+        var combined = TrafficReplayerCore.combineResultsFromAllTargets(List.of(
+            TextTrackedFuture.<TransformedTargetRequestAndResponseList>failedFuture(failure, () -> "primary"),
+            TextTrackedFuture.completedFuture(additional, () -> "additional")
+        ));
+        var thrown = Assertions.assertThrows(ExecutionException.class, combined::get);
+        Assertions.assertSame(failure, thrown.getCause());
+        Assertions.assertEquals(0, additionalRequest.refCnt());
+    }
+
+    private static class CountingReplayer extends TrafficReplayerTopLevel {
+        final AtomicInteger reportedResponses = new AtomicInteger();
+
+        CountingReplayer(IRootReplayerContext context, List<ReplayTarget> targets) {
+            super(context, targets, new TrafficStreamLimiter(1024), new ConcurrentHashMapWorkTracker<>(), 0, false);
+        }
+
+        @Override
+        protected void perResponseConsumer(AggregatedRawResponse summary,
+                                           HttpRequestTransformationStatus transformationStatus,
+                                           IReplayContexts.IReplayerHttpTransactionContext context) {
+            reportedResponses.incrementAndGet();
+            super.perResponseConsumer(summary, transformationStatus, context);
+        }
+    }
+
+    private static ReplayTarget makeTarget(URI uri, String connectionPoolName) throws SSLException {
+        return new ReplayTarget(
+            uri,
+            new StaticAuthTransformerFactory("TEST"),
+            new TransformationLoader().getTransformerFactoryLoaderWithNewHostName(uri.getHost()),
+            TrafficReplayerTopLevel.makeNettyPacketConsumerConnectionPool(uri, true, 0, connectionPoolName)
+        );
+    }
+
+    @Test
+    @Tag("longTest")
+    @ResourceLock("TrafficReplayerRunner")
+    public void testEveryRequestIsSentToEveryTargetAndOnlyCountedOnce() throws Throwable {
+        var random = new Random(1);
+        try (
+            var primaryServer = SimpleNettyHttpServer.makeServer(false, Duration.ofMillis(200),
+                response -> TestHttpServerContext.makeResponse(random, response));
+            var additionalServer = SimpleNettyHttpServer.makeServer(false, Duration.ofMillis(200),
+                response -> TestHttpServerContext.makeResponse(random, response))
+        ) {
+            var streamAndSizes = ExhaustiveTrafficStreamGenerator.generateStreamAndSumOfItsTransactions(
+                TestContext.noOtelTracking(),
+                3,
+                false
+            );
+            var trafficSourceSupplier = new ArrayCursorTrafficSourceContext(
+                streamAndSizes.stream.collect(Collectors.toList()));
+            var replayers = new ArrayList<CountingReplayer>();
+            var primaryResponsesInTuples = new AtomicInteger();
+            TrafficReplayerRunner.runReplayer(streamAndSizes.numHttpTransactions, (rc, connectionPoolName) -> {
+                try {
+                    var replayer = new CountingReplayer(rc, List.of(
+                        makeTarget(primaryServer.localhostEndpoint(), connectionPoolName),
+                        makeTarget(additionalServer.localhostEndpoint(), connectionPoolName)
+                    ));
+                    replayers.add(replayer);
+                    return replayer;
+                } catch (SSLException e) {
+                    throw new RuntimeException(e);
+                }
+            }, () -> tuple -> {
+                var targetIndices = tuple.responseList.stream()
+                    .map(r -> r.targetIndex)
+                    .collect(Collectors.toSet());
+                Assertions.assertEquals(Set.of(0, 1), targetIndices, "responses from both targets");
+                tuple.responseList.stream()
+                    .filter(r -> r.targetIndex == 1)
+                    .forEach(r -> Assertions.assertNull(r.errorCause));
+                primaryResponsesInTuples.addAndGet(
+                    (int) tuple.responseList.stream().filter(r -> r.targetIndex == 0).count());
+            }, () -> TestContext.noOtelTracking(), trafficSourceSupplier, new TimeShifter(10 * 1000));
+
+            Assertions.assertEquals(
+                primaryResponsesInTuples.get(),
+                replayers.stream().mapToInt(r -> r.reportedResponses.get()).sum(),
+                "only the primary target's responses are reported"
+            );
+        }
+    }
+}
@@ -1,14 +1,36 @@
 package org.opensearch.migrations.replay;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import org.opensearch.migrations.replay.datahandlers.PayloadAccessFaultingMap;
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+import org.opensearch.migrations.replay.datatypes.HttpRequestTransformationStatus;
+import org.opensearch.migrations.replay.datatypes.PojoTrafficStreamKeyAndContext;
 import org.opensearch.migrations.tracing.InstrumentationTest;
 import org.opensearch.migrations.tracing.TestContext;
+import org.opensearch.migrations.transform.JsonKeysForHttpMessage;
+
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceLock;
 
 class ParsedHttpMessagesAsDictsTest extends InstrumentationTest {
 
+    private static final String RESPONSE_BODY = "{\"took\":1,\"errors\":false}";
+    private static final String RESPONSE = "HTTP/1.1 200 OK\r\n"
+        + "Content-Type: application/json\r\n"
+        + "Content-Length: " + RESPONSE_BODY.length() + "\r\n"
+        + "\r\n"
+        + RESPONSE_BODY;
+
     @Override
     protected TestContext makeInstrumentationContext() {
         return TestContext.withTracking(false, true);
@@ -24,4 +46,88 @@ class ParsedHttpMessagesAsDictsTest extends InstrumentationTest {
         );
     }
 
+    private static String makeRequest(String uri, String body) {
+        return "POST " + uri + " HTTP/1.1\r\n"
+            + "Host: localhost\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: " + body.length() + "\r\n"
+            + "\r\n"
+            + body;
+    }
+
+    private void parseTuple(String request, BodyInclusionPolicy policy, Consumer<ParsedHttpMessagesAsDicts> checker) {
+        var trafficStreamKey = PojoTrafficStreamKeyAndContext.build(
+            "n",
+            "c",
+            0,
+            rootContext::createTrafficStreamContextForTest
+        );
+        var sourcePair = new RequestResponsePacketPair(trafficStreamKey, Instant.EPOCH, 0, 0);
+        var requestBytes = request.getBytes(StandardCharsets.UTF_8);
+        var responseBytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        sourcePair.addRequestData(Instant.EPOCH, requestBytes);
+        sourcePair.addResponseData(Instant.EPOCH, responseBytes);
+        var targetRequest = new ByteBufList();
+        var requestBuf = Unpooled.wrappedBuffer(requestBytes);
+        targetRequest.add(requestBuf);
+        requestBuf.release();
+        var targetResponses = new TransformedTargetRequestAndResponseList(
+            targetRequest,
+            HttpRequestTransformationStatus.skipped(),
+            new AggregatedRawResponse(null, responseBytes.length, Duration.ofMillis(5),
+                List.of(new AbstractMap.SimpleEntry<>(Instant.EPOCH, responseBytes)), null)
+        );
+        try (var tupleContext = rootContext.getTestTupleContext()) {
+            var tuple = new SourceTargetCaptureTuple(tupleContext, sourcePair, targetResponses, null);
+            checker.accept(new ParsedHttpMessagesAsDicts(tuple, policy));
+        } finally {
+            targetRequest.release();
+        }
+    }
+
+    @Test
+    @ResourceLock("TestContext")
+    void testPayloadsAreOnlyParsedWhenAccessed() {
+        parseTuple(makeRequest("/idx/_search", "{\"size\":0}"), BodyInclusionPolicy.INCLUDE_ALL, parsed -> {
+            var sourceRequest = parsed.sourceRequestOp.orElseThrow();
+            Assertions.assertEquals("/idx/_search", sourceRequest.get(ParsedHttpMessagesAsDicts.REQUEST_URI_KEY));
+            var payload = (PayloadAccessFaultingMap) sourceRequest.get(ParsedHttpMessagesAsDicts.PAYLOAD_KEY);
+            Assertions.assertTrue(payload.isPayloadLoadPending());
+            Assertions.assertEquals(Map.of("size", 0),
+                payload.get(JsonKeysForHttpMessage.INLINED_JSON_BODY_DOCUMENT_KEY));
+            Assertions.assertFalse(payload.isPayloadLoadPending());
+
+            var targetResponse = parsed.targetResponseList.get(0);
+            Assertions.assertEquals(200, targetResponse.get(ParsedHttpMessagesAsDicts.STATUS_CODE_KEY));
+            var responsePayload = (PayloadAccessFaultingMap) targetResponse.get(ParsedHttpMessagesAsDicts.PAYLOAD_KEY);
+            Assertions.assertTrue(responsePayload.isPayloadLoadPending());
+            Assertions.assertEquals(Map.of("took", 1, "errors", false),
+                responsePayload.get(JsonKeysForHttpMessage.INLINED_JSON_BODY_DOCUMENT_KEY));
+        });
+    }
+
+    @Test
+    @ResourceLock("TestContext")
+    void testBodiesAreOmittedPerTheSourceRequestUri() {
+        var policy = BodyInclusionPolicy.parse(List.of("_bulk=0"), 1024);
+        var bulkBody = "{\"index\":{\"_index\":\"idx\"}}\n{\"a\":1}\n";
+        parseTuple(makeRequest("/_bulk", bulkBody), policy, parsed -> {
+            var sourceRequest = parsed.sourceRequestOp.orElseThrow();
+            Assertions.assertFalse(sourceRequest.containsKey(ParsedHttpMessagesAsDicts.PAYLOAD_KEY));
+            Assertions.assertEquals((long) bulkBody.length(),
+                sourceRequest.get(ParsedHttpMessagesAsDicts.OMITTED_PAYLOAD_BYTES_KEY));
+            Assertions.assertEquals((long) RESPONSE_BODY.length(),
+                parsed.sourceResponseOp.orElseThrow().get(ParsedHttpMessagesAsDicts.OMITTED_PAYLOAD_BYTES_KEY));
+            Assertions.assertTrue(parsed.targetRequestOp.orElseThrow()
+                .containsKey(ParsedHttpMessagesAsDicts.OMITTED_PAYLOAD_BYTES_KEY));
+            Assertions.assertEquals(200,
+                parsed.targetResponseList.get(0).get(ParsedHttpMessagesAsDicts.STATUS_CODE_KEY));
+        });
+        parseTuple(makeRequest("/idx/_doc", "{\"a\":1}"), policy, parsed -> {
+            Assertions.assertTrue(parsed.sourceRequestOp.orElseThrow()
+                .containsKey(ParsedHttpMessagesAsDicts.PAYLOAD_KEY));
+            Assertions.assertTrue(parsed.targetResponseList.get(0)
+                .containsKey(ParsedHttpMessagesAsDicts.PAYLOAD_KEY));
+        });
+    }
 }
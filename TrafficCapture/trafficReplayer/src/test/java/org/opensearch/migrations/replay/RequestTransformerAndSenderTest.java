@@ -0,0 +1,118 @@
+package org.opensearch.migrations.replay;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.opensearch.migrations.replay.datahandlers.IPacketFinalizingConsumer;
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+import org.opensearch.migrations.replay.datatypes.TransformedOutputAndResult;
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.replay.util.RefSafeHolder;
+import org.opensearch.migrations.testutils.WrapWithNettyLeakDetection;
+import org.opensearch.migrations.tracing.InstrumentationTest;
+import org.opensearch.migrations.transform.TransformationLoader;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RequestTransformerAndSenderTest extends InstrumentationTest {
+    private static final String SOURCE_REQUEST = "GET /logs/_search HTTP/1.1\r\nHost: source\r\n\r\n";
+
+    private static class CountingFactory extends PacketToTransformingHttpHandlerFactory {
+        final AtomicInteger pipelinesCreated = new AtomicInteger();
+
+        CountingFactory(TransformedRequestCache cache) {
+            super(new TransformationLoader().getTransformerFactoryLoaderWithNewHostName("localhost"),
+                null, false, cache);
+        }
+
+        @Override
+        public IPacketFinalizingConsumer<TransformedOutputAndResult<ByteBufList>> create(
+            IReplayContexts.IReplayerHttpTransactionContext httpTransactionContext
+        ) {
+            pipelinesCreated.incrementAndGet();
+            return super.create(httpTransactionContext);
+        }
+    }
+
+    private TransformedOutputAndResult<ByteBufList> transform(CountingFactory factory) throws Exception {
+        var ctx = rootContext.getTestConnectionRequestContext(0);
+        try {
+            return RequestTransformerAndSender.transformAllDataOrReuseCachedResult(factory, ctx,
+                () -> Stream.of(SOURCE_REQUEST.getBytes(StandardCharsets.UTF_8))).get();
+        } finally {
+            ctx.close();
+        }
+    }
+
+    private static String asString(ByteBufList packets) {
+        return packets.asByteArrayStream()
+            .map(b -> new String(b, StandardCharsets.UTF_8))
+            .collect(Collectors.joining());
+    }
+
+    @Test
+    @WrapWithNettyLeakDetection(repetitions = 1)
+    public void testCacheHitsSkipTheTransformationPipeline() throws Exception {
+        var cache = new TransformedRequestCache(1024);
+        var factory = new CountingFactory(cache);
+        Assertions.assertSame(cache, factory.getTransformedRequestCache());
+
+        var transformed = transform(factory);
+        String transformedRequest;
+        try {
+            Assertions.assertTrue(transformed.transformationStatus.isCompleted());
+            transformedRequest = asString(transformed.transformedOutput);
+        } finally {
+            transformed.transformedOutput.release();
+        }
+        Assertions.assertTrue(transformedRequest.contains("Host: localhost"), transformedRequest);
+        Assertions.assertEquals(1, factory.pipelinesCreated.get());
+        Assertions.assertEquals(0, cache.getHitCount());
+
+        var reused = transform(factory);
+        try {
+            Assertions.assertEquals(1, factory.pipelinesCreated.get(), "the pipeline isn't run for a cache hit");
+            Assertions.assertEquals(1, cache.getHitCount());
+            Assertions.assertTrue(reused.transformationStatus.isCompleted());
+            Assertions.assertEquals(transformedRequest, asString(reused.transformedOutput));
+        } finally {
+            reused.transformedOutput.release();
+        }
+    }
+
+    @Test
+    @WrapWithNettyLeakDetection(repetitions = 1)
+    public void testCachedBuffersSurviveRetriesAndAreReleased() throws Exception {
+        var cache = new TransformedRequestCache(1024);
+        var factory = new CountingFactory(cache);
+        transform(factory).transformedOutput.release();
+
+        var reused = transform(factory).transformedOutput;
+        var buffers = reused.streamUnretained().collect(Collectors.toList());
+        var expectedRequest = asString(reused);
+        // each attempt reads the packets (as they're sent) and then the whole request (for the retry check)
+        for (int attempt = 0; attempt < 3; ++attempt) {
+            Assertions.assertEquals(expectedRequest, reused.streamUnretained()
+                .map(bb -> bb.toString(StandardCharsets.UTF_8))
+                .collect(Collectors.joining()));
+            try (var requestBytesHolder = RefSafeHolder.create(reused.asCompositeByteBufRetained())) {
+                Assertions.assertEquals(expectedRequest, requestBytesHolder.get().toString(StandardCharsets.UTF_8));
+            }
+        }
+        buffers.forEach(bb -> Assertions.assertTrue(bb.isReadOnly()));
+        reused.release();
+        buffers.forEach(bb -> Assertions.assertEquals(0, bb.refCnt()));
+
+        // releasing one request's buffers leaves the cached bytes intact for the next hit
+        var reusedAgain = transform(factory).transformedOutput;
+        try {
+            Assertions.assertEquals(expectedRequest, asString(reusedAgain));
+        } finally {
+            reusedAgain.release();
+        }
+        Assertions.assertEquals(1, factory.pipelinesCreated.get());
+    }
+}
@@ -110,6 +110,61 @@ class ResultsToLogsConsumerTest extends InstrumentationTest {
         }
     }
 
+    private static AggregatedRawResponse makeTextResponse(String statusLine, String body) {
+        var bytes = (statusLine + "\r\n"
+            + "Content-type: text/plain\r\n"
+            + "Content-length: " + body.length() + "\r\n"
+            + "\r\n"
+            + body).getBytes(StandardCharsets.UTF_8);
+        var packets = new ArrayList<AbstractMap.SimpleEntry<Instant, byte[]>>();
+        packets.add(new AbstractMap.SimpleEntry<>(Instant.EPOCH, bytes));
+        return new AggregatedRawResponse(null, bytes.length, Duration.ofMillis(10), packets, null);
+    }
+
+    @Test
+    @ResourceLock("TestContext")
+    public void testCombinedResponseIsLoggedAfterTheFinalRetryWithoutReplacingIt() throws IOException {
+        var firstAttempt = makeTextResponse("HTTP/1.1 200 OK", "firstAttempt");
+        var finalRetry = makeTextResponse("HTTP/1.1 429 Too Many Requests", "finalRetry");
+        var combined = makeTextResponse("HTTP/1.1 200 OK", "combined");
+        var responses = new TransformedTargetRequestAndResponseList(
+            null,
+            HttpRequestTransformationStatus.skipped(),
+            firstAttempt,
+            finalRetry
+        );
+        responses.setCombinedResponse(combined);
+        var tuple = new SourceTargetCaptureTuple(rootContext.getTestTupleContext(), null, responses, null);
+
+        Assertions.assertEquals(3, tuple.responseList.size());
+        var finalRetryResponse = tuple.responseList.get(1);
+        Assertions.assertFalse(finalRetryResponse.combined);
+        Assertions.assertArrayEquals(finalRetry.packets.get(0).getValue(),
+            finalRetryResponse.targetResponseData.get(0));
+        var combinedResponse = tuple.responseList.get(2);
+        Assertions.assertTrue(combinedResponse.combined);
+        Assertions.assertSame(combinedResponse, tuple.getLastPrimaryTargetResponse().orElseThrow());
+
+        try (var closeableLogSetup = new CloseableLogSetup(calculateLoggerName(this.getClass()))) {
+            var resultsToLogsConsumer = new ResultsToLogsConsumer(closeableLogSetup.getTestLogger(), null, null);
+            var consumer = new TupleParserChainConsumer(resultsToLogsConsumer);
+            consumer.accept(tuple);
+            Assertions.assertEquals(1, closeableLogSetup.getLogEvents().size());
+            var contents = mapper.readTree(closeableLogSetup.getLogEvents().get(0));
+            log.info("Output=" + contents);
+            Assertions.assertEquals(2, contents.get("numRequests").asInt());
+            var targetResponses = contents.get("targetResponses");
+            Assertions.assertEquals(3, targetResponses.size());
+            Assertions.assertEquals(429, targetResponses.get(1).get("Status-Code").asInt());
+            Assertions.assertTrue(targetResponses.get(1).get("payload").toString().contains("finalRetry"));
+            Assertions.assertFalse(targetResponses.get(1).has(ParsedHttpMessagesAsDicts.COMBINED_FROM_ATTEMPTS_KEY));
+            Assertions.assertEquals(200, targetResponses.get(2).get("Status-Code").asInt());
+            Assertions.assertTrue(
+                targetResponses.get(2).get(ParsedHttpMessagesAsDicts.COMBINED_FROM_ATTEMPTS_KEY).asBoolean()
+            );
+        }
+    }
+
     private static byte[] loadResourceAsBytes(String path) throws IOException {
         try (InputStream inputStream = ResultsToLogsConsumerTest.class.getResourceAsStream(path)) {
             return inputStream.readAllBytes();
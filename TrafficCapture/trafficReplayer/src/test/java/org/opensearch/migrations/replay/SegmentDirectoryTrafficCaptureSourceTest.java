@@ -0,0 +1,89 @@
+package org.opensearch.migrations.replay;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.opensearch.migrations.replay.traffic.source.SegmentDirectoryTrafficCaptureSource;
+import org.opensearch.migrations.tracing.InstrumentationTest;
+import org.opensearch.migrations.trafficcapture.protos.ReadObservation;
+import org.opensearch.migrations.trafficcapture.protos.TrafficObservation;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamUtils;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SegmentDirectoryTrafficCaptureSourceTest extends InstrumentationTest {
+    @TempDir
+    Path segmentDirectory;
+
+    private static TrafficStream makeTrafficStream(String nodeId, int index, long seconds) {
+        return TrafficStream.newBuilder()
+            .setNodeId(nodeId)
+            .setConnectionId("c")
+            .setNumber(index)
+            .addSubStream(
+                TrafficObservation.newBuilder()
+                    .setTs(Timestamp.newBuilder().setSeconds(seconds))
+                    .setRead(ReadObservation.newBuilder().setData(ByteString.copyFromUtf8(nodeId + index)))
+            )
+            .build();
+    }
+
+    private void writeSegment(String nodeId, int segmentNumber, long... secondsForEachStream) throws IOException {
+        var path = segmentDirectory.resolve(
+            nodeId + "." + segmentNumber + SegmentDirectoryTrafficCaptureSource.SEGMENT_FILE_SUFFIX
+        );
+        try (var os = Files.newOutputStream(path)) {
+            for (int i = 0; i < secondsForEachStream.length; ++i) {
+                makeTrafficStream(nodeId, segmentNumber * 100 + i, secondsForEachStream[i]).writeDelimitedTo(os);
+            }
+        }
+    }
+
+    @Test
+    public void testSegmentsFromAllNodesAreMergedInTimestampOrder() throws Exception {
+        writeSegment("nodeA", 0, 1, 4, 5);
+        writeSegment("nodeA", 1, 9, 10);
+        writeSegment("nodeB", 0, 2, 3);
+        writeSegment("nodeB", 1, 6, 7, 8);
+        // a partial write at the end of a segment is skipped, but the segments after it are still read
+        Files.write(
+            segmentDirectory.resolve("nodeB.0" + SegmentDirectoryTrafficCaptureSource.SEGMENT_FILE_SUFFIX),
+            new byte[] { 100, 1, 2 },
+            StandardOpenOption.APPEND
+        );
+
+        var seconds = new ArrayList<Long>();
+        try (var source = new SegmentDirectoryTrafficCaptureSource(rootContext, segmentDirectory)) {
+            while (true) {
+                try {
+                    source.readNextTrafficStreamChunk(rootContext::createReadChunkContext)
+                        .get()
+                        .forEach(tsk -> {
+                            seconds.add(
+                                TrafficStreamUtils.getFirstTimestamp(tsk.getStream())
+                                    .map(Instant::getEpochSecond)
+                                    .orElseThrow()
+                            );
+                            source.commitTrafficStream(tsk.getKey());
+                        });
+                } catch (ExecutionException e) {
+                    Assertions.assertInstanceOf(EOFException.class, e.getCause());
+                    break;
+                }
+            }
+        }
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), seconds);
+    }
+}
@@ -0,0 +1,55 @@
+package org.opensearch.migrations.replay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opensearch.migrations.replay.traffic.source.BufferedFlowController;
+import org.opensearch.migrations.replay.traffic.source.SlowestMemberFlowController;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SlowestMemberFlowControllerTest {
+
+    private static class RecordingFlowController implements BufferedFlowController {
+        final List<Instant> stopPoints = new ArrayList<>();
+
+        @Override
+        public void stopReadsPast(Instant pointInTime) {
+            stopPoints.add(pointInTime);
+        }
+
+        @Override
+        public Duration getBufferTimeWindow() {
+            return Duration.ofSeconds(5);
+        }
+
+        Instant getLastStopPoint() {
+            return stopPoints.get(stopPoints.size() - 1);
+        }
+    }
+
+    @Test
+    public void testReadsAreOnlyAllowedPastWhatEveryMemberHasReached() {
+        var underlying = new RecordingFlowController();
+        var shared = new SlowestMemberFlowController(underlying);
+        var fast = shared.createMember();
+        var slow = shared.createMember();
+        Assertions.assertEquals(Duration.ofSeconds(5), fast.getBufferTimeWindow());
+
+        fast.stopReadsPast(Instant.ofEpochSecond(100));
+        Assertions.assertEquals(Instant.EPOCH, underlying.getLastStopPoint());
+        slow.stopReadsPast(Instant.ofEpochSecond(10));
+        Assertions.assertEquals(Instant.ofEpochSecond(10), underlying.getLastStopPoint());
+        fast.stopReadsPast(Instant.ofEpochSecond(200));
+        Assertions.assertEquals(Instant.ofEpochSecond(10), underlying.getLastStopPoint());
+        slow.stopReadsPast(Instant.ofEpochSecond(150));
+        Assertions.assertEquals(Instant.ofEpochSecond(150), underlying.getLastStopPoint());
+
+        // a member never moves backwards
+        slow.stopReadsPast(Instant.ofEpochSecond(50));
+        Assertions.assertEquals(Instant.ofEpochSecond(150), underlying.getLastStopPoint());
+    }
+}
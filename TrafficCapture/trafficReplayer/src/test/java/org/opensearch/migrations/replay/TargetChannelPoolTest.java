@@ -0,0 +1,98 @@
+package org.opensearch.migrations.replay;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.opensearch.migrations.replay.util.TextTrackedFuture;
+import org.opensearch.migrations.replay.util.TrackedFuture;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TargetChannelPoolTest {
+
+    private DefaultEventLoop eventLoop;
+    private ArrayList<EmbeddedChannel> createdChannels;
+    private TargetChannelPool.Stats stats;
+    private TargetChannelPool pool;
+
+    @BeforeEach
+    void setUp() {
+        eventLoop = new DefaultEventLoop();
+        createdChannels = new ArrayList<>();
+        stats = new TargetChannelPool.Stats();
+        pool = new TargetChannelPool(eventLoop, (loop, ctx, socketParentCtx) -> {
+            var channel = new EmbeddedChannel();
+            createdChannels.add(channel);
+            return TextTrackedFuture.completedFuture(channel.newSucceededFuture(), () -> "test channel");
+        }, null, 2, stats);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLoop.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @SneakyThrows
+    private TrackedFuture<String, ChannelFuture> acquire() {
+        return eventLoop.submit(() -> pool.acquire(null)).get(10, TimeUnit.SECONDS);
+    }
+
+    @SneakyThrows
+    private void release(TrackedFuture<String, ChannelFuture> lease, boolean reusable) {
+        var channelFuture = lease.get();
+        eventLoop.submit(() -> pool.release(channelFuture, reusable)).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testReleasedChannelsAreReusedAndRequestsWaitBeyondTheLimit() throws Exception {
+        var first = acquire();
+        var second = acquire();
+        var third = acquire();
+        Assertions.assertTrue(first.future.isDone());
+        Assertions.assertTrue(second.future.isDone());
+        Assertions.assertFalse(third.future.isDone());
+        Assertions.assertEquals(2, createdChannels.size());
+        Assertions.assertEquals(2, stats.getOpenConnections().get());
+        Assertions.assertEquals(2, stats.getLeasedConnections().get());
+        Assertions.assertEquals(1, stats.getWaitingRequests().get());
+
+        release(first, true);
+        Assertions.assertSame(first.get(), third.get());
+        Assertions.assertEquals(2, stats.getLeasedConnections().get());
+        Assertions.assertEquals(0, stats.getWaitingRequests().get());
+        Assertions.assertEquals(1, stats.getTotalWaits().sum());
+
+        release(second, true);
+        release(third, true);
+        var fourth = acquire();
+        Assertions.assertTrue(fourth.future.isDone());
+        Assertions.assertEquals(2, createdChannels.size());
+        Assertions.assertEquals(1, stats.getLeasedConnections().get());
+    }
+
+    @Test
+    void testUnreusableChannelsAreClosedAndReplaced() throws Exception {
+        var first = acquire();
+        var second = acquire();
+        var third = acquire();
+
+        release(first, false);
+        Assertions.assertFalse(createdChannels.get(0).isOpen());
+        Assertions.assertTrue(third.future.isDone());
+        Assertions.assertNotSame(first.get(), third.get());
+        Assertions.assertEquals(3, createdChannels.size());
+        Assertions.assertEquals(2, stats.getOpenConnections().get());
+
+        createdChannels.get(1).close();
+        release(second, true);
+        Assertions.assertEquals(1, stats.getOpenConnections().get());
+        Assertions.assertEquals(1, stats.getLeasedConnections().get());
+    }
+}
@@ -37,4 +37,26 @@ class TimeShifterTest {
             shifter.transformRealTimeToSourceTime(shifter.transformSourceTimeToRealTime(sourceTime2)).get()
         );
     }
+
+    @Test
+    public void testRateChangesKeepTheMappingContinuous() {
+        TimeShifter shifter = new TimeShifter(RATE_MULTIPLIER);
+        var sourceTime = Instant.now().minus(Duration.ofHours(1));
+        shifter.setFirstTimestamp(sourceTime);
+
+        var changeTime = Instant.now().plus(Duration.ofMinutes(1));
+        var sourceTimeAtChange = shifter.transformRealTimeToSourceTime(changeTime).get();
+        shifter.setRateMultiplier(2 * RATE_MULTIPLIER, changeTime);
+
+        Assertions.assertEquals(2 * RATE_MULTIPLIER, shifter.maxRateMultiplier());
+        Assertions.assertEquals(sourceTimeAtChange, shifter.transformRealTimeToSourceTime(changeTime).get());
+        Assertions.assertEquals(
+            sourceTimeAtChange.plus(Duration.ofMinutes(2 * RATE_MULTIPLIER)),
+            shifter.transformRealTimeToSourceTime(changeTime.plus(Duration.ofMinutes(1))).get()
+        );
+        Assertions.assertEquals(
+            changeTime.plus(Duration.ofMinutes(1)),
+            shifter.transformSourceTimeToRealTime(sourceTimeAtChange.plus(Duration.ofMinutes(2 * RATE_MULTIPLIER)))
+        );
+    }
 }
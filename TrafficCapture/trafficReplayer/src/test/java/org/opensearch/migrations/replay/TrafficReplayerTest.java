@@ -31,8 +31,11 @@ import org.opensearch.migrations.trafficcapture.protos.ReadObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
 import org.opensearch.migrations.trafficcapture.protos.WriteObservation;
+import org.opensearch.migrations.transform.RemovingAuthTransformerFactory;
+import org.opensearch.migrations.transform.StaticAuthTransformerFactory;
 import org.opensearch.migrations.transform.TransformationLoader;
 
+import com.beust.jcommander.ParameterException;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Timestamp;
 import lombok.NonNull;
@@ -352,6 +355,61 @@ class TrafficReplayerTest extends InstrumentationTest {
         }
     }
 
+    @Test
+    public void testAdditionalTargetIsBuiltFromItsJson() throws Exception {
+        var params = new TrafficReplayer.Parameters();
+        params.userAgent = "test-agent";
+        var target = TrafficReplayer.buildAdditionalTarget(rootContext, params,
+            "{\"uri\": \"https://other-cluster:9200\", \"insecure\": true, \"authHeaderValue\": \"Basic xyz\","
+                + " \"transformerConfig\": \"NoopTransformerProvider\"}");
+        try {
+            Assertions.assertEquals(new URI("https://other-cluster:9200"), target.getUri());
+            Assertions.assertInstanceOf(StaticAuthTransformerFactory.class, target.getAuthTransformerFactory());
+            Assertions.assertNotNull(target.getJsonTransformer());
+            Assertions.assertNotNull(target.getClientConnectionPool());
+        } finally {
+            target.getClientConnectionPool().shutdownNow().get();
+        }
+
+        var removingTarget = TrafficReplayer.buildAdditionalTarget(rootContext, params,
+            "{\"uri\": \"http://localhost:9201\", \"removeAuthHeader\": true}");
+        try {
+            Assertions.assertSame(RemovingAuthTransformerFactory.instance, removingTarget.getAuthTransformerFactory());
+        } finally {
+            removingTarget.getClientConnectionPool().shutdownNow().get();
+        }
+    }
+
+    @Test
+    public void testInvalidAdditionalTargetsAreRejected() {
+        var params = new TrafficReplayer.Parameters();
+        for (var json : List.of(
+            "[\"http://localhost:9200\"]",
+            "{\"insecure\": true}",
+            "{\"uri\": 9200}",
+            "{\"uri\": \"http://bad host:9200\"}"
+        )) {
+            Assertions.assertThrows(ParameterException.class,
+                () -> TrafficReplayer.buildAdditionalTarget(rootContext, params, json), json);
+        }
+    }
+
+    @Test
+    public void testAdditionalTargetWithMoreThanOneAuthOptionIsRejected() {
+        var params = new TrafficReplayer.Parameters();
+        for (var authOptions : List.of(
+            "\"authHeaderValue\": \"Basic xyz\", \"removeAuthHeader\": true",
+            "\"authHeaderValue\": \"Basic xyz\", \"sigv4AuthHeaderServiceRegion\": \"es,us-east-1\"",
+            "\"sigv4AuthHeaderServiceRegion\": \"es,us-east-1\", \"removeAuthHeader\": true"
+        )) {
+            var json = "{\"uri\": \"http://other-cluster:9200\", " + authOptions + "}";
+            var exception = Assertions.assertThrows(ParameterException.class,
+                () -> TrafficReplayer.buildAdditionalTarget(rootContext, params, json), json);
+            Assertions.assertTrue(exception.getMessage().contains("more than one auth option"), json);
+            Assertions.assertTrue(exception.getMessage().contains("http://other-cluster:9200"), json);
+        }
+    }
+
     private static String collectBytesToUtf8String(List<byte[]> bytesList) {
         return bytesList.stream().map(ba -> new String(ba, StandardCharsets.UTF_8)).collect(Collectors.joining());
     }
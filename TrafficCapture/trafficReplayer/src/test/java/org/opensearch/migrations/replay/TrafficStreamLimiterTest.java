@@ -0,0 +1,134 @@
+package org.opensearch.migrations.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.opensearch.migrations.replay.traffic.source.TrafficStreamLimiter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TrafficStreamLimiterTest {
+
+    @Test
+    public void testItemsWaitForRoomInTheByteBudget() {
+        var admitted = new ArrayList<TrafficStreamLimiter.WorkItem>();
+        try (var limiter = new TrafficStreamLimiter(10, 100, false, Runnable::run)) {
+            limiter.queueWork(1, 60, null, admitted::add);
+            limiter.queueWork(1, 60, null, admitted::add);
+            Assertions.assertEquals(1, admitted.size());
+            Assertions.assertEquals(60, limiter.getInUseBytes().get());
+            Assertions.assertEquals(1, limiter.getWaitingItems().get());
+            Assertions.assertEquals(60, limiter.getWaitingBytes().get());
+
+            limiter.doneProcessing(admitted.get(0));
+            Assertions.assertEquals(2, admitted.size());
+            Assertions.assertEquals(60, limiter.getInUseBytes().get());
+            Assertions.assertEquals(0, limiter.getWaitingItems().get());
+            Assertions.assertEquals(0, limiter.getWaitingBytes().get());
+
+            limiter.doneProcessing(admitted.get(1));
+            Assertions.assertEquals(0, limiter.getInUseBytes().get());
+        }
+    }
+
+    @Test
+    public void testOversizedItemsRunAloneAndKeepTheirPlaceInLine() {
+        var admitted = new ArrayList<TrafficStreamLimiter.WorkItem>();
+        try (var limiter = new TrafficStreamLimiter(10, 100, false, Runnable::run)) {
+            var first = limiter.queueWork(1, 10, null, admitted::add);
+            var oversized = limiter.queueWork(1, 500, null, admitted::add);
+            limiter.queueWork(1, 10, null, admitted::add);
+            Assertions.assertEquals(List.of(first), admitted);
+            // the small item isn't admitted ahead of the big one even though it would fit
+            Assertions.assertEquals(2, limiter.getWaitingItems().get());
+
+            limiter.doneProcessing(first);
+            Assertions.assertEquals(List.of(first, oversized), admitted);
+            Assertions.assertEquals(500, limiter.getInUseBytes().get());
+
+            limiter.doneProcessing(oversized);
+            Assertions.assertEquals(3, admitted.size());
+        }
+    }
+
+    @Test
+    public void testCostLimitStillAppliesWithoutAByteBudget() {
+        var admitted = new ArrayList<TrafficStreamLimiter.WorkItem>();
+        try (var limiter = new TrafficStreamLimiter(2, 0, false, Runnable::run)) {
+            for (int i = 0; i < 3; ++i) {
+                limiter.queueWork(1, 1_000_000, null, admitted::add);
+            }
+            Assertions.assertEquals(2, admitted.size());
+            limiter.doneProcessing(admitted.get(0));
+            Assertions.assertEquals(3, admitted.size());
+        }
+    }
+
+    @Test
+    public void testItemsCanBeFinishedFromWithinTheirTasks() {
+        var admittedCount = new int[1];
+        try (var limiter = new TrafficStreamLimiter(1, 0, false, Runnable::run)) {
+            for (int i = 0; i < 5; ++i) {
+                limiter.queueWork(1, null, workItem -> {
+                    ++admittedCount[0];
+                    limiter.doneProcessing(workItem);
+                });
+            }
+            Assertions.assertEquals(5, admittedCount[0]);
+            Assertions.assertEquals(0, limiter.getWaitingItems().get());
+        }
+    }
+
+    @Test
+    public void testExpectedResponseBytesAreAddedToTheRequestBytes() {
+        var admitted = new ArrayList<TrafficStreamLimiter.WorkItem>();
+        try (var limiter = new TrafficStreamLimiter(10, 1000, true, Runnable::run)) {
+            for (int i = 0; i < 200; ++i) {
+                limiter.recordResponseBytes(600);
+            }
+            Assertions.assertTrue(limiter.getExpectedResponseBytes() > 500);
+            limiter.queueWork(1, 100, null, admitted::add);
+            limiter.queueWork(1, 100, null, admitted::add);
+            Assertions.assertEquals(1, admitted.size());
+            Assertions.assertTrue(limiter.getInUseBytes().get() > 600);
+        }
+    }
+
+    @Test
+    public void testItemsAreNotAdmittedAfterClose() {
+        var admitted = new ArrayList<TrafficStreamLimiter.WorkItem>();
+        var limiter = new TrafficStreamLimiter(1, 0, false, Runnable::run);
+        limiter.queueWork(1, null, admitted::add);
+        limiter.queueWork(1, null, admitted::add);
+        limiter.close();
+        Assertions.assertTrue(limiter.isStopped());
+        limiter.doneProcessing(admitted.get(0));
+        Assertions.assertEquals(1, admitted.size());
+    }
+
+    @Test
+    public void testAdmittedWorkRunsOnTheFeederThreadRatherThanTheCallingThread() throws Exception {
+        var admittingThreads = new LinkedBlockingQueue<Thread>();
+        var admitted = new LinkedBlockingQueue<TrafficStreamLimiter.WorkItem>();
+        try (var limiter = new TrafficStreamLimiter(1)) {
+            for (int i = 0; i < 2; ++i) {
+                limiter.queueWork(1, null, workItem -> {
+                    admittingThreads.add(Thread.currentThread());
+                    admitted.add(workItem);
+                });
+            }
+            var first = admitted.poll(10, TimeUnit.SECONDS);
+            Assertions.assertNotNull(first);
+            Assertions.assertNull(admitted.poll(100, TimeUnit.MILLISECONDS));
+            limiter.doneProcessing(first);
+            Assertions.assertNotNull(admitted.poll(10, TimeUnit.SECONDS));
+            for (var t : admittingThreads) {
+                Assertions.assertNotEquals(Thread.currentThread(), t);
+                Assertions.assertTrue(t.getName().startsWith("requestFeederThread"));
+            }
+        }
+    }
+}
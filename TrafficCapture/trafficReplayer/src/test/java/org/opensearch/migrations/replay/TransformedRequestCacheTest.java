@@ -0,0 +1,105 @@
+package org.opensearch.migrations.replay;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+import org.opensearch.migrations.transform.IAuthTransformerFactory;
+import org.opensearch.migrations.transform.StaticAuthTransformerFactory;
+import org.opensearch.migrations.transform.TransformationLoader;
+
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TransformedRequestCacheTest {
+
+    private static TransformedRequestCache.Key makeKey(TransformedRequestCache cache, Object identity, String s) {
+        return cache.makeKey(identity, Stream.of(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void put(TransformedRequestCache cache, TransformedRequestCache.Key key, String... chunks) {
+        var packets = new ByteBufList();
+        for (var chunk : chunks) {
+            var byteBuf = Unpooled.wrappedBuffer(chunk.getBytes(StandardCharsets.UTF_8));
+            packets.add(byteBuf);
+            byteBuf.release();
+        }
+        cache.put(key, packets);
+        packets.release();
+    }
+
+    private static String getAsString(TransformedRequestCache cache, TransformedRequestCache.Key key) {
+        var packets = cache.get(key);
+        if (packets == null) {
+            return null;
+        }
+        try {
+            return packets.asByteArrayStream()
+                .map(b -> new String(b, StandardCharsets.UTF_8))
+                .collect(Collectors.joining("|"));
+        } finally {
+            packets.release();
+        }
+    }
+
+    @Test
+    void testHitsReturnTheTransformedChunksAndAreCounted() {
+        var cache = new TransformedRequestCache(1024);
+        var identity = new Object();
+        var key = makeKey(cache, identity, "GET / HTTP/1.1\r\n\r\n");
+        Assertions.assertNull(getAsString(cache, key));
+        put(cache, key, "GET /new HTTP/1.1\r\n", "\r\n");
+
+        Assertions.assertEquals("GET /new HTTP/1.1\r\n|\r\n",
+            getAsString(cache, makeKey(cache, identity, "GET / HTTP/1.1\r\n\r\n")));
+        Assertions.assertNull(getAsString(cache, makeKey(cache, new Object(), "GET / HTTP/1.1\r\n\r\n")));
+        Assertions.assertNull(getAsString(cache, makeKey(cache, identity, "GET /other HTTP/1.1\r\n\r\n")));
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(3, cache.getMissCount());
+        Assertions.assertEquals(21, cache.getCachedBytes());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvictedToStayWithinTheByteBudget() {
+        var cache = new TransformedRequestCache(10);
+        var identity = new Object();
+        var keyA = makeKey(cache, identity, "a");
+        var keyB = makeKey(cache, identity, "b");
+        var keyC = makeKey(cache, identity, "c");
+        put(cache, keyA, "aaaa");
+        put(cache, keyB, "bbbb");
+        Assertions.assertEquals("aaaa", getAsString(cache, keyA));
+        put(cache, keyC, "cccc");
+
+        Assertions.assertEquals(8, cache.getCachedBytes());
+        Assertions.assertEquals("aaaa", getAsString(cache, keyA));
+        Assertions.assertNull(getAsString(cache, keyB));
+        Assertions.assertEquals("cccc", getAsString(cache, keyC));
+
+        put(cache, makeKey(cache, identity, "d"), "too many bytes");
+        Assertions.assertEquals(8, cache.getCachedBytes());
+    }
+
+    @Test
+    void testCacheIsBypassedForTransformationsThatArentDeterministic() {
+        var cache = new TransformedRequestCache(1024);
+        var jsonTransformer = new TransformationLoader().getTransformerFactoryLoaderWithNewHostName("localhost");
+        Assertions.assertSame(cache,
+            new PacketToTransformingHttpHandlerFactory(jsonTransformer,
+                new StaticAuthTransformerFactory("Basic dXNlcjpwYXNz"), false, cache)
+                .getTransformedRequestCache());
+        Assertions.assertSame(cache,
+            new PacketToTransformingHttpHandlerFactory(jsonTransformer, null, false, cache)
+                .getTransformedRequestCache());
+
+        IAuthTransformerFactory timeDependentAuthFactory = httpMessage -> null;
+        Assertions.assertNull(
+            new PacketToTransformingHttpHandlerFactory(jsonTransformer, timeDependentAuthFactory, false, cache)
+                .getTransformedRequestCache());
+        Assertions.assertNull(
+            new PacketToTransformingHttpHandlerFactory(incomingJson -> incomingJson, null, false, cache)
+                .getTransformedRequestCache());
+    }
+}
@@ -0,0 +1,189 @@
+package org.opensearch.migrations.replay;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+import org.opensearch.migrations.replay.datatypes.HttpRequestTransformationStatus;
+import org.opensearch.migrations.replay.datatypes.PojoTrafficStreamKeyAndContext;
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.tracing.InMemoryInstrumentationBundle;
+import org.opensearch.migrations.tracing.InstrumentationTest;
+import org.opensearch.migrations.tracing.TestContext;
+
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TupleComparatorTest extends InstrumentationTest {
+    private static final String SEARCH_REQUEST = "GET /logs/_search HTTP/1.1\r\nHost: localhost\r\n\r\n";
+    private static final String BULK_REQUEST = "POST /_bulk HTTP/1.1\r\nHost: localhost\r\nContent-Length: 0\r\n\r\n";
+
+    @Override
+    protected TestContext makeInstrumentationContext() {
+        return TestContext.withTracking(false, true);
+    }
+
+    private static String jsonResponse(int status, String body) {
+        return "HTTP/1.1 " + status + " X\r\nContent-Type: application/json\r\nContent-Length: "
+            + body.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + body;
+    }
+
+    private static String chunkedJsonResponse(String body) {
+        var half = body.length() / 2;
+        return "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+            + Integer.toHexString(half) + "\r\n" + body.substring(0, half) + "\r\n"
+            + Integer.toHexString(body.length() - half) + "\r\n" + body.substring(half) + "\r\n"
+            + "0\r\n\r\n";
+    }
+
+    @Test
+    public void testEndpointsAreCategorized() {
+        Assertions.assertEquals("_search", TupleComparator.categorizeEndpoint("/logs/_search?q=x"));
+        Assertions.assertEquals("_bulk", TupleComparator.categorizeEndpoint("/_bulk"));
+        Assertions.assertEquals("_doc", TupleComparator.categorizeEndpoint("/logs/_doc/1"));
+        Assertions.assertEquals(TupleComparator.INDEX_ENDPOINT_CATEGORY, TupleComparator.categorizeEndpoint("/logs"));
+        Assertions.assertEquals(TupleComparator.ROOT_ENDPOINT_CATEGORY, TupleComparator.categorizeEndpoint("/"));
+        Assertions.assertEquals(TupleComparator.UNKNOWN_ENDPOINT_CATEGORY, TupleComparator.categorizeEndpoint(null));
+    }
+
+    @Test
+    public void testOnlyMismatchedTuplesArePassedOn() {
+        var mismatches = new ArrayList<String>();
+        var comparator = new TupleComparator(t -> mismatches.add(t.context.toString()));
+
+        var hits = "{\"took\":3,\"hits\":{\"total\":{\"value\":12,\"relation\":\"eq\"},\"hits\":[]}}";
+        var otherHits = "{\"took\":5,\"hits\":{\"total\":{\"value\":11,\"relation\":\"eq\"},\"hits\":[]}}";
+        runTuple(comparator, 0, SEARCH_REQUEST, jsonResponse(200, hits), jsonResponse(200, hits));
+        runTuple(comparator, 1, SEARCH_REQUEST, jsonResponse(200, hits), jsonResponse(200, otherHits));
+        runTuple(comparator, 2, SEARCH_REQUEST, jsonResponse(200, hits), jsonResponse(404, hits));
+
+        Assertions.assertEquals(1, comparator.getMatchedCount().get());
+        Assertions.assertEquals(2, comparator.getMismatchedCount().get());
+        Assertions.assertEquals(2, mismatches.size());
+
+        var metrics = rootContext.inMemoryInstrumentationBundle.getFinishedMetrics();
+        Assertions.assertEquals(3, InMemoryInstrumentationBundle.getMetricValueOrZero(
+            metrics,
+            IReplayContexts.MetricNames.TUPLE_COMPARISON_RESULT
+        ));
+    }
+
+    @Test
+    public void testSearchHitCountsAreReadFromStreamedBodies() {
+        var oldStyle = "{\"hits\":{\"total\":7,\"max_score\":null,\"hits\":[{\"_source\":{\"hits\":{\"total\":1}}}]}}";
+        var newStyle = "{\"hits\":{\"hits\":[],\"total\":{\"relation\":\"eq\",\"value\":9}}}";
+        var comparison = compareTuple(SEARCH_REQUEST, jsonResponse(200, oldStyle), chunkedJsonResponse(newStyle));
+        Assertions.assertEquals("_search", comparison.getEndpointCategory());
+        Assertions.assertEquals(7L, comparison.getSourceHitCount());
+        Assertions.assertEquals(9L, comparison.getTargetHitCount());
+        Assertions.assertFalse(comparison.isMatched());
+    }
+
+    @Test
+    public void testBulkItemStatusesAreCompared() {
+        var sourceBody = "{\"took\":1,\"errors\":false,\"items\":["
+            + "{\"index\":{\"_id\":\"1\",\"status\":201}},"
+            + "{\"index\":{\"_id\":\"2\",\"status\":201}},"
+            + "{\"delete\":{\"_id\":\"3\",\"status\":200}}]}";
+        var targetBody = "{\"took\":2,\"errors\":true,\"items\":["
+            + "{\"index\":{\"_id\":\"1\",\"status\":201}},"
+            + "{\"index\":{\"_id\":\"2\",\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\"}}},"
+            + "{\"delete\":{\"_id\":\"3\",\"status\":200}}]}";
+        var comparison = compareTuple(BULK_REQUEST, jsonResponse(200, sourceBody), chunkedJsonResponse(targetBody));
+        Assertions.assertEquals(200, comparison.getSourceStatus());
+        Assertions.assertEquals(200, comparison.getTargetStatus());
+        Assertions.assertEquals(1, comparison.getBulkItemMismatches());
+        Assertions.assertFalse(comparison.isMatched());
+
+        var sameComparison = compareTuple(BULK_REQUEST, jsonResponse(200, sourceBody), chunkedJsonResponse(sourceBody));
+        Assertions.assertEquals(0, sameComparison.getBulkItemMismatches());
+        Assertions.assertTrue(sameComparison.isMatched());
+    }
+
+    @Test
+    public void testOnlyThePrimaryTargetIsComparedWhenReplayingToSeveral() {
+        var hits = "{\"hits\":{\"total\":{\"value\":12,\"relation\":\"eq\"},\"hits\":[]}}";
+        var targetResponses = new ArrayList<SourceTargetCaptureTuple.Response>();
+        var comparison = new TupleComparator.Comparison[1];
+        runTuple(t -> {
+            targetResponses.addAll(t.responseList);
+            comparison[0] = TupleComparator.compare(t);
+        }, 0, SEARCH_REQUEST, jsonResponse(200, hits), jsonResponse(200, hits), jsonResponse(503, "{}"));
+
+        Assertions.assertEquals(2, targetResponses.size());
+        Assertions.assertEquals(0, targetResponses.get(0).targetIndex);
+        Assertions.assertEquals(1, targetResponses.get(1).targetIndex);
+        Assertions.assertEquals(200, comparison[0].getTargetStatus());
+        Assertions.assertTrue(comparison[0].isMatched());
+    }
+
+    @Test
+    public void testLatenciesAreMeasuredFromTheEndOfTheRequest() {
+        var comparison = compareTuple(SEARCH_REQUEST, jsonResponse(200, "{}"), jsonResponse(200, "{}"));
+        Assertions.assertEquals(Duration.ofMillis(20), comparison.getSourceLatency());
+        // not the 30ms that the target response took overall, which includes connecting and sending
+        Assertions.assertEquals(Duration.ofMillis(25), comparison.getTargetLatency());
+    }
+
+    private TupleComparator.Comparison compareTuple(String request, String sourceResponse, String targetResponse) {
+        var result = new TupleComparator.Comparison[1];
+        runTuple(t -> result[0] = TupleComparator.compare(t), 0, request, sourceResponse, targetResponse);
+        return result[0];
+    }
+
+    private static AggregatedRawResponse makeTargetResponse(String targetResponse) {
+        var targetPackets = new ArrayList<AbstractMap.SimpleEntry<Instant, byte[]>>();
+        // split the target response across packets to make sure that it's reassembled
+        var targetBytes = targetResponse.getBytes(StandardCharsets.UTF_8);
+        var splitPoint = targetBytes.length / 2;
+        for (var packet : List.of(
+            Arrays.copyOfRange(targetBytes, 0, splitPoint),
+            Arrays.copyOfRange(targetBytes, splitPoint, targetBytes.length)
+        )) {
+            targetPackets.add(new AbstractMap.SimpleEntry<>(Instant.now(), packet));
+        }
+        return new AggregatedRawResponse(null, targetBytes.length, Duration.ofMillis(30), targetPackets, null,
+            Duration.ofMillis(25));
+    }
+
+    private void runTuple(
+        Consumer<SourceTargetCaptureTuple> consumer,
+        int index,
+        String request,
+        String sourceResponse,
+        String targetResponse,
+        String... additionalTargetResponses
+    ) {
+        var trafficStreamKey = PojoTrafficStreamKeyAndContext.build(
+            "n",
+            "c",
+            0,
+            rootContext::createTrafficStreamContextForTest
+        );
+        var requestBytes = request.getBytes(StandardCharsets.UTF_8);
+        var sourcePair = new RequestResponsePacketPair(trafficStreamKey, Instant.EPOCH, index, 0);
+        sourcePair.addRequestData(Instant.EPOCH, requestBytes);
+        sourcePair.addResponseData(Instant.EPOCH.plusMillis(20), sourceResponse.getBytes(StandardCharsets.UTF_8));
+        var targetRequest = new ByteBufList();
+        targetRequest.add(Unpooled.wrappedBuffer(requestBytes));
+        var responses = new TransformedTargetRequestAndResponseList(
+            targetRequest,
+            HttpRequestTransformationStatus.skipped(),
+            makeTargetResponse(targetResponse)
+        );
+        for (var additionalTargetResponse : additionalTargetResponses) {
+            responses.addResponsesFromAdditionalTarget(List.of(makeTargetResponse(additionalTargetResponse)));
+        }
+        try (var tupleContext = rootContext.getTestTupleContext("c", index);
+             var tuple = new SourceTargetCaptureTuple(tupleContext, sourcePair, responses, null)) {
+            consumer.accept(tuple);
+        }
+    }
+}
@@ -11,7 +11,9 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -19,8 +21,10 @@ import java.util.stream.Stream;
 import org.opensearch.migrations.replay.AggregatedRawResponse;
 import org.opensearch.migrations.replay.ClientConnectionPool;
 import org.opensearch.migrations.replay.PacketToTransformingHttpHandlerFactory;
+import org.opensearch.migrations.replay.ReplayEngine;
 import org.opensearch.migrations.replay.ReplayEngineFactory;
 import org.opensearch.migrations.replay.ReplayUtils;
+import org.opensearch.migrations.replay.RequestSenderOrchestrator;
 import org.opensearch.migrations.replay.RequestTransformerAndSender;
 import org.opensearch.migrations.replay.TimeShifter;
 import org.opensearch.migrations.replay.datatypes.ConnectionReplaySession;
@@ -345,6 +349,59 @@ public class NettyPacketToHttpConsumerTest extends InstrumentationTest {
         }
     }
 
+    @Test
+    @WrapWithNettyLeakDetection(repetitions = 1)
+    public void testRequestsTransformedOnADedicatedPoolAreSent() throws Exception {
+        var transformationPool = Executors.newSingleThreadExecutor(new DefaultThreadFactory("testTransformer"));
+        try (var testServer = SimpleNettyHttpServer.makeServer(false, NettyPacketToHttpConsumerTest::makeResponseContext)) {
+            var transformingHttpHandlerFactory = new PacketToTransformingHttpHandlerFactory(
+                new TransformationLoader().getTransformerFactoryLoaderWithNewHostName(null),
+                null
+            );
+            var timeShifter = new TimeShifter();
+            timeShifter.setFirstTimestamp(Instant.now());
+            var clientConnectionPool = new ClientConnectionPool(
+                NettyPacketToHttpConsumer.createClientConnectionFactory(null, testServer.localhostEndpoint()),
+                "targetPool for testRequestsTransformedOnADedicatedPoolAreSent",
+                1
+            );
+            var transformationsSubmitted = new AtomicInteger();
+            var replayEngine = new ReplayEngine(
+                new RequestSenderOrchestrator(
+                    clientConnectionPool,
+                    (replaySession, ctx) -> new NettyPacketToHttpConsumer(replaySession, ctx, REGULAR_RESPONSE_TIMEOUT)
+                ),
+                new TestFlowController(),
+                timeShifter,
+                r -> {
+                    transformationsSubmitted.incrementAndGet();
+                    transformationPool.execute(r);
+                }
+            );
+            for (int i = 0; i < 2; ++i) {
+                var ctx = rootContext.getTestConnectionRequestContext("TEST", i);
+                var requestFinishFuture = new RequestTransformerAndSender<>(new NoRetryEvaluatorFactory())
+                    .transformAndSendRequest(
+                        transformingHttpHandlerFactory,
+                        replayEngine,
+                        TextTrackedFuture.completedFuture(null, () -> "do nothing"),
+                        ctx,
+                        Instant.now(),
+                        Instant.now(),
+                        () -> Stream.of(EXPECTED_REQUEST_STRING.getBytes(StandardCharsets.UTF_8))
+                    );
+                var aggregatedResponse = requestFinishFuture.get();
+                Assertions.assertNull(aggregatedResponse.getError());
+                Assertions.assertEquals(EXPECTED_RESPONSE_STRING, getResponsePacketsAsString(aggregatedResponse));
+            }
+            Assertions.assertEquals(2, transformationsSubmitted.get());
+            Assertions.assertFalse(replayEngine.isWorkOutstanding());
+            clientConnectionPool.shutdownNow().get();
+        } finally {
+            transformationPool.shutdown();
+        }
+    }
+
     private static String getResponsePacketsAsString(AggregatedRawResponse response) {
         return Arrays.stream(response.getCopyOfPackets())
             .map(bytes -> new String(bytes, StandardCharsets.UTF_8))
@@ -8,6 +8,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -283,6 +284,104 @@ class HttpJsonTransformingConsumerTest extends InstrumentationTest {
         Assertions.assertNull(returnedResponse.transformationStatus.getException());
     }
 
+    @Test
+    public void testBulkBodyIsStreamedOneItemAtATime() throws Exception {
+        final var dummyAggregatedResponse = new AggregatedRawResponse(null, 19, Duration.ZERO, List.of(), null);
+        var testPacketCapture = new TestCapturePacketToHttpHandler(Duration.ofMillis(100), dummyAggregatedResponse);
+        var itemSizesSeen = new ArrayList<Integer>();
+        var sizeRecordingTransformer = new JsonCompositeTransformer(incomingJson -> {
+            var payload = (Map) incomingJson.get("payload");
+            var list = (List) payload.get(JsonKeysForHttpMessage.INLINED_NDJSON_BODIES_DOCUMENT_KEY);
+            itemSizesSeen.add(list.size());
+            ((Map) incomingJson.get("headers")).put("listSize", "" + list.size());
+            return incomingJson;
+        });
+        var transformingHandler = new HttpJsonTransformingConsumer<AggregatedRawResponse>(
+            sizeRecordingTransformer,
+            null,
+            testPacketCapture,
+            rootContext.getTestConnectionRequestContext(0),
+            true
+        );
+
+        var bulkRequest = NDJSON_TEST_REQUEST.replace("POST /test ", "POST /test/_bulk ");
+        sliceRandomChunks(bulkRequest.getBytes(StandardCharsets.UTF_8), 8).forEach(transformingHandler::consumeBytes);
+        var returnedResponse = transformingHandler.finalizeRequest().get();
+        Assertions.assertEquals(HttpRequestTransformationStatus.completed(), returnedResponse.transformationStatus);
+        // the action with a source is transformed as a pair, the delete on its own
+        Assertions.assertEquals(List.of(2, 1), itemSizesSeen);
+
+        var output = testPacketCapture.getCapturedAsString();
+        var headersEnd = output.indexOf("\r\n\r\n");
+        var headers = output.substring(0, headersEnd);
+        Assertions.assertTrue(headers.startsWith("POST /test/_bulk HTTP/1.1\r\n"), headers);
+        Assertions.assertTrue(headers.contains("\r\nlistSize: 2"), headers);
+        Assertions.assertTrue(headers.contains("\r\ntransfer-encoding: chunked"), headers);
+        Assertions.assertFalse(headers.toLowerCase().contains("content-length"), headers);
+        Assertions.assertEquals(
+            bulkRequest.substring(bulkRequest.indexOf("\r\n\r\n") + 4),
+            dechunk(output.substring(headersEnd + 4))
+        );
+    }
+
+    @Test
+    public void testBulkBodyWithAnInvalidTrailingLineIsAbortedAfterTheFirstItemWasSent() throws Exception {
+        final var dummyAggregatedResponse = new AggregatedRawResponse(null, 19, Duration.ZERO, List.of(), null);
+        var testPacketCapture = new TestCapturePacketToHttpHandler(Duration.ofMillis(100), dummyAggregatedResponse);
+        var itemSizesSeen = new ArrayList<Integer>();
+        var sizeRecordingTransformer = new JsonCompositeTransformer(incomingJson -> {
+            var payload = (Map) incomingJson.get("payload");
+            var list = (List) payload.get(JsonKeysForHttpMessage.INLINED_NDJSON_BODIES_DOCUMENT_KEY);
+            itemSizesSeen.add(list.size());
+            ((Map) incomingJson.get("headers")).put("listSize", "" + list.size());
+            return incomingJson;
+        });
+        var transformingHandler = new HttpJsonTransformingConsumer<AggregatedRawResponse>(
+            sizeRecordingTransformer,
+            null,
+            testPacketCapture,
+            rootContext.getTestConnectionRequestContext(0),
+            true
+        );
+
+        // same length as the valid delete line, but the object is closed with a ']'
+        var invalidLastLine = "{\"delete\":{\"_index\":\"test\",\"_id\":\"1\"}]\n";
+        var bulkRequest = NDJSON_TEST_REQUEST
+            .replace("POST /test ", "POST /test/_bulk ")
+            .replace("{\"delete\":{\"_index\":\"test\",\"_id\":\"1\"}}\n", invalidLastLine);
+        var lastLineStart = bulkRequest.indexOf(invalidLastLine);
+        transformingHandler.consumeBytes(bulkRequest.substring(0, lastLineStart).getBytes(StandardCharsets.UTF_8));
+        transformingHandler.consumeBytes(bulkRequest.substring(lastLineStart).getBytes(StandardCharsets.UTF_8));
+        var finalizeFuture = transformingHandler.finalizeRequest();
+        var thrown = Assertions.assertThrows(ExecutionException.class, finalizeFuture::get);
+        Assertions.assertInstanceOf(StreamedRequestAbortedException.class, thrown.getCause());
+
+        // the first item was sent as soon as it was transformed, so the request was aborted, not redriven
+        Assertions.assertEquals(List.of(2), itemSizesSeen);
+        Assertions.assertSame(thrown.getCause(), testPacketCapture.getAbortCause());
+        var output = testPacketCapture.getCapturedAsString();
+        var headersEnd = output.indexOf("\r\n\r\n");
+        Assertions.assertTrue(output.startsWith("POST /test/_bulk HTTP/1.1\r\n"), output);
+        Assertions.assertTrue(output.substring(0, headersEnd).contains("\r\nlistSize: 2"), output);
+        Assertions.assertTrue(output.substring(headersEnd).contains("{\"field1\":\"value1\"}"), output);
+        Assertions.assertFalse(output.contains(invalidLastLine), output);
+    }
+
+    private static String dechunk(String chunkedBody) {
+        var sb = new StringBuilder();
+        int position = 0;
+        while (true) {
+            var sizeEnd = chunkedBody.indexOf("\r\n", position);
+            var size = Integer.parseInt(chunkedBody.substring(position, sizeEnd), 16);
+            if (size == 0) {
+                Assertions.assertEquals("\r\n", chunkedBody.substring(sizeEnd + 2));
+                return sb.toString();
+            }
+            sb.append(chunkedBody, sizeEnd + 2, sizeEnd + 2 + size);
+            position = sizeEnd + 2 + size + 2;
+        }
+    }
+
     @Test
     public void testPartialNewlineDelimitedJsonBodyIsHandled() throws Exception {
         final var dummyAggregatedResponse = new AggregatedRawResponse(null, 19, Duration.ZERO, List.of(), null);
@@ -7,14 +7,17 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.opensearch.migrations.replay.AggregatedRawResponse;
 import org.opensearch.migrations.replay.HttpByteBufFormatter;
 import org.opensearch.migrations.replay.RequestSenderOrchestrator;
 import org.opensearch.migrations.replay.util.TextTrackedFuture;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.buffer.Unpooled;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -168,4 +171,131 @@ class OpenSearchDefaultRetryTest {
                 determination.get());
         }
     }
+
+    private static final String PARTIALLY_FAILED_BULK_BODY =
+        "{ \"index\": { \"_index\": \"test\", \"_id\": \"1\" } }\n" +
+            "{ \"field1\": \"value1\" }\n" +
+            "{ \"delete\": { \"_index\": \"test\", \"_id\": \"2\" } }\n" +
+            "{ \"update\": { \"_id\": \"3\", \"_index\": \"test\" } }\n" +
+            "{ \"doc\": { \"field1\": \"updated_value1\" } }\n" +
+            "{ \"create\": { \"_index\": \"test\", \"_id\": \"4\" } }\n" +
+            "{ \"field1\": \"value4\" }\n";
+
+    private static AggregatedRawResponse makeBulkResponseWithItemStatuses(int... itemStatuses) {
+        var items = IntStream.of(itemStatuses)
+            .mapToObj(status -> "{\"index\":{\"_index\":\"test\",\"status\":" + status +
+                (status >= 300 ? ",\"error\":{\"type\":\"some_exception\"}" : "") + "}}")
+            .collect(Collectors.joining(","));
+        var body = "{\"took\":1,\"errors\":true,\"items\":[" + items + "]}";
+        var targetBytes = ("HTTP/1.1 200 OK\r\n" +
+            "Content-Length: " + body.length() + "\r\n" +
+            "Content-Type: application/json\r\n\r\n" +
+            body).getBytes(StandardCharsets.UTF_8);
+        return AggregatedRawResponse.builder(Instant.now())
+            .addHttpParsedResponseObject(
+                HttpByteBufFormatter.parseHttpResponseFromBufs(Stream.of(Unpooled.wrappedBuffer(targetBytes)), 0))
+            .addResponsePacket(targetBytes)
+            .build();
+    }
+
+    private static String makePartiallyFailedBulkRequest() {
+        return "POST /_bulk HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Content-Type: application/x-ndjson\r\n" +
+            "Content-Length: " + PARTIALLY_FAILED_BULK_BODY.length() + "\r\n\r\n" +
+            PARTIALLY_FAILED_BULK_BODY;
+    }
+
+    @Test
+    public void testOnlyRetryableBulkItemsAreRetried() {
+        var retryChecker = new OpenSearchDefaultRetry();
+        var requestBytes = Unpooled.wrappedBuffer(makePartiallyFailedBulkRequest().getBytes(StandardCharsets.UTF_8));
+        var requestToRetry = retryChecker.getRequestToRetry(requestBytes,
+            makeBulkResponseWithItemStatuses(201, 429, 400, 503));
+        Assertions.assertNotNull(requestToRetry);
+        try {
+            var expectedBody = "{ \"delete\": { \"_index\": \"test\", \"_id\": \"2\" } }\n" +
+                "{ \"create\": { \"_index\": \"test\", \"_id\": \"4\" } }\n" +
+                "{ \"field1\": \"value4\" }\n";
+            var retriedRequest = HttpByteBufFormatter.parseHttpRequestFromBufs(requestToRetry.streamUnretained(),
+                Integer.MAX_VALUE);
+            try {
+                Assertions.assertEquals("/_bulk", retriedRequest.uri());
+                Assertions.assertEquals("localhost", retriedRequest.headers().get("Host"));
+                Assertions.assertEquals(expectedBody.length(), retriedRequest.headers().getInt("Content-Length"));
+                Assertions.assertEquals(expectedBody, retriedRequest.content().toString(StandardCharsets.UTF_8));
+            } finally {
+                retriedRequest.release();
+            }
+        } finally {
+            requestToRetry.release();
+        }
+    }
+
+    @Test
+    public void testWholeBulkRequestIsRetriedWhenItemsCantBeMatched() {
+        var retryChecker = new OpenSearchDefaultRetry();
+        var requestBytes = Unpooled.wrappedBuffer(makePartiallyFailedBulkRequest().getBytes(StandardCharsets.UTF_8));
+        // nothing is worth retrying on its own
+        Assertions.assertNull(retryChecker.getRequestToRetry(requestBytes,
+            makeBulkResponseWithItemStatuses(201, 400, 200, 409)));
+        // the items in the response don't line up with the request
+        Assertions.assertNull(retryChecker.getRequestToRetry(requestBytes,
+            makeBulkResponseWithItemStatuses(201, 429)));
+        Assertions.assertNull(retryChecker.getRequestToRetry(
+            Unpooled.wrappedBuffer(REGULAR_REQUEST.getBytes(StandardCharsets.UTF_8)),
+            makeBulkResponseWithItemStatuses(429)));
+    }
+
+    private static List<Integer> getItemStatuses(AggregatedRawResponse response) throws Exception {
+        var parsedResponse = HttpByteBufFormatter.parseHttpResponseFromBufs(
+            Stream.of(response.getResponseAsByteBuf()), Integer.MAX_VALUE);
+        try {
+            Assertions.assertEquals(parsedResponse.content().readableBytes(),
+                parsedResponse.headers().getInt("Content-Length"));
+            var body = new ObjectMapper().readTree(parsedResponse.content().toString(StandardCharsets.UTF_8));
+            Assertions.assertEquals(
+                StreamSupport.stream(body.get("items").spliterator(), false)
+                    .anyMatch(item -> item.get("index").has("error")),
+                body.get("errors").asBoolean());
+            return StreamSupport.stream(body.get("items").spliterator(), false)
+                .map(item -> item.get("index").get("status").asInt())
+                .collect(Collectors.toList());
+        } finally {
+            parsedResponse.release();
+        }
+    }
+
+    @Test
+    public void testPartialBulkRetryResultsAreCombinedIntoTheOriginalItems() throws Exception {
+        var retryChecker = new OpenSearchDefaultRetry();
+        // items 1 and 3 are retried, then only item 1
+        var combined = retryChecker.combineResponses(List.of(
+            makeBulkResponseWithItemStatuses(201, 429, 400, 503),
+            makeBulkResponseWithItemStatuses(429, 200),
+            makeBulkResponseWithItemStatuses(201)));
+        Assertions.assertNotNull(combined);
+        Assertions.assertEquals(200, combined.getRawResponse().status().code());
+        Assertions.assertEquals(List.of(201, 201, 400, 200), getItemStatuses(combined));
+
+        var allSucceeded = retryChecker.combineResponses(List.of(
+            makeBulkResponseWithItemStatuses(201, 429, 200, 503),
+            makeBulkResponseWithItemStatuses(201, 200)));
+        Assertions.assertEquals(List.of(201, 201, 200, 200), getItemStatuses(allSucceeded));
+    }
+
+    @Test
+    public void testResponsesAreNotCombinedWithoutAPartialRetry() {
+        var retryChecker = new OpenSearchDefaultRetry();
+        Assertions.assertNull(retryChecker.combineResponses(List.of(
+            makeBulkResponseWithItemStatuses(201, 429))));
+        // every item was retried, so the final response already covers the whole request
+        Assertions.assertNull(retryChecker.combineResponses(List.of(
+            makeBulkResponseWithItemStatuses(429, 503),
+            makeBulkResponseWithItemStatuses(201, 200))));
+        // the retried items don't line up with those that were retryable
+        Assertions.assertNull(retryChecker.combineResponses(List.of(
+            makeBulkResponseWithItemStatuses(201, 429, 400, 503),
+            makeBulkResponseWithItemStatuses(201, 200, 200))));
+    }
 }
@@ -0,0 +1,131 @@
+package org.opensearch.migrations.replay.http.retries;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opensearch.migrations.replay.AggregatedRawResponse;
+import org.opensearch.migrations.replay.IRequestResponsePacketPair;
+import org.opensearch.migrations.replay.RequestSenderOrchestrator;
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+import org.opensearch.migrations.replay.datatypes.HttpRequestTransformationStatus;
+import org.opensearch.migrations.replay.datatypes.TransformedOutputAndResult;
+import org.opensearch.migrations.replay.util.TextTrackedFuture;
+import org.opensearch.migrations.replay.util.TrackedFuture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RetryCollectingVisitorFactoryTest {
+
+    /**
+     * Returns the directives that it's given, in order, and records how the visitor calls into it.
+     */
+    private static class ScriptedRetryEvaluator implements RequestRetryEvaluator {
+        final List<RequestSenderOrchestrator.RetryDirective> directives;
+        final AtomicInteger requestsToRetryBuilt = new AtomicInteger();
+        final List<Integer> requestRefCntsWhenBuilding = new ArrayList<>();
+        final List<List<AggregatedRawResponse>> combinedResponseLists = new ArrayList<>();
+        AggregatedRawResponse combinedResponse;
+        List<AggregatedRawResponse> collectedResponses;
+        int nextDirective;
+
+        ScriptedRetryEvaluator(RequestSenderOrchestrator.RetryDirective... directives) {
+            this.directives = List.of(directives);
+        }
+
+        @Override
+        public TrackedFuture<String, RequestSenderOrchestrator.RetryDirective>
+        shouldRetry(ByteBuf targetRequestBytes,
+                    List<AggregatedRawResponse> previousResponses,
+                    AggregatedRawResponse currentResponse,
+                    TrackedFuture<String, ? extends IRequestResponsePacketPair> reconstructedSourceTransactionFuture) {
+            collectedResponses = previousResponses;
+            return TextTrackedFuture.completedFuture(directives.get(nextDirective++), () -> "scripted directive");
+        }
+
+        @Override
+        public ByteBufList getRequestToRetry(ByteBuf targetRequestBytes, AggregatedRawResponse currentResponse) {
+            requestsToRetryBuilt.incrementAndGet();
+            requestRefCntsWhenBuilding.add(targetRequestBytes.refCnt());
+            return new ByteBufList(Unpooled.wrappedBuffer("retry".getBytes(StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public AggregatedRawResponse combineResponses(List<AggregatedRawResponse> responses) {
+            combinedResponseLists.add(List.copyOf(responses));
+            return combinedResponse;
+        }
+    }
+
+    private static AggregatedRawResponse makeResponse() {
+        return makeResponse("HTTP/1.1 200 OK\r\n\r\n");
+    }
+
+    private static AggregatedRawResponse makeResponse(String response) {
+        return AggregatedRawResponse.builder(Instant.now())
+            .addResponsePacket(response.getBytes(StandardCharsets.UTF_8))
+            .build();
+    }
+
+    private static RequestSenderOrchestrator.RetryVisitor<?> makeVisitor(RequestRetryEvaluator evaluator) {
+        var transformedResult = new TransformedOutputAndResult<>(
+            new ByteBufList(Unpooled.wrappedBuffer("request".getBytes(StandardCharsets.UTF_8))),
+            HttpRequestTransformationStatus.completed());
+        return new RetryCollectingVisitorFactory(evaluator).getRetryCheckVisitor(transformedResult,
+            TextTrackedFuture.completedFuture(null, () -> "no source"));
+    }
+
+    @Test
+    public void testRequestToRetryIsOnlyBuiltAfterARetryDetermination() throws Exception {
+        var evaluator = new ScriptedRetryEvaluator(RequestSenderOrchestrator.RetryDirective.DONE);
+        var visitor = makeVisitor(evaluator);
+        var requestBytes = Unpooled.wrappedBuffer("request".getBytes(StandardCharsets.UTF_8));
+        visitor.visit(requestBytes, makeResponse(), null).get();
+        Assertions.assertEquals(0, evaluator.requestsToRetryBuilt.get());
+        Assertions.assertTrue(evaluator.combinedResponseLists.isEmpty(), "nothing was retried with a new request");
+        Assertions.assertEquals(1, requestBytes.refCnt());
+    }
+
+    @Test
+    public void testResponsesAreCombinedOnceRetriesWithNewRequestsAreDone() throws Exception {
+        var evaluator = new ScriptedRetryEvaluator(RequestSenderOrchestrator.RetryDirective.RETRY,
+            RequestSenderOrchestrator.RetryDirective.DONE);
+        var visitor = makeVisitor(evaluator);
+        var requestBytes = Unpooled.wrappedBuffer("request".getBytes(StandardCharsets.UTF_8));
+        var firstResponse = makeResponse();
+        visitor.visit(requestBytes, firstResponse, null).get();
+        Assertions.assertEquals(1, evaluator.requestsToRetryBuilt.get());
+        Assertions.assertTrue(evaluator.requestRefCntsWhenBuilding.get(0) > 0,
+            "the request is still readable when the request to retry is built");
+        Assertions.assertEquals(1, requestBytes.refCnt());
+
+        var secondResponse = makeResponse();
+        visitor.visit(Unpooled.wrappedBuffer("retry".getBytes(StandardCharsets.UTF_8)), secondResponse, null).get();
+        Assertions.assertEquals(1, evaluator.requestsToRetryBuilt.get());
+        Assertions.assertEquals(List.of(List.of(firstResponse, secondResponse)), evaluator.combinedResponseLists);
+    }
+
+    @Test
+    public void testCombinedResponseDoesNotReplaceTheFinalRetrysResponse() throws Exception {
+        var evaluator = new ScriptedRetryEvaluator(RequestSenderOrchestrator.RetryDirective.RETRY,
+            RequestSenderOrchestrator.RetryDirective.DONE);
+        evaluator.combinedResponse = makeResponse();
+        var visitor = makeVisitor(evaluator);
+        var firstResponse = makeResponse();
+        visitor.visit(Unpooled.wrappedBuffer("request".getBytes(StandardCharsets.UTF_8)), firstResponse, null).get();
+        var finalRetryBytes = "HTTP/1.1 429 Too Many Requests\r\nContent-Length: 0\r\n\r\n";
+        var finalRetryResponse = makeResponse(finalRetryBytes);
+        visitor.visit(Unpooled.wrappedBuffer("retry".getBytes(StandardCharsets.UTF_8)), finalRetryResponse, null)
+            .get();
+
+        Assertions.assertEquals(List.of(firstResponse, finalRetryResponse), evaluator.collectedResponses);
+        // the final retry's own status line and bytes are still what was recorded for that attempt
+        Assertions.assertEquals(finalRetryBytes,
+            new String(evaluator.collectedResponses.get(1).getCopyOfPackets()[0], StandardCharsets.UTF_8));
+    }
+}
@@ -4,6 +4,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -12,13 +13,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import org.opensearch.migrations.replay.tracing.ChannelContextManager;
 import org.opensearch.migrations.replay.tracing.ReplayContexts;
+import org.opensearch.migrations.replay.traffic.source.ITrafficCaptureSource;
 import org.opensearch.migrations.replay.traffic.source.ITrafficStreamWithKey;
 import org.opensearch.migrations.tracing.InstrumentationTest;
+import org.opensearch.migrations.trafficcapture.protos.CloseObservation;
 import org.opensearch.migrations.trafficcapture.protos.ReadObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
@@ -59,6 +63,52 @@ class KafkaTrafficCaptureSourceTest extends InstrumentationTest {
         Assertions.assertEquals("n.c.7|partition=2|offset=123", tsk.toString());
     }
 
+    @Test
+    public void testLargeAndSmallRecordsAreReturnedInTheOrderThatTheyWerePolled() throws Exception {
+        int numTrafficStreams = 8;
+        MockConsumer<String, byte[]> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        try (
+            var kafkaSource = new KafkaTrafficCaptureSource(
+                rootContext,
+                mockConsumer,
+                TEST_TOPIC_NAME,
+                Duration.ofHours(1)
+            )
+        ) {
+            initializeMockConsumerTopic(mockConsumer);
+            mockConsumer.schedulePollTask(() -> {
+                mockConsumer.rebalance(Collections.singletonList(new TopicPartition(TEST_TOPIC_NAME, 0)));
+                for (int i = 0; i < numTrafficStreams; ++i) {
+                    // every other record is large enough to be decoded off of the consumer's thread
+                    var payloadSize = (i % 2 == 0) ? KafkaTrafficCaptureSource.MIN_RECORD_SIZE_FOR_PARALLEL_DECODE : 10;
+                    var ts = TrafficStream.newBuilder()
+                        .setNodeId("testNode")
+                        .setConnectionId("connection" + i)
+                        .setNumberOfThisLastChunk(1)
+                        .addSubStream(
+                            TrafficObservation.newBuilder()
+                                .setTs(Timestamp.getDefaultInstance())
+                                .setRead(ReadObservation.newBuilder().setData(ByteString.copyFrom(new byte[payloadSize])))
+                        )
+                        .build();
+                    mockConsumer.addRecord(new ConsumerRecord<>(TEST_TOPIC_NAME, 0, i, "key" + i, ts.toByteArray()));
+                }
+            });
+
+            var connectionIds = new ArrayList<String>();
+            Assertions.assertTimeoutPreemptively(TEST_TIMEOUT, () -> {
+                while (connectionIds.size() < numTrafficStreams) {
+                    kafkaSource.readNextTrafficStreamChunk(rootContext::createReadChunkContext)
+                        .get()
+                        .forEach(streamWithKey -> connectionIds.add(streamWithKey.getStream().getConnectionId()));
+                }
+            });
+            for (int i = 0; i < numTrafficStreams; ++i) {
+                Assertions.assertEquals("connection" + i, connectionIds.get(i));
+            }
+        }
+    }
+
     @Test
     public void testSupplyTrafficFromSource() throws Exception {
         int numTrafficStreams = 10;
@@ -176,6 +226,62 @@ class KafkaTrafficCaptureSourceTest extends InstrumentationTest {
         }
     }
 
+    @Test
+    public void testRevokedShardsCloseTheirOpenConnections() throws Exception {
+        MockConsumer<String, byte[]> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        var partition0 = new TopicPartition(TEST_TOPIC_NAME, 0);
+        var partition1 = new TopicPartition(TEST_TOPIC_NAME, 1);
+        try (
+            var kafkaSource = new KafkaTrafficCaptureSource(
+                rootContext,
+                mockConsumer,
+                TEST_TOPIC_NAME,
+                Duration.ofHours(1),
+                Clock.systemUTC(),
+                new KafkaBehavioralPolicy(),
+                true
+            )
+        ) {
+            var beginningOffsets = new HashMap<TopicPartition, Long>();
+            beginningOffsets.put(partition0, 0L);
+            beginningOffsets.put(partition1, 0L);
+            mockConsumer.updateBeginningOffsets(beginningOffsets);
+
+            var openStream = makeTrafficStream(Instant.now(), "open", 1);
+            var closedStream = makeTrafficStream(Instant.now(), "closed", 1).toBuilder()
+                .setConnectionId("closedStreamId")
+                .addSubStream(TrafficObservation.newBuilder().setClose(CloseObservation.getDefaultInstance()))
+                .build();
+            mockConsumer.schedulePollTask(() -> {
+                mockConsumer.rebalance(List.of(partition0));
+                mockConsumer.addRecord(new ConsumerRecord<>(TEST_TOPIC_NAME, 0, 0, "k0", openStream.toByteArray()));
+                mockConsumer.addRecord(new ConsumerRecord<>(TEST_TOPIC_NAME, 0, 1, "k1", closedStream.toByteArray()));
+            });
+            var firstStreams = new ArrayList<ITrafficStreamWithKey>();
+            Assertions.assertTimeoutPreemptively(TEST_TIMEOUT, () -> {
+                while (firstStreams.size() < 2) {
+                    firstStreams.addAll(
+                        kafkaSource.readNextTrafficStreamChunk(rootContext::createReadChunkContext).get()
+                    );
+                }
+            });
+            Assertions.assertEquals(2, firstStreams.size());
+
+            mockConsumer.schedulePollTask(() -> mockConsumer.rebalance(List.of(partition1)));
+            var secondChunk = kafkaSource.readNextTrafficStreamChunk(rootContext::createReadChunkContext)
+                .get(TEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            Assertions.assertEquals(1, secondChunk.size());
+            var handedOffClose = secondChunk.get(0);
+            Assertions.assertEquals("testStreamId", handedOffClose.getStream().getConnectionId());
+            Assertions.assertTrue(handedOffClose.getStream().getSubStream(0).hasClose());
+            Assertions.assertEquals(2, handedOffClose.getKey().getTrafficStreamIndex());
+            Assertions.assertEquals(
+                ITrafficCaptureSource.CommitResult.IGNORED,
+                kafkaSource.commitTrafficStream(handedOffClose.getKey())
+            );
+        }
+    }
+
     @Test
     public void testBuildPropertiesBaseCase() throws IOException {
         Properties props = KafkaTrafficCaptureSource.buildKafkaProperties("brokers", "groupId", false, null);
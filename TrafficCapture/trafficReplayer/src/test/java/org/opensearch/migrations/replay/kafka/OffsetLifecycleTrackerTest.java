@@ -0,0 +1,57 @@
+package org.opensearch.migrations.replay.kafka;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OffsetLifecycleTrackerTest {
+    @Test
+    public void testHeadOnlyAdvancesWhenTheLowestOffsetIsRemoved() {
+        var tracker = new OffsetLifecycleTracker(1);
+        LongStream.range(0, 5).forEach(tracker::add);
+        Assertions.assertEquals(5, tracker.size());
+
+        Assertions.assertEquals(Optional.empty(), tracker.removeAndReturnNewHead(2));
+        Assertions.assertEquals(Optional.of(1L), tracker.removeAndReturnNewHead(0));
+        Assertions.assertEquals(Optional.of(3L), tracker.removeAndReturnNewHead(1));
+        Assertions.assertEquals(Optional.empty(), tracker.removeAndReturnNewHead(4));
+        Assertions.assertEquals(Optional.of(5L), tracker.removeAndReturnNewHead(3));
+        Assertions.assertTrue(tracker.isEmpty());
+        Assertions.assertEquals(0, tracker.size());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> tracker.removeAndReturnNewHead(3));
+    }
+
+    @Test
+    public void testConcurrentRemovalsEndAtTheOffsetAfterTheLastOne() throws Exception {
+        final int count = 10_000;
+        var tracker = new OffsetLifecycleTracker(1);
+        LongStream.range(0, count).forEach(tracker::add);
+        var offsets = LongStream.range(0, count).boxed().collect(Collectors.toCollection(ArrayList::new));
+        Collections.shuffle(offsets);
+
+        var highestReported = new AtomicLong(-1);
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var futures = offsets.stream()
+                .map(o -> CompletableFuture.runAsync(() -> tracker.removeAndReturnNewHead(o).ifPresent(head -> {
+                    Assertions.assertTrue(head > o);
+                    highestReported.accumulateAndGet(head, Math::max);
+                }), executor))
+                .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).get();
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(count, highestReported.get());
+        Assertions.assertTrue(tracker.isEmpty());
+    }
+}
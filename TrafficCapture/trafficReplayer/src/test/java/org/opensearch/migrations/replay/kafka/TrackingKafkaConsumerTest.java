@@ -0,0 +1,228 @@
+package org.opensearch.migrations.replay.kafka;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.opensearch.migrations.replay.datatypes.ITrafficStreamKey;
+import org.opensearch.migrations.replay.datatypes.PojoTrafficStreamKeyAndContext;
+import org.opensearch.migrations.replay.traffic.source.ITrafficCaptureSource;
+import org.opensearch.migrations.tracing.InstrumentationTest;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TrackingKafkaConsumerTest extends InstrumentationTest {
+    private static final String TEST_TOPIC_NAME = "TEST_TOPIC_NAME";
+    private static final TopicPartition PARTITION = new TopicPartition(TEST_TOPIC_NAME, 0);
+    private static final Duration COMMIT_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * Holds onto the callbacks of async commits so that each test decides when, and how, they complete.
+     * Synchronous commits go straight through to the MockConsumer.
+     */
+    private static class HeldCommitsConsumer extends MockConsumer<String, byte[]> {
+        final List<Map.Entry<Map<TopicPartition, OffsetAndMetadata>, OffsetCommitCallback>> heldAsyncCommits =
+            new ArrayList<>();
+        final List<Map<TopicPartition, OffsetAndMetadata>> syncCommits = new ArrayList<>();
+
+        HeldCommitsConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized void commitAsync(
+            Map<TopicPartition, OffsetAndMetadata> offsets,
+            OffsetCommitCallback callback
+        ) {
+            if (callback == null) {
+                super.commitAsync(offsets, null);
+            } else {
+                heldAsyncCommits.add(new AbstractMap.SimpleEntry<>(new HashMap<>(offsets), callback));
+            }
+        }
+
+        @Override
+        public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            syncCommits.add(new HashMap<>(offsets));
+            super.commitSync(offsets);
+        }
+
+        void completeAsyncCommit(int index, Exception e) {
+            var commit = heldAsyncCommits.get(index);
+            commit.getValue().onComplete(commit.getKey(), e);
+        }
+
+        long getAsyncCommitOffset(int index) {
+            return heldAsyncCommits.get(index).getKey().get(PARTITION).offset();
+        }
+    }
+
+    private static class SettableClock extends Clock {
+        Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private HeldCommitsConsumer mockConsumer;
+    private SettableClock clock;
+    private List<ITrafficStreamKey> committedKeys;
+    private TrackingKafkaConsumer trackingConsumer;
+
+    @BeforeEach
+    void setupConsumer() {
+        mockConsumer = new HeldCommitsConsumer();
+        mockConsumer.assign(List.of(PARTITION));
+        mockConsumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        clock = new SettableClock();
+        committedKeys = new ArrayList<>();
+        trackingConsumer = new TrackingKafkaConsumer(
+            rootContext,
+            mockConsumer,
+            TEST_TOPIC_NAME,
+            Duration.ofHours(1),
+            clock,
+            committedKeys::add,
+            partitions -> {},
+            COMMIT_INTERVAL,
+            TrackingKafkaConsumer.DEFAULT_MAX_RECORDS_PER_COMMIT
+        );
+        trackingConsumer.onPartitionsAssigned(List.of(PARTITION));
+    }
+
+    private List<KafkaCommitOffsetData> readRecords(int numRecords) {
+        for (int i = 0; i < numRecords; ++i) {
+            mockConsumer.addRecord(new ConsumerRecord<>(TEST_TOPIC_NAME, 0, i, "key" + i, new byte[0]));
+        }
+        return pollAndCommitIfDue();
+    }
+
+    /**
+     * Polls the consumer, which is also when the tracking consumer sends a commit (or doesn't).
+     */
+    private List<KafkaCommitOffsetData> pollAndCommitIfDue() {
+        try (var readContext = rootContext.createReadChunkContext()) {
+            return trackingConsumer.getNextBatchOfRecords(readContext, (offsetData, record) -> offsetData)
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static ITrafficStreamKey keyFor(KafkaCommitOffsetData offsetData) {
+        return PojoTrafficStreamKeyAndContext.build("testNode", "connection", (int) offsetData.getOffset(), k -> null);
+    }
+
+    private ITrafficCaptureSource.CommitResult finish(KafkaCommitOffsetData offsetData) {
+        return trackingConsumer.commitKafkaKey(keyFor(offsetData), offsetData);
+    }
+
+    @Test
+    public void testOnlyOneAsyncCommitIsInFlightAtATime() {
+        var records = readRecords(3);
+        Assertions.assertEquals(3, records.size());
+        Assertions.assertEquals(ITrafficCaptureSource.CommitResult.AFTER_NEXT_READ, finish(records.get(0)));
+        pollAndCommitIfDue();
+        Assertions.assertEquals(1, mockConsumer.heldAsyncCommits.size());
+        Assertions.assertEquals(1, mockConsumer.getAsyncCommitOffset(0));
+
+        finish(records.get(1));
+        finish(records.get(2));
+        clock.advance(COMMIT_INTERVAL.multipliedBy(2));
+        pollAndCommitIfDue();
+        Assertions.assertEquals(1, mockConsumer.heldAsyncCommits.size(), "the first commit is still in flight");
+        Assertions.assertEquals(List.of(), committedKeys);
+
+        mockConsumer.completeAsyncCommit(0, null);
+        Assertions.assertEquals(List.of(keyFor(records.get(0))), committedKeys);
+        pollAndCommitIfDue();
+        Assertions.assertEquals(2, mockConsumer.heldAsyncCommits.size());
+        Assertions.assertEquals(3, mockConsumer.getAsyncCommitOffset(1));
+        mockConsumer.completeAsyncCommit(1, null);
+        Assertions.assertEquals(records.stream().map(TrackingKafkaConsumerTest::keyFor).collect(Collectors.toList()),
+            committedKeys);
+        Assertions.assertTrue(mockConsumer.syncCommits.isEmpty());
+    }
+
+    @Test
+    public void testFailedCommitsAreMergedBackAndRetriedAfterABackoff() {
+        var records = readRecords(3);
+        finish(records.get(0));
+        pollAndCommitIfDue();
+        Assertions.assertEquals(1, mockConsumer.heldAsyncCommits.size());
+
+        mockConsumer.completeAsyncCommit(0, new RuntimeException("Simulated commit failure"));
+        Assertions.assertEquals(1, trackingConsumer.nextSetOfCommitsMap.get(PARTITION).offset());
+        Assertions.assertEquals(List.of(), committedKeys);
+
+        finish(records.get(1));
+        Assertions.assertEquals(2, trackingConsumer.nextSetOfCommitsMap.get(PARTITION).offset());
+        clock.advance(TrackingKafkaConsumer.COMMIT_RETRY_BACKOFF.dividedBy(2));
+        pollAndCommitIfDue();
+        Assertions.assertEquals(1, mockConsumer.heldAsyncCommits.size(), "the retry waits for the backoff");
+
+        clock.advance(TrackingKafkaConsumer.COMMIT_RETRY_BACKOFF);
+        pollAndCommitIfDue();
+        Assertions.assertEquals(2, mockConsumer.heldAsyncCommits.size());
+        Assertions.assertEquals(2, mockConsumer.getAsyncCommitOffset(1));
+        mockConsumer.completeAsyncCommit(1, null);
+        Assertions.assertEquals(List.of(keyFor(records.get(0)), keyFor(records.get(1))), committedKeys);
+        Assertions.assertTrue(trackingConsumer.nextSetOfCommitsMap.isEmpty());
+    }
+
+    @Test
+    public void testRevocationCommitsPendingOffsetsSynchronously() {
+        var records = readRecords(2);
+        finish(records.get(0));
+
+        trackingConsumer.onPartitionsRevoked(List.of(PARTITION));
+        Assertions.assertEquals(List.of(Map.of(PARTITION, new OffsetAndMetadata(1))), mockConsumer.syncCommits);
+        Assertions.assertTrue(mockConsumer.heldAsyncCommits.isEmpty());
+        Assertions.assertEquals(List.of(keyFor(records.get(0))), committedKeys);
+        // the partition belongs to another consumer now
+        Assertions.assertEquals(ITrafficCaptureSource.CommitResult.IGNORED, finish(records.get(1)));
+    }
+
+    @Test
+    public void testCloseCommitsPendingOffsetsSynchronously() {
+        var records = readRecords(3);
+        finish(records.get(0));
+        finish(records.get(1));
+
+        trackingConsumer.close();
+        Assertions.assertEquals(List.of(Map.of(PARTITION, new OffsetAndMetadata(2))), mockConsumer.syncCommits);
+        Assertions.assertTrue(mockConsumer.heldAsyncCommits.isEmpty());
+        Assertions.assertEquals(List.of(keyFor(records.get(0)), keyFor(records.get(1))), committedKeys);
+        Assertions.assertTrue(mockConsumer.closed());
+    }
+}
@@ -39,6 +39,7 @@ public class TracingTest extends InstrumentationTest {
                 try (var httpCtx = tskCtx.createHttpTransactionContext(urk, Instant.EPOCH)) {
                     try (var ctx = httpCtx.createRequestAccumulationContext()) {}
                     try (var ctx = httpCtx.createResponseAccumulationContext()) {}
+                    try (var ctx = httpCtx.createTransformationQueuedContext()) {}
                     try (var ctx = httpCtx.createTransformationContext()) {}
                     try (var ctx = httpCtx.createScheduledContext(Instant.now())) {}
                     try (var targetRequestCtx = httpCtx.createTargetRequestContext()) {
@@ -0,0 +1,57 @@
+package org.opensearch.migrations.replay.util;
+
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class IntKeyedRingBufferTest {
+
+    @Test
+    void testValuesSurviveGrowingAndWrappingAround() {
+        var ringBuffer = new IntKeyedRingBuffer<String>();
+        var expected = new TreeMap<Integer, String>();
+        // slide a window of keys that's wider than the initial capacity past many multiples of that capacity
+        for (int key = -50; key < 1000; ++key) {
+            ringBuffer.put(key, "v" + key);
+            expected.put(key, "v" + key);
+            if (key % 3 == 0) {
+                var oldest = expected.firstKey();
+                Assertions.assertEquals(expected.remove(oldest), ringBuffer.remove(oldest));
+            }
+            if (expected.size() > 20) {
+                var oldest = expected.firstKey();
+                Assertions.assertEquals(expected.remove(oldest), ringBuffer.remove(oldest));
+            }
+            Assertions.assertEquals(expected.size(), ringBuffer.size());
+            Assertions.assertEquals(expected.firstKey(), ringBuffer.firstKey());
+            Assertions.assertEquals(expected.lastKey(), ringBuffer.lastKey());
+        }
+        for (var kvp : expected.entrySet()) {
+            Assertions.assertEquals(kvp.getValue(), ringBuffer.get(kvp.getKey()));
+        }
+        Assertions.assertNull(ringBuffer.get(expected.firstKey() - 1));
+        Assertions.assertNull(ringBuffer.get(expected.lastKey() + 1));
+    }
+
+    @Test
+    void testKeysCanBeRemovedOutOfOrder() {
+        var ringBuffer = new IntKeyedRingBuffer<String>();
+        ringBuffer.put(7, "a");
+        ringBuffer.put(3, "b");
+        ringBuffer.put(5, "c");
+        Assertions.assertEquals("{3=b, 5=c, 7=a}", ringBuffer.toString());
+        Assertions.assertNull(ringBuffer.remove(4));
+        Assertions.assertEquals("a", ringBuffer.remove(7));
+        Assertions.assertEquals(5, ringBuffer.lastKey());
+        Assertions.assertEquals("b", ringBuffer.remove(3));
+        Assertions.assertEquals(5, ringBuffer.firstKey());
+        Assertions.assertEquals("c", ringBuffer.remove(5));
+        Assertions.assertTrue(ringBuffer.isEmpty());
+        Assertions.assertThrows(IllegalStateException.class, ringBuffer::lastKey);
+
+        ringBuffer.put(100, "d");
+        Assertions.assertEquals(100, ringBuffer.firstKey());
+        Assertions.assertEquals("d", ringBuffer.get(100));
+    }
+}
@@ -0,0 +1,156 @@
+package org.opensearch.migrations.replay.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.opensearch.migrations.replay.Accumulation;
+import org.opensearch.migrations.replay.datatypes.ChannelTaskType;
+import org.opensearch.migrations.replay.datatypes.PojoTrafficStreamKeyAndContext;
+import org.opensearch.migrations.replay.datatypes.TimeToResponseFulfillmentFutureMap;
+import org.opensearch.migrations.replay.traffic.expiration.BehavioralPolicy;
+import org.opensearch.migrations.replay.traffic.expiration.ExpiringTrafficStreamMap;
+import org.opensearch.migrations.tracing.TestContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Exercises the per-connection scheduling structures across as many connections as a busy replayer keeps
+ * open.  The TreeMap benchmark stages slots the way that OnlineRadixSorter used to, as a baseline for the
+ * ring buffer that replaced it.
+ */
+@BenchmarkMode({ Mode.Throughput })
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ReplaySchedulingStructuresBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Connections {
+        @Param({ "100000" })
+        public int numConnections;
+
+        List<TreeMap<Integer, Object>> treeMaps;
+        List<IntKeyedRingBuffer<Object>> ringBuffers;
+        List<OnlineRadixSorter> sorters;
+        List<TimeToResponseFulfillmentFutureMap> schedules;
+        int nextIndex;
+        int nextSorterIndex;
+
+        @Setup
+        public void setup() {
+            treeMaps = new ArrayList<>(numConnections);
+            ringBuffers = new ArrayList<>(numConnections);
+            sorters = new ArrayList<>(numConnections);
+            schedules = new ArrayList<>(numConnections);
+            for (int i = 0; i < numConnections; ++i) {
+                treeMaps.add(new TreeMap<>());
+                ringBuffers.add(new IntKeyedRingBuffer<>());
+                sorters.add(new OnlineRadixSorter(0));
+                var schedule = new TimeToResponseFulfillmentFutureMap();
+                // the only transmission is at the end, which is the worst case for scanning the queue
+                for (int j = 0; j < 16; ++j) {
+                    schedule.appendTaskTrigger(Instant.ofEpochSecond(j), ChannelTaskType.CLOSE);
+                }
+                schedule.appendTaskTrigger(Instant.ofEpochSecond(16), ChannelTaskType.TRANSMIT);
+                schedules.add(schedule);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExpiringConnections {
+        @Param({ "100000" })
+        public int numConnections;
+
+        TestContext rootContext;
+        ExpiringTrafficStreamMap expiringMap;
+        List<PojoTrafficStreamKeyAndContext> keys;
+        List<Accumulation> accumulations;
+        long nextSecond;
+
+        @Setup
+        public void setup() {
+            rootContext = TestContext.noOtelTracking();
+            expiringMap = new ExpiringTrafficStreamMap(Duration.ofSeconds(30), Duration.ofSeconds(1),
+                new BehavioralPolicy());
+            keys = new ArrayList<>(numConnections);
+            accumulations = new ArrayList<>(numConnections);
+            for (int i = 0; i < numConnections; ++i) {
+                var key = PojoTrafficStreamKeyAndContext.build("n", "c" + i, 0,
+                    rootContext::createTrafficStreamContextForTest);
+                keys.add(key);
+                accumulations.add(expiringMap.getOrCreateWithoutExpiration(key, k -> new Accumulation(key, 0)));
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            rootContext.close();
+        }
+    }
+
+    @Benchmark
+    public void stageOutOfOrderSlotsInTreeMaps(Connections connections) {
+        var index = connections.nextIndex;
+        connections.nextIndex += 2;
+        for (var map : connections.treeMaps) {
+            map.put(index + 1, map);
+            map.put(index, map);
+            map.remove(map.firstKey());
+            map.remove(map.firstKey());
+        }
+    }
+
+    @Benchmark
+    public void stageOutOfOrderSlotsInRingBuffers(Connections connections) {
+        var index = connections.nextIndex;
+        connections.nextIndex += 2;
+        for (var ringBuffer : connections.ringBuffers) {
+            ringBuffer.put(index + 1, ringBuffer);
+            ringBuffer.put(index, ringBuffer);
+            ringBuffer.remove(ringBuffer.firstKey());
+            ringBuffer.remove(ringBuffer.firstKey());
+        }
+    }
+
+    @Benchmark
+    public void sortOutOfOrderWork(Connections connections, Blackhole blackhole) {
+        var index = connections.nextSorterIndex;
+        connections.nextSorterIndex += 2;
+        for (var sorter : connections.sorters) {
+            blackhole.consume(sorter.addFutureForWork(index + 1, x -> x));
+            blackhole.consume(sorter.addFutureForWork(index, x -> x));
+        }
+    }
+
+    @Benchmark
+    public void checkForPendingTransmissions(Connections connections, Blackhole blackhole) {
+        for (var schedule : connections.schedules) {
+            blackhole.consume(schedule.hasPendingTransmissions());
+        }
+    }
+
+    @Benchmark
+    public void touchEveryConnectionOncePerSecond(ExpiringConnections connections) {
+        var timestamp = Instant.ofEpochSecond(++connections.nextSecond);
+        for (int i = 0; i < connections.numConnections; ++i) {
+            connections.expiringMap.expireOldEntries(
+                connections.keys.get(i),
+                connections.accumulations.get(i),
+                timestamp
+            );
+        }
+    }
+}
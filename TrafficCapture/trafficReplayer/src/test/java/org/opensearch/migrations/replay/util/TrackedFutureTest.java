@@ -4,6 +4,7 @@ import java.util.concurrent.Semaphore;
 
 import lombok.Lombok;
 import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 @Slf4j
@@ -41,4 +42,48 @@ class TrackedFutureTest {
         }
         log.atInfo().setMessage(() -> "final tf after any ancestor culls=" + finalTf).log();
     }
+
+    @Test
+    public void testLightweightFuturesDontKeepDiagnostics() throws Exception {
+        TrackedFutureDiagnostics.setEnabledByDefault(false, "testing");
+        try {
+            var base = new TextTrackedFuture<String>("initial future");
+            var derived = base.thenApply(v -> v + "!", () -> "derived")
+                .thenCompose(v -> TextTrackedFuture.completedFuture(v + "?", () -> "inner"), () -> "composed");
+            Assertions.assertFalse(derived.hasFullDiagnostics());
+            Assertions.assertNull(derived.getParentDiagnosticFuture());
+            Assertions.assertNull(derived.diagnosticSupplier.get());
+            base.future.complete("x");
+            Assertions.assertEquals("x!?", derived.get());
+        } finally {
+            TrackedFutureDiagnostics.setEnabledByDefault(true, "done testing");
+        }
+    }
+
+    @Test
+    public void testDiagnosticsAreInheritedFromFuturesThatHaveThem() throws Exception {
+        TrackedFutureDiagnostics.setEnabledByDefault(false, "testing");
+        try {
+            var base = TrackedFutureDiagnostics.withFullDiagnostics(
+                () -> new TextTrackedFuture<String>("initial future")
+            );
+            var innerFutureRef = new TrackedFuture[1];
+            var composed = base.thenCompose(v -> {
+                var inner = new TextTrackedFuture<String>("created by someone else");
+                innerFutureRef[0] = inner;
+                inner.future.complete(v + "!");
+                return inner;
+            }, () -> "composed");
+            Assertions.assertTrue(composed.hasFullDiagnostics());
+            Assertions.assertSame(base, composed.getParentDiagnosticFuture());
+            Assertions.assertEquals("composed", composed.diagnosticSupplier.get());
+
+            base.future.complete("x");
+            Assertions.assertEquals("x!", composed.get());
+            Assertions.assertTrue(innerFutureRef[0].hasFullDiagnostics());
+            Assertions.assertFalse(new TextTrackedFuture<String>("unrelated").hasFullDiagnostics());
+        } finally {
+            TrackedFutureDiagnostics.setEnabledByDefault(true, "done testing");
+        }
+    }
 }
@@ -27,6 +27,8 @@ public class TestCapturePacketToHttpHandler implements IPacketFinalizingConsumer
 
     @Getter
     private final AtomicInteger numConsumes;
+    @Getter
+    private Throwable abortCause;
     private final AggregatedRawResponse dummyAggregatedResponse;
     ByteArrayOutputStream byteArrayOutputStream;
 
@@ -74,6 +76,15 @@ public class TestCapturePacketToHttpHandler implements IPacketFinalizingConsumer
         return TextTrackedFuture.completedFuture(dummyAggregatedResponse, () -> "TestCapturePacketToHttpHandler.dummy");
     }
 
+    @Override
+    public TrackedFuture<String, AggregatedRawResponse> abortRequest(Throwable cause) {
+        numFinalizations.incrementAndGet();
+        Assertions.assertEquals(1, numFinalizations.get());
+        abortCause = cause;
+        bytesCaptured = byteArrayOutputStream.toByteArray();
+        return TextTrackedFuture.failedFuture(cause, () -> "TestCapturePacketToHttpHandler.abort");
+    }
+
     public String getCapturedAsString() {
         return new String(bytesCaptured, StandardCharsets.UTF_8);
 
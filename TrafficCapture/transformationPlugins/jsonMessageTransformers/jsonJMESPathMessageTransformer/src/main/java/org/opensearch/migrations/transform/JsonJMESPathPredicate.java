@@ -21,4 +21,9 @@ public class JsonJMESPathPredicate implements IJsonPredicate {
         log.atDebug().setMessage("output={}").addArgument(output).log();
         return (Boolean) output;
     }
+
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
 }
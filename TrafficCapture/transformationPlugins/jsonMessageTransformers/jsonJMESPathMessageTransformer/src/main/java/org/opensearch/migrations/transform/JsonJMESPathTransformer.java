@@ -21,4 +21,9 @@ public class JsonJMESPathTransformer implements IJsonTransformer {
         log.info("output=" + output);
         return (Map<String, Object>) output;
     }
+
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
 }
@@ -21,4 +21,9 @@ public class JsonJoltTransformer implements IJsonTransformer {
     public Map<String, Object> transformJson(Map<String, Object> incomingJson) {
         return (Map<String, Object>) this.spec.transform(incomingJson);
     }
+
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
 }
@@ -4,4 +4,10 @@ import java.util.Map;
 import java.util.function.Predicate;
 
 public interface IJsonPredicate extends Predicate<Map<String, Object>> {
+    /**
+     * @return true when the result of the test only depends upon the input.  See IJsonTransformer.isDeterministic()
+     */
+    default boolean isDeterministic() {
+        return false;
+    }
 }
@@ -8,4 +8,13 @@ import java.util.Map;
  */
 public interface IJsonTransformer {
     Map<String, Object> transformJson(Map<String, Object> incomingJson);
+
+    /**
+     * @return true when the output only depends upon the input (e.g. it doesn't use the time, random values,
+     * or any outside state), so that the result of transforming a message can be reused for an identical message.
+     * Implementations that can't guarantee that should leave this as false.
+     */
+    default boolean isDeterministic() {
+        return false;
+    }
 }
@@ -18,4 +18,8 @@ public class JsonCompositeTransformer implements IJsonTransformer {
         return lastOutput.get();
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return jsonTransformerList.stream().allMatch(IJsonTransformer::isDeterministic);
+    }
 }
@@ -18,4 +18,9 @@ public class JsonConditionalTransformer implements IJsonTransformer {
         }
         return incomingJson;
     }
+
+    @Override
+    public boolean isDeterministic() {
+        return jsonPredicate.isDeterministic() && jsonTransformer.isDeterministic();
+    }
 }
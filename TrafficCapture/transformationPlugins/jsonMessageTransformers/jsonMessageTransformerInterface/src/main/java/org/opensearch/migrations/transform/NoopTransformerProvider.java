@@ -8,6 +8,11 @@ public class NoopTransformerProvider implements IJsonTransformerProvider {
         public Map<String, Object> transformJson(Map<String, Object> incomingJson) {
             return incomingJson;
         }
+
+        @Override
+        public boolean isDeterministic() {
+            return true;
+        }
     }
 
     @Override
@@ -142,6 +142,11 @@ public class TransformationLoader {
             }
             return incomingJson;
         }
+
+        @Override
+        public boolean isDeterministic() {
+            return true;
+        }
     }
 
     @AllArgsConstructor
@@ -154,5 +159,10 @@ public class TransformationLoader {
             headers.replace("host", newHostName);
             return incomingJson;
         }
+
+        @Override
+        public boolean isDeterministic() {
+            return true;
+        }
     }
 }
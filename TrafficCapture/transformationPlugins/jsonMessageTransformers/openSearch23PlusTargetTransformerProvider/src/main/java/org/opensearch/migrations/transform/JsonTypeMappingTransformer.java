@@ -29,6 +29,11 @@ public class JsonTypeMappingTransformer implements IJsonTransformer {
         return transformHttpMessage(incomingJson);
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
     private Map<String, Object> transformHttpMessage(Map<String, Object> httpMsg) {
         var incomingMethod = httpMsg.get(JsonKeysForHttpMessage.METHOD_KEY);
         if ("GET".equals(incomingMethod)) {
@@ -1,21 +1,24 @@
 package org.opensearch.migrations.tracing;
 
-import java.util.Comparator;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.OptionalLong;
 import java.util.stream.Stream;
 
+/**
+ * Keeps track of all the scopes that are open so that the oldest ones can be reported.  See
+ * {@link StripedScopeSet} for how scopes are stored and how sampling works.
+ */
 public class ActiveContextTracker implements IContextTracker {
-    final ConcurrentSkipListSet<IScopedInstrumentationAttributes> orderedScopes;
+    final StripedScopeSet orderedScopes;
 
     public ActiveContextTracker() {
-        orderedScopes = makeScopeSkipList();
+        this(1);
     }
 
-    static ConcurrentSkipListSet<IScopedInstrumentationAttributes> makeScopeSkipList() {
-        return new ConcurrentSkipListSet<>(
-            Comparator.comparingLong(IWithStartTimeAndAttributes::getStartTimeNano)
-                .thenComparingInt(System::identityHashCode)
-        );
+    /**
+     * @param sampleOneIn keep only about 1 in this many scopes, though all of them are counted
+     */
+    public ActiveContextTracker(int sampleOneIn) {
+        orderedScopes = new StripedScopeSet(sampleOneIn);
     }
 
     @Override
@@ -28,11 +31,25 @@ public class ActiveContextTracker implements IContextTracker {
         orderedScopes.remove(scopedContext);
     }
 
+    /**
+     * @return the scopes that are being kept, oldest first
+     */
     public Stream<IScopedInstrumentationAttributes> getActiveScopesByAge() {
-        return orderedScopes.stream();
+        return orderedScopes.getScopesByAge();
     }
 
     public long size() {
         return orderedScopes.size();
     }
+
+    public boolean isSampling() {
+        return orderedScopes.isSampling();
+    }
+
+    /**
+     * @return the start time of the oldest open scope, including scopes that weren't sampled
+     */
+    public OptionalLong getOldestActiveStartTimeNano() {
+        return orderedScopes.getOldestStartTimeNano();
+    }
 }
@@ -1,36 +1,43 @@
 package org.opensearch.migrations.tracing;
 
-import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Stream;
 
 public class ActiveContextTrackerByActivityType implements IContextTracker {
-    final ConcurrentHashMap<
-        Class<IScopedInstrumentationAttributes>,
-        ConcurrentSkipListSet<IScopedInstrumentationAttributes>> orderedScopesByScopeType;
+    final ConcurrentHashMap<Class<IScopedInstrumentationAttributes>, StripedScopeSet> orderedScopesByScopeType;
+    private final int sampleOneIn;
 
     public ActiveContextTrackerByActivityType() {
+        this(1);
+    }
+
+    /**
+     * @param sampleOneIn keep only about 1 in this many scopes of each type, though all of them are counted
+     */
+    public ActiveContextTrackerByActivityType(int sampleOneIn) {
         orderedScopesByScopeType = new ConcurrentHashMap<>();
+        this.sampleOneIn = sampleOneIn;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public void onContextCreated(IScopedInstrumentationAttributes scopedContext) {
-        orderedScopesByScopeType.computeIfAbsent(
-            (Class<IScopedInstrumentationAttributes>) scopedContext.getClass(),
-            c -> ActiveContextTracker.makeScopeSkipList()
-        ).add(scopedContext);
+        var scopeType = (Class<IScopedInstrumentationAttributes>) scopedContext.getClass();
+        var scopesForType = orderedScopesByScopeType.get(scopeType);
+        if (scopesForType == null) {
+            scopesForType = orderedScopesByScopeType.computeIfAbsent(scopeType, c -> new StripedScopeSet(sampleOneIn));
+        }
+        scopesForType.add(scopedContext);
     }
 
     @Override
     public void onContextClosed(IScopedInstrumentationAttributes scopedContext) {
-        final var skipListByType = orderedScopesByScopeType.get(scopedContext.getClass());
-        assert skipListByType != null : "expected to have already added the scope to the collection, "
+        final var scopesForType = orderedScopesByScopeType.get(scopedContext.getClass());
+        assert scopesForType != null : "expected to have already added the scope to the collection, "
             + "so the top-level class mapping should be present";
-        skipListByType.remove(scopedContext);
+        scopesForType.remove(scopedContext);
     }
 
     public Stream<IScopedInstrumentationAttributes> getOldestActiveScopes(
@@ -38,7 +45,7 @@ public class ActiveContextTrackerByActivityType implements IContextTracker {
     ) {
         return Optional.ofNullable(orderedScopesByScopeType.getOrDefault(activityType, null))
             .stream()
-            .flatMap(Collection::stream);
+            .flatMap(StripedScopeSet::getScopesByAge);
     }
 
     public Stream<Class<IScopedInstrumentationAttributes>> getActiveScopeTypes() {
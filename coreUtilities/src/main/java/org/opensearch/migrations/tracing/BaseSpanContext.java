@@ -64,6 +64,12 @@ public abstract class BaseSpanContext<S extends IInstrumentConstructor>
 
     @Override
     public void addTraceException(Throwable e, boolean isPropagating) {
+        if (currentSpan != null && !currentSpan.getSpanContext().isValid()) {
+            var errorSpan = rootInstrumentationScope.buildSpanForSampledOutError(this, getActivityName());
+            if (errorSpan != null) {
+                currentSpan = errorSpan;
+            }
+        }
         IScopedInstrumentationAttributes.super.addTraceException(e, isPropagating);
         observedExceptionToIncludeInMetrics = e;
     }
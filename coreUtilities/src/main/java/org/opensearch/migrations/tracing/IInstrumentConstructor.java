@@ -8,4 +8,12 @@ import lombok.NonNull;
 public interface IInstrumentConstructor extends IContextTracker {
     @NonNull
     Span buildSpan(IScopedInstrumentationAttributes forScope, String spanName, Stream<Span> linkedSpans);
+
+    /**
+     * Called when an exception is added to a scope whose span wasn't sampled.
+     * @return a new span for the scope (starting when the scope started) or null if it should stay unsampled
+     */
+    default Span buildSpanForSampledOutError(IScopedInstrumentationAttributes forScope, String spanName) {
+        return null;
+    }
 }
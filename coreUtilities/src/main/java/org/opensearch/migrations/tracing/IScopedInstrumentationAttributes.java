@@ -66,7 +66,10 @@ public interface IScopedInstrumentationAttributes extends IWithStartTimeAndAttri
 
     default void endSpan(IContextTracker contextTracker) {
         var span = getCurrentSpan();
-        span.setAllAttributes(getPopulatedSpanAttributes());
+        // don't build the attributes for spans that weren't sampled
+        if (span.isRecording()) {
+            span.setAllAttributes(getPopulatedSpanAttributes());
+        }
         span.end();
         contextTracker.onContextClosed(this);
     }
@@ -8,7 +8,10 @@ public class NullableExemplarScope implements Scope {
     final Scope underlyingScope;
 
     public NullableExemplarScope(Span span) {
-        underlyingScope = span == null ? null : Context.current().with(span).makeCurrent();
+        // a span that wasn't sampled can't be an exemplar, so don't bother making it current
+        underlyingScope = span == null || !span.getSpanContext().isValid()
+            ? null
+            : Context.current().with(span).makeCurrent();
     }
 
     @Override
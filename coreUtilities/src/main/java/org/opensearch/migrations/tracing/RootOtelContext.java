@@ -20,6 +20,7 @@ import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
 import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
 import io.opentelemetry.semconv.ResourceAttributes;
 import lombok.Getter;
 import lombok.NonNull;
@@ -31,15 +32,39 @@ public class RootOtelContext implements IRootOtelContext {
     private final String scopeName;
     @Getter
     private final IContextTracker contextTracker;
+    @Getter
+    private final TraceSampling traceSampling;
 
     public static OpenTelemetry initializeOpenTelemetryForCollector(
         @NonNull String collectorEndpoint,
         @NonNull String serviceName,
         @NonNull String nodeName
     ) {
-        final var spanProcessor = BatchSpanProcessor.builder(
-            OtlpGrpcSpanExporter.builder().setEndpoint(collectorEndpoint).setTimeout(2, TimeUnit.SECONDS).build()
-        ).build();
+        return initializeOpenTelemetryForCollector(collectorEndpoint, serviceName, nodeName, true);
+    }
+
+    /**
+     * @param exportTraces when false, only metrics are sent to the collector and no span is ever sampled
+     */
+    public static OpenTelemetry initializeOpenTelemetryForCollector(
+        @NonNull String collectorEndpoint,
+        @NonNull String serviceName,
+        @NonNull String nodeName,
+        boolean exportTraces
+    ) {
+        var tracerProviderBuilder = SdkTracerProvider.builder()
+            .setResource(Resource.getDefault()
+                .toBuilder()
+                .put(ResourceAttributes.SERVICE_NAME, serviceName)
+                .put(ResourceAttributes.SERVICE_INSTANCE_ID, nodeName)
+                .build());
+        if (exportTraces) {
+            tracerProviderBuilder.addSpanProcessor(BatchSpanProcessor.builder(
+                OtlpGrpcSpanExporter.builder().setEndpoint(collectorEndpoint).setTimeout(2, TimeUnit.SECONDS).build()
+            ).build());
+        } else {
+            tracerProviderBuilder.setSampler(Sampler.alwaysOff());
+        }
         final var metricReader = PeriodicMetricReader.builder(
             OtlpGrpcMetricExporter.builder()
                 .setEndpoint(collectorEndpoint)
@@ -50,16 +75,7 @@ public class RootOtelContext implements IRootOtelContext {
         ).setInterval(Duration.ofMillis(1000)).build();
 
         var openTelemetrySdk = OpenTelemetrySdk.builder()
-            .setTracerProvider(
-                SdkTracerProvider.builder()
-                    .setResource(Resource.getDefault()
-                        .toBuilder()
-                        .put(ResourceAttributes.SERVICE_NAME, serviceName)
-                        .put(ResourceAttributes.SERVICE_INSTANCE_ID, nodeName)
-                        .build())
-                    .addSpanProcessor(spanProcessor)
-                    .build()
-            )
+            .setTracerProvider(tracerProviderBuilder.build())
             .setMeterProvider(
                 SdkMeterProvider.builder()
                     .setResource(Resource.getDefault()
@@ -90,9 +106,30 @@ public class RootOtelContext implements IRootOtelContext {
         String collectorEndpoint,
         @NonNull String serviceName,
         @NonNull String instanceName
+    ) {
+        return initializeOpenTelemetryWithCollectorOrAsNoop(
+            collectorEndpoint,
+            serviceName,
+            instanceName,
+            TraceSampling.SAMPLE_EVERYTHING
+        );
+    }
+
+    /**
+     * Like {@link #initializeOpenTelemetryWithCollectorOrAsNoop(String, String, String)}, but when traceSampling
+     * will never sample a span, only metrics are exported to the collector.  The same traceSampling should be
+     * passed to the RootOtelContext that uses the returned object so that it can skip building spans for
+     * sampled-out traces.
+     */
+    public static OpenTelemetry initializeOpenTelemetryWithCollectorOrAsNoop(
+        String collectorEndpoint,
+        @NonNull String serviceName,
+        @NonNull String instanceName,
+        @NonNull TraceSampling traceSampling
     ) {
         return Optional.ofNullable(collectorEndpoint)
-            .map(endpoint -> initializeOpenTelemetryForCollector(endpoint, serviceName, instanceName))
+            .map(endpoint -> initializeOpenTelemetryForCollector(endpoint, serviceName, instanceName,
+                !traceSampling.isMetricsOnly()))
             .orElseGet(() -> {
                 if (serviceName != null) {
                     log.atWarn()
@@ -131,9 +168,17 @@ public class RootOtelContext implements IRootOtelContext {
     }
 
     public RootOtelContext(String scopeName, IContextTracker contextTracker, @NonNull OpenTelemetry sdk) {
+        this(scopeName, contextTracker, sdk, TraceSampling.SAMPLE_EVERYTHING);
+    }
+
+    public RootOtelContext(String scopeName,
+                           IContextTracker contextTracker,
+                           @NonNull OpenTelemetry sdk,
+                           @NonNull TraceSampling traceSampling) {
         openTelemetryImpl = sdk;
         this.scopeName = scopeName;
         this.contextTracker = contextTracker;
+        this.traceSampling = traceSampling;
     }
 
     @Override
@@ -178,7 +223,24 @@ public class RootOtelContext implements IRootOtelContext {
     ) {
         var forEnclosingScope = forScope.getEnclosingScope();
         var parentSpan = forEnclosingScope == null ? null : forEnclosingScope.getCurrentSpan();
+        // children follow the decision that was made for their trace, which is only made for new traces
+        if (parentSpan == null ? !traceSampling.shouldSampleNewTrace() : !parentSpan.getSpanContext().isValid()) {
+            return Span.getInvalid();
+        }
         var spanBuilder = getOpenTelemetry().getTracer(scopeName).spanBuilder(spanName);
         return buildSpanWithParent(spanBuilder, parentSpan, linkedSpans);
     }
+
+    @Override
+    public Span buildSpanForSampledOutError(IScopedInstrumentationAttributes forScope, String spanName) {
+        if (!traceSampling.isSampleErrors()) {
+            return null;
+        }
+        // the enclosing spans weren't sampled either, so this starts a trace of its own
+        return getOpenTelemetry().getTracer(scopeName)
+            .spanBuilder(spanName)
+            .setNoParent()
+            .setStartTimestamp(forScope.getStartTimeInstant())
+            .startSpan();
+    }
 }
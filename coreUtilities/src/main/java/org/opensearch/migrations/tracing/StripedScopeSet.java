@@ -0,0 +1,173 @@
+package org.opensearch.migrations.tracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * The set of scopes that are open, split into stripes so that threads that open and close scopes at the
+ * same time rarely wait on each other.  Each stripe is an insertion-ordered set guarded by its own lock, so
+ * adding and removing a scope are O(1).  The stripes are only merged (and sorted by start time) when the
+ * scopes are read, which is expected to be rare (e.g. when an ActiveContextMonitor runs).
+ *
+ * When sampleOneIn is greater than 1, only about 1 in sampleOneIn scopes (chosen by their identity hash, so
+ * that the same choice is made when they're closed) are kept.  The others are only counted by the second
+ * that they started in, which keeps size() and getOldestStartTimeNano() accurate for all scopes.
+ */
+class StripedScopeSet {
+    private static final long UNSAMPLED_BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_STRIPES = 64;
+    private static final Comparator<IScopedInstrumentationAttributes> BY_START_TIME = Comparator.comparingLong(
+        IWithStartTimeAndAttributes::getStartTimeNano
+    ).thenComparingInt(System::identityHashCode);
+
+    private final int sampleOneIn;
+    private final LinkedHashSet<IScopedInstrumentationAttributes>[] stripes;
+    private final int stripeShift;
+    private final LongAdder sampledCount = new LongAdder();
+    private final LongAdder unsampledCount = new LongAdder();
+    private final ConcurrentSkipListMap<Long, LongAdder> unsampledCountsByStartBucket = new ConcurrentSkipListMap<>();
+
+    @SuppressWarnings("unchecked")
+    StripedScopeSet(int sampleOneIn) {
+        if (sampleOneIn < 1) {
+            throw new IllegalArgumentException("sampleOneIn must be at least 1, but was " + sampleOneIn);
+        }
+        this.sampleOneIn = sampleOneIn;
+        // a power of 2 that's at least 4 times the number of processors
+        var numStripes = Math.min(
+            MAX_STRIPES,
+            Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors() - 1) << 1
+        );
+        stripes = new LinkedHashSet[numStripes];
+        for (int i = 0; i < numStripes; ++i) {
+            stripes[i] = new LinkedHashSet<>();
+        }
+        stripeShift = 32 - Integer.numberOfTrailingZeros(numStripes);
+    }
+
+    boolean isSampling() {
+        return sampleOneIn > 1;
+    }
+
+    private boolean isSampled(IScopedInstrumentationAttributes scope) {
+        return sampleOneIn == 1 || Integer.remainderUnsigned(System.identityHashCode(scope), sampleOneIn) == 0;
+    }
+
+    private LinkedHashSet<IScopedInstrumentationAttributes> getStripe(IScopedInstrumentationAttributes scope) {
+        // mix the hash so that stripes aren't correlated with which scopes are sampled
+        return stripes[(System.identityHashCode(scope) * 0x9E3779B9) >>> stripeShift];
+    }
+
+    private static long getStartBucket(IScopedInstrumentationAttributes scope) {
+        return Math.floorDiv(scope.getStartTimeNano(), UNSAMPLED_BUCKET_NANOS);
+    }
+
+    void add(IScopedInstrumentationAttributes scope) {
+        if (isSampled(scope)) {
+            var stripe = getStripe(scope);
+            synchronized (stripe) {
+                stripe.add(scope);
+            }
+            sampledCount.increment();
+        } else {
+            var bucket = getStartBucket(scope);
+            var counter = unsampledCountsByStartBucket.get(bucket);
+            if (counter == null) {
+                counter = unsampledCountsByStartBucket.computeIfAbsent(bucket, k -> new LongAdder());
+                // this happens about once per second, so it's a good time to clean up
+                pruneEmptyUnsampledBuckets();
+            }
+            counter.increment();
+            unsampledCount.increment();
+        }
+    }
+
+    void remove(IScopedInstrumentationAttributes scope) {
+        if (isSampled(scope)) {
+            var stripe = getStripe(scope);
+            boolean removed;
+            synchronized (stripe) {
+                removed = stripe.remove(scope);
+            }
+            if (removed) {
+                sampledCount.decrement();
+            }
+        } else {
+            var counter = unsampledCountsByStartBucket.get(getStartBucket(scope));
+            if (counter != null) {
+                counter.decrement();
+                unsampledCount.decrement();
+            }
+        }
+    }
+
+    /**
+     * @return the scopes that are kept (all of them, unless sampling), oldest first
+     */
+    Stream<IScopedInstrumentationAttributes> getScopesByAge() {
+        var snapshot = new ArrayList<IScopedInstrumentationAttributes>((int) Math.max(0, sampledCount.sum()));
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                snapshot.addAll(stripe);
+            }
+        }
+        snapshot.sort(BY_START_TIME);
+        return snapshot.stream();
+    }
+
+    /**
+     * @return the number of open scopes, including those that weren't sampled
+     */
+    long size() {
+        return sampledCount.sum() + unsampledCount.sum();
+    }
+
+    boolean isEmpty() {
+        return size() <= 0;
+    }
+
+    /**
+     * @return the start time of the oldest open scope, to within a second for scopes that weren't sampled
+     */
+    OptionalLong getOldestStartTimeNano() {
+        long oldest = Long.MAX_VALUE;
+        boolean found = false;
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                for (var scope : stripe) {
+                    oldest = Math.min(oldest, scope.getStartTimeNano());
+                    found = true;
+                }
+            }
+        }
+        var oldestUnsampledBucket = pruneEmptyUnsampledBuckets();
+        if (oldestUnsampledBucket != null) {
+            oldest = Math.min(oldest, oldestUnsampledBucket * UNSAMPLED_BUCKET_NANOS);
+            found = true;
+        }
+        return found ? OptionalLong.of(oldest) : OptionalLong.empty();
+    }
+
+    /**
+     * Removes the buckets of unsampled scopes that have all been closed, except for recent ones, which
+     * scopes may still be added to.
+     * @return the oldest bucket that still has open scopes, or null
+     */
+    private Long pruneEmptyUnsampledBuckets() {
+        var newestPrunableBucket = Math.floorDiv(System.nanoTime(), UNSAMPLED_BUCKET_NANOS) - 2;
+        for (var kvp : unsampledCountsByStartBucket.entrySet()) {
+            if (kvp.getValue().sum() > 0) {
+                return kvp.getKey();
+            } else if (kvp.getKey() <= newestPrunableBucket) {
+                unsampledCountsByStartBucket.remove(kvp.getKey(), kvp.getValue());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+package org.opensearch.migrations.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.Getter;
+
+/**
+ * Decides which traces a RootOtelContext records spans for.  This is independent of metrics - the metric
+ * instruments of every context record values whether or not its span was sampled.
+ *
+ * The decision is made once, when a context without an enclosing span is created, and every context below
+ * it follows that decision.  Contexts that aren't sampled use {@link io.opentelemetry.api.trace.Span#getInvalid()}
+ * rather than a new (non-recording) span, so sampled-out work doesn't allocate span objects or the
+ * attributes for them.  When sampleErrors is set, a context that wasn't sampled still gets a span of its own
+ * once an exception is added to it.
+ */
+@Getter
+public class TraceSampling {
+    public static final TraceSampling SAMPLE_EVERYTHING = new TraceSampling(1.0, true);
+    public static final TraceSampling METRICS_ONLY = new TraceSampling(0.0, false);
+
+    private final double ratio;
+    private final boolean sampleErrors;
+
+    private TraceSampling(double ratio, boolean sampleErrors) {
+        this.ratio = ratio;
+        this.sampleErrors = sampleErrors;
+    }
+
+    /**
+     * @param ratio the fraction (0-1) of traces to record spans for
+     * @param sampleErrors also record spans for contexts (that weren't sampled) when they observe an exception
+     */
+    public static TraceSampling of(double ratio, boolean sampleErrors) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("The trace sampling ratio must be between 0 and 1, but was " + ratio);
+        }
+        if (ratio == 1.0 && sampleErrors) {
+            return SAMPLE_EVERYTHING;
+        } else if (ratio == 0.0 && !sampleErrors) {
+            return METRICS_ONLY;
+        }
+        return new TraceSampling(ratio, sampleErrors);
+    }
+
+    /**
+     * @return true when no spans will ever be recorded, so that traces don't need to be exported at all
+     */
+    public boolean isMetricsOnly() {
+        return ratio <= 0 && !sampleErrors;
+    }
+
+    boolean shouldSampleNewTrace() {
+        return ratio >= 1 || (ratio > 0 && ThreadLocalRandom.current().nextDouble() < ratio);
+    }
+
+    @Override
+    public String toString() {
+        return "TraceSampling{ratio=" + ratio + ", sampleErrors=" + sampleErrors + "}";
+    }
+}
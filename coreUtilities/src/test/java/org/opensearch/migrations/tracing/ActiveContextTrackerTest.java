@@ -0,0 +1,82 @@
+package org.opensearch.migrations.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActiveContextTrackerTest {
+
+    private static IScopedInstrumentationAttributes makeScope(long startTimeNano) {
+        var scope = mock(IScopedInstrumentationAttributes.class);
+        when(scope.getStartTimeNano()).thenReturn(startTimeNano);
+        return scope;
+    }
+
+    @Test
+    void testScopesAreReportedOldestFirst() {
+        var tracker = new ActiveContextTracker();
+        var now = System.nanoTime();
+        var scopes = new ArrayList<IScopedInstrumentationAttributes>();
+        // add them out of order, from several threads' worth of stripes
+        for (int i = 0; i < 100; ++i) {
+            scopes.add(makeScope(now - ((i * 37L) % 100) * 1000));
+        }
+        scopes.forEach(tracker::onContextCreated);
+        for (int i = 0; i < scopes.size(); i += 2) {
+            tracker.onContextClosed(scopes.get(i));
+        }
+
+        Assertions.assertEquals(50, tracker.size());
+        var startTimes = tracker.getActiveScopesByAge()
+            .map(IWithStartTimeAndAttributes::getStartTimeNano)
+            .collect(Collectors.toList());
+        Assertions.assertEquals(50, startTimes.size());
+        Assertions.assertEquals(startTimes.stream().sorted().collect(Collectors.toList()), startTimes);
+        Assertions.assertEquals(startTimes.get(0), tracker.getOldestActiveStartTimeNano().getAsLong());
+    }
+
+    @Test
+    void testSampledTrackerStillCountsEveryScopeAndKnowsTheOldest() {
+        var tracker = new ActiveContextTracker(8);
+        Assertions.assertTrue(tracker.isSampling());
+        var now = System.nanoTime();
+        var oldScope = makeScope(now - 10_000_000_000L);
+        var scopes = new ArrayList<>(List.of(oldScope));
+        for (int i = 0; i < 1000; ++i) {
+            scopes.add(makeScope(now));
+        }
+        scopes.forEach(tracker::onContextCreated);
+
+        Assertions.assertEquals(1001, tracker.size());
+        var numKept = tracker.getActiveScopesByAge().count();
+        Assertions.assertTrue(numKept > 0 && numKept < 1001, "kept " + numKept);
+        // accurate to the second, whether or not the old scope was one of the ones that was kept
+        var oldestStartTime = tracker.getOldestActiveStartTimeNano().getAsLong();
+        Assertions.assertTrue(oldestStartTime <= oldScope.getStartTimeNano());
+        Assertions.assertTrue(oldestStartTime > oldScope.getStartTimeNano() - 1_000_000_000L);
+
+        scopes.forEach(tracker::onContextClosed);
+        Assertions.assertEquals(0, tracker.size());
+        Assertions.assertEquals(0, tracker.getActiveScopesByAge().count());
+    }
+
+    @Test
+    void testScopesAreTrackedByType() {
+        var tracker = new ActiveContextTrackerByActivityType();
+        var scope = makeScope(System.nanoTime());
+        tracker.onContextCreated(scope);
+        var types = tracker.getActiveScopeTypes().collect(Collectors.toList());
+        Assertions.assertEquals(1, types.size());
+        Assertions.assertEquals(1, tracker.numScopesFor(types.get(0)));
+        Assertions.assertEquals(List.of(scope), tracker.getOldestActiveScopes(types.get(0)).collect(Collectors.toList()));
+
+        tracker.onContextClosed(scope);
+        Assertions.assertEquals(0, tracker.getActiveScopeTypes().count());
+    }
+}
@@ -0,0 +1,152 @@
+package org.opensearch.migrations.tracing;
+
+import java.util.stream.Collectors;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TraceSamplingTest {
+
+    private static class TopContext extends BaseSpanContext<RootOtelContext> {
+        private final CommonScopedMetricInstruments metrics;
+
+        TopContext(RootOtelContext rootScope, CommonScopedMetricInstruments metrics) {
+            super(rootScope);
+            this.metrics = metrics;
+            initializeSpan(rootScope);
+        }
+
+        @Override
+        public String getActivityName() {
+            return "top";
+        }
+
+        @Override
+        public IScopedInstrumentationAttributes getEnclosingScope() {
+            return null;
+        }
+
+        @Override
+        public CommonScopedMetricInstruments getMetrics() {
+            return metrics;
+        }
+    }
+
+    private static class ChildContext extends BaseNestedSpanContext<RootOtelContext, TopContext> {
+        ChildContext(RootOtelContext rootScope, TopContext enclosingScope) {
+            super(rootScope, enclosingScope);
+            initializeSpan();
+        }
+
+        @Override
+        public String getActivityName() {
+            return "child";
+        }
+
+        @Override
+        public CommonScopedMetricInstruments getMetrics() {
+            return enclosingScope.getMetrics();
+        }
+    }
+
+    @Test
+    void testSampledOutContextsStillRecordMetricsWithoutSpans() {
+        try (var bundle = new InMemoryInstrumentationBundle(true, true)) {
+            var rootCtx = new RootOtelContext(
+                "test",
+                IContextTracker.DO_NOTHING_TRACKER,
+                bundle.getOpenTelemetrySdk(),
+                TraceSampling.of(0.0, true)
+            );
+            var metrics = new CommonScopedMetricInstruments(bundle.getOpenTelemetrySdk().getMeter("test"), "sampled");
+            for (int i = 0; i < 10; ++i) {
+                var top = new TopContext(rootCtx, metrics);
+                var child = new ChildContext(rootCtx, top);
+                Assertions.assertSame(Span.getInvalid(), top.getCurrentSpan());
+                Assertions.assertSame(Span.getInvalid(), child.getCurrentSpan());
+                child.close();
+                top.close();
+            }
+
+            Assertions.assertEquals(0, bundle.getFinishedSpans().size());
+            Assertions.assertEquals(
+                20,
+                InMemoryInstrumentationBundle.getMetricValueOrZero(bundle.getFinishedMetrics(), "sampledCount")
+            );
+        }
+    }
+
+    @Test
+    void testSampledOutContextsGetSpansForErrors() {
+        try (var bundle = new InMemoryInstrumentationBundle(true, true)) {
+            var rootCtx = new RootOtelContext(
+                "test",
+                IContextTracker.DO_NOTHING_TRACKER,
+                bundle.getOpenTelemetrySdk(),
+                TraceSampling.of(0.0, true)
+            );
+            var metrics = new CommonScopedMetricInstruments(bundle.getOpenTelemetrySdk().getMeter("test"), "sampled");
+            var top = new TopContext(rootCtx, metrics);
+            var child = new ChildContext(rootCtx, top);
+            child.addCaughtException(new IllegalStateException("boom"));
+            Assertions.assertTrue(child.getCurrentSpan().getSpanContext().isValid());
+            Assertions.assertSame(Span.getInvalid(), top.getCurrentSpan());
+            child.close();
+            top.close();
+
+            var spans = bundle.getFinishedSpans();
+            Assertions.assertEquals(
+                "child",
+                spans.stream().map(SpanData::getName).collect(Collectors.joining(","))
+            );
+            Assertions.assertEquals(1, spans.get(0).getEvents().size());
+            Assertions.assertEquals(
+                1,
+                InMemoryInstrumentationBundle.getMetricValueOrZero(
+                    bundle.getFinishedMetrics(),
+                    "sampledExceptionCount"
+                )
+            );
+        }
+    }
+
+    @Test
+    void testChildrenFollowTheirTracesDecision() {
+        try (var bundle = new InMemoryInstrumentationBundle(true, false)) {
+            var rootCtx = new RootOtelContext(
+                "test",
+                IContextTracker.DO_NOTHING_TRACKER,
+                bundle.getOpenTelemetrySdk(),
+                TraceSampling.of(0.5, false)
+            );
+            int numSampled = 0;
+            for (int i = 0; i < 200; ++i) {
+                var top = new TopContext(rootCtx, null);
+                var child = new ChildContext(rootCtx, top);
+                var topIsSampled = top.getCurrentSpan().getSpanContext().isValid();
+                Assertions.assertEquals(topIsSampled, child.getCurrentSpan().getSpanContext().isValid());
+                if (topIsSampled) {
+                    Assertions.assertEquals(
+                        top.getCurrentSpan().getSpanContext().getTraceId(),
+                        child.getCurrentSpan().getSpanContext().getTraceId()
+                    );
+                    ++numSampled;
+                }
+                child.getCurrentSpan().end();
+                top.getCurrentSpan().end();
+            }
+            Assertions.assertTrue(numSampled > 0 && numSampled < 200, "sampled " + numSampled);
+            Assertions.assertEquals(2 * numSampled, bundle.getFinishedSpans().size());
+        }
+    }
+
+    @Test
+    void testRatioMustBeAFraction() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TraceSampling.of(1.5, true));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TraceSampling.of(-0.1, true));
+        Assertions.assertTrue(TraceSampling.of(0, false).isMetricsOnly());
+        Assertions.assertFalse(TraceSampling.of(0, true).isMetricsOnly());
+    }
+}